@@ -0,0 +1,103 @@
+/*
+ * Copyright 2018 Geoff Bourne
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package me.itzg.spring.security.spa.benchmarks;
+
+import me.itzg.spring.security.spa.ExactPathRequestMatcher;
+import me.itzg.spring.security.spa.RegistrationFilter;
+import me.itzg.spring.security.spa.RequestBodyLoginFilter;
+import me.itzg.spring.security.spa.SinglePageAppDispatchFilter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the per-request cost that the login and registration endpoints add to requests they don't process,
+ * such as for static assets, when installed as separate filters versus one {@link SinglePageAppDispatchFilter}.
+ *
+ * @author Geoff Bourne
+ * @since Oct 2026
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DispatchFilterBenchmark {
+
+    @Param({"GET", "POST"})
+    public String method;
+
+    private final MockHttpServletResponse resp = new MockHttpServletResponse();
+    private MockHttpServletRequest req;
+    private RegistrationFilter registrationFilter;
+    private RequestBodyLoginFilter loginFilter;
+    private SinglePageAppDispatchFilter dispatchFilter;
+
+    @Setup
+    public void setup() {
+        req = new MockHttpServletRequest(method, "/static/js/app.js");
+        req.setServletPath("/static/js/app.js");
+
+        registrationFilter = new RegistrationFilter(RegistrationFilter.DEFAULT_PROCESSES_URL,
+                new InMemoryUserDetailsManager(), Fixtures.jsonConverters(), Fixtures.passwordEncoder("noop"));
+        loginFilter = new RequestBodyLoginFilter(authentication -> authentication, Fixtures.jsonConverters());
+
+        final RegistrationFilter dispatchedRegistration = new RegistrationFilter(
+                RegistrationFilter.DEFAULT_PROCESSES_URL,
+                new InMemoryUserDetailsManager(), Fixtures.jsonConverters(), Fixtures.passwordEncoder("noop"));
+        final RequestBodyLoginFilter dispatchedLogin =
+                new RequestBodyLoginFilter(authentication -> authentication, Fixtures.jsonConverters());
+        final ExactPathRequestMatcher registerMatcher =
+                new ExactPathRequestMatcher(RegistrationFilter.DEFAULT_PROCESSES_URL, "POST");
+        final ExactPathRequestMatcher loginMatcher =
+                new ExactPathRequestMatcher(RequestBodyLoginFilter.DEFAULT_PROCESSES_URL, "POST");
+        dispatchedRegistration.setRequiresAuthenticationRequestMatcher(registerMatcher);
+        dispatchedLogin.setRequiresAuthenticationRequestMatcher(loginMatcher);
+        dispatchFilter = new SinglePageAppDispatchFilter()
+                .addEndpoint(registerMatcher, dispatchedRegistration)
+                .addEndpoint(loginMatcher, dispatchedLogin);
+    }
+
+    @Benchmark
+    public void separateFilters(Blackhole blackhole) throws IOException, ServletException {
+        final FilterChain end = (request, response) -> blackhole.consume(request);
+        registrationFilter.doFilter(req, resp, (request, response) -> loginFilter.doFilter(request, response, end));
+    }
+
+    @Benchmark
+    public void dispatchFilter(Blackhole blackhole) throws IOException, ServletException {
+        dispatchFilter.doFilter(req, resp, (request, response) -> blackhole.consume(request));
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2018 Geoff Bourne
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package me.itzg.spring.security.spa.benchmarks;
+
+import me.itzg.spring.security.spa.SimpleAuthenticationFailureHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.BadCredentialsException;
+
+import javax.servlet.ServletException;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the response writing of {@link SimpleAuthenticationFailureHandler}, which is the highest volume
+ * path during credential stuffing.
+ *
+ * @author Geoff Bourne
+ * @since Oct 2026
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FailureHandlerBenchmark {
+
+    private final SimpleAuthenticationFailureHandler handler = new SimpleAuthenticationFailureHandler();
+    private final SimpleAuthenticationFailureHandler jsonHandler = new SimpleAuthenticationFailureHandler()
+            .setJsonBody(true);
+    private final MockHttpServletRequest req = new MockHttpServletRequest("POST", "/login");
+    private final BadCredentialsException exception = new BadCredentialsException("Bad credentials");
+
+    @Benchmark
+    public MockHttpServletResponse badCredentials() throws IOException, ServletException {
+        final MockHttpServletResponse resp = new MockHttpServletResponse();
+        handler.onAuthenticationFailure(req, resp, exception);
+        return resp;
+    }
+
+    @Benchmark
+    public MockHttpServletResponse jsonBadCredentials() throws IOException, ServletException {
+        final MockHttpServletResponse resp = new MockHttpServletResponse();
+        jsonHandler.onAuthenticationFailure(req, resp, exception);
+        return resp;
+    }
+}
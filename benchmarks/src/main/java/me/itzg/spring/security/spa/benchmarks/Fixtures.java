@@ -0,0 +1,68 @@
+/*
+ * Copyright 2018 Geoff Bourne
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package me.itzg.spring.security.spa.benchmarks;
+
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.NoOpPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+/**
+ * Builds the objects shared by the benchmarks.
+ *
+ * @author Geoff Bourne
+ * @since Oct 2026
+ */
+final class Fixtures {
+
+    private Fixtures() {
+    }
+
+    static HttpMessageConverters jsonConverters() {
+        return new HttpMessageConverters(false,
+                Collections.singletonList(new MappingJackson2HttpMessageConverter()));
+    }
+
+    /**
+     * @param encoder one of <code>noop</code> or <code>bcrypt-</code> followed by the log rounds
+     */
+    @SuppressWarnings("deprecation")
+    static PasswordEncoder passwordEncoder(String encoder) {
+        if (encoder.equals("noop")) {
+            return NoOpPasswordEncoder.getInstance();
+        } else if (encoder.startsWith("bcrypt-")) {
+            return new BCryptPasswordEncoder(Integer.parseInt(encoder.substring("bcrypt-".length())));
+        } else {
+            throw new IllegalArgumentException("Unknown encoder: " + encoder);
+        }
+    }
+
+    static MockHttpServletRequest jsonRequest(String path, String username, String password) {
+        final MockHttpServletRequest req = new MockHttpServletRequest("POST", path);
+        req.setServletPath(path);
+        req.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        req.setContent(("{\"username\":\"" + username + "\",\"password\":\"" + password + "\"}")
+                .getBytes(StandardCharsets.UTF_8));
+        return req;
+    }
+}
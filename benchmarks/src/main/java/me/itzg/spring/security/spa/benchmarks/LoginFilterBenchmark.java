@@ -0,0 +1,112 @@
+/*
+ * Copyright 2018 Geoff Bourne
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package me.itzg.spring.security.spa.benchmarks;
+
+import me.itzg.spring.security.spa.RequestBodyLoginFilter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+
+import javax.servlet.ServletException;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures complete invocations of {@link RequestBodyLoginFilter} against an in-memory user store, for both
+ * successful and failed logins, across password encoder strengths.
+ *
+ * @author Geoff Bourne
+ * @since Oct 2026
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoginFilterBenchmark {
+
+    @Param({"noop", "bcrypt-4", "bcrypt-10"})
+    public String encoder;
+
+    private RequestBodyLoginFilter filter;
+
+    @State(Scope.Thread)
+    public static class Requests {
+        MockHttpServletRequest good;
+        MockHttpServletRequest bad;
+
+        @Setup
+        public void setUp() {
+            good = Fixtures.jsonRequest("/login", "user", "password");
+            bad = Fixtures.jsonRequest("/login", "user", "wrong");
+        }
+
+        @TearDown
+        public void tearDown() {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        final PasswordEncoder passwordEncoder = Fixtures.passwordEncoder(encoder);
+        final InMemoryUserDetailsManager userDetailsManager = new InMemoryUserDetailsManager(
+                User.withUsername("user").password(passwordEncoder.encode("password")).roles("USER").build());
+
+        final DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+        provider.setUserDetailsService(userDetailsManager);
+        provider.setPasswordEncoder(passwordEncoder);
+
+        filter = new RequestBodyLoginFilter(new ProviderManager(Collections.singletonList(provider)),
+                Fixtures.jsonConverters());
+        filter.afterPropertiesSet();
+    }
+
+    @Benchmark
+    public MockHttpServletResponse success(Requests requests) throws IOException, ServletException {
+        final MockHttpServletResponse resp = new MockHttpServletResponse();
+        filter.doFilter(requests.good, resp, new MockFilterChain());
+        return resp;
+    }
+
+    @Benchmark
+    public MockHttpServletResponse badPassword(Requests requests) throws IOException, ServletException {
+        final MockHttpServletResponse resp = new MockHttpServletResponse();
+        filter.doFilter(requests.bad, resp, new MockFilterChain());
+        return resp;
+    }
+}
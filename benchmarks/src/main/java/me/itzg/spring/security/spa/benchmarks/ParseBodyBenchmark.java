@@ -0,0 +1,81 @@
+/*
+ * Copyright 2018 Geoff Bourne
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package me.itzg.spring.security.spa.benchmarks;
+
+import me.itzg.spring.security.spa.ConverterHelper;
+import me.itzg.spring.security.spa.Credentials;
+import me.itzg.spring.security.spa.StreamingCredentialsParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares parsing the credentials request body via {@link ConverterHelper#parseBody} and Jackson with
+ * {@link StreamingCredentialsParser}. Run with <code>-prof gc</code> to compare the bytes allocated per request.
+ *
+ * @author Geoff Bourne
+ * @since Oct 2026
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParseBodyBenchmark {
+
+    private ConverterHelper converterHelper;
+    private StreamingCredentialsParser streamingParser;
+
+    @State(Scope.Thread)
+    public static class Request {
+        // the mock request hands out a new stream over the same content for each read
+        MockHttpServletRequest req;
+
+        @Setup
+        public void setUp() {
+            req = Fixtures.jsonRequest("/login", "user", "password");
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        converterHelper = new ConverterHelper(Fixtures.jsonConverters());
+        streamingParser = new StreamingCredentialsParser();
+    }
+
+    @Benchmark
+    public Credentials converterHelper(Request request) throws IOException {
+        return converterHelper.parseBody(request.req, Credentials.class);
+    }
+
+    @Benchmark
+    public Credentials streamingParser(Request request) throws IOException {
+        return streamingParser.parse(request.req);
+    }
+}
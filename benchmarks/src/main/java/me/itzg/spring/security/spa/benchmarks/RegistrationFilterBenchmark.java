@@ -0,0 +1,98 @@
+/*
+ * Copyright 2018 Geoff Bourne
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package me.itzg.spring.security.spa.benchmarks;
+
+import me.itzg.spring.security.spa.RegistrationFilter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+
+import javax.servlet.ServletException;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures complete invocations of {@link RegistrationFilter} against an in-memory user store, for both new
+ * and already existing usernames, across password encoder strengths. The user store is replaced at each
+ * iteration so it doesn't grow without bound.
+ *
+ * @author Geoff Bourne
+ * @since Oct 2026
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RegistrationFilterBenchmark {
+
+    @Param({"noop", "bcrypt-4", "bcrypt-10"})
+    public String encoder;
+
+    private final AtomicLong sequence = new AtomicLong();
+    private RegistrationFilter filter;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        final InMemoryUserDetailsManager userDetailsManager = new InMemoryUserDetailsManager(
+                User.withUsername("user").password("{noop}password").roles("USER").build());
+
+        filter = new RegistrationFilter(userDetailsManager, Fixtures.jsonConverters(),
+                Fixtures.passwordEncoder(encoder));
+        // registration authenticates the new user itself, so the manager is never consulted
+        filter.setAuthenticationManager(authentication -> authentication);
+        filter.afterPropertiesSet();
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Benchmark
+    public MockHttpServletResponse newUser() throws IOException, ServletException {
+        final MockHttpServletResponse resp = new MockHttpServletResponse();
+        filter.doFilter(Fixtures.jsonRequest("/register", "user-" + sequence.incrementAndGet(), "password"),
+                resp, new MockFilterChain());
+        return resp;
+    }
+
+    @Benchmark
+    public MockHttpServletResponse existingUser() throws IOException, ServletException {
+        final MockHttpServletResponse resp = new MockHttpServletResponse();
+        filter.doFilter(Fixtures.jsonRequest("/register", "user", "password"),
+                resp, new MockFilterChain());
+        return resp;
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2018 Geoff Bourne
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package me.itzg.spring.security.spa.benchmarks;
+
+import me.itzg.spring.security.spa.AuthenticationCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.core.userdetails.User;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link AuthenticationCodec} with the Java serialization that replicated session stores otherwise
+ * apply to the security context of every logged in session. The encoded sizes are printed during setup.
+ *
+ * @author Geoff Bourne
+ * @since Oct 2026
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SessionCodecBenchmark {
+
+    private final AuthenticationCodec codec = new AuthenticationCodec("ROLE_USER", "ROLE_ADMIN");
+    private SecurityContext context;
+    private byte[] compact;
+    private byte[] serialized;
+
+    @Setup
+    public void setUp() throws IOException {
+        final User user = new User("user@example.com", "password",
+                AuthorityUtils.createAuthorityList("ROLE_USER"));
+        user.eraseCredentials();
+        context = new SecurityContextImpl(
+                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+        compact = codec.encode(context.getAuthentication());
+        serialized = serialize(context);
+        System.out.printf("%nEncoded sizes: compact=%d bytes, serialized=%d bytes%n",
+                compact.length, serialized.length);
+    }
+
+    @Benchmark
+    public byte[] compactEncode() {
+        return codec.encode(context.getAuthentication());
+    }
+
+    @Benchmark
+    public Authentication compactDecode() {
+        return codec.decode(compact);
+    }
+
+    @Benchmark
+    public byte[] serializedEncode() throws IOException {
+        return serialize(context);
+    }
+
+    @Benchmark
+    public Object serializedDecode() throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(serialized))) {
+            return in.readObject();
+        }
+    }
+
+    private static byte[] serialize(SecurityContext context) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(context);
+        }
+        return bytes.toByteArray();
+    }
+}
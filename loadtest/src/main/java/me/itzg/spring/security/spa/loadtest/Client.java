@@ -0,0 +1,111 @@
+/*
+ * Copyright 2018 Geoff Bourne
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package me.itzg.spring.security.spa.loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Performs requests against the {@link SampleApplication} with {@link HttpURLConnection}, which keeps connections
+ * alive per thread as long as each response is fully read.
+ *
+ * @author Geoff Bourne
+ * @since Oct 2026
+ */
+class Client {
+
+    private static final String SESSION_COOKIE = "JSESSIONID=";
+
+    private final String baseUrl;
+    private final byte[] buffer = new byte[1024];
+
+    Client(int port) {
+        this.baseUrl = "http://localhost:" + port;
+    }
+
+    /**
+     * @return the response status
+     */
+    int post(String path, String body) throws IOException {
+        return post(path, body, null, null);
+    }
+
+    /**
+     * @param sessionCookie the session cookie to send or null for none
+     * @param cookieHolder  if not null, receives the session cookie set by the response
+     * @return the response status
+     */
+    int post(String path, String body, String sessionCookie, String[] cookieHolder) throws IOException {
+        final HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+        connection.setRequestMethod("POST");
+        connection.setInstanceFollowRedirects(false);
+        if (sessionCookie != null) {
+            connection.setRequestProperty("Cookie", sessionCookie);
+        }
+        if (body != null) {
+            final byte[] content = body.getBytes(StandardCharsets.UTF_8);
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "application/json");
+            connection.setFixedLengthStreamingMode(content.length);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(content);
+            }
+        }
+
+        final int status = connection.getResponseCode();
+        if (cookieHolder != null) {
+            cookieHolder[0] = sessionCookie(connection);
+        }
+        drain(status < 400 ? connection.getInputStream() : connection.getErrorStream());
+        return status;
+    }
+
+    private static String sessionCookie(HttpURLConnection connection) {
+        final List<String> cookies = connection.getHeaderFields().get("Set-Cookie");
+        if (cookies != null) {
+            for (String cookie : cookies) {
+                if (cookie.startsWith(SESSION_COOKIE)) {
+                    final int end = cookie.indexOf(';');
+                    return end > 0 ? cookie.substring(0, end) : cookie;
+                }
+            }
+        }
+        return null;
+    }
+
+    private void drain(InputStream in) throws IOException {
+        if (in == null) {
+            return;
+        }
+        try {
+            //noinspection StatementWithEmptyBody
+            while (in.read(buffer) >= 0) {
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    static String credentials(String username, String password) {
+        return "{\"username\":\"" + username + "\",\"password\":\"" + password + "\"}";
+    }
+}
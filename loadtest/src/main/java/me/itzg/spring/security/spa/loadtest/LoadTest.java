@@ -0,0 +1,282 @@
+/*
+ * Copyright 2018 Geoff Bourne
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package me.itzg.spring.security.spa.loadtest;
+
+import me.itzg.spring.security.spa.loadtest.Scenario.Operation;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Boots the {@link SampleApplication} on an embedded container and, for each scenario and each thread count, drives
+ * it with closed-loop clients for a warm-up period followed by a measured period. Each operation's latencies are
+ * recorded in an HdrHistogram, so the report shows the tail rather than an average.
+ * <p>
+ * Options are given as <code>--name=value</code>:
+ * </p>
+ * <ul>
+ *     <li><code>threads</code>: comma separated concurrency levels, which form the throughput curve, default 1,2,4,8,16</li>
+ *     <li><code>warmup</code>: seconds of unrecorded load before each level, default 5</li>
+ *     <li><code>duration</code>: seconds of recorded load for each level, default 15</li>
+ *     <li><code>scenario</code>: repeatable, see {@link Scenario}, defaults to {@link Scenario#DEFAULTS}</li>
+ *     <li><code>encoder</code>: <code>noop</code> or <code>bcrypt-N</code>, default bcrypt-10</li>
+ *     <li><code>users</code>: the number of pre-registered users, default 1000</li>
+ *     <li><code>label</code>: identifies this run in the results, such as a commit id, default "unlabeled"</li>
+ *     <li><code>output</code>: the directory of the results, default target/loadtest</li>
+ * </ul>
+ * <p>
+ * Every run appends to <code>results.csv</code> in the output directory, one row per scenario, thread count and
+ * operation, so runs of different commits with the same options can be compared side by side. The full percentile
+ * distribution of each scenario and thread count is also written as an <code>.hgrm</code> file, which can be
+ * plotted with HdrHistogram's plotter.
+ * </p>
+ * <p>
+ * Since each client waits for a response before sending its next request, a stall delays the requests that would
+ * have been sent during it and those are never recorded. Compare the tails between runs rather than reading them
+ * as the latency that an open stream of users would observe.
+ * </p>
+ *
+ * @author Geoff Bourne
+ * @since Oct 2026
+ */
+public class LoadTest {
+
+    private static final long HIGHEST_LATENCY = TimeUnit.MINUTES.toNanos(1);
+    private static final double NANOS_PER_MICRO = 1000.0;
+    private static final String CSV_HEADER = "label,scenario,threads,operation,count,errors,throughput," +
+            "p50_us,p90_us,p99_us,p999_us,max_us,encoder,cores";
+
+    private final Map<String, String> options;
+    private final List<Scenario> scenarios;
+    private final int[] threadLevels;
+    private final long warmupNanos;
+    private final long durationNanos;
+    private final File outputDir;
+    private final String label;
+    private final String encoder;
+    private final AtomicLong registrations = new AtomicLong();
+    private final String registrationPrefix = "load" + Long.toString(System.currentTimeMillis(), 36) + "-";
+
+    private Client client;
+    private int users;
+
+    private LoadTest(Map<String, String> options, List<Scenario> scenarios) {
+        this.options = options;
+        this.scenarios = scenarios;
+        this.threadLevels = Arrays.stream(options.getOrDefault("threads", "1,2,4,8,16").split(","))
+                .mapToInt(value -> Integer.parseInt(value.trim()))
+                .toArray();
+        this.warmupNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(options.getOrDefault("warmup", "5")));
+        this.durationNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(options.getOrDefault("duration", "15")));
+        this.outputDir = new File(options.getOrDefault("output", "target/loadtest"));
+        this.label = options.getOrDefault("label", "unlabeled");
+        this.encoder = options.getOrDefault("encoder", "bcrypt-10");
+    }
+
+    public static void main(String[] args) throws Exception {
+        final Map<String, String> options = new HashMap<>();
+        final List<Scenario> scenarios = new ArrayList<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Options must be given as --name=value, but got " + arg);
+            }
+            final String[] nameValue = arg.substring(2).split("=", 2);
+            if (nameValue[0].equals("scenario")) {
+                scenarios.add(Scenario.parse(nameValue[1]));
+            } else {
+                options.put(nameValue[0], nameValue[1]);
+            }
+        }
+        if (scenarios.isEmpty()) {
+            for (String spec : Scenario.DEFAULTS) {
+                scenarios.add(Scenario.parse(spec));
+            }
+        }
+
+        new LoadTest(options, scenarios).run();
+    }
+
+    private void run() throws Exception {
+        users = Integer.parseInt(options.getOrDefault("users", "1000"));
+        if (!outputDir.isDirectory() && !outputDir.mkdirs()) {
+            throw new IOException("Unable to create " + outputDir);
+        }
+
+        try (ServletWebServerApplicationContext context = (ServletWebServerApplicationContext)
+                new SpringApplicationBuilder(SampleApplication.class)
+                        .properties("loadtest.encoder=" + encoder, "loadtest.users=" + users)
+                        .run()) {
+            client = new Client(context.getWebServer().getPort());
+
+            System.out.printf("label=%s encoder=%s users=%d cores=%d%n",
+                    label, encoder, users, Runtime.getRuntime().availableProcessors());
+            for (Scenario scenario : scenarios) {
+                System.out.printf("%n%s%n", scenario);
+                System.out.printf("%7s %-10s %9s %10s %9s %9s %9s %9s %9s %7s%n",
+                        "threads", "operation", "count", "ops/s", "p50 us", "p90 us", "p99 us", "p99.9 us",
+                        "max us", "errors");
+                for (int threads : threadLevels) {
+                    runLevel(scenario, threads);
+                }
+            }
+        }
+        System.out.printf("%nResults appended to %s%n", new File(outputDir, "results.csv"));
+    }
+
+    private void runLevel(Scenario scenario, int threads) throws Exception {
+        final Map<Operation, Recorder> recorders = new EnumMap<>(Operation.class);
+        final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            recorders.put(operation, new Recorder(HIGHEST_LATENCY, 3));
+            errors.put(operation, new LongAdder());
+        }
+
+        final long start = System.nanoTime();
+        final long measureStart = start + warmupNanos;
+        final long end = measureStart + durationNanos;
+
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Future<?>> workers = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                workers.add(executor.submit(() -> {
+                    drive(scenario, measureStart, end, recorders, errors);
+                    return null;
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        final double seconds = durationNanos / 1e9;
+
+        final Histogram all = new Histogram(HIGHEST_LATENCY, 3);
+        try (PrintStream csv = openCsv()) {
+            for (Operation operation : Operation.values()) {
+                final Histogram histogram = recorders.get(operation).getIntervalHistogram();
+                if (histogram.getTotalCount() == 0) {
+                    continue;
+                }
+                all.add(histogram);
+                report(csv, scenario, threads, operation.name().toLowerCase(Locale.ROOT), histogram,
+                        errors.get(operation).sum(), seconds);
+            }
+            long totalErrors = errors.values().stream().mapToLong(LongAdder::sum).sum();
+            report(csv, scenario, threads, "all", all, totalErrors, seconds);
+        }
+
+        final File hgrm = new File(outputDir,
+                String.format("%s-%s-%dt.hgrm", label, scenario.getName(), threads));
+        try (PrintStream out = new PrintStream(new FileOutputStream(hgrm), false, "UTF-8")) {
+            all.outputPercentileDistribution(out, NANOS_PER_MICRO);
+        }
+    }
+
+    private void drive(Scenario scenario, long measureStart, long end,
+                       Map<Operation, Recorder> recorders, Map<Operation, LongAdder> errors) throws IOException {
+        final String[] cookieHolder = new String[1];
+        long now;
+        while ((now = System.nanoTime()) < end) {
+            final Operation operation = scenario.next();
+            final int userIndex = (int) (Math.random() * users);
+            final String username = SampleApplication.USERNAME_PREFIX + userIndex;
+
+            final long begin;
+            final boolean ok;
+            switch (operation) {
+                case LOGIN:
+                    begin = System.nanoTime();
+                    ok = client.post("/login", Client.credentials(username, SampleApplication.PASSWORD)) == 200;
+                    break;
+                case BAD_LOGIN:
+                    begin = System.nanoTime();
+                    ok = client.post("/login", Client.credentials(username, "wrong")) == 401;
+                    break;
+                case REGISTER:
+                    final String newUsername = registrationPrefix + registrations.incrementAndGet();
+                    begin = System.nanoTime();
+                    ok = client.post("/register", Client.credentials(newUsername, SampleApplication.PASSWORD)) == 201;
+                    break;
+                case LOGOUT:
+                    // the login that establishes the session isn't part of the logout's latency
+                    client.post("/login", Client.credentials(username, SampleApplication.PASSWORD), null,
+                            cookieHolder);
+                    begin = System.nanoTime();
+                    ok = client.post("/logout", null, cookieHolder[0], null) == 200;
+                    break;
+                default:
+                    throw new IllegalStateException("Unexpected operation " + operation);
+            }
+            final long finished = System.nanoTime();
+
+            if (now >= measureStart) {
+                recorders.get(operation).recordValue(Math.min(finished - begin, HIGHEST_LATENCY));
+                if (!ok) {
+                    errors.get(operation).increment();
+                }
+            }
+        }
+    }
+
+    private void report(PrintStream csv, Scenario scenario, int threads, String operation, Histogram histogram,
+                        long errors, double seconds) {
+        final long count = histogram.getTotalCount();
+        final double throughput = count / seconds;
+        final double p50 = histogram.getValueAtPercentile(50) / NANOS_PER_MICRO;
+        final double p90 = histogram.getValueAtPercentile(90) / NANOS_PER_MICRO;
+        final double p99 = histogram.getValueAtPercentile(99) / NANOS_PER_MICRO;
+        final double p999 = histogram.getValueAtPercentile(99.9) / NANOS_PER_MICRO;
+        final double max = histogram.getMaxValue() / NANOS_PER_MICRO;
+
+        System.out.printf(Locale.ROOT, "%7d %-10s %9d %10.1f %9.0f %9.0f %9.0f %9.0f %9.0f %7d%n",
+                threads, operation, count, throughput, p50, p90, p99, p999, max, errors);
+        csv.printf(Locale.ROOT, "%s,%s,%d,%s,%d,%d,%.1f,%.0f,%.0f,%.0f,%.0f,%.0f,%s,%d%n",
+                label, scenario.getName(), threads, operation, count, errors, throughput, p50, p90, p99, p999, max,
+                encoder, Runtime.getRuntime().availableProcessors());
+    }
+
+    private PrintStream openCsv() throws IOException {
+        final File file = new File(outputDir, "results.csv");
+        final boolean existed = file.exists();
+        final PrintStream csv = new PrintStream(new FileOutputStream(file, true), false, "UTF-8");
+        if (!existed) {
+            csv.println(CSV_HEADER);
+        }
+        return csv;
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2018 Geoff Bourne
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package me.itzg.spring.security.spa.loadtest;
+
+import me.itzg.spring.security.spa.SimpleLogoutSuccessHandler;
+import me.itzg.spring.security.spa.SinglePageAppConfigurer;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.NoOpPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+import org.springframework.security.provisioning.UserDetailsManager;
+
+/**
+ * The application under test, which is configured as described in the library's README with an in-memory user
+ * store standing in for a real one. The store is pre-populated with {@link #USERNAME_PREFIX}0 through
+ * {@link #USERNAME_PREFIX}N-1, all with the password {@link #PASSWORD}.
+ *
+ * @author Geoff Bourne
+ * @since Oct 2026
+ */
+@SpringBootApplication
+public class SampleApplication extends WebSecurityConfigurerAdapter {
+
+    static final String USERNAME_PREFIX = "user";
+    static final String PASSWORD = "password";
+
+    private final Environment environment;
+
+    public SampleApplication(Environment environment) {
+        this.environment = environment;
+    }
+
+    @Override
+    protected void configure(HttpSecurity http) throws Exception {
+        http
+                .authorizeRequests()
+                .anyRequest().fullyAuthenticated()
+
+                .and().logout().logoutSuccessHandler(new SimpleLogoutSuccessHandler())
+                .and().csrf().disable()
+
+                .apply(new SinglePageAppConfigurer<>());
+    }
+
+    @Override
+    protected void configure(AuthenticationManagerBuilder auth) throws Exception {
+        auth
+                .userDetailsService(userDetailsManager())
+                .passwordEncoder(passwordEncoder());
+    }
+
+    /**
+     * Selected by the <code>loadtest.encoder</code> property, which is either <code>noop</code> or
+     * <code>bcrypt-</code> followed by the log rounds.
+     */
+    @SuppressWarnings("deprecation")
+    @Bean
+    public PasswordEncoder passwordEncoder() {
+        final String encoder = environment.getProperty("loadtest.encoder", "bcrypt-10");
+        if (encoder.equals("noop")) {
+            return NoOpPasswordEncoder.getInstance();
+        } else if (encoder.startsWith("bcrypt-")) {
+            return new BCryptPasswordEncoder(Integer.parseInt(encoder.substring("bcrypt-".length())));
+        } else {
+            throw new IllegalArgumentException("Unknown encoder: " + encoder);
+        }
+    }
+
+    @Bean
+    public UserDetailsManager userDetailsManager() {
+        final PasswordEncoder passwordEncoder = passwordEncoder();
+        final String encodedPassword = passwordEncoder.encode(PASSWORD);
+        final int users = environment.getProperty("loadtest.users", Integer.class, 1000);
+
+        final InMemoryUserDetailsManager userDetailsManager = new InMemoryUserDetailsManager();
+        for (int i = 0; i < users; i++) {
+            userDetailsManager.createUser(User.withUsername(USERNAME_PREFIX + i)
+                    .password(encodedPassword)
+                    .roles("USER")
+                    .build());
+        }
+        return userDetailsManager;
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2018 Geoff Bourne
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package me.itzg.spring.security.spa.loadtest;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A mix of operations, given as <code>name:login=70,register=20,logout=10,bad=0.1</code> where the
+ * operation weights are relative and <code>bad</code> is the fraction of logins that use a wrong password.
+ *
+ * @author Geoff Bourne
+ * @since Oct 2026
+ */
+class Scenario {
+
+    enum Operation {
+        LOGIN, BAD_LOGIN, REGISTER, LOGOUT
+    }
+
+    static final String[] DEFAULTS = {
+            "login:login=100",
+            "credential-stuffing:login=100,bad=0.9",
+            "mixed:login=70,register=20,logout=10,bad=0.1"
+    };
+
+    private final String name;
+    private final Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+    private final int totalWeight;
+    private final double badPasswordRatio;
+
+    private Scenario(String name, int login, int register, int logout, double badPasswordRatio) {
+        this.name = name;
+        weights.put(Operation.LOGIN, login);
+        weights.put(Operation.REGISTER, register);
+        weights.put(Operation.LOGOUT, logout);
+        this.totalWeight = login + register + logout;
+        this.badPasswordRatio = badPasswordRatio;
+        if (totalWeight <= 0) {
+            throw new IllegalArgumentException("Scenario " + name + " needs at least one weighted operation");
+        }
+    }
+
+    static Scenario parse(String spec) {
+        final int colon = spec.indexOf(':');
+        if (colon <= 0) {
+            throw new IllegalArgumentException("Scenario must be name:operation=weight,... but was " + spec);
+        }
+
+        int login = 0;
+        int register = 0;
+        int logout = 0;
+        double bad = 0;
+        for (String part : spec.substring(colon + 1).split(",")) {
+            final String[] keyValue = part.split("=", 2);
+            if (keyValue.length != 2) {
+                throw new IllegalArgumentException("Expected operation=weight but was " + part);
+            }
+            switch (keyValue[0].trim()) {
+                case "login":
+                    login = Integer.parseInt(keyValue[1].trim());
+                    break;
+                case "register":
+                    register = Integer.parseInt(keyValue[1].trim());
+                    break;
+                case "logout":
+                    logout = Integer.parseInt(keyValue[1].trim());
+                    break;
+                case "bad":
+                    bad = Double.parseDouble(keyValue[1].trim());
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown operation " + keyValue[0]);
+            }
+        }
+        return new Scenario(spec.substring(0, colon), login, register, logout, bad);
+    }
+
+    String getName() {
+        return name;
+    }
+
+    Operation next() {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        int pick = random.nextInt(totalWeight);
+        for (Map.Entry<Operation, Integer> entry : weights.entrySet()) {
+            pick -= entry.getValue();
+            if (pick < 0) {
+                if (entry.getKey() == Operation.LOGIN && random.nextDouble() < badPasswordRatio) {
+                    return Operation.BAD_LOGIN;
+                }
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("Weights are inconsistent");
+    }
+
+    @Override
+    public String toString() {
+        return name + " " + weights + " bad=" + badPasswordRatio;
+    }
+}
@@ -0,0 +1,319 @@
+/*
+ * Copyright 2018 Geoff Bourne
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package me.itzg.spring.security.spa;
+
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.authentication.AbstractAuthenticationProcessingFilter;
+import org.springframework.security.web.authentication.AuthenticationFailureHandler;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.util.Assert;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Common support for the filters of this library that process {@link Credentials} conveyed in the request body,
+ * such as parsing of the body, request body limits, rate limiting, async processing, and metrics.
+ *
+ * @author Geoff Bourne
+ * @since Oct 2026
+ */
+public abstract class AbstractCredentialsFilter extends AbstractAuthenticationProcessingFilter {
+
+    public static final String MISSING_USERNAME = CredentialsMessages.MISSING_USERNAME;
+    public static final String MISSING_PASSWORD = CredentialsMessages.MISSING_PASSWORD;
+    public static final String TOO_MANY_ATTEMPTS = "Too many attempts";
+
+    protected static final String PHASE_PARSE = "parse";
+    protected static final String PHASE_SUCCESS_HANDLER = "success-handler";
+    protected static final String PHASE_FAILURE_HANDLER = "failure-handler";
+
+    private ConverterHelper converterHelper;
+    private HttpMessageConverters httpMessageConverters;
+    private StreamingCredentialsParser credentialsParser;
+    private AsyncAuthenticationProcessor asyncProcessor;
+    private LoginRateLimiter rateLimiter;
+    private RequestBodyLimits requestBodyLimits;
+    private AuthenticationMetrics metrics = AuthenticationMetrics.NONE;
+
+    protected AbstractCredentialsFilter(String defaultFilterProcessesUrl) {
+        super(defaultFilterProcessesUrl);
+    }
+
+    protected AbstractCredentialsFilter(RequestMatcher requiresAuthenticationRequestMatcher) {
+        super(requiresAuthenticationRequestMatcher);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        super.afterPropertiesSet();
+
+        Assert.notNull(converterHelper, "HttpMessageConverters bean needs to be defined");
+    }
+
+    public void setHttpMessageConverters(HttpMessageConverters httpMessageConverters) {
+        if (converterHelper != null) {
+            converterHelper.setHttpMessageConverters(httpMessageConverters);
+        } else {
+            this.converterHelper = new ConverterHelper(httpMessageConverters);
+        }
+        this.httpMessageConverters = httpMessageConverters;
+    }
+
+    public HttpMessageConverters getHttpMessageConverters() {
+        return httpMessageConverters;
+    }
+
+    /**
+     * @return the helper used for parsing request bodies, such as for access to its cache statistics
+     */
+    public ConverterHelper getConverterHelper() {
+        return converterHelper;
+    }
+
+    /**
+     * Sets an optional parser that is used instead of the {@link HttpMessageConverters} for requests it
+     * {@link StreamingCredentialsParser#supports(HttpServletRequest) supports}.
+     *
+     * @param credentialsParser the parser to use or null to always use the message converters
+     */
+    public void setCredentialsParser(StreamingCredentialsParser credentialsParser) {
+        this.credentialsParser = credentialsParser;
+    }
+
+    public StreamingCredentialsParser getCredentialsParser() {
+        return credentialsParser;
+    }
+
+    /**
+     * Enables processing of credentials on the given processor's executor rather than the container's thread.
+     *
+     * @param asyncProcessor the processor to use or null to process synchronously
+     */
+    public void setAsyncProcessor(AsyncAuthenticationProcessor asyncProcessor) {
+        this.asyncProcessor = asyncProcessor;
+    }
+
+    public AsyncAuthenticationProcessor getAsyncProcessor() {
+        return asyncProcessor;
+    }
+
+    /**
+     * Enables per-client rate limiting, which is applied before the request body is read.
+     *
+     * @param rateLimiter the rate limiter to use or null to disable rate limiting
+     */
+    public void setRateLimiter(LoginRateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    public LoginRateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+
+    /**
+     * Enables limits on the request body, which are checked after rate limiting and before the body is read.
+     *
+     * @param requestBodyLimits the limits to apply or null to read any request body
+     */
+    public void setRequestBodyLimits(RequestBodyLimits requestBodyLimits) {
+        this.requestBodyLimits = requestBodyLimits;
+    }
+
+    public RequestBodyLimits getRequestBodyLimits() {
+        return requestBodyLimits;
+    }
+
+    /**
+     * Sets where the outcomes and the time spent in each phase of processing are reported.
+     *
+     * @param metrics the metrics to report to or null to not report
+     */
+    public void setMetrics(AuthenticationMetrics metrics) {
+        this.metrics = metrics != null ? metrics : AuthenticationMetrics.NONE;
+    }
+
+    public AuthenticationMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @return the name that identifies this filter in the {@link #setMetrics(AuthenticationMetrics) metrics}
+     */
+    protected abstract String getMetricsName();
+
+    @Override
+    public void doFilter(ServletRequest req, ServletResponse res, FilterChain chain)
+            throws IOException, ServletException {
+        final HttpServletRequest request = (HttpServletRequest) req;
+        final HttpServletResponse response = (HttpServletResponse) res;
+
+        if (rateLimiter == null && requestBodyLimits == null && asyncProcessor == null &&
+                metrics == AuthenticationMetrics.NONE) {
+            super.doFilter(req, res, chain);
+            return;
+        }
+        if (!requiresAuthentication(request, response)) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        if (rateLimiter != null) {
+            final long waitNanos = rateLimiter.tryAcquire(request);
+            if (waitNanos > 0) {
+                final long retryAfter = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) /
+                        TimeUnit.SECONDS.toNanos(1));
+                final RateLimitExceededException exception =
+                        new RateLimitExceededException(TOO_MANY_ATTEMPTS, retryAfter);
+                metrics.failed(getMetricsName(), exception);
+                rateLimiter.getFailureHandler().onAuthenticationFailure(request, response, exception);
+                return;
+            }
+        }
+
+        if (requestBodyLimits != null) {
+            final RequestBodyRejectedException rejection = requestBodyLimits.check(request);
+            if (rejection != null) {
+                metrics.failed(getMetricsName(), rejection);
+                requestBodyLimits.getFailureHandler().onAuthenticationFailure(request, response, rejection);
+                return;
+            }
+        }
+
+        if (asyncProcessor != null && asyncProcessor.process(request, response,
+                (asyncReq, asyncResp) -> measuredDoFilter(asyncReq, asyncResp, chain))) {
+            return;
+        }
+        measuredDoFilter(request, response, chain);
+    }
+
+    private void measuredDoFilter(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        final String name = getMetricsName();
+        final long start = System.nanoTime();
+        metrics.started(name);
+        try {
+            super.doFilter(request, response, chain);
+        } finally {
+            metrics.finished(name, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    protected void successfulAuthentication(HttpServletRequest request, HttpServletResponse response,
+                                            FilterChain chain, Authentication authResult)
+            throws IOException, ServletException {
+        if (asyncProcessor != null) {
+            asyncProcessor.saveContext(request, response, authResult);
+        }
+        metrics.succeeded(getMetricsName());
+        final long start = System.nanoTime();
+        super.successfulAuthentication(request, response, chain, authResult);
+        recordPhase(PHASE_SUCCESS_HANDLER, start);
+    }
+
+    @Override
+    protected void unsuccessfulAuthentication(HttpServletRequest request, HttpServletResponse response,
+                                              AuthenticationException failed) throws IOException, ServletException {
+        metrics.failed(getMetricsName(), failed);
+        final long start = System.nanoTime();
+        final AuthenticationFailureHandler specificHandler = getSpecificFailureHandler(failed);
+        if (specificHandler != null) {
+            SecurityContextHolder.clearContext();
+            getRememberMeServices().loginFail(request, response);
+            specificHandler.onAuthenticationFailure(request, response, failed);
+        } else {
+            super.unsuccessfulAuthentication(request, response, failed);
+        }
+        recordPhase(PHASE_FAILURE_HANDLER, start);
+    }
+
+    /**
+     * Selects a failure handler for exceptions raised by an optional feature, such as {@link RequestBodyLimits},
+     * that responds differently than the {@link #getFailureHandler() failure handler}.
+     *
+     * @param failed the exception of the failed attempt
+     * @return the handler for the exception or null to use the failure handler
+     */
+    protected AuthenticationFailureHandler getSpecificFailureHandler(AuthenticationException failed) {
+        if (failed instanceof RequestBodyRejectedException && requestBodyLimits != null) {
+            return requestBodyLimits.getFailureHandler();
+        }
+        return null;
+    }
+
+    /**
+     * Reports the completion of a phase of processing to the {@link #setMetrics(AuthenticationMetrics) metrics}.
+     *
+     * @param phase      the name of the phase
+     * @param startNanos the {@link System#nanoTime()} when the phase started
+     * @return the current {@link System#nanoTime()}, which is convenient as the start of the next phase
+     */
+    protected long recordPhase(String phase, long startNanos) {
+        final long now = System.nanoTime();
+        metrics.phase(getMetricsName(), phase, now - startNanos);
+        return now;
+    }
+
+    /**
+     * Parses the credentials from the request body using the {@link #setCredentialsParser(StreamingCredentialsParser)
+     * credentials parser}, if it supports the request, or otherwise the message converters.
+     *
+     * @param req the request with a body to parse
+     * @return the parsed credentials or null if not parseable
+     * @throws IOException in case of I/O errors while reading the request body
+     */
+    protected Credentials parseCredentials(HttpServletRequest req) throws IOException {
+        if (requestBodyLimits == null) {
+            return parseLimitedCredentials(req);
+        }
+
+        final HttpServletRequest limited = requestBodyLimits.wrap(req);
+        final Credentials credentials;
+        try {
+            credentials = parseLimitedCredentials(limited);
+        } catch (IOException | RuntimeException e) {
+            // a truncated body usually fails to parse, which is better reported as too large
+            final RequestBodyRejectedException rejection = requestBodyLimits.checkExceeded(limited);
+            if (rejection != null) {
+                throw rejection;
+            }
+            throw e;
+        }
+        final RequestBodyRejectedException rejection = requestBodyLimits.checkExceeded(limited);
+        if (rejection != null) {
+            throw rejection;
+        }
+        return credentials;
+    }
+
+    private Credentials parseLimitedCredentials(HttpServletRequest req) throws IOException {
+        if (credentialsParser != null && credentialsParser.supports(req)) {
+            return credentialsParser.parse(req);
+        }
+        return converterHelper.parseBody(req, Credentials.class);
+    }
+}
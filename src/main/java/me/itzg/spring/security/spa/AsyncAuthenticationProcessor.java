@@ -0,0 +1,331 @@
+/*
+ * Copyright 2018 Geoff Bourne
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package me.itzg.spring.security.spa;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.context.HttpRequestResponseHolder;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+import org.springframework.security.web.context.SecurityContextRepository;
+import org.springframework.util.Assert;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Moves the credential processing of {@link RequestBodyLoginFilter} and {@link RegistrationFilter}, which is
+ * dominated by password hashing and user store access, off of the servlet container's threads and onto a
+ * dedicated, bounded executor by way of Servlet 3 async processing.
+ * <p>
+ * When the executor's queue is full the request is immediately answered with the
+ * {@link #setRejectedStatus(int) rejected status}, {@value #DEFAULT_REJECTED_STATUS} by default. A request that
+ * waited in the queue longer than the {@link #setQueueTimeout(long) queue timeout} is answered with the
+ * {@link #setTimeoutStatus(int) timeout status} without performing any credential work. A request that a worker
+ * picked up but that isn't answered within the {@link #setProcessingTimeout(long) processing timeout}, such as when
+ * the user store hangs, is answered with the timeout status too. That frees the request, but its worker remains
+ * busy until the user store or password encoder returns.
+ * </p>
+ * <p>
+ * The async context is completed by {@link SimpleAuthenticationSuccessHandler} and
+ * {@link SimpleAuthenticationFailureHandler}, or by this class after the filter returns when other handlers are
+ * in use. Requests that don't support async processing are handled synchronously.
+ * </p>
+ *
+ * @author Geoff Bourne
+ * @since Oct 2026
+ */
+@SuppressWarnings("WeakerAccess")
+public class AsyncAuthenticationProcessor implements DisposableBean {
+    public static final int DEFAULT_REJECTED_STATUS = HttpServletResponse.SC_SERVICE_UNAVAILABLE;
+    public static final int DEFAULT_TIMEOUT_STATUS = HttpServletResponse.SC_SERVICE_UNAVAILABLE;
+    public static final long DEFAULT_QUEUE_TIMEOUT = 10_000;
+    public static final long DEFAULT_PROCESSING_TIMEOUT = 30_000;
+
+    private static final String STATE_ATTRIBUTE = AsyncAuthenticationProcessor.class.getName() + ".STATE";
+
+    private static final Log log = LogFactory.getLog(AsyncAuthenticationProcessor.class);
+
+    private final Executor executor;
+    private final boolean ownsExecutor;
+    private SecurityContextRepository securityContextRepository = new HttpSessionSecurityContextRepository();
+    private long queueTimeout = DEFAULT_QUEUE_TIMEOUT;
+    private long processingTimeout = DEFAULT_PROCESSING_TIMEOUT;
+    private int rejectedStatus = DEFAULT_REJECTED_STATUS;
+    private int timeoutStatus = DEFAULT_TIMEOUT_STATUS;
+
+    /**
+     * Creates a processor with its own fixed size thread pool.
+     *
+     * @param threads       the number of threads that process credentials
+     * @param queueCapacity the number of requests that may wait for a thread before further requests are rejected
+     */
+    public AsyncAuthenticationProcessor(int threads, int queueCapacity) {
+        Assert.isTrue(threads > 0, "threads must be positive");
+        Assert.isTrue(queueCapacity > 0, "queueCapacity must be positive");
+        final ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(threads, threads,
+                0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("spa-auth-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.executor = threadPoolExecutor;
+        this.ownsExecutor = true;
+    }
+
+    /**
+     * Creates a processor that uses the given executor, which should be bounded and throw
+     * {@link RejectedExecutionException} when saturated.
+     *
+     * @param executor the executor that will process credentials
+     */
+    public AsyncAuthenticationProcessor(Executor executor) {
+        Assert.notNull(executor, "executor is required");
+        this.executor = executor;
+        this.ownsExecutor = false;
+    }
+
+    /**
+     * Sets the maximum time, in milliseconds, a request may wait for a thread. Default is
+     * {@value #DEFAULT_QUEUE_TIMEOUT}.
+     *
+     * @param queueTimeout the timeout in milliseconds
+     * @return this object for call chaining
+     */
+    public AsyncAuthenticationProcessor setQueueTimeout(long queueTimeout) {
+        this.queueTimeout = queueTimeout;
+        return this;
+    }
+
+    /**
+     * Sets the maximum time, in milliseconds, a worker may take to answer a request. The container's async timeout
+     * is set to the queue timeout plus this. Default is {@value #DEFAULT_PROCESSING_TIMEOUT}.
+     *
+     * @param processingTimeout the timeout in milliseconds
+     * @return this object for call chaining
+     */
+    public AsyncAuthenticationProcessor setProcessingTimeout(long processingTimeout) {
+        Assert.isTrue(processingTimeout > 0, "processingTimeout must be positive");
+        this.processingTimeout = processingTimeout;
+        return this;
+    }
+
+    /**
+     * @param rejectedStatus the status code used when the executor rejects a request
+     * @return this object for call chaining
+     */
+    public AsyncAuthenticationProcessor setRejectedStatus(int rejectedStatus) {
+        this.rejectedStatus = rejectedStatus;
+        return this;
+    }
+
+    /**
+     * @param timeoutStatus the status code used when a request waited longer than the queue timeout or wasn't
+     *                      answered within the processing timeout
+     * @return this object for call chaining
+     */
+    public AsyncAuthenticationProcessor setTimeoutStatus(int timeoutStatus) {
+        this.timeoutStatus = timeoutStatus;
+        return this;
+    }
+
+    /**
+     * Sets the repository where a successful authentication is saved. Since the request's security context
+     * is normally saved by the container thread that has already returned, the filters save it explicitly
+     * via this repository. Default is {@link HttpSessionSecurityContextRepository}.
+     *
+     * @param securityContextRepository the repository to use
+     * @return this object for call chaining
+     */
+    public AsyncAuthenticationProcessor setSecurityContextRepository(SecurityContextRepository securityContextRepository) {
+        this.securityContextRepository = securityContextRepository;
+        return this;
+    }
+
+    @Override
+    public void destroy() {
+        if (ownsExecutor) {
+            ((ExecutorService) executor).shutdown();
+        }
+    }
+
+    /**
+     * Starts async processing of the request and submits the given work to the executor.
+     *
+     * @param req  the request to process
+     * @param resp the response to the request
+     * @param work the credential processing, which runs on the executor with the async context's request and
+     *             response
+     * @return false if the request doesn't support async processing and the caller should handle it
+     * synchronously
+     */
+    boolean process(HttpServletRequest req, HttpServletResponse resp, Work work) {
+        if (!req.isAsyncSupported()) {
+            return false;
+        }
+
+        final AsyncContext asyncContext = req.startAsync(req, resp);
+        asyncContext.setTimeout(Math.max(0, queueTimeout) + processingTimeout);
+        final Completion completion = new Completion(asyncContext);
+        asyncContext.addListener(new TimeoutListener(completion));
+        req.setAttribute(STATE_ATTRIBUTE, completion);
+
+        final long enqueuedAt = System.nanoTime();
+        try {
+            executor.execute(() -> run(completion, enqueuedAt, work));
+        } catch (RejectedExecutionException e) {
+            log.debug("Rejected credential processing since the executor is saturated");
+            respond(completion, rejectedStatus);
+        }
+        return true;
+    }
+
+    private void run(Completion completion, long enqueuedAt, Work work) {
+        final HttpServletRequest req = (HttpServletRequest) completion.asyncContext.getRequest();
+        final HttpServletResponse resp = (HttpServletResponse) completion.asyncContext.getResponse();
+
+        if (TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - enqueuedAt) > queueTimeout) {
+            log.debug("Credential processing waited longer than the queue timeout");
+            respond(completion, timeoutStatus);
+            return;
+        }
+
+        try {
+            work.run(req, resp);
+        } catch (Exception e) {
+            log.warn("Unexpected failure during async credential processing", e);
+            if (!resp.isCommitted()) {
+                resp.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            }
+        } finally {
+            SecurityContextHolder.clearContext();
+            // the request must not be accessed once completed, so rely on the retained completion state
+            completion.complete();
+        }
+    }
+
+    private class TimeoutListener implements AsyncListener {
+        private final Completion completion;
+
+        TimeoutListener(Completion completion) {
+            this.completion = completion;
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) throws IOException {
+            if (!completion.claim()) {
+                return;
+            }
+            log.warn("Credential processing took longer than the processing timeout");
+            final HttpServletResponse resp = (HttpServletResponse) completion.asyncContext.getResponse();
+            if (!resp.isCommitted()) {
+                resp.setStatus(timeoutStatus);
+                // commit now so the worker's late status doesn't replace this one
+                resp.flushBuffer();
+            }
+            completion.asyncContext.complete();
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+
+    private void respond(Completion completion, int status) {
+        ((HttpServletResponse) completion.asyncContext.getResponse()).setStatus(status);
+        completion.complete();
+    }
+
+    /**
+     * Saves the successful authentication via the {@link #setSecurityContextRepository(SecurityContextRepository)
+     * security context repository}, if the request is being processed asynchronously by this class.
+     */
+    void saveContext(HttpServletRequest req, HttpServletResponse resp, Authentication authentication) {
+        if (!(req.getAttribute(STATE_ATTRIBUTE) instanceof Completion)) {
+            return;
+        }
+        final HttpRequestResponseHolder holder = new HttpRequestResponseHolder(req, resp);
+        securityContextRepository.loadContext(holder);
+
+        final SecurityContext context = SecurityContextHolder.createEmptyContext();
+        context.setAuthentication(authentication);
+        securityContextRepository.saveContext(context, holder.getRequest(), holder.getResponse());
+    }
+
+    /**
+     * Completes the async context of the request if it was started by this class and not already completed.
+     * This is a no-op for synchronously processed requests.
+     *
+     * @param req the request being processed
+     */
+    public static void complete(HttpServletRequest req) {
+        final Object state = req.getAttribute(STATE_ATTRIBUTE);
+        if (state instanceof Completion) {
+            ((Completion) state).complete();
+        }
+    }
+
+    private static class Completion {
+        final AsyncContext asyncContext;
+        final AtomicBoolean completed = new AtomicBoolean();
+
+        Completion(AsyncContext asyncContext) {
+            this.asyncContext = asyncContext;
+        }
+
+        /**
+         * @return true if the caller is the one to complete the context
+         */
+        boolean claim() {
+            return completed.compareAndSet(false, true);
+        }
+
+        void complete() {
+            if (claim()) {
+                asyncContext.complete();
+            }
+        }
+    }
+
+    @FunctionalInterface
+    interface Work {
+        void run(HttpServletRequest req, HttpServletResponse resp) throws IOException, ServletException;
+    }
+}
@@ -0,0 +1,294 @@
+/*
+ * Copyright 2018 Geoff Bourne
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package me.itzg.spring.security.spa;
+
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.util.Assert;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Encodes the authentications produced by this library's login and registration filters into a compact, versioned
+ * binary form, which is much smaller and faster to process than Java serialization. It is used by
+ * {@link CompactSessionSecurityContextRepository} to store authentications in HTTP sessions.
+ * <p>
+ * Supported authentications are authenticated {@link UsernamePasswordAuthenticationToken}s without details, whose
+ * principal is a username or a {@link User}, and whose authorities are {@link SimpleGrantedAuthority}s. Credentials
+ * are never encoded. Each of the {@link #AuthenticationCodec(String...) known authorities} is encoded as a small
+ * code, and other authorities are encoded by name.
+ * </p>
+ * The encoding starts with a format version and a checksum of the known authorities, so that a node configured with
+ * different known authorities declines to decode rather than misreading the codes.
+ *
+ * @author Geoff Bourne
+ * @since Oct 2026
+ */
+@SuppressWarnings("WeakerAccess")
+public class AuthenticationCodec {
+    static final byte VERSION = 1;
+
+    private static final byte PRINCIPAL_NAME = 0;
+    private static final byte PRINCIPAL_USER = 1;
+    private static final byte PRINCIPAL_USER_SAME_AUTHORITIES = 2;
+
+    private static final int FLAG_ENABLED = 1;
+    private static final int FLAG_ACCOUNT_NON_EXPIRED = 1 << 1;
+    private static final int FLAG_ACCOUNT_NON_LOCKED = 1 << 2;
+    private static final int FLAG_CREDENTIALS_NON_EXPIRED = 1 << 3;
+
+    private final List<SimpleGrantedAuthority> knownAuthorities;
+    private final Map<String, Integer> codes = new HashMap<>();
+    private final int checksum;
+
+    /**
+     * @param knownAuthorities the authorities, such as <code>ROLE_USER</code>, to encode as codes. All nodes that
+     *                         share sessions must be configured with the same authorities in the same order, and
+     *                         new authorities should only be appended.
+     */
+    public AuthenticationCodec(String... knownAuthorities) {
+        final List<SimpleGrantedAuthority> authorities = new ArrayList<>(knownAuthorities.length);
+        final CRC32 crc = new CRC32();
+        for (String authority : knownAuthorities) {
+            Assert.hasText(authority, "knownAuthorities must not be empty");
+            Assert.isNull(codes.putIfAbsent(authority, codes.size() + 1), "knownAuthorities must be distinct");
+            authorities.add(new SimpleGrantedAuthority(authority));
+            crc.update(authority.getBytes(StandardCharsets.UTF_8));
+            crc.update('\n');
+        }
+        this.knownAuthorities = Collections.unmodifiableList(authorities);
+        this.checksum = (int) crc.getValue();
+    }
+
+    public List<SimpleGrantedAuthority> getKnownAuthorities() {
+        return knownAuthorities;
+    }
+
+    /**
+     * @param authentication the authentication to consider
+     * @return true if {@link #encode(Authentication)} supports the authentication
+     */
+    public boolean supports(Authentication authentication) {
+        if (authentication == null || authentication.getClass() != UsernamePasswordAuthenticationToken.class ||
+                !authentication.isAuthenticated() || authentication.getDetails() != null ||
+                !supportsAuthorities(authentication.getAuthorities())) {
+            return false;
+        }
+        final Object principal = authentication.getPrincipal();
+        return principal instanceof String ||
+                (principal != null && principal.getClass() == User.class &&
+                        supportsAuthorities(((User) principal).getAuthorities()));
+    }
+
+    /**
+     * @param authentication the authentication to encode
+     * @return the encoded authentication or null if it isn't {@link #supports(Authentication) supported}
+     */
+    public byte[] encode(Authentication authentication) {
+        if (!supports(authentication)) {
+            return null;
+        }
+
+        final Output out = new Output();
+        out.writeByte(VERSION);
+        out.writeInt(checksum);
+        final Object principal = authentication.getPrincipal();
+        if (principal instanceof User) {
+            final User user = (User) principal;
+            final boolean sameAuthorities = sameAuthorities(user.getAuthorities(), authentication.getAuthorities());
+            out.writeByte(sameAuthorities ? PRINCIPAL_USER_SAME_AUTHORITIES : PRINCIPAL_USER);
+            out.writeString(user.getUsername());
+            int flags = 0;
+            flags |= user.isEnabled() ? FLAG_ENABLED : 0;
+            flags |= user.isAccountNonExpired() ? FLAG_ACCOUNT_NON_EXPIRED : 0;
+            flags |= user.isAccountNonLocked() ? FLAG_ACCOUNT_NON_LOCKED : 0;
+            flags |= user.isCredentialsNonExpired() ? FLAG_CREDENTIALS_NON_EXPIRED : 0;
+            out.writeByte(flags);
+            if (!sameAuthorities) {
+                writeAuthorities(out, user.getAuthorities());
+            }
+        } else {
+            out.writeByte(PRINCIPAL_NAME);
+            out.writeString((String) principal);
+        }
+        writeAuthorities(out, authentication.getAuthorities());
+        return out.toByteArray();
+    }
+
+    /**
+     * @param encoded the result of {@link #encode(Authentication)}
+     * @return the decoded authentication or null if it was encoded in another version or with other known
+     * authorities
+     * @throws IllegalArgumentException if the encoding is malformed
+     */
+    public Authentication decode(byte[] encoded) {
+        final ByteBuffer in = ByteBuffer.wrap(encoded);
+        try {
+            if (in.get() != VERSION || in.getInt() != checksum) {
+                return null;
+            }
+
+            final byte principalType = in.get();
+            final String name = readString(in);
+            if (principalType == PRINCIPAL_NAME) {
+                return new UsernamePasswordAuthenticationToken(name, null, readAuthorities(in));
+            }
+
+            final int flags = in.get();
+            final List<GrantedAuthority> userAuthorities =
+                    principalType == PRINCIPAL_USER ? readAuthorities(in) : null;
+            final List<GrantedAuthority> authorities = readAuthorities(in);
+            final User user = new User(name, "",
+                    (flags & FLAG_ENABLED) != 0,
+                    (flags & FLAG_ACCOUNT_NON_EXPIRED) != 0,
+                    (flags & FLAG_CREDENTIALS_NON_EXPIRED) != 0,
+                    (flags & FLAG_ACCOUNT_NON_LOCKED) != 0,
+                    userAuthorities != null ? userAuthorities : authorities);
+            user.eraseCredentials();
+            return new UsernamePasswordAuthenticationToken(user, null, authorities);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Malformed authentication encoding", e);
+        }
+    }
+
+    private boolean supportsAuthorities(Collection<? extends GrantedAuthority> authorities) {
+        for (GrantedAuthority authority : authorities) {
+            if (authority.getClass() != SimpleGrantedAuthority.class) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean sameAuthorities(Collection<? extends GrantedAuthority> a,
+                                           Collection<? extends GrantedAuthority> b) {
+        return a.size() == b.size() && a.containsAll(b);
+    }
+
+    /**
+     * Writes the count and then each authority as its code, or zero followed by its name.
+     */
+    private void writeAuthorities(Output out, Collection<? extends GrantedAuthority> authorities) {
+        out.writeVarInt(authorities.size());
+        for (GrantedAuthority authority : authorities) {
+            final Integer code = codes.get(authority.getAuthority());
+            if (code != null) {
+                out.writeVarInt(code);
+            } else {
+                out.writeVarInt(0);
+                out.writeString(authority.getAuthority());
+            }
+        }
+    }
+
+    private List<GrantedAuthority> readAuthorities(ByteBuffer in) {
+        final int count = readVarInt(in);
+        if (count < 0 || count > in.remaining()) {
+            throw new IllegalArgumentException("Malformed authority count");
+        }
+        final GrantedAuthority[] authorities = new GrantedAuthority[count];
+        for (int i = 0; i < count; i++) {
+            final int code = readVarInt(in);
+            authorities[i] = code == 0 ? new SimpleGrantedAuthority(readString(in)) : knownAuthorities.get(code - 1);
+        }
+        return Arrays.asList(authorities);
+    }
+
+    private static String readString(ByteBuffer in) {
+        final int length = readVarInt(in);
+        if (length < 0 || length > in.remaining()) {
+            throw new IllegalArgumentException("Malformed string length");
+        }
+        final String value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return value;
+    }
+
+    private static int readVarInt(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            final byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+
+    /**
+     * A minimal growable buffer, since the encodings are small and {@link java.io.DataOutputStream} would add
+     * a stream and synchronization per call.
+     */
+    private static final class Output {
+        private byte[] buffer = new byte[64];
+        private int position;
+
+        void writeByte(int value) {
+            ensure(1);
+            buffer[position++] = (byte) value;
+        }
+
+        void writeInt(int value) {
+            ensure(4);
+            buffer[position++] = (byte) (value >>> 24);
+            buffer[position++] = (byte) (value >>> 16);
+            buffer[position++] = (byte) (value >>> 8);
+            buffer[position++] = (byte) value;
+        }
+
+        void writeVarInt(int value) {
+            ensure(5);
+            while ((value & ~0x7F) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        void writeString(String value) {
+            final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(bytes.length);
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, position);
+        }
+
+        private void ensure(int length) {
+            if (position + length > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + length));
+            }
+        }
+    }
+}
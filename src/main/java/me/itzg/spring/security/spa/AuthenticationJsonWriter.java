@@ -0,0 +1,117 @@
+/*
+ * Copyright 2018 Geoff Bourne
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package me.itzg.spring.security.spa;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.util.Assert;
+
+import java.io.IOException;
+
+/**
+ * Writes a JSON view of an {@link Authentication}, such as
+ * <code>{"name":"user","authorities":["ROLE_USER"]}</code>, for {@link SimpleAuthenticationSuccessHandler} to
+ * respond with, which saves single page apps from a second request to learn who the user is.
+ * <p>
+ * The generator factory, the field names and the writer of the optional details are all prepared up front, so
+ * that each response only costs the generation of its few fields.
+ * </p>
+ *
+ * @author Geoff Bourne
+ * @since Oct 2026
+ */
+@SuppressWarnings("WeakerAccess")
+public class AuthenticationJsonWriter {
+    private static final SerializedString NAME_FIELD = new SerializedString("name");
+    private static final SerializedString AUTHORITIES_FIELD = new SerializedString("authorities");
+    private static final SerializedString DETAILS_FIELD = new SerializedString("details");
+
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter detailsWriter;
+    private boolean includeAuthorities = true;
+    private boolean includeDetails;
+
+    public AuthenticationJsonWriter() {
+        this(new ObjectMapper());
+    }
+
+    /**
+     * @param objectMapper the mapper whose configuration is used to write the details
+     */
+    public AuthenticationJsonWriter(ObjectMapper objectMapper) {
+        Assert.notNull(objectMapper, "objectMapper is required");
+        this.objectMapper = objectMapper;
+        this.detailsWriter = objectMapper.writer();
+    }
+
+    /**
+     * Sets whether the <code>authorities</code> array is included. Default is true.
+     *
+     * @param includeAuthorities true to include the granted authorities
+     * @return this object for call chaining
+     */
+    public AuthenticationJsonWriter setIncludeAuthorities(boolean includeAuthorities) {
+        this.includeAuthorities = includeAuthorities;
+        return this;
+    }
+
+    /**
+     * Sets whether the authentication's details, when present, are included as the <code>details</code> field.
+     * Default is false, since details are set by other authentication mechanisms and may reveal more than intended.
+     *
+     * @param includeDetails true to include the details
+     * @return this object for call chaining
+     */
+    public AuthenticationJsonWriter setIncludeDetails(boolean includeDetails) {
+        this.includeDetails = includeDetails;
+        return this;
+    }
+
+    /**
+     * @param authentication the successful authentication
+     * @return the UTF-8 encoded JSON object
+     * @throws IOException if the details could not be written
+     */
+    public byte[] write(Authentication authentication) throws IOException {
+        final ByteArrayBuilder buffer = new ByteArrayBuilder(128);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(buffer, JsonEncoding.UTF8)) {
+            generator.writeStartObject();
+            generator.writeFieldName(NAME_FIELD);
+            generator.writeString(authentication.getName());
+            if (includeAuthorities) {
+                generator.writeFieldName(AUTHORITIES_FIELD);
+                generator.writeStartArray();
+                for (GrantedAuthority authority : authentication.getAuthorities()) {
+                    generator.writeString(authority.getAuthority());
+                }
+                generator.writeEndArray();
+            }
+            if (includeDetails && authentication.getDetails() != null) {
+                generator.writeFieldName(DETAILS_FIELD);
+                detailsWriter.writeValue(generator, authentication.getDetails());
+            }
+            generator.writeEndObject();
+        }
+        return buffer.toByteArray();
+    }
+}
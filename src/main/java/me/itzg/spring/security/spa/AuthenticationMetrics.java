@@ -0,0 +1,82 @@
+/*
+ * Copyright 2018 Geoff Bourne
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package me.itzg.spring.security.spa;
+
+import org.springframework.security.core.AuthenticationException;
+
+/**
+ * Receives the measurements of the filters of this library, which are identified by a name such as
+ * <code>login</code> or <code>registration</code>. All methods do nothing by default, so that implementations
+ * only need to override what they publish.
+ *
+ * @author Geoff Bourne
+ * @since Oct 2026
+ * @see MicrometerAuthenticationMetrics
+ */
+public interface AuthenticationMetrics {
+
+    /**
+     * Discards all measurements, which is used when no metrics have been configured.
+     */
+    AuthenticationMetrics NONE = new AuthenticationMetrics() {
+    };
+
+    /**
+     * Indicates a request has started processing.
+     *
+     * @param filter the name of the filter
+     */
+    default void started(String filter) {
+    }
+
+    /**
+     * Records the completion of a phase of processing, such as parsing the request body or authenticating the
+     * credentials.
+     *
+     * @param filter the name of the filter
+     * @param phase  the name of the phase
+     * @param nanos  the time spent in the phase
+     */
+    default void phase(String filter, String phase, long nanos) {
+    }
+
+    /**
+     * Indicates the request resulted in a successful authentication.
+     *
+     * @param filter the name of the filter
+     */
+    default void succeeded(String filter) {
+    }
+
+    /**
+     * Indicates the request was rejected.
+     *
+     * @param filter    the name of the filter
+     * @param exception the reason for the rejection
+     */
+    default void failed(String filter, AuthenticationException exception) {
+    }
+
+    /**
+     * Indicates a request that was {@link #started(String) started} has finished processing.
+     *
+     * @param filter the name of the filter
+     * @param nanos  the total time spent processing the request
+     */
+    default void finished(String filter, long nanos) {
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2018 Geoff Bourne
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package me.itzg.spring.security.spa;
+
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.provisioning.UserDetailsManager;
+
+import java.util.List;
+
+/**
+ * A {@link UserDetailsManager} that can create several users in one operation, such as a JDBC batch insert.
+ * {@link BulkRegistrationFilter} uses this, when available, to create each batch of users.
+ *
+ * @author Geoff Bourne
+ * @since Oct 2026
+ */
+public interface BatchUserDetailsManager extends UserDetailsManager {
+
+    /**
+     * Creates all of the given users or, if an exception is thrown, none of them.
+     *
+     * @param users the users to create
+     */
+    void createUsers(List<UserDetails> users);
+}
@@ -0,0 +1,401 @@
+/*
+ * Copyright 2018 Geoff Bourne
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package me.itzg.spring.security.spa;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.provisioning.UserDetailsManager;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.util.Assert;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Registers many users from a single request whose body is a stream of newline delimited JSON
+ * (<code>application/x-ndjson</code>) objects, each containing a <code>username</code> and <code>password</code>.
+ * The user store, password encoder, initial roles, and validators are those of the given {@link RegistrationFilter}.
+ * <p>
+ * Lines are parsed as they arrive and, once validated, each password is encoded on a dedicated
+ * {@link ForkJoinPool}, so encoding overlaps with reading the rest of the batch. Each batch of users is created
+ * together, via {@link BatchUserDetailsManager#createUsers(List)} if the user store supports it, falling back to
+ * one at a time if the batch fails, and then a
+ * result for each of the batch's lines is streamed back as an NDJSON object, such as
+ * </p>
+ * <pre>
+ {"line":1,"username":"alice","status":"created"}
+ {"line":2,"username":"bob","status":"failed","message":"Username is already in use"}
+ * </pre>
+ * <p>
+ * Unlike the other filters of this library, this one doesn't authenticate the request, so it should be
+ * installed after the authorization filter and its URL restricted to administrators.
+ * </p>
+ *
+ * @author Geoff Bourne
+ * @since Oct 2026
+ */
+@SuppressWarnings("WeakerAccess")
+public class BulkRegistrationFilter extends OncePerRequestFilter implements DisposableBean {
+    private static final Log log = LogFactory.getLog(BulkRegistrationFilter.class);
+
+    public static final String DEFAULT_PROCESSES_URL = "/register/bulk";
+    public static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    public static final int DEFAULT_BATCH_SIZE = 100;
+    public static final String LINE_TOO_LONG = "Line is too long";
+
+    private final RequestMatcher requestMatcher;
+    private final RegistrationFilter registrationFilter;
+    private final ForkJoinPool encodingPool;
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private StreamingCredentialsParser lineParser = new StreamingCredentialsParser();
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
+    /**
+     * Creates a filter that processes bulk registrations at <code>/register/bulk</code> and encodes passwords
+     * with a parallelism of the number of available processors.
+     *
+     * @param registrationFilter provides the configuration of registration
+     */
+    public BulkRegistrationFilter(RegistrationFilter registrationFilter) {
+        this(DEFAULT_PROCESSES_URL, registrationFilter, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param filterProcessesUrl the ant path where this filter processes bulk registrations
+     * @param registrationFilter provides the configuration of registration
+     * @param parallelism        the maximum number of passwords encoded at once, across all requests
+     */
+    public BulkRegistrationFilter(String filterProcessesUrl, RegistrationFilter registrationFilter,
+                                  int parallelism) {
+        Assert.notNull(registrationFilter, "registrationFilter is required");
+        this.requestMatcher = new AntPathRequestMatcher(filterProcessesUrl, "POST");
+        this.registrationFilter = registrationFilter;
+        this.encodingPool = new ForkJoinPool(parallelism);
+    }
+
+    /**
+     * Sets the number of lines whose users are created together and whose results are then written.
+     * The default is {@value #DEFAULT_BATCH_SIZE}.
+     *
+     * @param batchSize the number of lines per batch
+     * @return this object for call chaining
+     */
+    public BulkRegistrationFilter setBatchSize(int batchSize) {
+        Assert.isTrue(batchSize > 0, "batchSize must be positive");
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    /**
+     * Sets the parser of each line, where its maximum body length limits the length of a line.
+     *
+     * @param lineParser the parser to use
+     * @return this object for call chaining
+     */
+    public BulkRegistrationFilter setLineParser(StreamingCredentialsParser lineParser) {
+        Assert.notNull(lineParser, "lineParser is required");
+        this.lineParser = lineParser;
+        return this;
+    }
+
+    @Override
+    public void destroy() {
+        encodingPool.shutdownNow();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !requestMatcher.matches(request);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        if (!isNdjson(request.getContentType())) {
+            response.sendError(HttpServletResponse.SC_UNSUPPORTED_MEDIA_TYPE);
+            return;
+        }
+
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(APPLICATION_NDJSON.toString());
+
+        final LineReader lines = new LineReader(request.getInputStream(), lineParser.getMaxBodyLength());
+        final List<Entry> batch = new ArrayList<>(batchSize);
+        int created = 0;
+        try (JsonGenerator out = jsonFactory.createGenerator(response.getOutputStream(), JsonEncoding.UTF8)) {
+            // each result is terminated by a newline instead
+            out.setRootValueSeparator(null);
+
+            int lineNumber = 0;
+            while (lines.next()) {
+                ++lineNumber;
+                if (lines.isBlank()) {
+                    continue;
+                }
+                batch.add(prepare(lineNumber, lines));
+                if (batch.size() >= batchSize) {
+                    created += complete(batch, out);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                created += complete(batch, out);
+                batch.clear();
+            }
+        } finally {
+            // only remaining when aborted by an I/O failure
+            for (Entry entry : batch) {
+                entry.release();
+            }
+        }
+        log.debug("Bulk registration created " + created + " users");
+    }
+
+    private static boolean isNdjson(String contentType) {
+        try {
+            return contentType != null && APPLICATION_NDJSON.includes(MediaType.parseMediaType(contentType));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Parses and validates a line and, if valid, starts encoding its password.
+     */
+    private Entry prepare(int lineNumber, LineReader line) {
+        final Entry entry = new Entry(lineNumber);
+        try {
+            if (line.isTooLong()) {
+                throw new RegistrationFailedException(LINE_TOO_LONG);
+            }
+            final Credentials registration = lineParser.parse(
+                    new ByteArrayInputStream(line.getBytes(), 0, line.getLength()));
+            if (registration == null) {
+                throw new RegistrationFailedException(RegistrationFilter.INVALID_CONTENT);
+            }
+            entry.username = registration.getUsername();
+            registrationFilter.validate(registration);
+            entry.claim = registrationFilter.claimUsername(registration.getUsername());
+
+            final boolean exists;
+            try {
+                exists = registrationFilter.getUserDetailsManager().userExists(registration.getUsername());
+            } catch (Exception e) {
+                throw new RegistrationFailedException(RegistrationFilter.UNEXPECTED_FAILURE, e);
+            }
+            if (exists) {
+                throw new RegistrationFailedException(RegistrationFilter.USERNAME_IN_USE);
+            }
+
+            final String password = registration.getPassword();
+            entry.encodedPassword = encodingPool.submit(
+                    () -> registrationFilter.getPasswordEncoder().encode(password));
+        } catch (AuthenticationException | IOException e) {
+            entry.fail(e.getMessage());
+        }
+        return entry;
+    }
+
+    /**
+     * Waits for the batch's password encoding, creates its users, and writes its results.
+     *
+     * @return the number of users created
+     */
+    private int complete(List<Entry> batch, JsonGenerator out) throws IOException {
+        final List<Entry> pending = new ArrayList<>(batch.size());
+        final List<UserDetails> users = new ArrayList<>(batch.size());
+        for (Entry entry : batch) {
+            if (entry.encodedPassword != null) {
+                try {
+                    users.add(registrationFilter.buildUser(entry.username, entry.encodedPassword.join()));
+                    pending.add(entry);
+                } catch (RuntimeException e) {
+                    log.warn("Failed to encode password of " + entry.username, e);
+                    entry.fail(RegistrationFilter.UNEXPECTED_FAILURE);
+                }
+            }
+        }
+
+        final int created = createUsers(pending, users);
+
+        for (Entry entry : batch) {
+            entry.release();
+            writeResult(out, entry);
+        }
+        out.flush();
+        return created;
+    }
+
+    private int createUsers(List<Entry> pending, List<UserDetails> users) {
+        final UserDetailsManager userDetailsManager = registrationFilter.getUserDetailsManager();
+        if (users.isEmpty()) {
+            return 0;
+        }
+        if (userDetailsManager instanceof BatchUserDetailsManager) {
+            try {
+                ((BatchUserDetailsManager) userDetailsManager).createUsers(users);
+                return users.size();
+            } catch (Exception e) {
+                // none were created, so isolate the failure by creating them one at a time
+                log.debug("Falling back to individual creates after batch of " + users.size() + " failed", e);
+            }
+        }
+
+        int created = 0;
+        for (int i = 0; i < users.size(); i++) {
+            try {
+                userDetailsManager.createUser(users.get(i));
+                ++created;
+            } catch (Exception e) {
+                log.warn("Failed to create user " + users.get(i).getUsername(), e);
+                pending.get(i).fail(RegistrationFilter.UNEXPECTED_FAILURE);
+            }
+        }
+        return created;
+    }
+
+    private static void writeResult(JsonGenerator out, Entry entry) throws IOException {
+        out.writeStartObject();
+        out.writeNumberField("line", entry.lineNumber);
+        if (entry.username != null) {
+            out.writeStringField("username", entry.username);
+        }
+        if (entry.failure == null) {
+            out.writeStringField("status", "created");
+        } else {
+            out.writeStringField("status", "failed");
+            out.writeStringField("message", entry.failure);
+        }
+        out.writeEndObject();
+        out.writeRaw('\n');
+    }
+
+    private class Entry {
+        final int lineNumber;
+        String username;
+        String claim;
+        ForkJoinTask<String> encodedPassword;
+        String failure;
+
+        Entry(int lineNumber) {
+            this.lineNumber = lineNumber;
+        }
+
+        void fail(String message) {
+            failure = message;
+            encodedPassword = null;
+        }
+
+        void release() {
+            if (claim != null) {
+                registrationFilter.releaseUsername(claim);
+                claim = null;
+            }
+        }
+    }
+
+    /**
+     * Reads lines of bytes into a reused buffer, discarding the remainder of lines that exceed the buffer.
+     */
+    private static class LineReader {
+        private final InputStream in;
+        private final byte[] buffer = new byte[8192];
+        private int position;
+        private int limit;
+        private final byte[] line;
+        private int length;
+        private boolean tooLong;
+
+        LineReader(InputStream in, int maxLineLength) {
+            this.in = in;
+            this.line = new byte[maxLineLength];
+        }
+
+        /**
+         * @return true if a line was read or false at the end of the stream
+         */
+        boolean next() throws IOException {
+            length = 0;
+            tooLong = false;
+            boolean read = false;
+            while (true) {
+                if (position == limit) {
+                    position = 0;
+                    limit = Math.max(in.read(buffer), 0);
+                    if (limit == 0) {
+                        return read;
+                    }
+                }
+                read = true;
+                final byte b = buffer[position++];
+                if (b == '\n') {
+                    if (length > 0 && line[length - 1] == '\r') {
+                        --length;
+                    }
+                    return true;
+                }
+                if (length < line.length) {
+                    line[length++] = b;
+                } else {
+                    tooLong = true;
+                }
+            }
+        }
+
+        boolean isBlank() {
+            if (tooLong) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (!Character.isWhitespace(line[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        boolean isTooLong() {
+            return tooLong;
+        }
+
+        byte[] getBytes() {
+            return line;
+        }
+
+        int getLength() {
+            return length;
+        }
+    }
+}
@@ -0,0 +1,319 @@
+/*
+ * Copyright 2018 Geoff Bourne
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package me.itzg.spring.security.spa;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.CredentialsContainer;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.provisioning.UserDetailsManager;
+import org.springframework.util.Assert;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decorates a {@link UserDetailsManager}, such as a JDBC one, with a read-through cache of
+ * {@link #loadUserByUsername(String)} results, so users that log in repeatedly don't each cost a query.
+ * <p>
+ * Entries expire after a time to live, so changes made by other nodes are seen eventually. Usernames that
+ * weren't found are cached too, with a {@link #setNegativeTtl(long) shorter time to live}, since credential stuffing
+ * mostly tries usernames that don't exist. Changes made through this manager invalidate the user's entry
+ * immediately. The cache is divided into segments, each a least-recently-used map behind its own lock, so
+ * concurrent logins of different users rarely contend.
+ * </p>
+ * <p>
+ * Since authentication erases the credentials of the returned user, cached {@link User}s are copied when returned.
+ * Other principals are returned as loaded when they can't be erased, that is when they don't implement
+ * {@link CredentialsContainer}. Erasable principals of any other class can't be copied without losing their own
+ * fields, so they aren't cached and every lookup of them queries the delegate.
+ * </p>
+ * Batches given to {@link #createUsers(List)} are passed along when the delegate is a
+ * {@link BatchUserDetailsManager}.
+ *
+ * @author Geoff Bourne
+ * @since Oct 2026
+ */
+@SuppressWarnings("WeakerAccess")
+public class CachingUserDetailsManager implements BatchUserDetailsManager {
+    public static final long DEFAULT_NEGATIVE_TTL = 5_000;
+
+    private static final int SEGMENTS = 16;
+
+    private final UserDetailsManager delegate;
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final long ttlNanos;
+    private volatile long negativeTtlNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_NEGATIVE_TTL);
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param delegate   the user store to cache
+     * @param maxEntries the maximum number of cached usernames, including those that weren't found
+     * @param ttl        the time to live, in milliseconds, of a cached user
+     */
+    public CachingUserDetailsManager(UserDetailsManager delegate, int maxEntries, long ttl) {
+        Assert.notNull(delegate, "delegate is required");
+        Assert.isTrue(maxEntries > 0, "maxEntries must be positive");
+        Assert.isTrue(ttl > 0, "ttl must be positive");
+        this.delegate = delegate;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttl);
+        final int segmentCapacity = Math.max(1, maxEntries / SEGMENTS);
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(segmentCapacity);
+        }
+    }
+
+    /**
+     * Sets how long, in milliseconds, a username that wasn't found is remembered as missing.
+     * Default is {@value #DEFAULT_NEGATIVE_TTL}.
+     *
+     * @param negativeTtl the time to live in milliseconds, where zero disables negative caching
+     * @return this object for call chaining
+     */
+    public CachingUserDetailsManager setNegativeTtl(long negativeTtl) {
+        Assert.isTrue(negativeTtl >= 0, "negativeTtl must not be negative");
+        this.negativeTtlNanos = TimeUnit.MILLISECONDS.toNanos(negativeTtl);
+        return this;
+    }
+
+    public UserDetailsManager getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * @return the number of lookups answered from the cache, including usernames known to be missing
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return the number of lookups that queried the delegate
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return the fraction of lookups answered from the cache or zero if there were none
+     */
+    public double getHitRate() {
+        final long hits = getHits();
+        final long total = hits + getMisses();
+        return total > 0 ? (double) hits / total : 0;
+    }
+
+    /**
+     * @return the number of cached usernames, which may include expired entries not yet evicted
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.entries.size();
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        final Segment segment = segmentFor(username);
+        final long version;
+        synchronized (segment) {
+            final Entry entry = segment.entries.get(username);
+            if (entry != null && entry.expiresAt - System.nanoTime() > 0) {
+                hits.increment();
+                if (entry.user == null) {
+                    throw new UsernameNotFoundException(username);
+                }
+                return share(entry.user);
+            }
+            version = segment.version;
+        }
+
+        misses.increment();
+        final UserDetails user;
+        try {
+            user = delegate.loadUserByUsername(username);
+        } catch (UsernameNotFoundException e) {
+            if (negativeTtlNanos > 0) {
+                cache(segment, version, username, null, negativeTtlNanos);
+            }
+            throw e;
+        }
+        if (!(user instanceof CredentialsContainer)) {
+            cache(segment, version, username, user, ttlNanos);
+        } else if (user.getClass() == User.class) {
+            // cache a copy, since the caller may erase the credentials of the one returned
+            cache(segment, version, username, share(user), ttlNanos);
+        }
+        return user;
+    }
+
+    @Override
+    public boolean userExists(String username) {
+        final Segment segment = segmentFor(username);
+        synchronized (segment) {
+            final Entry entry = segment.entries.get(username);
+            if (entry != null && entry.expiresAt - System.nanoTime() > 0) {
+                hits.increment();
+                return entry.user != null;
+            }
+        }
+        misses.increment();
+        return delegate.userExists(username);
+    }
+
+    @Override
+    public void createUser(UserDetails user) {
+        try {
+            delegate.createUser(user);
+        } finally {
+            invalidate(user.getUsername());
+        }
+    }
+
+    @Override
+    public void createUsers(List<UserDetails> users) {
+        try {
+            if (delegate instanceof BatchUserDetailsManager) {
+                ((BatchUserDetailsManager) delegate).createUsers(users);
+                return;
+            }
+
+            for (int i = 0; i < users.size(); i++) {
+                try {
+                    delegate.createUser(users.get(i));
+                } catch (RuntimeException e) {
+                    for (int j = 0; j < i; j++) {
+                        delegate.deleteUser(users.get(j).getUsername());
+                    }
+                    throw e;
+                }
+            }
+        } finally {
+            users.forEach(user -> invalidate(user.getUsername()));
+        }
+    }
+
+    @Override
+    public void updateUser(UserDetails user) {
+        try {
+            delegate.updateUser(user);
+        } finally {
+            invalidate(user.getUsername());
+        }
+    }
+
+    @Override
+    public void deleteUser(String username) {
+        try {
+            delegate.deleteUser(username);
+        } finally {
+            invalidate(username);
+        }
+    }
+
+    @Override
+    public void changePassword(String oldPassword, String newPassword) {
+        try {
+            delegate.changePassword(oldPassword, newPassword);
+        } finally {
+            final Authentication currentUser = SecurityContextHolder.getContext().getAuthentication();
+            if (currentUser != null) {
+                invalidate(currentUser.getName());
+            }
+        }
+    }
+
+    /**
+     * Removes the cached entry of a user, such as after changing it directly in the delegate.
+     *
+     * @param username the username to forget
+     */
+    public void invalidate(String username) {
+        final Segment segment = segmentFor(username);
+        synchronized (segment) {
+            segment.entries.remove(username);
+            // so that a lookup that read the delegate before this change doesn't cache its stale result
+            segment.version++;
+        }
+    }
+
+    public void invalidateAll() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.entries.clear();
+                segment.version++;
+            }
+        }
+    }
+
+    private void cache(Segment segment, long version, String username, UserDetails user, long ttl) {
+        synchronized (segment) {
+            if (segment.version == version) {
+                segment.entries.put(username, new Entry(user, System.nanoTime() + ttl));
+            }
+        }
+    }
+
+    /**
+     * @return the given user or, if its credentials can be erased, a copy of it
+     */
+    private static UserDetails share(UserDetails user) {
+        return user instanceof CredentialsContainer ? User.withUserDetails(user).build() : user;
+    }
+
+    private Segment segmentFor(String username) {
+        final int hash = username.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & (SEGMENTS - 1)];
+    }
+
+    private static final class Entry {
+        /**
+         * Null for a username that wasn't found.
+         */
+        final UserDetails user;
+        final long expiresAt;
+
+        Entry(UserDetails user, long expiresAt) {
+            this.user = user;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private static final class Segment {
+        final Map<String, Entry> entries;
+        long version;
+
+        Segment(int capacity) {
+            entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                    return size() > capacity;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2018 Geoff Bourne
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package me.itzg.spring.security.spa;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.security.authentication.AuthenticationTrustResolver;
+import org.springframework.security.authentication.AuthenticationTrustResolverImpl;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.context.HttpRequestResponseHolder;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+import org.springframework.security.web.context.SaveContextOnUpdateOrErrorResponseWrapper;
+import org.springframework.security.web.context.SecurityContextRepository;
+import org.springframework.util.Assert;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+
+/**
+ * Stores the security context in the HTTP session like {@link HttpSessionSecurityContextRepository}, but as the
+ * compact encoding of an {@link AuthenticationCodec} rather than the {@link SecurityContext} object. Session stores
+ * that serialize attributes, such as Spring Session, then store tens of bytes rather than kilobytes per session.
+ * Authentications that the codec doesn't support are stored as the context object under the usual
+ * {@link HttpSessionSecurityContextRepository#SPRING_SECURITY_CONTEXT_KEY key}.
+ * <p>
+ * As with {@link HttpSessionSecurityContextRepository}, the context is saved before the response is committed and
+ * the session attribute is only set when the authentication changed during the request, so that requests that
+ * don't change it don't cause a session write.
+ * </p>
+ *
+ * @author Geoff Bourne
+ * @since Oct 2026
+ */
+@SuppressWarnings("WeakerAccess")
+public class CompactSessionSecurityContextRepository implements SecurityContextRepository {
+    public static final String SESSION_ATTRIBUTE = CompactSessionSecurityContextRepository.class.getName() + ".AUTH";
+
+    private static final Log log = LogFactory.getLog(CompactSessionSecurityContextRepository.class);
+
+    private final AuthenticationCodec codec;
+    private final AuthenticationTrustResolver trustResolver = new AuthenticationTrustResolverImpl();
+
+    public CompactSessionSecurityContextRepository(AuthenticationCodec codec) {
+        Assert.notNull(codec, "codec is required");
+        this.codec = codec;
+    }
+
+    public AuthenticationCodec getCodec() {
+        return codec;
+    }
+
+    @Override
+    public SecurityContext loadContext(HttpRequestResponseHolder requestResponseHolder) {
+        final HttpServletRequest request = requestResponseHolder.getRequest();
+        final SecurityContext context = readContext(request.getSession(false));
+        requestResponseHolder.setResponse(new SaveToSessionResponseWrapper(
+                requestResponseHolder.getResponse(), request, context.getAuthentication()));
+        return context;
+    }
+
+    @Override
+    public void saveContext(SecurityContext context, HttpServletRequest request, HttpServletResponse response) {
+        final SaveToSessionResponseWrapper wrapper = response instanceof SaveToSessionResponseWrapper ?
+                (SaveToSessionResponseWrapper) response : null;
+        Assert.state(wrapper != null, "The response was not wrapped by loadContext");
+        if (!wrapper.isContextSaved()) {
+            wrapper.saveContext(context);
+        }
+    }
+
+    @Override
+    public boolean containsContext(HttpServletRequest request) {
+        final HttpSession session = request.getSession(false);
+        return session != null && (session.getAttribute(SESSION_ATTRIBUTE) != null ||
+                session.getAttribute(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY) != null);
+    }
+
+    private SecurityContext readContext(HttpSession session) {
+        if (session != null) {
+            final Object encoded = session.getAttribute(SESSION_ATTRIBUTE);
+            if (encoded instanceof byte[]) {
+                try {
+                    final Authentication authentication = codec.decode((byte[]) encoded);
+                    if (authentication != null) {
+                        final SecurityContext context = SecurityContextHolder.createEmptyContext();
+                        context.setAuthentication(authentication);
+                        return context;
+                    }
+                } catch (IllegalArgumentException e) {
+                    log.warn("Ignoring malformed authentication in session", e);
+                }
+            }
+
+            final Object stored = session.getAttribute(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY);
+            if (stored instanceof SecurityContext) {
+                return (SecurityContext) stored;
+            }
+        }
+        return SecurityContextHolder.createEmptyContext();
+    }
+
+    private final class SaveToSessionResponseWrapper extends SaveContextOnUpdateOrErrorResponseWrapper {
+        private final HttpServletRequest request;
+        private final Authentication authBeforeExecution;
+
+        SaveToSessionResponseWrapper(HttpServletResponse response, HttpServletRequest request,
+                                     Authentication authBeforeExecution) {
+            super(response, false);
+            this.request = request;
+            this.authBeforeExecution = authBeforeExecution;
+        }
+
+        @Override
+        protected void saveContext(SecurityContext context) {
+            final Authentication authentication = context.getAuthentication();
+            if (authentication == authBeforeExecution) {
+                return;
+            }
+
+            final HttpSession existing = request.getSession(false);
+            if (authentication == null || trustResolver.isAnonymous(authentication)) {
+                if (existing != null) {
+                    existing.removeAttribute(SESSION_ATTRIBUTE);
+                    existing.removeAttribute(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY);
+                }
+                return;
+            }
+
+            final HttpSession session = existing != null ? existing : request.getSession(true);
+            final byte[] encoded = codec.encode(authentication);
+            if (encoded != null) {
+                session.setAttribute(SESSION_ATTRIBUTE, encoded);
+                session.removeAttribute(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY);
+            } else {
+                session.setAttribute(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY, context);
+                session.removeAttribute(SESSION_ATTRIBUTE);
+            }
+        }
+    }
+}
@@ -0,0 +1,569 @@
+/*
+ * Copyright 2018 Geoff Bourne
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package me.itzg.spring.security.spa;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.provisioning.UserDetailsManager;
+import org.springframework.util.Assert;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * A {@link UserDetailsManager} for large numbers of users that are held in memory and, optionally, persisted to a
+ * local directory.
+ * <p>
+ * Each user is stored as its encoded password's bytes, a byte of account flags, and a reference to an interned,
+ * immutable list of authorities that is shared by all users with the same authorities. Users are held in a
+ * {@link ConcurrentHashMap}, so lookups never block. Changes are serialized by a single lock, which keeps them in
+ * the same order as the journal.
+ * </p>
+ * <p>
+ * When given a directory, each change is appended to a journal file before it is applied. Every
+ * {@link #setSnapshotInterval(long) snapshot interval}, if there were changes, all users are written to a new
+ * snapshot file, which atomically replaces the previous one, and the journal is started over. Changes made
+ * while the snapshot is written go to the new journal, so they don't wait for it. On construction, the snapshot and
+ * then the journals are memory-mapped and replayed. A journal record that was only partially written, such as by
+ * a crash, is discarded.
+ * </p>
+ * Journal writes are flushed to the operating system but not synced to disk, unless
+ * {@link #setSyncWrites(boolean) enabled}, so a power loss may lose the most recent changes.
+ *
+ * @author Geoff Bourne
+ * @since Oct 2026
+ */
+@SuppressWarnings("WeakerAccess")
+public class CompactUserDetailsManager implements BatchUserDetailsManager, DisposableBean {
+    public static final long DEFAULT_SNAPSHOT_INTERVAL = 300_000;
+    public static final String SNAPSHOT_FILE = "users.snapshot";
+    public static final String JOURNAL_FILE = "users.journal";
+
+    private static final Log log = LogFactory.getLog(CompactUserDetailsManager.class);
+
+    private static final String ROTATED_JOURNAL_FILE = JOURNAL_FILE + ".prev";
+    private static final String SNAPSHOT_TEMP_FILE = SNAPSHOT_FILE + ".tmp";
+    private static final int MAGIC = 0x53504155;
+    private static final byte VERSION = 1;
+    private static final byte OP_END = 0;
+    private static final byte OP_PUT = 1;
+    private static final byte OP_DELETE = 2;
+    private static final int MAX_FIELD_LENGTH = 0xFFFF;
+
+    private static final int FLAG_ENABLED = 1;
+    private static final int FLAG_ACCOUNT_NON_EXPIRED = 1 << 1;
+    private static final int FLAG_ACCOUNT_NON_LOCKED = 1 << 2;
+    private static final int FLAG_CREDENTIALS_NON_EXPIRED = 1 << 3;
+
+    private final ConcurrentMap<String, StoredUser> users;
+    private final ConcurrentMap<List<String>, List<GrantedAuthority>> authoritySets = new ConcurrentHashMap<>();
+    private final Object writeLock = new Object();
+    private final Object snapshotLock = new Object();
+    private final Path directory;
+    private final ScheduledExecutorService snapshotExecutor;
+    private ScheduledFuture<?> snapshotTask;
+    private FileOutputStream journalFile;
+    private DataOutputStream journal;
+    private long journalRecords;
+    private boolean syncWrites;
+    private AuthenticationManager authenticationManager;
+
+    /**
+     * Creates a manager that only holds users in memory.
+     */
+    public CompactUserDetailsManager() {
+        this.users = new ConcurrentHashMap<>();
+        this.directory = null;
+        this.snapshotExecutor = null;
+    }
+
+    /**
+     * Creates a manager that persists users in the given directory and restores any users previously persisted
+     * there.
+     *
+     * @param directory the directory of the snapshot and journal files, which is created if needed
+     * @throws IOException if the files can't be read or the journal can't be opened
+     */
+    public CompactUserDetailsManager(Path directory) throws IOException {
+        Assert.notNull(directory, "directory is required");
+        this.directory = Files.createDirectories(directory);
+
+        final Path snapshot = directory.resolve(SNAPSHOT_FILE);
+        if (Files.exists(snapshot)) {
+            final ByteBuffer buffer = map(snapshot);
+            final int magic = buffer.getInt();
+            final byte version = buffer.get();
+            if (magic != MAGIC || version != VERSION) {
+                throw new IOException("Unsupported snapshot format in " + snapshot);
+            }
+            this.users = new ConcurrentHashMap<>(Math.max(16, buffer.getInt()));
+            if (replay(buffer) != OP_END) {
+                throw new IOException("Snapshot is truncated: " + snapshot);
+            }
+        } else {
+            this.users = new ConcurrentHashMap<>();
+        }
+
+        boolean unsnapshotted = false;
+        final Path rotatedJournal = directory.resolve(ROTATED_JOURNAL_FILE);
+        if (Files.exists(rotatedJournal)) {
+            replay(map(rotatedJournal));
+            unsnapshotted = true;
+        }
+        final Path journalPath = directory.resolve(JOURNAL_FILE);
+        if (Files.exists(journalPath)) {
+            final ByteBuffer buffer = map(journalPath);
+            replay(buffer);
+            unsnapshotted |= buffer.position() > 0;
+            if (buffer.position() < buffer.limit()) {
+                log.warn("Discarding partially written record at the end of " + journalPath);
+                try (FileChannel channel = FileChannel.open(journalPath, StandardOpenOption.WRITE)) {
+                    channel.truncate(buffer.position());
+                }
+            }
+        }
+        openJournal();
+        if (unsnapshotted) {
+            // so that the next scheduled snapshot includes the replayed changes
+            journalRecords = 1;
+        }
+
+        final CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("spa-user-snapshot-");
+        threadFactory.setDaemon(true);
+        this.snapshotExecutor = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        setSnapshotInterval(DEFAULT_SNAPSHOT_INTERVAL);
+    }
+
+    /**
+     * Sets how often, in milliseconds, a snapshot is written if users were changed since the last one.
+     * Default is {@value #DEFAULT_SNAPSHOT_INTERVAL}.
+     *
+     * @param snapshotInterval the interval in milliseconds
+     * @return this object for call chaining
+     */
+    public synchronized CompactUserDetailsManager setSnapshotInterval(long snapshotInterval) {
+        Assert.state(snapshotExecutor != null, "Snapshots require a directory");
+        Assert.isTrue(snapshotInterval > 0, "snapshotInterval must be positive");
+        if (snapshotTask != null) {
+            snapshotTask.cancel(false);
+        }
+        snapshotTask = snapshotExecutor.scheduleWithFixedDelay(this::scheduledSnapshot,
+                snapshotInterval, snapshotInterval, TimeUnit.MILLISECONDS);
+        return this;
+    }
+
+    /**
+     * Enables syncing the journal to disk after each change, which survives power loss at the cost of a disk
+     * write per registration. Default is false.
+     *
+     * @param syncWrites true to sync each change
+     * @return this object for call chaining
+     */
+    public CompactUserDetailsManager setSyncWrites(boolean syncWrites) {
+        this.syncWrites = syncWrites;
+        return this;
+    }
+
+    /**
+     * Sets the authentication manager that {@link #changePassword(String, String)} uses to confirm the old
+     * password. When not set, the old password isn't checked.
+     *
+     * @param authenticationManager the authentication manager
+     * @return this object for call chaining
+     */
+    public CompactUserDetailsManager setAuthenticationManager(AuthenticationManager authenticationManager) {
+        this.authenticationManager = authenticationManager;
+        return this;
+    }
+
+    /**
+     * @return the number of users
+     */
+    public int size() {
+        return users.size();
+    }
+
+    /**
+     * @return a read-only view of the usernames, such as for {@link UsernameIndex#addAll(Iterable) loading}
+     * a {@link UsernameIndex}
+     */
+    public Set<String> getUsernames() {
+        return Collections.unmodifiableSet(users.keySet());
+    }
+
+    @Override
+    public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        final StoredUser stored = users.get(username);
+        if (stored == null) {
+            throw new UsernameNotFoundException(username);
+        }
+        return stored.toUserDetails(username);
+    }
+
+    @Override
+    public boolean userExists(String username) {
+        return users.containsKey(username);
+    }
+
+    @Override
+    public void createUser(UserDetails user) {
+        final StoredUser stored = store(user);
+        synchronized (writeLock) {
+            Assert.isTrue(!users.containsKey(user.getUsername()), "user should not exist");
+            journal(encode(OP_PUT, user.getUsername(), stored));
+            users.put(user.getUsername(), stored);
+        }
+    }
+
+    @Override
+    public void createUsers(List<UserDetails> newUsers) {
+        final List<StoredUser> stored = new ArrayList<>(newUsers.size());
+        final Set<String> usernames = new HashSet<>();
+        final ByteArrayOutputStream records = new ByteArrayOutputStream();
+        for (UserDetails user : newUsers) {
+            Assert.isTrue(usernames.add(user.getUsername()), "usernames should be distinct");
+            final StoredUser storedUser = store(user);
+            stored.add(storedUser);
+            final byte[] record = encode(OP_PUT, user.getUsername(), storedUser);
+            records.write(record, 0, record.length);
+        }
+
+        synchronized (writeLock) {
+            for (String username : usernames) {
+                Assert.isTrue(!users.containsKey(username), "user should not exist");
+            }
+            journal(records.toByteArray());
+            for (int i = 0; i < newUsers.size(); i++) {
+                users.put(newUsers.get(i).getUsername(), stored.get(i));
+            }
+        }
+    }
+
+    @Override
+    public void updateUser(UserDetails user) {
+        final StoredUser stored = store(user);
+        synchronized (writeLock) {
+            Assert.isTrue(users.containsKey(user.getUsername()), "user should exist");
+            journal(encode(OP_PUT, user.getUsername(), stored));
+            users.put(user.getUsername(), stored);
+        }
+    }
+
+    @Override
+    public void deleteUser(String username) {
+        synchronized (writeLock) {
+            if (users.containsKey(username)) {
+                journal(encode(OP_DELETE, username, null));
+                users.remove(username);
+            }
+        }
+    }
+
+    @Override
+    public void changePassword(String oldPassword, String newPassword) {
+        final Authentication currentUser = SecurityContextHolder.getContext().getAuthentication();
+        if (currentUser == null) {
+            throw new AccessDeniedException(
+                    "Can't change password as no Authentication object found in context for current user.");
+        }
+        final String username = currentUser.getName();
+        if (authenticationManager != null) {
+            authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(username, oldPassword));
+        }
+
+        synchronized (writeLock) {
+            final StoredUser current = users.get(username);
+            Assert.state(current != null, "Current user doesn't exist in database.");
+            final StoredUser changed = new StoredUser(newPassword.getBytes(StandardCharsets.UTF_8),
+                    current.flags, current.authorities);
+            journal(encode(OP_PUT, username, changed));
+            users.put(username, changed);
+        }
+    }
+
+    /**
+     * Writes all users to a new snapshot and starts the journal over. This is performed periodically, so it
+     * only needs to be called directly, such as before a planned shutdown, to shorten the next restore.
+     *
+     * @throws IOException if the snapshot can't be written, in which case the journals are kept
+     */
+    public void snapshot() throws IOException {
+        Assert.state(directory != null, "Snapshots require a directory");
+        synchronized (snapshotLock) {
+            final Path rotatedJournal = directory.resolve(ROTATED_JOURNAL_FILE);
+            synchronized (writeLock) {
+                rotateJournal(rotatedJournal);
+            }
+
+            // changes that race with this iteration are also in the new journal, which is replayed after it
+            final Path temp = directory.resolve(SNAPSHOT_TEMP_FILE);
+            try (FileOutputStream file = new FileOutputStream(temp.toFile());
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 64 * 1024))) {
+                out.writeInt(MAGIC);
+                out.writeByte(VERSION);
+                out.writeInt(users.size());
+                for (Map.Entry<String, StoredUser> entry : users.entrySet()) {
+                    writeRecord(out, OP_PUT, entry.getKey(), entry.getValue());
+                }
+                out.writeByte(OP_END);
+                out.flush();
+                file.getFD().sync();
+            }
+            Files.move(temp, directory.resolve(SNAPSHOT_FILE),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.delete(rotatedJournal);
+        }
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        if (snapshotExecutor == null) {
+            return;
+        }
+        snapshotExecutor.shutdownNow();
+        synchronized (writeLock) {
+            journal.close();
+        }
+    }
+
+    private void scheduledSnapshot() {
+        final boolean changed;
+        synchronized (writeLock) {
+            changed = journalRecords > 0;
+        }
+        if (changed) {
+            try {
+                snapshot();
+            } catch (IOException | RuntimeException e) {
+                log.warn("Failed to write a snapshot of the users in " + directory, e);
+            }
+        }
+    }
+
+    /**
+     * Moves the journal aside, appending it to a journal left by a failed snapshot if there is one, and opens a
+     * new, empty journal.
+     */
+    private void rotateJournal(Path rotatedJournal) throws IOException {
+        journal.close();
+        final Path journalPath = directory.resolve(JOURNAL_FILE);
+        if (Files.exists(rotatedJournal)) {
+            try (FileChannel from = FileChannel.open(journalPath, StandardOpenOption.READ);
+                 FileChannel to = FileChannel.open(rotatedJournal, StandardOpenOption.APPEND)) {
+                long position = 0;
+                while (position < from.size()) {
+                    position += from.transferTo(position, from.size() - position, to);
+                }
+            }
+            Files.delete(journalPath);
+        } else {
+            Files.move(journalPath, rotatedJournal);
+        }
+        openJournal();
+    }
+
+    private void openJournal() throws IOException {
+        journalFile = new FileOutputStream(directory.resolve(JOURNAL_FILE).toFile(), true);
+        journal = new DataOutputStream(new BufferedOutputStream(journalFile));
+        journalRecords = 0;
+    }
+
+    private void journal(byte[] records) {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.write(records);
+            journal.flush();
+            if (syncWrites) {
+                journalFile.getFD().sync();
+            }
+            journalRecords++;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to write to the journal in " + directory, e);
+        }
+    }
+
+    private StoredUser store(UserDetails user) {
+        Assert.notNull(user, "user is required");
+        Assert.hasLength(user.getUsername(), "username is required");
+        Assert.notNull(user.getPassword(), "password is required");
+
+        int flags = 0;
+        flags |= user.isEnabled() ? FLAG_ENABLED : 0;
+        flags |= user.isAccountNonExpired() ? FLAG_ACCOUNT_NON_EXPIRED : 0;
+        flags |= user.isAccountNonLocked() ? FLAG_ACCOUNT_NON_LOCKED : 0;
+        flags |= user.isCredentialsNonExpired() ? FLAG_CREDENTIALS_NON_EXPIRED : 0;
+        return new StoredUser(user.getPassword().getBytes(StandardCharsets.UTF_8), (byte) flags,
+                intern(user.getAuthorities().stream()
+                        .map(GrantedAuthority::getAuthority)
+                        .sorted()
+                        .collect(Collectors.toList())));
+    }
+
+    private List<GrantedAuthority> intern(List<String> authorities) {
+        return authoritySets.computeIfAbsent(authorities, names -> Collections.unmodifiableList(
+                names.stream()
+                        .map(SimpleGrantedAuthority::new)
+                        .collect(Collectors.toList())));
+    }
+
+    private static byte[] encode(byte op, String username, StoredUser stored) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try {
+            writeRecord(new DataOutputStream(bytes), op, username, stored);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Writes a record as the op, the username, and for puts, the password, flags, and authorities.
+     * Strings and the password are each prefixed by an unsigned short length.
+     */
+    private static void writeRecord(DataOutputStream out, byte op, String username, StoredUser stored)
+            throws IOException {
+        out.writeByte(op);
+        writeField(out, username.getBytes(StandardCharsets.UTF_8));
+        if (op == OP_PUT) {
+            writeField(out, stored.password);
+            out.writeByte(stored.flags);
+            out.writeShort(stored.authorities.size());
+            for (GrantedAuthority authority : stored.authorities) {
+                writeField(out, authority.getAuthority().getBytes(StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    private static void writeField(DataOutputStream out, byte[] value) throws IOException {
+        if (value.length > MAX_FIELD_LENGTH) {
+            throw new IllegalArgumentException("Field is longer than " + MAX_FIELD_LENGTH + " bytes");
+        }
+        out.writeShort(value.length);
+        out.write(value);
+    }
+
+    /**
+     * Applies the records in the buffer until its end, an end marker, or a partially written record, leaving the
+     * buffer positioned after the last complete record.
+     *
+     * @return {@link #OP_END} if an end marker was reached or otherwise -1
+     */
+    private int replay(ByteBuffer buffer) {
+        while (buffer.hasRemaining()) {
+            final int start = buffer.position();
+            try {
+                final byte op = buffer.get();
+                if (op == OP_END) {
+                    return OP_END;
+                }
+                final String username = new String(readField(buffer), StandardCharsets.UTF_8);
+                if (op == OP_DELETE) {
+                    users.remove(username);
+                } else if (op == OP_PUT) {
+                    final byte[] password = readField(buffer);
+                    final byte flags = buffer.get();
+                    final int authorityCount = Short.toUnsignedInt(buffer.getShort());
+                    final List<String> authorities = new ArrayList<>(authorityCount);
+                    for (int i = 0; i < authorityCount; i++) {
+                        authorities.add(new String(readField(buffer), StandardCharsets.UTF_8));
+                    }
+                    users.put(username, new StoredUser(password, flags, intern(authorities)));
+                } else {
+                    buffer.position(start);
+                    return -1;
+                }
+            } catch (BufferUnderflowException e) {
+                buffer.position(start);
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    private static byte[] readField(ByteBuffer buffer) {
+        final byte[] value = new byte[Short.toUnsignedInt(buffer.getShort())];
+        buffer.get(value);
+        return value;
+    }
+
+    private static ByteBuffer map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // the mapping remains valid after the channel is closed
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    private static final class StoredUser {
+        final byte[] password;
+        final byte flags;
+        final List<GrantedAuthority> authorities;
+
+        StoredUser(byte[] password, byte flags, List<GrantedAuthority> authorities) {
+            this.password = password;
+            this.flags = flags;
+            this.authorities = authorities;
+        }
+
+        UserDetails toUserDetails(String username) {
+            return new User(username, new String(password, StandardCharsets.UTF_8),
+                    (flags & FLAG_ENABLED) != 0,
+                    (flags & FLAG_ACCOUNT_NON_EXPIRED) != 0,
+                    (flags & FLAG_CREDENTIALS_NON_EXPIRED) != 0,
+                    (flags & FLAG_ACCOUNT_NON_LOCKED) != 0,
+                    authorities);
+        }
+    }
+}
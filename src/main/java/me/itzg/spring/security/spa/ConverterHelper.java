@@ -17,28 +17,89 @@
 package me.itzg.spring.security.spa;
 
 import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.http.InvalidMediaTypeException;
 import org.springframework.http.MediaType;
 import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
 
 import javax.servlet.http.HttpServletRequest;
 import java.io.IOException;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Makes it easier to work with {@link HttpMessageConverters}.
+ * <p>
+ * The media type parsed from a request's <code>Content-Type</code> header and the converter chosen for it are
+ * cached per result class, keyed by the raw header value. Failed resolutions are cached also, so repeated
+ * requests with an unsupported or malformed content type stay cheap. The cache holds at most
+ * {@link #setMaxCacheEntries(int) maxCacheEntries} per result class and is cleared whenever the converters
+ * are replaced.
+ * </p>
  *
  * @author Geoff Bourne
  * @since Mar 2018
  */
 @SuppressWarnings("WeakerAccess")
 public class ConverterHelper {
-    private HttpMessageConverters httpMessageConverters;
+    public static final int DEFAULT_MAX_CACHE_ENTRIES = 64;
+
+    private volatile HttpMessageConverters httpMessageConverters;
+    private final ConcurrentMap<Class<?>, ConcurrentMap<String, Resolution>> resolutions = new ConcurrentHashMap<>();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+    private int maxCacheEntries = DEFAULT_MAX_CACHE_ENTRIES;
 
     public ConverterHelper(HttpMessageConverters httpMessageConverters) {
         this.httpMessageConverters = httpMessageConverters;
     }
 
+    /**
+     * Replaces the converters used by this helper and discards any cached resolutions.
+     *
+     * @param httpMessageConverters the new converters to use
+     */
+    public void setHttpMessageConverters(HttpMessageConverters httpMessageConverters) {
+        this.httpMessageConverters = httpMessageConverters;
+        resolutions.clear();
+    }
+
+    public HttpMessageConverters getHttpMessageConverters() {
+        return httpMessageConverters;
+    }
+
+    /**
+     * Sets the maximum number of content types cached per result class.
+     * Default is {@value #DEFAULT_MAX_CACHE_ENTRIES}.
+     *
+     * @param maxCacheEntries the maximum number of cached content types, where zero disables caching
+     * @return this object for call chaining
+     */
+    public ConverterHelper setMaxCacheEntries(int maxCacheEntries) {
+        Assert.isTrue(maxCacheEntries >= 0, "maxCacheEntries cannot be negative");
+        this.maxCacheEntries = maxCacheEntries;
+        resolutions.clear();
+        return this;
+    }
+
+    /**
+     * @return the number of content type resolutions served from the cache
+     */
+    public long getCacheHits() {
+        return cacheHits.sum();
+    }
+
+    /**
+     * @return the number of content type resolutions that required parsing and a converter search
+     */
+    public long getCacheMisses() {
+        return cacheMisses.sum();
+    }
+
     /**
      * @param resultClass the class to test for readability
      * @param mediaType   the media type to read
@@ -62,17 +123,73 @@ public class ConverterHelper {
      * @param req         the body of this request will be parsed
      * @param resultClass the expected class of the request body
      * @param <T>         the expected class of the request body
-     * @return the parsing result or null if not parseable
+     * @return the parsing result or null if not parseable, which includes a missing or malformed content type
      * @throws IOException in case of I/O errors while reading the request body
      */
     public <T> T parseBody(HttpServletRequest req, Class<T> resultClass) throws IOException {
-        final MediaType mediaType = MediaType.parseMediaType(req.getContentType());
+        final Resolution resolution = resolve(req.getContentType(), resultClass);
 
-        final Optional<HttpMessageConverter<T>> converter = findConverter(resultClass, mediaType);
-        if (converter.isPresent()) {
-            return converter.get().read(resultClass, new ServletServerHttpRequest(req));
+        if (resolution.converter != null) {
+            //noinspection unchecked
+            return ((HttpMessageConverter<T>) resolution.converter).read(resultClass, new ServletServerHttpRequest(req));
         } else {
             return null;
         }
     }
+
+    /**
+     * Resolves the media type and converter for the given raw content type, consulting the cache first.
+     *
+     * @param contentType the raw <code>Content-Type</code> header value, which may be null
+     * @param resultClass the expected class of the request body
+     * @return the resolution, which is never null but may contain a null media type and/or converter
+     */
+    Resolution resolve(String contentType, Class<?> resultClass) {
+        if (!StringUtils.hasText(contentType)) {
+            return Resolution.UNRESOLVED;
+        }
+
+        final ConcurrentMap<String, Resolution> byContentType =
+                resolutions.computeIfAbsent(resultClass, k -> new ConcurrentHashMap<>());
+
+        final Resolution cached = byContentType.get(contentType);
+        if (cached != null) {
+            cacheHits.increment();
+            return cached;
+        }
+
+        cacheMisses.increment();
+        final Resolution resolution = computeResolution(contentType, resultClass);
+        if (maxCacheEntries > 0) {
+            if (byContentType.size() >= maxCacheEntries) {
+                // crude but bounded: an unexpected variety of content types should not grow the heap
+                byContentType.clear();
+            }
+            byContentType.put(contentType, resolution);
+        }
+        return resolution;
+    }
+
+    private Resolution computeResolution(String contentType, Class<?> resultClass) {
+        final MediaType mediaType;
+        try {
+            mediaType = MediaType.parseMediaType(contentType);
+        } catch (InvalidMediaTypeException e) {
+            return Resolution.UNRESOLVED;
+        }
+
+        return new Resolution(mediaType, findConverter(resultClass, mediaType).orElse(null));
+    }
+
+    static class Resolution {
+        static final Resolution UNRESOLVED = new Resolution(null, null);
+
+        final MediaType mediaType;
+        final HttpMessageConverter<?> converter;
+
+        Resolution(MediaType mediaType, HttpMessageConverter<?> converter) {
+            this.mediaType = mediaType;
+            this.converter = converter;
+        }
+    }
 }
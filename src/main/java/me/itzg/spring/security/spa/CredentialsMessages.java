@@ -0,0 +1,39 @@
+/*
+ * Copyright 2018 Geoff Bourne
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package me.itzg.spring.security.spa;
+
+/**
+ * The messages of the authentication exceptions thrown by both the servlet filters and the web filters of the
+ * <code>reactive</code> package. They are kept here, apart from either API, so that the reactive filters don't
+ * reference the servlet classes.
+ *
+ * @author Geoff Bourne
+ * @since Oct 2026
+ */
+public final class CredentialsMessages {
+    public static final String MISSING_USERNAME = "Missing username";
+    public static final String MISSING_PASSWORD = "Missing password";
+    public static final String BAD_CREDENTIALS = "Bad credentials";
+    public static final String INVALID_BODY = "Request body was invalid";
+    public static final String BODY_TOO_LARGE = "Request body is too large";
+    public static final String USERNAME_IN_USE = "Username is already in use";
+    public static final String INVALID_CONTENT = "Invalid request content";
+    public static final String UNEXPECTED_FAILURE = "Unexpected failure";
+
+    private CredentialsMessages() {
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2018 Geoff Bourne
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package me.itzg.spring.security.spa;
+
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.util.Assert;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * Matches requests with the given HTTP method and path. A path without wildcards is compared exactly, which avoids
+ * the pattern parsing that {@link AntPathRequestMatcher} performs on each request; otherwise, matching is
+ * delegated to an {@link AntPathRequestMatcher}.
+ *
+ * @author Geoff Bourne
+ * @since Oct 2026
+ */
+@SuppressWarnings("WeakerAccess")
+public class ExactPathRequestMatcher implements RequestMatcher {
+
+    private final String path;
+    private final String method;
+    private final AntPathRequestMatcher antMatcher;
+
+    /**
+     * @param path   the path, which is matched as an Ant pattern only if it contains wildcards
+     * @param method the HTTP method to match or null to match any method
+     */
+    public ExactPathRequestMatcher(String path, String method) {
+        Assert.hasText(path, "path is required");
+        this.path = path;
+        this.method = method;
+        this.antMatcher = isPattern(path) ? new AntPathRequestMatcher(path, method) : null;
+    }
+
+    /**
+     * @param path the path or Ant pattern
+     * @return true if the given path contains Ant wildcards or URI template variables
+     */
+    public static boolean isPattern(String path) {
+        return path.indexOf('*') >= 0 || path.indexOf('?') >= 0 || path.indexOf('{') >= 0;
+    }
+
+    /**
+     * Gets the path within the application, as matched by this class and {@link AntPathRequestMatcher}.
+     *
+     * @param request the request
+     * @return the servlet path followed by the path info, if any
+     */
+    public static String getRequestPath(HttpServletRequest request) {
+        final String pathInfo = request.getPathInfo();
+        return pathInfo != null ? request.getServletPath() + pathInfo : request.getServletPath();
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    /**
+     * @return true if requests are matched against the path as an Ant pattern, rather than exactly
+     */
+    public boolean isPatternMatching() {
+        return antMatcher != null;
+    }
+
+    @Override
+    public boolean matches(HttpServletRequest request) {
+        if (antMatcher != null) {
+            return antMatcher.matches(request);
+        }
+        return (method == null || method.equals(request.getMethod())) && path.equals(getRequestPath(request));
+    }
+
+    @Override
+    public String toString() {
+        return "ExactPathRequestMatcher[path='" + path + "', method=" + method + "]";
+    }
+}
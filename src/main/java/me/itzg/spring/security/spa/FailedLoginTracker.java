@@ -0,0 +1,300 @@
+/*
+ * Copyright 2018 Geoff Bourne
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package me.itzg.spring.security.spa;
+
+import org.springframework.security.web.authentication.AuthenticationFailureHandler;
+import org.springframework.util.Assert;
+
+import java.security.SecureRandom;
+import java.util.AbstractMap;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Tracks failed logins per username in a fixed amount of memory, so that usernames under a brute-force attack can
+ * be locked out before their password is checked, no matter how many distinct usernames an attacker sprays.
+ * <p>
+ * Failures are counted in a count-min sketch: each username increments one counter in each of
+ * {@link #DEFAULT_DEPTH} rows and its estimate is the smallest of those counters, which may over-count due to
+ * collisions but never under-counts. The hash is seeded per instance, so colliding usernames can't be precomputed.
+ * All counters are halved every {@link #setDecayInterval(long) decay interval}, so old failures fade away without
+ * tracking when each occurred.
+ * </p>
+ * <p>
+ * Usernames whose estimate reaches half the threshold are admitted to a small table of heavy hitters, replacing
+ * the entry with the fewest failures when full, and are counted exactly from then on. Only heavy hitters are
+ * locked out and the sketch's estimate contributes at most half of the threshold, so a sketch that over-counts
+ * while usernames are sprayed faster than it decays can't lock out users that aren't themselves being guessed.
+ * A successful login clears the username's exact count, which the sketch alone can't do, since its counters are
+ * shared with other usernames.
+ * </p>
+ * <p>
+ * Usernames are counted case-insensitively, as many user stores match them, so that an attacker can't get a fresh
+ * count by changing the case of the username being guessed.
+ * </p>
+ *
+ * @author Geoff Bourne
+ * @since Oct 2026
+ */
+@SuppressWarnings("WeakerAccess")
+public class FailedLoginTracker {
+    public static final int DEFAULT_WIDTH = 1 << 14;
+    public static final int DEFAULT_DEPTH = 4;
+    public static final int DEFAULT_HEAVY_HITTERS = 64;
+    public static final long DEFAULT_DECAY_INTERVAL = 60_000;
+
+    private final int threshold;
+    private final int admissionThreshold;
+    private final int depth;
+    private final int width;
+    private final AtomicIntegerArray counters;
+    private final long seed;
+    private final int maxHeavyHitters;
+    private final ConcurrentMap<String, AtomicInteger> heavyHitters = new ConcurrentHashMap<>();
+    private final AtomicLong lastDecay = new AtomicLong(System.nanoTime());
+    private final LongAdder rejections = new LongAdder();
+    private volatile long decayIntervalNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_DECAY_INTERVAL);
+    private AuthenticationFailureHandler failureHandler =
+            new SimpleAuthenticationFailureHandler().setStatus(RateLimitExceededFailureHandler.STATUS_CODE);
+
+    /**
+     * Creates a tracker with a sketch of {@value #DEFAULT_DEPTH} rows of {@value #DEFAULT_WIDTH} counters, which
+     * is 256 KB, and up to {@value #DEFAULT_HEAVY_HITTERS} heavy hitters.
+     *
+     * @param threshold the number of recent failures at which a username is locked out
+     */
+    public FailedLoginTracker(int threshold) {
+        this(threshold, DEFAULT_WIDTH, DEFAULT_DEPTH, DEFAULT_HEAVY_HITTERS);
+    }
+
+    /**
+     * @param threshold       the number of recent failures at which a username is locked out
+     * @param width           the number of counters per row, which is rounded up to a power of two. A wider
+     *                        sketch over-counts less when many usernames are seen between decays.
+     * @param depth           the number of rows
+     * @param maxHeavyHitters the number of usernames counted exactly
+     */
+    public FailedLoginTracker(int threshold, int width, int depth, int maxHeavyHitters) {
+        Assert.isTrue(threshold > 0, "threshold must be positive");
+        Assert.isTrue(width > 0 && width <= 1 << 30, "width must be positive and at most 2^30");
+        Assert.isTrue(depth > 0 && (long) depth * Integer.highestOneBit(width) <= Integer.MAX_VALUE,
+                "depth must be positive and depth * width must fit in an array");
+        Assert.isTrue(maxHeavyHitters >= 0, "maxHeavyHitters must not be negative");
+        this.threshold = threshold;
+        this.admissionThreshold = Math.max(1, threshold / 2);
+        this.width = width == Integer.highestOneBit(width) ? width : Integer.highestOneBit(width) << 1;
+        this.depth = depth;
+        this.counters = new AtomicIntegerArray(this.width * depth);
+        this.seed = new SecureRandom().nextLong();
+        this.maxHeavyHitters = maxHeavyHitters;
+    }
+
+    /**
+     * Sets how often, in milliseconds, the counts are halved. Default is {@value #DEFAULT_DECAY_INTERVAL}.
+     *
+     * @param decayInterval the interval in milliseconds
+     * @return this object for call chaining
+     */
+    public FailedLoginTracker setDecayInterval(long decayInterval) {
+        Assert.isTrue(decayInterval > 0, "decayInterval must be positive");
+        this.decayIntervalNanos = TimeUnit.MILLISECONDS.toNanos(decayInterval);
+        return this;
+    }
+
+    /**
+     * Sets the handler invoked with a {@link TooManyFailedLoginsException} when a login is locked out.
+     * Default is a {@link SimpleAuthenticationFailureHandler} with the status
+     * {@value RateLimitExceededFailureHandler#STATUS_CODE}.
+     *
+     * @param failureHandler the failure handler
+     * @return this object for call chaining
+     */
+    public FailedLoginTracker setFailureHandler(AuthenticationFailureHandler failureHandler) {
+        Assert.notNull(failureHandler, "failureHandler is required");
+        this.failureHandler = failureHandler;
+        return this;
+    }
+
+    public AuthenticationFailureHandler getFailureHandler() {
+        return failureHandler;
+    }
+
+    public int getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * @return the number of logins rejected by {@link #checkAttempt(String)}
+     */
+    public long getRejections() {
+        return rejections.sum();
+    }
+
+    /**
+     * @return the number of bytes held by the sketch's counters, which is fixed
+     */
+    public long getSketchBytes() {
+        return (long) counters.length() * Integer.BYTES;
+    }
+
+    public int getHeavyHitterCount() {
+        return heavyHitters.size();
+    }
+
+    /**
+     * @return the exactly counted usernames, in lowercase, and their counts, from most to least failures
+     */
+    public Map<String, Integer> getHeavyHitters() {
+        final Map<String, Integer> result = new LinkedHashMap<>();
+        heavyHitters.entrySet().stream()
+                .map(entry -> new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), entry.getValue().get()))
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                .forEachOrdered(entry -> result.put(entry.getKey(), entry.getValue()));
+        return result;
+    }
+
+    /**
+     * Rejects a login attempt for a username that has reached the threshold of recent failures.
+     *
+     * @param username the username of the login attempt
+     * @throws TooManyFailedLoginsException if the username is locked out
+     */
+    public void checkAttempt(String username) throws TooManyFailedLoginsException {
+        decayIfDue();
+        final AtomicInteger exact = heavyHitters.get(key(username));
+        if (exact != null && exact.get() >= threshold) {
+            rejections.increment();
+            throw new TooManyFailedLoginsException();
+        }
+    }
+
+    /**
+     * @param username the username to look up
+     * @return the exact count of recent failures of a heavy hitter or otherwise the sketch's estimate, which
+     * may be too high
+     */
+    public int getFailures(String username) {
+        decayIfDue();
+        final String key = key(username);
+        final AtomicInteger exact = heavyHitters.get(key);
+        return exact != null ? exact.get() : estimate(hash(key));
+    }
+
+    public void recordFailure(String username) {
+        decayIfDue();
+        final String key = key(username);
+        final long hash = hash(key);
+        int estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.incrementAndGet(index(hash, row)));
+        }
+
+        final AtomicInteger exact = heavyHitters.get(key);
+        if (exact != null) {
+            exact.incrementAndGet();
+        } else if (estimate >= admissionThreshold && maxHeavyHitters > 0) {
+            admit(key, estimate);
+        }
+    }
+
+    public void recordSuccess(String username) {
+        final AtomicInteger exact = heavyHitters.get(key(username));
+        if (exact != null) {
+            exact.set(0);
+        }
+    }
+
+    private synchronized void admit(String username, int estimate) {
+        if (heavyHitters.containsKey(username)) {
+            return;
+        }
+        if (heavyHitters.size() >= maxHeavyHitters) {
+            final Map.Entry<String, AtomicInteger> smallest = heavyHitters.entrySet().stream()
+                    .min(Comparator.comparingInt(entry -> entry.getValue().get()))
+                    .orElse(null);
+            if (smallest == null || smallest.getValue().get() >= estimate) {
+                return;
+            }
+            heavyHitters.remove(smallest.getKey());
+        }
+        heavyHitters.put(username, new AtomicInteger(Math.min(estimate, admissionThreshold)));
+    }
+
+    private static String key(String username) {
+        return username.toLowerCase(Locale.ROOT);
+    }
+
+    private int estimate(long hash) {
+        int estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.get(index(hash, row)));
+        }
+        return estimate;
+    }
+
+    /**
+     * Derives each row's counter from the two halves of one hash, as in Kirsch and Mitzenmacher's double hashing.
+     */
+    private int index(long hash, int row) {
+        final int h1 = (int) hash;
+        final int h2 = (int) (hash >>> 32) | 1;
+        return row * width + ((h1 + row * h2) & (width - 1));
+    }
+
+    private long hash(String username) {
+        long h = seed;
+        for (int i = 0; i < username.length(); i++) {
+            h = (h ^ username.charAt(i)) * 0x9E3779B97F4A7C15L;
+            h ^= h >>> 32;
+        }
+        // MurmurHash3's finalizer
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * Halves the counts once per elapsed decay interval. Only the thread that advances the decay time
+     * performs it, so concurrent callers don't wait.
+     */
+    private void decayIfDue() {
+        final long now = System.nanoTime();
+        final long last = lastDecay.get();
+        final long intervals = (now - last) / decayIntervalNanos;
+        if (intervals <= 0 || !lastDecay.compareAndSet(last, last + intervals * decayIntervalNanos)) {
+            return;
+        }
+
+        final int shift = (int) Math.min(intervals, Integer.SIZE - 1);
+        for (int i = 0; i < counters.length(); i++) {
+            counters.getAndUpdate(i, count -> count >>> shift);
+        }
+        heavyHitters.values().removeIf(count -> count.updateAndGet(value -> value >>> shift) == 0);
+    }
+}
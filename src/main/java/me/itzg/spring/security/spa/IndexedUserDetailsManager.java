@@ -0,0 +1,146 @@
+/*
+ * Copyright 2018 Geoff Bourne
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package me.itzg.spring.security.spa;
+
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.provisioning.UserDetailsManager;
+import org.springframework.util.Assert;
+
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decorates a {@link UserDetailsManager} so that {@link #userExists(String)} and
+ * {@link #loadUserByUsername(String)} consult a {@link UsernameIndex} before querying the delegate, and
+ * {@link #createUser(UserDetails)} keeps the index up to date. This is most useful for stores where each query
+ * is a remote round trip, such as JDBC, since most probes for new usernames don't exist.
+ * <p>
+ * Batches given to {@link #createUsers(List)} are passed along when the delegate is a
+ * {@link BatchUserDetailsManager}, so wrapping a store doesn't take away its batch inserts.
+ * </p>
+ *
+ * @author Geoff Bourne
+ * @since Oct 2026
+ */
+@SuppressWarnings("WeakerAccess")
+public class IndexedUserDetailsManager implements BatchUserDetailsManager {
+    private final UserDetailsManager delegate;
+    private final UsernameIndex usernameIndex;
+    private final LongAdder skippedQueries = new LongAdder();
+    private final LongAdder delegatedQueries = new LongAdder();
+
+    /**
+     * @param delegate      the actual user store
+     * @param usernameIndex the index, which should already contain the delegate's existing usernames
+     */
+    public IndexedUserDetailsManager(UserDetailsManager delegate, UsernameIndex usernameIndex) {
+        Assert.notNull(delegate, "delegate is required");
+        Assert.notNull(usernameIndex, "usernameIndex is required");
+        this.delegate = delegate;
+        this.usernameIndex = usernameIndex;
+    }
+
+    public UserDetailsManager getDelegate() {
+        return delegate;
+    }
+
+    public UsernameIndex getUsernameIndex() {
+        return usernameIndex;
+    }
+
+    /**
+     * @return the number of queries answered by the index alone
+     */
+    public long getSkippedQueries() {
+        return skippedQueries.sum();
+    }
+
+    /**
+     * @return the number of queries that needed to be confirmed by the delegate
+     */
+    public long getDelegatedQueries() {
+        return delegatedQueries.sum();
+    }
+
+    @Override
+    public boolean userExists(String username) {
+        if (!usernameIndex.mightContain(username)) {
+            skippedQueries.increment();
+            return false;
+        }
+        delegatedQueries.increment();
+        return delegate.userExists(username);
+    }
+
+    @Override
+    public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        if (!usernameIndex.mightContain(username)) {
+            skippedQueries.increment();
+            throw new UsernameNotFoundException(username);
+        }
+        delegatedQueries.increment();
+        return delegate.loadUserByUsername(username);
+    }
+
+    @Override
+    public void createUser(UserDetails user) {
+        // index first so a concurrent lookup never misses a user that the delegate already has
+        usernameIndex.add(user.getUsername());
+        delegate.createUser(user);
+    }
+
+    /**
+     * Creates the users with a single call when the delegate is a {@link BatchUserDetailsManager}. Otherwise they
+     * are created one at a time and, if one fails, those already created are deleted again.
+     */
+    @Override
+    public void createUsers(List<UserDetails> users) {
+        users.forEach(user -> usernameIndex.add(user.getUsername()));
+        if (delegate instanceof BatchUserDetailsManager) {
+            ((BatchUserDetailsManager) delegate).createUsers(users);
+            return;
+        }
+
+        for (int i = 0; i < users.size(); i++) {
+            try {
+                delegate.createUser(users.get(i));
+            } catch (RuntimeException e) {
+                for (int j = 0; j < i; j++) {
+                    delegate.deleteUser(users.get(j).getUsername());
+                }
+                throw e;
+            }
+        }
+    }
+
+    @Override
+    public void updateUser(UserDetails user) {
+        delegate.updateUser(user);
+    }
+
+    @Override
+    public void deleteUser(String username) {
+        // Bloom filters can't remove entries, which just leaves a positive that the delegate will refute
+        delegate.deleteUser(username);
+    }
+
+    @Override
+    public void changePassword(String oldPassword, String newPassword) {
+        delegate.changePassword(oldPassword, newPassword);
+    }
+}
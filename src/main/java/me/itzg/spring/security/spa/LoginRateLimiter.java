@@ -0,0 +1,221 @@
+/*
+ * Copyright 2018 Geoff Bourne
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package me.itzg.spring.security.spa;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.web.authentication.AuthenticationFailureHandler;
+import org.springframework.util.Assert;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Limits the rate of login and registration attempts per client with a token bucket per client key, which is the
+ * request's remote address by default. The check is performed by the filters before the request body is read.
+ * <p>
+ * Each bucket is a single {@link AtomicLong} holding the time at which the bucket will be full again,
+ * so acquiring a token is one compare-and-set with no locking. Buckets are held in a {@link ConcurrentHashMap},
+ * which is already striped internally. Buckets that have refilled completely are idle and are evicted by a
+ * single background thread every {@link #setEvictionInterval(long) eviction interval}.
+ * </p>
+ * <p>
+ * The number of buckets is capped at {@link #setMaxTrackedClients(int) max tracked clients}, so clients spraying
+ * many source addresses can't grow the heap without limit. Once the cap is reached, idle buckets are evicted
+ * immediately and, if none are idle, attempts by clients that aren't yet tracked are limited until some are.
+ * </p>
+ * <p>
+ * Behind a reverse proxy every request has the proxy's remote address, so all clients would share one bucket;
+ * use {@link #setKeyExtractor(Function)} to key by the client address the trusted proxy forwards instead.
+ * </p>
+ *
+ * @author Geoff Bourne
+ * @since Oct 2026
+ */
+@SuppressWarnings("WeakerAccess")
+public class LoginRateLimiter implements DisposableBean {
+    public static final long DEFAULT_EVICTION_INTERVAL = 60_000;
+    public static final int DEFAULT_MAX_TRACKED_CLIENTS = 100_000;
+
+    private final int capacity;
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final ConcurrentMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService evictionExecutor;
+    private Function<HttpServletRequest, String> keyExtractor = HttpServletRequest::getRemoteAddr;
+    private AuthenticationFailureHandler failureHandler = new RateLimitExceededFailureHandler();
+    private ScheduledFuture<?> evictionTask;
+    private volatile int maxTrackedClients = DEFAULT_MAX_TRACKED_CLIENTS;
+
+    /**
+     * @param capacity        the number of attempts a client may make in a burst
+     * @param refillPerSecond the sustained number of attempts per second a client may make
+     */
+    public LoginRateLimiter(int capacity, double refillPerSecond) {
+        Assert.isTrue(capacity > 0, "capacity must be positive");
+        Assert.isTrue(refillPerSecond > 0, "refillPerSecond must be positive");
+        this.capacity = capacity;
+        this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / refillPerSecond);
+        this.burstNanos = intervalNanos * capacity;
+
+        final CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("spa-rate-limit-");
+        threadFactory.setDaemon(true);
+        this.evictionExecutor = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        setEvictionInterval(DEFAULT_EVICTION_INTERVAL);
+    }
+
+    /**
+     * Sets the function that derives the rate-limited key from a request, such as a header set by a
+     * trusted proxy. A null key exempts the request from limiting.
+     * Default uses {@link HttpServletRequest#getRemoteAddr()}.
+     *
+     * @param keyExtractor the key extractor
+     * @return this object for call chaining
+     */
+    public LoginRateLimiter setKeyExtractor(Function<HttpServletRequest, String> keyExtractor) {
+        Assert.notNull(keyExtractor, "keyExtractor is required");
+        this.keyExtractor = keyExtractor;
+        return this;
+    }
+
+    /**
+     * Sets the handler invoked with a {@link RateLimitExceededException} when a request is limited.
+     * Default is {@link RateLimitExceededFailureHandler}.
+     *
+     * @param failureHandler the failure handler
+     * @return this object for call chaining
+     */
+    public LoginRateLimiter setFailureHandler(AuthenticationFailureHandler failureHandler) {
+        Assert.notNull(failureHandler, "failureHandler is required");
+        this.failureHandler = failureHandler;
+        return this;
+    }
+
+    public AuthenticationFailureHandler getFailureHandler() {
+        return failureHandler;
+    }
+
+    /**
+     * Sets how often, in milliseconds, idle buckets are evicted. Default is {@value #DEFAULT_EVICTION_INTERVAL}.
+     *
+     * @param evictionInterval the interval in milliseconds
+     * @return this object for call chaining
+     */
+    public synchronized LoginRateLimiter setEvictionInterval(long evictionInterval) {
+        Assert.isTrue(evictionInterval > 0, "evictionInterval must be positive");
+        if (evictionTask != null) {
+            evictionTask.cancel(false);
+        }
+        evictionTask = evictionExecutor.scheduleWithFixedDelay(this::evictIdle,
+                evictionInterval, evictionInterval, TimeUnit.MILLISECONDS);
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of clients tracked at once. Default is {@value #DEFAULT_MAX_TRACKED_CLIENTS}.
+     *
+     * @param maxTrackedClients the maximum number of buckets
+     * @return this object for call chaining
+     */
+    public LoginRateLimiter setMaxTrackedClients(int maxTrackedClients) {
+        Assert.isTrue(maxTrackedClients > 0, "maxTrackedClients must be positive");
+        this.maxTrackedClients = maxTrackedClients;
+        return this;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return the number of clients currently tracked
+     */
+    public int getTrackedClients() {
+        return buckets.size();
+    }
+
+    /**
+     * Attempts to take a token for the client of the given request.
+     *
+     * @param req the request to check
+     * @return zero if permitted or otherwise the number of nanoseconds until a token will be available
+     */
+    public long tryAcquire(HttpServletRequest req) {
+        final String key = keyExtractor.apply(req);
+        return key != null ? tryAcquire(key) : 0;
+    }
+
+    /**
+     * Attempts to take a token for the given client.
+     *
+     * @param key the client key
+     * @return zero if permitted or otherwise the number of nanoseconds until a token will be available
+     */
+    public long tryAcquire(String key) {
+        final long now = System.nanoTime();
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            if (buckets.size() >= maxTrackedClients && !makeRoom()) {
+                return intervalNanos;
+            }
+            bucket = buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+        }
+
+        while (true) {
+            final long fullAt = bucket.get();
+            final long newFullAt = Math.max(fullAt, now) + intervalNanos;
+            final long excess = newFullAt - now - burstNanos;
+            if (excess > 0) {
+                return excess;
+            }
+            if (bucket.compareAndSet(fullAt, newFullAt)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Removes buckets that have completely refilled. A client racing with its own eviction may at most gain one
+     * extra burst.
+     */
+    void evictIdle() {
+        final long now = System.nanoTime();
+        buckets.entrySet().removeIf(entry -> entry.getValue().get() - now <= 0);
+    }
+
+    /**
+     * @return true if idle buckets, if any were needed, could be evicted to make room for another client
+     */
+    private synchronized boolean makeRoom() {
+        if (buckets.size() >= maxTrackedClients) {
+            evictIdle();
+        }
+        return buckets.size() < maxTrackedClients;
+    }
+
+    @Override
+    public void destroy() {
+        evictionExecutor.shutdownNow();
+    }
+}
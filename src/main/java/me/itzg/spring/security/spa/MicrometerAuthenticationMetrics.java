@@ -0,0 +1,251 @@
+/*
+ * Copyright 2018 Geoff Bourne
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package me.itzg.spring.security.spa;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.context.ApplicationContext;
+import org.springframework.security.core.AuthenticationException;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Publishes {@link AuthenticationMetrics} to a Micrometer {@link MeterRegistry} as:
+ * <ul>
+ *     <li><code>spa.auth.requests</code>: a timer of the total processing of each request</li>
+ *     <li><code>spa.auth.phases</code>: a timer of each phase of processing, tagged by <code>phase</code></li>
+ *     <li><code>spa.auth.outcomes</code>: a counter tagged by <code>outcome</code>, which is either
+ *     <code>success</code> or the simple class name of the authentication exception</li>
+ *     <li><code>spa.auth.in.flight</code>: a gauge of the requests currently being processed</li>
+ * </ul>
+ * All are tagged by <code>filter</code> and the timers publish percentile histograms. Also published can be
+ * <ul>
+ *     <li>the cache statistics of a filter's {@link ConverterHelper} via
+ *     {@link #bindConverterHelper(String, ConverterHelper)}</li>
+ *     <li>the progress of a {@link PasswordUpgrader} via {@link #bindPasswordUpgrader(PasswordUpgrader)}</li>
+ *     <li>the rejections of {@link RequestBodyLimits} via {@link #bindRequestBodyLimits(RequestBodyLimits)}</li>
+ *     <li>the lockouts of a {@link FailedLoginTracker} via {@link #bindFailedLoginTracker(FailedLoginTracker)}</li>
+ *     <li>the hits and misses of a {@link CachingUserDetailsManager} via
+ *     {@link #bindUserDetailsCache(CachingUserDetailsManager)}</li>
+ * </ul>
+ * <p>
+ * This class is the only one in this library that requires Micrometer on the classpath.
+ * </p>
+ *
+ * @author Geoff Bourne
+ * @since Oct 2026
+ */
+@SuppressWarnings("WeakerAccess")
+public class MicrometerAuthenticationMetrics implements AuthenticationMetrics {
+
+    public static final String REQUESTS_METER = "spa.auth.requests";
+    public static final String PHASES_METER = "spa.auth.phases";
+    public static final String OUTCOMES_METER = "spa.auth.outcomes";
+    public static final String IN_FLIGHT_METER = "spa.auth.in.flight";
+    public static final String PASSWORD_UPGRADES_METER = "spa.password.upgrades";
+    public static final String BODY_REJECTIONS_METER = "spa.body.rejections";
+    public static final String LOGIN_LOCKOUTS_METER = "spa.login.lockouts";
+    public static final String OUTCOME_SUCCESS = "success";
+
+    private final MeterRegistry registry;
+    private final ConcurrentMap<String, FilterMeters> filters = new ConcurrentHashMap<>();
+
+    public MicrometerAuthenticationMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Creates metrics that publish to the application's {@link MeterRegistry} bean, if there is exactly one.
+     *
+     * @param applicationContext the context to search
+     * @return the metrics or null if the context doesn't contain a unique registry
+     */
+    static MicrometerAuthenticationMetrics fromApplicationContext(ApplicationContext applicationContext) {
+        final String[] names = applicationContext.getBeanNamesForType(MeterRegistry.class);
+        return names.length == 1 ?
+                new MicrometerAuthenticationMetrics(applicationContext.getBean(names[0], MeterRegistry.class)) : null;
+    }
+
+    /**
+     * Publishes the cache statistics of the given helper as the counters <code>spa.converter.cache.hits</code>
+     * and <code>spa.converter.cache.misses</code>.
+     *
+     * @param filter          the name of the filter that uses the helper
+     * @param converterHelper the helper to observe
+     * @return this object for call chaining
+     */
+    public MicrometerAuthenticationMetrics bindConverterHelper(String filter, ConverterHelper converterHelper) {
+        FunctionCounter.builder("spa.converter.cache.hits", converterHelper, ConverterHelper::getCacheHits)
+                .tag("filter", filter)
+                .register(registry);
+        FunctionCounter.builder("spa.converter.cache.misses", converterHelper, ConverterHelper::getCacheMisses)
+                .tag("filter", filter)
+                .register(registry);
+        return this;
+    }
+
+    /**
+     * Publishes the progress of the given upgrader as <code>spa.password.upgrades</code>, a counter tagged by
+     * <code>result</code> of <code>submitted</code>, <code>rejected</code>, <code>completed</code>, or
+     * <code>failed</code>, and <code>spa.password.upgrades.queued</code>, a gauge of the waiting upgrades.
+     *
+     * @param passwordUpgrader the upgrader to observe
+     * @return this object for call chaining
+     */
+    public MicrometerAuthenticationMetrics bindPasswordUpgrader(PasswordUpgrader passwordUpgrader) {
+        FunctionCounter.builder(PASSWORD_UPGRADES_METER, passwordUpgrader, PasswordUpgrader::getSubmitted)
+                .tag("result", "submitted")
+                .register(registry);
+        FunctionCounter.builder(PASSWORD_UPGRADES_METER, passwordUpgrader, PasswordUpgrader::getRejected)
+                .tag("result", "rejected")
+                .register(registry);
+        FunctionCounter.builder(PASSWORD_UPGRADES_METER, passwordUpgrader, PasswordUpgrader::getCompleted)
+                .tag("result", "completed")
+                .register(registry);
+        FunctionCounter.builder(PASSWORD_UPGRADES_METER, passwordUpgrader, PasswordUpgrader::getFailed)
+                .tag("result", "failed")
+                .register(registry);
+        Gauge.builder(PASSWORD_UPGRADES_METER + ".queued", passwordUpgrader, PasswordUpgrader::getQueued)
+                .register(registry);
+        return this;
+    }
+
+    /**
+     * Publishes the rejections of the given limits as <code>spa.body.rejections</code>, a counter tagged by
+     * <code>reason</code>.
+     *
+     * @param requestBodyLimits the limits to observe
+     * @return this object for call chaining
+     */
+    public MicrometerAuthenticationMetrics bindRequestBodyLimits(RequestBodyLimits requestBodyLimits) {
+        for (RequestBodyLimits.Reason reason : RequestBodyLimits.Reason.values()) {
+            FunctionCounter.builder(BODY_REJECTIONS_METER, requestBodyLimits, limits -> limits.getRejections(reason))
+                    .tag("reason", reason.name().toLowerCase(Locale.ROOT).replace('_', '-'))
+                    .register(registry);
+        }
+        return this;
+    }
+
+    /**
+     * Publishes the logins rejected by the given tracker as <code>spa.login.lockouts</code>, a counter, and the
+     * number of usernames it counts exactly as <code>spa.login.lockouts.heavy.hitters</code>, a gauge.
+     *
+     * @param failedLoginTracker the tracker to observe
+     * @return this object for call chaining
+     */
+    public MicrometerAuthenticationMetrics bindFailedLoginTracker(FailedLoginTracker failedLoginTracker) {
+        FunctionCounter.builder(LOGIN_LOCKOUTS_METER, failedLoginTracker, FailedLoginTracker::getRejections)
+                .register(registry);
+        Gauge.builder(LOGIN_LOCKOUTS_METER + ".heavy.hitters", failedLoginTracker,
+                FailedLoginTracker::getHeavyHitterCount)
+                .register(registry);
+        return this;
+    }
+
+    /**
+     * Publishes the statistics of the given cache as the counters <code>spa.user.cache.hits</code> and
+     * <code>spa.user.cache.misses</code> and the gauge <code>spa.user.cache.size</code>.
+     *
+     * @param userDetailsCache the cache to observe
+     * @return this object for call chaining
+     */
+    public MicrometerAuthenticationMetrics bindUserDetailsCache(CachingUserDetailsManager userDetailsCache) {
+        FunctionCounter.builder("spa.user.cache.hits", userDetailsCache, CachingUserDetailsManager::getHits)
+                .register(registry);
+        FunctionCounter.builder("spa.user.cache.misses", userDetailsCache, CachingUserDetailsManager::getMisses)
+                .register(registry);
+        Gauge.builder("spa.user.cache.size", userDetailsCache, CachingUserDetailsManager::size)
+                .register(registry);
+        return this;
+    }
+
+    @Override
+    public void started(String filter) {
+        meters(filter).inFlight.incrementAndGet();
+    }
+
+    @Override
+    public void phase(String filter, String phase, long nanos) {
+        meters(filter).phase(phase).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void succeeded(String filter) {
+        meters(filter).outcome(OUTCOME_SUCCESS).increment();
+    }
+
+    @Override
+    public void failed(String filter, AuthenticationException exception) {
+        meters(filter).outcome(exception.getClass().getSimpleName()).increment();
+    }
+
+    @Override
+    public void finished(String filter, long nanos) {
+        final FilterMeters meters = meters(filter);
+        meters.inFlight.decrementAndGet();
+        meters.requests.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private FilterMeters meters(String filter) {
+        final FilterMeters meters = filters.get(filter);
+        return meters != null ? meters : filters.computeIfAbsent(filter, FilterMeters::new);
+    }
+
+    private static Timer.Builder histogramTimer(String name, String filter) {
+        return Timer.builder(name)
+                .tag("filter", filter)
+                .publishPercentileHistogram();
+    }
+
+    private class FilterMeters {
+        final String filter;
+        final AtomicInteger inFlight = new AtomicInteger();
+        final Timer requests;
+        final ConcurrentMap<String, Timer> phases = new ConcurrentHashMap<>();
+        final ConcurrentMap<String, Counter> outcomes = new ConcurrentHashMap<>();
+
+        FilterMeters(String filter) {
+            this.filter = filter;
+            requests = histogramTimer(REQUESTS_METER, filter).register(registry);
+            Gauge.builder(IN_FLIGHT_METER, inFlight, AtomicInteger::get)
+                    .tag("filter", filter)
+                    .register(registry);
+        }
+
+        Timer phase(String phase) {
+            final Timer timer = phases.get(phase);
+            return timer != null ? timer : phases.computeIfAbsent(phase, key ->
+                    histogramTimer(PHASES_METER, filter).tag("phase", key).register(registry));
+        }
+
+        Counter outcome(String outcome) {
+            final Counter counter = outcomes.get(outcome);
+            return counter != null ? counter : outcomes.computeIfAbsent(outcome, key ->
+                    Counter.builder(OUTCOMES_METER)
+                            .tag("filter", filter)
+                            .tag("outcome", key)
+                            .register(registry));
+        }
+    }
+}
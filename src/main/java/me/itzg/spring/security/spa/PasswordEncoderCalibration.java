@@ -0,0 +1,160 @@
+/*
+ * Copyright 2018 Geoff Bourne
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package me.itzg.spring.security.spa;
+
+import org.springframework.security.crypto.factory.PasswordEncoderFactories;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The outcome of a {@link PasswordEncoderCalibrator}, which creates encoders with the chosen parameter and exposes
+ * the figures that led to it, such as for operators to review or for publishing as metrics.
+ *
+ * @author Geoff Bourne
+ * @since Oct 2026
+ */
+@SuppressWarnings("WeakerAccess")
+public class PasswordEncoderCalibration {
+
+    /**
+     * The figures measured for one candidate parameter.
+     */
+    public static class Measurement {
+        private final int parameter;
+        private final long medianNanos;
+        private final long p99Nanos;
+        private final double throughput;
+
+        Measurement(int parameter, long medianNanos, long p99Nanos, double throughput) {
+            this.parameter = parameter;
+            this.medianNanos = medianNanos;
+            this.p99Nanos = p99Nanos;
+            this.throughput = throughput;
+        }
+
+        public int getParameter() {
+            return parameter;
+        }
+
+        public long getMedianNanos() {
+            return medianNanos;
+        }
+
+        public long getP99Nanos() {
+            return p99Nanos;
+        }
+
+        /**
+         * @return the hashes per second sustained by all threads together
+         */
+        public double getThroughput() {
+            return throughput;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("parameter=%d, median=%.1fms, p99=%.1fms, throughput=%.1f/s", parameter,
+                    medianNanos / (double) TimeUnit.MILLISECONDS.toNanos(1),
+                    p99Nanos / (double) TimeUnit.MILLISECONDS.toNanos(1),
+                    throughput);
+        }
+    }
+
+    private final PasswordEncoderCalibrator.Algorithm algorithm;
+    private final Measurement chosen;
+    private final boolean budgetMet;
+    private final int threads;
+    private final List<Measurement> measurements;
+
+    PasswordEncoderCalibration(PasswordEncoderCalibrator.Algorithm algorithm, Measurement chosen, boolean budgetMet,
+                               int threads, List<Measurement> measurements) {
+        this.algorithm = algorithm;
+        this.chosen = chosen;
+        this.budgetMet = budgetMet;
+        this.threads = threads;
+        this.measurements = Collections.unmodifiableList(measurements);
+    }
+
+    public PasswordEncoderCalibrator.Algorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * @return the chosen cost parameter, as described by {@link PasswordEncoderCalibrator.Algorithm}
+     */
+    public int getParameter() {
+        return chosen.getParameter();
+    }
+
+    /**
+     * @return the measurement of the chosen parameter
+     */
+    public Measurement getChosen() {
+        return chosen;
+    }
+
+    /**
+     * @return false if even the weakest candidate exceeded the budget, in which case it was chosen anyway
+     */
+    public boolean isBudgetMet() {
+        return budgetMet;
+    }
+
+    /**
+     * @return the number of threads that hashed concurrently during the measurements
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * @return the measurements of every candidate, from weakest to strongest, up to the first that exceeded the budget
+     */
+    public List<Measurement> getMeasurements() {
+        return measurements;
+    }
+
+    /**
+     * @return an encoder of the calibrated algorithm with the chosen parameter
+     */
+    public PasswordEncoder createPasswordEncoder() {
+        return algorithm.create(chosen.getParameter());
+    }
+
+    /**
+     * Creates an encoder that encodes with the chosen parameter, prefixed by the algorithm's id, and matches
+     * passwords of any other id in the same way as
+     * {@link PasswordEncoderFactories#createDelegatingPasswordEncoder()}.
+     *
+     * @return the delegating encoder
+     */
+    public PasswordEncoder createDelegatingPasswordEncoder() {
+        final DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder(algorithm.getId(),
+                Collections.singletonMap(algorithm.getId(), createPasswordEncoder()));
+        encoder.setDefaultPasswordEncoderForMatches(PasswordEncoderFactories.createDelegatingPasswordEncoder());
+        return encoder;
+    }
+
+    @Override
+    public String toString() {
+        return algorithm.getId() + " with " + chosen + " on " + threads + " threads";
+    }
+}
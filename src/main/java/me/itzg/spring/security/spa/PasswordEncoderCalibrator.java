@@ -0,0 +1,287 @@
+/*
+ * Copyright 2018 Geoff Bourne
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package me.itzg.spring.security.spa;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+import org.springframework.security.crypto.scrypt.SCryptPasswordEncoder;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chooses the cost parameter of a password encoder by measuring candidate settings on the hardware the
+ * application is actually running on. Each candidate, from weakest to strongest, hashes concurrently on the
+ * {@link #setThreads(int) given number of threads}, which defaults to the available processors, and the
+ * strongest candidate whose 99th percentile latency and aggregate throughput both meet the budget is chosen.
+ * <p>
+ * The resulting {@link PasswordEncoderCalibration} is intended to back the application's <code>PasswordEncoder</code>
+ * bean, which {@link SinglePageAppConfigurer} and the authentication manager then share:
+ * </p>
+ * <pre>
+ &#64;Bean
+ public PasswordEncoder passwordEncoder() {
+   return new PasswordEncoderCalibrator().setMaxLatency(250).calibrate().createDelegatingPasswordEncoder();
+ }
+ * </pre>
+ * <p>
+ * Calibration hashes each candidate {@link #setSamples(int) several times} per thread, so it can add a few
+ * seconds to startup. SCrypt requires BouncyCastle on the classpath. PBKDF2 can't be calibrated per node, since its
+ * iteration count isn't stored in the hash, so it must be pinned to a single candidate.
+ * </p>
+ *
+ * @author Geoff Bourne
+ * @since Oct 2026
+ */
+@SuppressWarnings("WeakerAccess")
+public class PasswordEncoderCalibrator {
+
+    public static final long DEFAULT_MAX_LATENCY = 250;
+    public static final int DEFAULT_SAMPLES = 8;
+
+    private static final Log log = LogFactory.getLog(PasswordEncoderCalibrator.class);
+    private static final String PROBE_PASSWORD = "calibration-probe";
+    private static final String SCRYPT_CLASS = "org.bouncycastle.crypto.generators.SCrypt";
+
+    /**
+     * The supported encoders, each with a single cost parameter.
+     */
+    public enum Algorithm {
+        /**
+         * The parameter is the log rounds, or strength, of {@link BCryptPasswordEncoder}
+         */
+        BCRYPT("bcrypt", 8, 9, 10, 11, 12, 13, 14, 15, 16),
+        /**
+         * The parameter is the iteration count of {@link Pbkdf2PasswordEncoder}, which isn't recorded in the
+         * encoded password. Existing passwords only match when encoded with the same iterations, so nodes must
+         * not choose their own; {@link #calibrate()} requires exactly one candidate, which it only measures.
+         */
+        PBKDF2("pbkdf2", 10_000, 20_000, 40_000, 80_000, 160_000, 320_000, 640_000, 1_280_000),
+        /**
+         * The parameter is the CPU cost of {@link SCryptPasswordEncoder}, with its default memory cost,
+         * parallelization, key length, and salt length
+         */
+        SCRYPT("scrypt", 1 << 12, 1 << 13, 1 << 14, 1 << 15, 1 << 16, 1 << 17, 1 << 18);
+
+        private final String id;
+        private final int[] defaultCandidates;
+
+        Algorithm(String id, int... defaultCandidates) {
+            this.id = id;
+            this.defaultCandidates = defaultCandidates;
+        }
+
+        /**
+         * @return the id of this algorithm within a <code>DelegatingPasswordEncoder</code>
+         */
+        public String getId() {
+            return id;
+        }
+
+        /**
+         * @param parameter the cost parameter
+         * @return an encoder of this algorithm with the given cost
+         */
+        public PasswordEncoder create(int parameter) {
+            switch (this) {
+                case BCRYPT:
+                    return new BCryptPasswordEncoder(parameter);
+                case PBKDF2:
+                    return new Pbkdf2PasswordEncoder("", parameter, 256);
+                case SCRYPT:
+                    return new SCryptPasswordEncoder(parameter, 8, 1, 32, 64);
+                default:
+                    throw new IllegalStateException("Unknown algorithm " + this);
+            }
+        }
+    }
+
+    private Algorithm algorithm = Algorithm.BCRYPT;
+    private int[] candidates;
+    private long maxLatencyNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_MAX_LATENCY);
+    private double minThroughput;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int samples = DEFAULT_SAMPLES;
+
+    /**
+     * @param algorithm the algorithm to calibrate, which is {@link Algorithm#BCRYPT} by default
+     * @return this object for call chaining
+     */
+    public PasswordEncoderCalibrator setAlgorithm(Algorithm algorithm) {
+        Assert.notNull(algorithm, "algorithm is required");
+        this.algorithm = algorithm;
+        return this;
+    }
+
+    /**
+     * Overrides the algorithm's default candidate parameters.
+     *
+     * @param candidates the cost parameters to measure, in ascending order of strength
+     * @return this object for call chaining
+     */
+    public PasswordEncoderCalibrator setCandidates(int... candidates) {
+        Assert.isTrue(candidates != null && candidates.length > 0, "at least one candidate is required");
+        this.candidates = candidates.clone();
+        return this;
+    }
+
+    /**
+     * @param maxLatency the 99th percentile time, in milliseconds, that a single hash may take while all threads
+     *                   are hashing. Default is {@value #DEFAULT_MAX_LATENCY}.
+     * @return this object for call chaining
+     */
+    public PasswordEncoderCalibrator setMaxLatency(long maxLatency) {
+        Assert.isTrue(maxLatency > 0, "maxLatency must be positive");
+        this.maxLatencyNanos = TimeUnit.MILLISECONDS.toNanos(maxLatency);
+        return this;
+    }
+
+    /**
+     * @param minThroughput the hashes per second that all threads together must sustain, such as the expected
+     *                      peak rate of logins and registrations. Default is zero, which doesn't constrain
+     *                      the choice.
+     * @return this object for call chaining
+     */
+    public PasswordEncoderCalibrator setMinThroughput(double minThroughput) {
+        Assert.isTrue(minThroughput >= 0, "minThroughput must not be negative");
+        this.minThroughput = minThroughput;
+        return this;
+    }
+
+    /**
+     * @param threads the number of threads that hash concurrently, which should match the threads that will process
+     *                credentials, such as those of an {@link AsyncAuthenticationProcessor}.
+     *                Default is the number of available processors.
+     * @return this object for call chaining
+     */
+    public PasswordEncoderCalibrator setThreads(int threads) {
+        Assert.isTrue(threads > 0, "threads must be positive");
+        this.threads = threads;
+        return this;
+    }
+
+    /**
+     * @param samples the number of hashes measured per thread for each candidate. Default is
+     *                {@value #DEFAULT_SAMPLES}.
+     * @return this object for call chaining
+     */
+    public PasswordEncoderCalibrator setSamples(int samples) {
+        Assert.isTrue(samples > 0, "samples must be positive");
+        this.samples = samples;
+        return this;
+    }
+
+    /**
+     * Measures the candidates from weakest to strongest, stopping at the first one that exceeds the budget.
+     * If even the weakest candidate exceeds the budget, it is chosen anyway and
+     * {@link PasswordEncoderCalibration#isBudgetMet()} reports false.
+     *
+     * @return the chosen parameter along with the measurements
+     */
+    public PasswordEncoderCalibration calibrate() {
+        Assert.state(algorithm != Algorithm.SCRYPT || ClassUtils.isPresent(SCRYPT_CLASS, getClass().getClassLoader()),
+                "SCrypt requires BouncyCastle on the classpath");
+        Assert.state(algorithm != Algorithm.PBKDF2 || (candidates != null && candidates.length == 1),
+                "PBKDF2 iterations aren't stored in the hash, so exactly one candidate must be set");
+
+        final int[] parameters = candidates != null ? candidates : algorithm.defaultCandidates;
+        final List<PasswordEncoderCalibration.Measurement> measurements = new ArrayList<>();
+        PasswordEncoderCalibration.Measurement chosen = null;
+
+        final ExecutorService executor = Executors.newFixedThreadPool(threads,
+                new CustomizableThreadFactory("spa-calibration-"));
+        try {
+            for (int parameter : parameters) {
+                final PasswordEncoderCalibration.Measurement measurement = measure(executor, parameter);
+                measurements.add(measurement);
+                if (log.isDebugEnabled()) {
+                    log.debug("Measured " + algorithm.getId() + " " + measurement);
+                }
+
+                if (measurement.getP99Nanos() <= maxLatencyNanos && measurement.getThroughput() >= minThroughput) {
+                    chosen = measurement;
+                } else {
+                    break;
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        final boolean budgetMet = chosen != null;
+        final PasswordEncoderCalibration calibration = new PasswordEncoderCalibration(algorithm,
+                budgetMet ? chosen : measurements.get(0), budgetMet, threads, measurements);
+        if (budgetMet) {
+            log.info("Calibrated password encoding: " + calibration);
+        } else {
+            log.warn("No password encoding met the latency and throughput budget, using the weakest candidate: " +
+                    calibration);
+        }
+        return calibration;
+    }
+
+    private PasswordEncoderCalibration.Measurement measure(ExecutorService executor, int parameter) {
+        final PasswordEncoder encoder = algorithm.create(parameter);
+        // warm up, which also initializes the secure random used for salts
+        encoder.encode(PROBE_PASSWORD);
+
+        final List<Future<long[]>> futures = new ArrayList<>(threads);
+        final long start = System.nanoTime();
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                final long[] durations = new long[samples];
+                for (int s = 0; s < samples; s++) {
+                    final long hashStart = System.nanoTime();
+                    encoder.encode(PROBE_PASSWORD);
+                    durations[s] = System.nanoTime() - hashStart;
+                }
+                return durations;
+            }));
+        }
+
+        final long[] durations = new long[threads * samples];
+        try {
+            for (int i = 0; i < threads; i++) {
+                System.arraycopy(futures.get(i).get(), 0, durations, i * samples, samples);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while calibrating", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to measure " + algorithm.getId() + " " + parameter, e.getCause());
+        }
+        final long elapsed = System.nanoTime() - start;
+
+        Arrays.sort(durations);
+        return new PasswordEncoderCalibration.Measurement(parameter,
+                durations[durations.length / 2],
+                durations[(int) Math.ceil(durations.length * 0.99) - 1],
+                durations.length * (double) TimeUnit.SECONDS.toNanos(1) / elapsed);
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright 2018 Geoff Bourne
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package me.itzg.spring.security.spa;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.provisioning.UserDetailsManager;
+import org.springframework.util.Assert;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * Re-encodes the stored password of users whose hash is outdated, such as after raising the BCrypt strength or
+ * changing the id that a <code>DelegatingPasswordEncoder</code> encodes with. Since the cleartext password is
+ * only available while logging in, {@link RequestBodyLoginFilter} {@link #submit(Authentication, String) submits}
+ * each successful login, and the upgrade is performed on a small, bounded executor so that the login response
+ * doesn't wait for it. When the executor's queue is full, the upgrade is skipped and will be retried at the
+ * user's next login. The upgrade is also skipped if the stored password no longer matches the one used to log in,
+ * such as after a password reset in the meantime.
+ * <p>
+ * By default a stored password is outdated when it doesn't start with the same
+ * {@link #formatPrefix(String) format prefix} as a freshly encoded password, which covers the
+ * <code>{id}</code> of a <code>DelegatingPasswordEncoder</code> and the version and cost of BCrypt. A different
+ * policy can be {@link #setOutdatedPredicate(Predicate) given} for other encoders.
+ * </p>
+ * <p>
+ * A <code>ProviderManager</code> erases the credentials of successful authentications by default, which means
+ * every login would queue a check that loads the user again. Configuring the authentication manager with
+ * <code>eraseCredentials(false)</code> avoids that, since {@link RequestBodyLoginFilter} erases them itself after
+ * submitting the login.
+ * </p>
+ *
+ * @author Geoff Bourne
+ * @since Oct 2026
+ */
+@SuppressWarnings("WeakerAccess")
+public class PasswordUpgrader implements DisposableBean {
+
+    private static final Log log = LogFactory.getLog(PasswordUpgrader.class);
+
+    private final UserDetailsManager userDetailsManager;
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private Predicate<String> outdatedPredicate;
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    /**
+     * @param userDetailsManager the user store to update, which should be the one that authenticates logins
+     * @param passwordEncoder    the encoder that produces up to date hashes
+     * @param threads            the number of threads that perform upgrades
+     * @param queueCapacity      the number of upgrades that may wait for a thread before further ones are skipped
+     */
+    public PasswordUpgrader(UserDetailsManager userDetailsManager, PasswordEncoder passwordEncoder,
+                            int threads, int queueCapacity) {
+        Assert.notNull(userDetailsManager, "userDetailsManager is required");
+        Assert.notNull(passwordEncoder, "passwordEncoder is required");
+        Assert.isTrue(threads > 0, "threads must be positive");
+        Assert.isTrue(queueCapacity > 0, "queueCapacity must be positive");
+        this.userDetailsManager = userDetailsManager;
+        this.passwordEncoder = passwordEncoder;
+        this.executor = new ThreadPoolExecutor(threads, threads,
+                0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("spa-password-upgrade-"),
+                new ThreadPoolExecutor.AbortPolicy());
+
+        final String currentPrefix = formatPrefix(passwordEncoder.encode("format-probe"));
+        this.outdatedPredicate = encoded -> !encoded.startsWith(currentPrefix);
+    }
+
+    /**
+     * Sets the policy that decides if a stored password needs to be re-encoded.
+     *
+     * @param outdatedPredicate given the stored, encoded password, returns true if it is outdated
+     * @return this object for call chaining
+     */
+    public PasswordUpgrader setOutdatedPredicate(Predicate<String> outdatedPredicate) {
+        Assert.notNull(outdatedPredicate, "outdatedPredicate is required");
+        this.outdatedPredicate = outdatedPredicate;
+        return this;
+    }
+
+    /**
+     * Derives the part of an encoded password that identifies how it was encoded, which is the
+     * <code>{id}</code> prefix of a <code>DelegatingPasswordEncoder</code>, if any, followed by the version and
+     * cost of a BCrypt hash, if it is one.
+     *
+     * @param encoded an encoded password
+     * @return the format prefix, which may be empty
+     */
+    public static String formatPrefix(String encoded) {
+        int end = 0;
+        if (encoded.startsWith("{")) {
+            final int idEnd = encoded.indexOf('}');
+            if (idEnd > 0) {
+                end = idEnd + 1;
+            }
+        }
+        if (encoded.startsWith("$2", end)) {
+            // such as $2a$10$
+            final int versionEnd = encoded.indexOf('$', end + 1);
+            final int costEnd = versionEnd > 0 ? encoded.indexOf('$', versionEnd + 1) : -1;
+            if (costEnd > 0) {
+                end = costEnd + 1;
+            }
+        }
+        return encoded.substring(0, end);
+    }
+
+    /**
+     * Queues an upgrade check of the authenticated user's stored password, unless the queue is full.
+     * This never blocks. When the principal still carries its encoded password, a current one is recognized
+     * without queueing anything, but a principal whose credentials were erased queues a check that loads the user
+     * again.
+     *
+     * @param authentication the result of a successful authentication
+     * @param password       the cleartext password that was just verified
+     * @return true if the check was queued or found to be unnecessary, false if it was skipped due to a full queue
+     */
+    public boolean submit(Authentication authentication, String password) {
+        final Object principal = authentication.getPrincipal();
+        if (principal instanceof UserDetails) {
+            // the password is typically erased after authentication, in which case the task loads it again
+            final String encoded = ((UserDetails) principal).getPassword();
+            if (encoded != null && !outdatedPredicate.test(encoded)) {
+                return true;
+            }
+        }
+
+        final String username = authentication.getName();
+        try {
+            executor.execute(() -> upgrade(username, password));
+            submitted.increment();
+            return true;
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            return false;
+        }
+    }
+
+    private void upgrade(String username, String password) {
+        try {
+            final UserDetails user = userDetailsManager.loadUserByUsername(username);
+            final String encoded = user.getPassword();
+            // a password changed since the login must not be replaced by the one that was used to log in
+            if (encoded != null && outdatedPredicate.test(encoded) && passwordEncoder.matches(password, encoded)) {
+                userDetailsManager.updateUser(User.withUserDetails(user)
+                        .password(passwordEncoder.encode(password))
+                        .build());
+                log.debug("Upgraded the password encoding of " + username);
+            }
+            completed.increment();
+        } catch (RuntimeException e) {
+            failed.increment();
+            log.warn("Failed to upgrade the password encoding of " + username, e);
+        }
+    }
+
+    /**
+     * @return the number of upgrade checks queued since creation
+     */
+    public long getSubmitted() {
+        return submitted.sum();
+    }
+
+    /**
+     * @return the number of upgrade checks skipped because the queue was full
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * @return the number of upgrade checks that finished, whether or not the password needed re-encoding
+     */
+    public long getCompleted() {
+        return completed.sum();
+    }
+
+    /**
+     * @return the number of upgrade checks that failed to load or update the user
+     */
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    /**
+     * @return the number of upgrade checks currently waiting for a thread
+     */
+    public int getQueued() {
+        return executor.getQueue().size();
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+}
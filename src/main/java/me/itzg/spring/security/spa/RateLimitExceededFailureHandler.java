@@ -0,0 +1,54 @@
+/*
+ * Copyright 2018 Geoff Bourne
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package me.itzg.spring.security.spa;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.web.authentication.AuthenticationFailureHandler;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Handles a {@link RateLimitExceededException} by responding with {@value #STATUS_CODE} (Too Many Requests)
+ * and a <code>Retry-After</code> header. Any other exception is handled with the same status but no header.
+ *
+ * @author Geoff Bourne
+ * @since Oct 2026
+ */
+public class RateLimitExceededFailureHandler implements AuthenticationFailureHandler {
+
+    @SuppressWarnings("WeakerAccess")
+    public static final int STATUS_CODE = 429;
+
+    @SuppressWarnings("RedundantThrows")
+    @Override
+    public void onAuthenticationFailure(HttpServletRequest httpServletRequest, HttpServletResponse resp,
+                                        AuthenticationException e) throws IOException, ServletException {
+        resp.setStatus(STATUS_CODE);
+        if (e instanceof RateLimitExceededException) {
+            resp.setHeader(HttpHeaders.RETRY_AFTER,
+                    Long.toString(((RateLimitExceededException) e).getRetryAfterSeconds()));
+        }
+        resp.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        resp.getWriter().print(e.getMessage());
+        AsyncAuthenticationProcessor.complete(httpServletRequest);
+    }
+}
@@ -16,19 +16,16 @@
 
 package me.itzg.spring.security.spa;
 
+import me.itzg.spring.security.spa.RegistrationTimings.Stage;
 import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
-import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
-import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.provisioning.UserDetailsManager;
-import org.springframework.security.web.authentication.AbstractAuthenticationProcessingFilter;
 import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
 import org.springframework.util.Assert;
-import org.springframework.util.StringUtils;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
@@ -44,17 +41,20 @@ import java.io.IOException;
  * @author Geoff Bourne
  * @since Mar 2018
  */
-public class RegistrationFilter extends AbstractAuthenticationProcessingFilter {
+public class RegistrationFilter extends AbstractCredentialsFilter {
 
     @SuppressWarnings("WeakerAccess")
     public static final int STATUS_CODE = HttpServletResponse.SC_CREATED;
     public static final String DEFAULT_PROCESSES_URL = "/register";
+    public static final String METRICS_NAME = "registration";
+    public static final String USERNAME_IN_USE = CredentialsMessages.USERNAME_IN_USE;
+    public static final String INVALID_CONTENT = CredentialsMessages.INVALID_CONTENT;
+    public static final String UNEXPECTED_FAILURE = CredentialsMessages.UNEXPECTED_FAILURE;
 
     private UserDetailsManager userDetailsManager;
     private PasswordEncoder passwordEncoder;
-    private ConverterHelper converterHelper;
-    private HttpMessageConverters httpMessageConverters;
-    private String[] initialRoles = new String[]{"USER"};
+    private final RegistrationSupport registrationSupport = new RegistrationSupport();
+    private RegistrationTimings timings = new RegistrationTimings();
 
     RegistrationFilter(String defaultFilterProcessesUrl) {
         super(defaultFilterProcessesUrl);
@@ -90,7 +90,7 @@ public class RegistrationFilter extends AbstractAuthenticationProcessingFilter {
         super(new AntPathRequestMatcher(filterProcessesUrl, "POST"));
         this.userDetailsManager = userDetailsManager;
         this.passwordEncoder = passwordEncoder;
-        this.converterHelper = new ConverterHelper(httpMessageConverters);
+        setHttpMessageConverters(httpMessageConverters);
 
         setAuthenticationSuccessHandler(new SimpleAuthenticationSuccessHandler(STATUS_CODE));
 
@@ -103,7 +103,6 @@ public class RegistrationFilter extends AbstractAuthenticationProcessingFilter {
 
         Assert.notNull(userDetailsManager, "UserDetailsManager bean needs to be defined");
         Assert.notNull(passwordEncoder, "PasswordEncoder bean needs to be defined");
-        Assert.notNull(converterHelper, "HttpMessageConverters bean needs to be defined");
     }
 
     public void setUserDetailsManager(UserDetailsManager userDetailsManager) {
@@ -122,15 +121,6 @@ public class RegistrationFilter extends AbstractAuthenticationProcessingFilter {
         return passwordEncoder;
     }
 
-    public void setHttpMessageConverters(HttpMessageConverters httpMessageConverters) {
-        this.converterHelper = new ConverterHelper(httpMessageConverters);
-        this.httpMessageConverters = httpMessageConverters;
-    }
-
-    public HttpMessageConverters getHttpMessageConverters() {
-        return httpMessageConverters;
-    }
-
     /**
      * Sets the initial role(s) of registered users.
      * The default is <code>USER</code>
@@ -140,47 +130,130 @@ public class RegistrationFilter extends AbstractAuthenticationProcessingFilter {
      */
     @SuppressWarnings("unused")
     public RegistrationFilter setInitialRoles(String... initialRoles) {
-        this.initialRoles = initialRoles;
+        registrationSupport.setInitialRoles(initialRoles);
+        return this;
+    }
+
+    /**
+     * Sets validators that are applied, in order, after the presence of the username and password is confirmed
+     * and before the existence of the username is checked. Since they run before the password is encoded,
+     * validators should be cheap.
+     *
+     * @param validators the validators to apply
+     * @return this object for call chaining
+     * @see RegistrationValidators
+     */
+    public RegistrationFilter setValidators(RegistrationValidator... validators) {
+        registrationSupport.setValidators(validators);
         return this;
     }
 
+    /**
+     * Sets where the time spent in each stage of registration is recorded.
+     *
+     * @param timings the timings to record into
+     */
+    public void setTimings(RegistrationTimings timings) {
+        Assert.notNull(timings, "timings is required");
+        this.timings = timings;
+    }
+
+    public RegistrationTimings getTimings() {
+        return timings;
+    }
+
+    @Override
+    protected String getMetricsName() {
+        return METRICS_NAME;
+    }
+
+    /**
+     * Processes the registration as a pipeline of increasingly expensive stages, so that a request that will
+     * be rejected, such as for an existing username, doesn't pay for password encoding.
+     * <p>
+     * The existence check and creation are performed while holding a claim on the username, which is
+     * normalized to lower case. A concurrent registration of the same username fails immediately, rather than
+     * waiting, since it would most likely find the username in use. The claim only applies to this filter
+     * instance, so deployments with multiple instances still rely on the {@link UserDetailsManager} to reject
+     * duplicates.
+     * </p>
+     *
+     * @see RegistrationTimings.Stage
+     */
     @SuppressWarnings("RedundantThrows")
     @Override
     public Authentication attemptAuthentication(HttpServletRequest req,
                                                 HttpServletResponse resp) throws AuthenticationException, IOException, ServletException {
 
-        final Credentials registration = converterHelper.parseBody(req, Credentials.class);
+        long mark = System.nanoTime();
+        final Credentials registration = parseCredentials(req);
+        mark = record(Stage.PARSE, mark);
 
-        if (registration != null) {
-            if (!StringUtils.hasLength(registration.getUsername())) {
-                throw new BadCredentialsException("Missing username");
+        if (registration == null) {
+            throw new RegistrationFailedException(INVALID_CONTENT);
+        }
+
+        validate(registration);
+        mark = record(Stage.VALIDATE, mark);
+
+        final String claim = claimUsername(registration.getUsername());
+        final UserDetails user;
+        try {
+            final boolean exists;
+            try {
+                exists = userDetailsManager.userExists(registration.getUsername());
+            } catch (Exception e) {
+                throw new RegistrationFailedException(UNEXPECTED_FAILURE, e);
             }
-            if (!StringUtils.hasLength(registration.getPassword())) {
-                throw new BadCredentialsException("Missing password");
+            mark = record(Stage.EXISTS_CHECK, mark);
+            if (exists) {
+                throw new RegistrationFailedException(USERNAME_IN_USE);
             }
 
-            final UserDetails user = User.builder()
-                    .username(registration.getUsername())
-                    .password(registration.getPassword())
-                    .passwordEncoder(passwordEncoder::encode)
-                    .roles(initialRoles)
-                    .build();
+            user = buildUser(registration.getUsername(), passwordEncoder.encode(registration.getPassword()));
+            mark = record(Stage.ENCODE, mark);
 
             try {
-                if (userDetailsManager.userExists(user.getUsername())) {
-                    throw new RegistrationFailedException("Username is already in use");
-                }
                 userDetailsManager.createUser(user);
             } catch (Exception e) {
-                if (e instanceof RegistrationFailedException) {
-                    throw e;
-                }
-                throw new RegistrationFailedException("Unexpected failure", e);
+                throw new RegistrationFailedException(UNEXPECTED_FAILURE, e);
             }
-
-            return new UsernamePasswordAuthenticationToken(user.getUsername(), null, user.getAuthorities());
-        } else {
-            throw new RegistrationFailedException("Invalid request content");
+            record(Stage.CREATE, mark);
+        } finally {
+            releaseUsername(claim);
         }
+
+        return new UsernamePasswordAuthenticationToken(user.getUsername(), null, user.getAuthorities());
+    }
+
+    private long record(Stage stage, long startNanos) {
+        final long now = timings.record(stage, startNanos);
+        getMetrics().phase(METRICS_NAME, stage.getPhaseName(), now - startNanos);
+        return now;
+    }
+
+    /**
+     * @see RegistrationSupport#validate(Credentials)
+     */
+    void validate(Credentials registration) throws AuthenticationException {
+        registrationSupport.validate(registration);
+    }
+
+    /**
+     * @see RegistrationSupport#claimUsername(String)
+     */
+    String claimUsername(String username) {
+        return registrationSupport.claimUsername(username);
+    }
+
+    void releaseUsername(String claim) {
+        registrationSupport.releaseUsername(claim);
+    }
+
+    /**
+     * @see RegistrationSupport#buildUser(String, String)
+     */
+    UserDetails buildUser(String username, String encodedPassword) {
+        return registrationSupport.buildUser(username, encodedPassword);
     }
 }
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2018 Geoff Bourne
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package me.itzg.spring.security.spa;
+
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.util.StringUtils;
+
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The steps of registration that don't depend on the web stack, which are shared by {@link RegistrationFilter},
+ * {@link BulkRegistrationFilter} and the registration web filter of the <code>reactive</code> package.
+ *
+ * @author Geoff Bourne
+ * @since Oct 2026
+ */
+@SuppressWarnings("WeakerAccess")
+public class RegistrationSupport {
+    private String[] initialRoles = new String[]{"USER"};
+    private RegistrationValidator[] validators = new RegistrationValidator[0];
+    /**
+     * Normalized usernames with a registration in progress between the existence check and user creation
+     */
+    private final Set<String> pendingUsernames = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param initialRoles the roles (without authority prefix) of registered users
+     */
+    public void setInitialRoles(String... initialRoles) {
+        this.initialRoles = initialRoles;
+    }
+
+    /**
+     * @param validators the validators applied, in order, after the presence of the username and password is
+     *                   confirmed
+     */
+    public void setValidators(RegistrationValidator... validators) {
+        this.validators = validators.clone();
+    }
+
+    /**
+     * Applies the presence checks and configured validators to the given registration.
+     *
+     * @param registration the parsed registration
+     * @throws AuthenticationException if the registration is not valid
+     */
+    public void validate(Credentials registration) throws AuthenticationException {
+        if (!StringUtils.hasLength(registration.getUsername())) {
+            throw new BadCredentialsException(CredentialsMessages.MISSING_USERNAME);
+        }
+        if (!StringUtils.hasLength(registration.getPassword())) {
+            throw new BadCredentialsException(CredentialsMessages.MISSING_PASSWORD);
+        }
+        for (RegistrationValidator validator : validators) {
+            validator.validate(registration);
+        }
+    }
+
+    /**
+     * Claims the given username for registration until {@link #releaseUsername(String) released}. The username
+     * is normalized to lower case, and a concurrent registration of the same username fails immediately.
+     *
+     * @param username the username to claim
+     * @return the claim to release
+     * @throws RegistrationFailedException if the username is already claimed
+     */
+    public String claimUsername(String username) {
+        final String claim = username.toLowerCase(Locale.ROOT);
+        if (!pendingUsernames.add(claim)) {
+            throw new RegistrationFailedException(CredentialsMessages.USERNAME_IN_USE);
+        }
+        return claim;
+    }
+
+    public void releaseUsername(String claim) {
+        pendingUsernames.remove(claim);
+    }
+
+    /**
+     * @param username        the username of the new user
+     * @param encodedPassword the already encoded password of the new user
+     * @return a user with the initial roles
+     */
+    public UserDetails buildUser(String username, String encodedPassword) {
+        return User.withUsername(username)
+                .password(encodedPassword)
+                .roles(initialRoles)
+                .build();
+    }
+}
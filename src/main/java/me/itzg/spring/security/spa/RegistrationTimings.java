@@ -0,0 +1,122 @@
+/*
+ * Copyright 2018 Geoff Bourne
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package me.itzg.spring.security.spa;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Accumulates the time spent in each {@link Stage} of registration processing by {@link RegistrationFilter},
+ * which makes it possible to see, for example, how password encoding compares to user store access.
+ *
+ * @author Geoff Bourne
+ * @since Oct 2026
+ */
+@SuppressWarnings("WeakerAccess")
+public class RegistrationTimings {
+
+    /**
+     * The stages of registration in the order they are performed.
+     */
+    public enum Stage {
+        /**
+         * Reading the credentials from the request body
+         */
+        PARSE("parse"),
+        /**
+         * Presence checks and any configured {@link RegistrationValidator}s
+         */
+        VALIDATE("validate"),
+        /**
+         * Checking if the username is already in use
+         */
+        EXISTS_CHECK("exists-check"),
+        /**
+         * Encoding the password
+         */
+        ENCODE("encode"),
+        /**
+         * Creating the user in the user store
+         */
+        CREATE("create");
+
+        private final String phaseName;
+
+        Stage(String phaseName) {
+            this.phaseName = phaseName;
+        }
+
+        /**
+         * @return the name of this stage when reported as a phase to {@link AuthenticationMetrics}
+         */
+        public String getPhaseName() {
+            return phaseName;
+        }
+    }
+
+    private final Map<Stage, LongAdder> counts = new EnumMap<>(Stage.class);
+    private final Map<Stage, LongAdder> totalNanos = new EnumMap<>(Stage.class);
+
+    public RegistrationTimings() {
+        for (Stage stage : Stage.values()) {
+            counts.put(stage, new LongAdder());
+            totalNanos.put(stage, new LongAdder());
+        }
+    }
+
+    /**
+     * Records the completion of a stage.
+     *
+     * @param stage     the completed stage
+     * @param startNanos the {@link System#nanoTime()} when the stage started
+     * @return the current {@link System#nanoTime()}, which is convenient as the start of the next stage
+     */
+    public long record(Stage stage, long startNanos) {
+        final long now = System.nanoTime();
+        record(stage, startNanos, now);
+        return now;
+    }
+
+    /**
+     * Records the completion of a stage, which may be overridden to publish timings elsewhere.
+     *
+     * @param stage      the completed stage
+     * @param startNanos the {@link System#nanoTime()} when the stage started
+     * @param endNanos   the {@link System#nanoTime()} when the stage ended
+     */
+    protected void record(Stage stage, long startNanos, long endNanos) {
+        counts.get(stage).increment();
+        totalNanos.get(stage).add(endNanos - startNanos);
+    }
+
+    /**
+     * @param stage the stage of interest
+     * @return the number of times the stage was completed
+     */
+    public long getCount(Stage stage) {
+        return counts.get(stage).sum();
+    }
+
+    /**
+     * @param stage the stage of interest
+     * @return the total time spent in the stage, in nanoseconds
+     */
+    public long getTotalNanos(Stage stage) {
+        return totalNanos.get(stage).sum();
+    }
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2018 Geoff Bourne
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package me.itzg.spring.security.spa;
+
+import org.springframework.security.core.AuthenticationException;
+
+/**
+ * Validates registration credentials before the comparatively expensive password encoding is performed
+ * by {@link RegistrationFilter}. See {@link RegistrationValidators} for common implementations.
+ *
+ * @author Geoff Bourne
+ * @since Oct 2026
+ */
+@FunctionalInterface
+public interface RegistrationValidator {
+
+    /**
+     * @param credentials the registration's credentials, where the username and password are known to be present
+     * @throws AuthenticationException typically a {@link RegistrationFailedException} describing the violation
+     */
+    void validate(Credentials credentials) throws AuthenticationException;
+}
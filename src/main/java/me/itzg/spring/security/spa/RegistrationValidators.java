@@ -0,0 +1,74 @@
+/*
+ * Copyright 2018 Geoff Bourne
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package me.itzg.spring.security.spa;
+
+import org.springframework.util.Assert;
+
+import java.util.regex.Pattern;
+
+/**
+ * Provides common {@link RegistrationValidator} implementations.
+ *
+ * @author Geoff Bourne
+ * @since Oct 2026
+ */
+@SuppressWarnings("WeakerAccess")
+public final class RegistrationValidators {
+    public static final String USERNAME_TOO_LONG = "Username is too long";
+    public static final String USERNAME_INVALID_FORMAT = "Username has an invalid format";
+    public static final String PASSWORD_TOO_SHORT = "Password is too short";
+    public static final String PASSWORD_TOO_LONG = "Password is too long";
+
+    private RegistrationValidators() {
+    }
+
+    /**
+     * @param maxUsernameLength the maximum number of characters in a username
+     * @param minPasswordLength the minimum number of characters in a password
+     * @param maxPasswordLength the maximum number of characters in a password
+     * @return a validator of username and password lengths
+     */
+    public static RegistrationValidator lengthLimits(int maxUsernameLength,
+                                                     int minPasswordLength, int maxPasswordLength) {
+        Assert.isTrue(minPasswordLength <= maxPasswordLength,
+                "minPasswordLength cannot be greater than maxPasswordLength");
+        return credentials -> {
+            if (credentials.getUsername().length() > maxUsernameLength) {
+                throw new RegistrationFailedException(USERNAME_TOO_LONG);
+            }
+            if (credentials.getPassword().length() < minPasswordLength) {
+                throw new RegistrationFailedException(PASSWORD_TOO_SHORT);
+            }
+            if (credentials.getPassword().length() > maxPasswordLength) {
+                throw new RegistrationFailedException(PASSWORD_TOO_LONG);
+            }
+        };
+    }
+
+    /**
+     * @param regex the regular expression the entire username must match
+     * @return a validator of the username's format
+     */
+    public static RegistrationValidator usernamePattern(String regex) {
+        final Pattern pattern = Pattern.compile(regex);
+        return credentials -> {
+            if (!pattern.matcher(credentials.getUsername()).matches()) {
+                throw new RegistrationFailedException(USERNAME_INVALID_FORMAT);
+            }
+        };
+    }
+}
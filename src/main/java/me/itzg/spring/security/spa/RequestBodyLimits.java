@@ -0,0 +1,317 @@
+/*
+ * Copyright 2018 Geoff Bourne
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package me.itzg.spring.security.spa;
+
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.security.web.authentication.AuthenticationFailureHandler;
+import org.springframework.util.Assert;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limits the request bodies that {@link RequestBodyLoginFilter} and {@link RegistrationFilter} will read, so that
+ * abusive requests cost neither heap nor parsing. Requests are {@link #check(HttpServletRequest) checked} before
+ * anything is read and rejected if they declare a <code>Content-Length</code> above the
+ * {@link #setMaxBodyLength(int) maximum}, have an unsupported content type, or have no body. Requests that pass
+ * are {@link #wrap(HttpServletRequest) wrapped}, so that reading a chunked body ends at the maximum, in which case
+ * the request is also rejected as too large.
+ * <p>
+ * Each {@link Reason} is counted and answered with its own status code, which can be
+ * {@link #setStatus(Reason, int) changed}.
+ * </p>
+ *
+ * @author Geoff Bourne
+ * @since Oct 2026
+ */
+@SuppressWarnings("WeakerAccess")
+public class RequestBodyLimits {
+    public static final int DEFAULT_MAX_BODY_LENGTH = StreamingCredentialsParser.DEFAULT_MAX_BODY_LENGTH;
+
+    private static final int MAX_CACHED_CONTENT_TYPES = 64;
+
+    /**
+     * The reasons a request body is rejected, along with their default status codes.
+     */
+    public enum Reason {
+        TOO_LARGE(413, CredentialsMessages.BODY_TOO_LARGE),
+        UNSUPPORTED_MEDIA_TYPE(415, "Unsupported content type"),
+        MISSING_BODY(400, "Request body is missing");
+
+        private final int defaultStatus;
+        private final String message;
+
+        Reason(int defaultStatus, String message) {
+            this.defaultStatus = defaultStatus;
+            this.message = message;
+        }
+
+        public int getDefaultStatus() {
+            return defaultStatus;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+
+    private int maxBodyLength = DEFAULT_MAX_BODY_LENGTH;
+    private List<MediaType> supportedMediaTypes = Arrays.asList(MediaType.APPLICATION_JSON,
+            new MediaType("application", "*+json"));
+    private final ConcurrentMap<String, Boolean> supportedContentTypes = new ConcurrentHashMap<>();
+    private final Map<Reason, SimpleAuthenticationFailureHandler> failureHandlers = new EnumMap<>(Reason.class);
+    private final Map<Reason, LongAdder> rejections = new EnumMap<>(Reason.class);
+    private final AuthenticationFailureHandler failureHandler = (request, response, exception) -> {
+        final Reason reason = exception instanceof RequestBodyRejectedException ?
+                ((RequestBodyRejectedException) exception).getReason() : Reason.TOO_LARGE;
+        failureHandlers.get(reason).onAuthenticationFailure(request, response, exception);
+    };
+
+    public RequestBodyLimits() {
+        for (Reason reason : Reason.values()) {
+            failureHandlers.put(reason, new SimpleAuthenticationFailureHandler().setStatus(reason.getDefaultStatus()));
+            rejections.put(reason, new LongAdder());
+        }
+    }
+
+    /**
+     * @param maxBodyLength the maximum number of bytes read from a request body. Default is
+     *                      {@value #DEFAULT_MAX_BODY_LENGTH}.
+     * @return this object for call chaining
+     */
+    public RequestBodyLimits setMaxBodyLength(int maxBodyLength) {
+        Assert.isTrue(maxBodyLength > 0, "maxBodyLength must be positive");
+        this.maxBodyLength = maxBodyLength;
+        return this;
+    }
+
+    public int getMaxBodyLength() {
+        return maxBodyLength;
+    }
+
+    /**
+     * @param supportedMediaTypes the media types, which may include wildcards, that request bodies may have.
+     *                            Default is <code>application/json</code> and <code>application/*+json</code>.
+     * @return this object for call chaining
+     */
+    public RequestBodyLimits setSupportedMediaTypes(MediaType... supportedMediaTypes) {
+        Assert.notEmpty(supportedMediaTypes, "at least one media type is required");
+        this.supportedMediaTypes = Arrays.asList(supportedMediaTypes);
+        supportedContentTypes.clear();
+        return this;
+    }
+
+    /**
+     * @param reason the reason of rejection
+     * @param status the status code of responses to requests rejected for that reason
+     * @return this object for call chaining
+     */
+    public RequestBodyLimits setStatus(Reason reason, int status) {
+        failureHandlers.get(reason).setStatus(status);
+        return this;
+    }
+
+    /**
+     * @param reason the reason of rejection
+     * @return the number of requests rejected for that reason
+     */
+    public long getRejections(Reason reason) {
+        return rejections.get(reason).sum();
+    }
+
+    /**
+     * @return the handler that responds to a {@link RequestBodyRejectedException} with the status of its reason
+     */
+    public AuthenticationFailureHandler getFailureHandler() {
+        return failureHandler;
+    }
+
+    /**
+     * Checks the declared length and content type of the request without reading its body.
+     *
+     * @param req the request to check
+     * @return the exception to reject the request with or null if the request may proceed
+     */
+    public RequestBodyRejectedException check(HttpServletRequest req) {
+        final long contentLength = req.getContentLengthLong();
+        if (contentLength > maxBodyLength) {
+            return reject(Reason.TOO_LARGE);
+        }
+        if (!isSupported(req.getContentType())) {
+            return reject(Reason.UNSUPPORTED_MEDIA_TYPE);
+        }
+        if (contentLength == 0 || contentLength < 0 && isHttp1(req) && req.getHeader("Transfer-Encoding") == null) {
+            // without either header, an HTTP/1 request has no body
+            return reject(Reason.MISSING_BODY);
+        }
+        return null;
+    }
+
+    /**
+     * Wraps the request so that reading its body ends after {@link #getMaxBodyLength()} bytes.
+     *
+     * @param req the request to wrap
+     * @return the wrapped request, which should be {@link #checkExceeded(HttpServletRequest) checked} after parsing
+     */
+    public HttpServletRequest wrap(HttpServletRequest req) {
+        return new LimitedRequest(req, maxBodyLength);
+    }
+
+    /**
+     * @param wrapped a request returned by {@link #wrap(HttpServletRequest)}
+     * @return the exception to reject the request with if reading its body reached the maximum, otherwise null
+     */
+    public RequestBodyRejectedException checkExceeded(HttpServletRequest wrapped) {
+        if (wrapped instanceof LimitedRequest && ((LimitedRequest) wrapped).exceeded) {
+            return reject(Reason.TOO_LARGE);
+        }
+        return null;
+    }
+
+    private RequestBodyRejectedException reject(Reason reason) {
+        rejections.get(reason).increment();
+        return new RequestBodyRejectedException(reason);
+    }
+
+    private boolean isSupported(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        final Boolean cached = supportedContentTypes.get(contentType);
+        if (cached != null) {
+            return cached;
+        }
+
+        boolean supported = false;
+        try {
+            final MediaType mediaType = MediaType.parseMediaType(contentType);
+            for (MediaType supportedMediaType : supportedMediaTypes) {
+                if (supportedMediaType.includes(mediaType)) {
+                    supported = true;
+                    break;
+                }
+            }
+        } catch (InvalidMediaTypeException e) {
+            // unsupported
+        }
+
+        if (supportedContentTypes.size() >= MAX_CACHED_CONTENT_TYPES) {
+            // bounded the same way as the converter cache, since the header is client controlled
+            supportedContentTypes.clear();
+        }
+        supportedContentTypes.put(contentType, supported);
+        return supported;
+    }
+
+    private static boolean isHttp1(HttpServletRequest req) {
+        final String protocol = req.getProtocol();
+        return protocol != null && protocol.startsWith("HTTP/1.");
+    }
+
+    private static class LimitedRequest extends HttpServletRequestWrapper {
+        private final int maxBodyLength;
+        private ServletInputStream inputStream;
+        boolean exceeded;
+
+        LimitedRequest(HttpServletRequest request, int maxBodyLength) {
+            super(request);
+            this.maxBodyLength = maxBodyLength;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            if (inputStream == null) {
+                inputStream = new LimitedInputStream(super.getInputStream());
+            }
+            return inputStream;
+        }
+
+        /**
+         * Signals the end of the body once the limit is reached, which fails parsing, rather than throwing,
+         * which converters would wrap in their own exceptions.
+         */
+        private class LimitedInputStream extends ServletInputStream {
+            private final ServletInputStream delegate;
+            private long remaining = maxBodyLength;
+
+            LimitedInputStream(ServletInputStream delegate) {
+                this.delegate = delegate;
+            }
+
+            @Override
+            public int read() throws IOException {
+                if (remaining <= 0) {
+                    return end();
+                }
+                final int b = delegate.read();
+                if (b >= 0) {
+                    --remaining;
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                if (len == 0) {
+                    return 0;
+                }
+                if (remaining <= 0) {
+                    return end();
+                }
+                final int count = delegate.read(b, off, (int) Math.min(len, remaining));
+                if (count > 0) {
+                    remaining -= count;
+                }
+                return count;
+            }
+
+            private int end() throws IOException {
+                // only over the limit if there is actually more to read
+                if (!exceeded && delegate.read() >= 0) {
+                    exceeded = true;
+                }
+                return -1;
+            }
+
+            @Override
+            public boolean isFinished() {
+                return exceeded || delegate.isFinished();
+            }
+
+            @Override
+            public boolean isReady() {
+                return delegate.isReady();
+            }
+
+            @Override
+            public void setReadListener(ReadListener readListener) {
+                delegate.setReadListener(readListener);
+            }
+        }
+    }
+}
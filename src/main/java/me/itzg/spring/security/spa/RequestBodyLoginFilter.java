@@ -22,7 +22,9 @@ import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
-import org.springframework.security.web.authentication.AbstractAuthenticationProcessingFilter;
+import org.springframework.security.core.CredentialsContainer;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.web.authentication.AuthenticationFailureHandler;
 import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
 import org.springframework.util.Assert;
 import org.springframework.util.StringUtils;
@@ -38,10 +40,20 @@ import java.io.IOException;
  * @author Geoff Bourne
  * @since Mar 2018
  */
-public class RequestBodyLoginFilter extends AbstractAuthenticationProcessingFilter {
+public class RequestBodyLoginFilter extends AbstractCredentialsFilter {
 
     public static final String DEFAULT_PROCESSES_URL = "/login";
-    private ConverterHelper converterHelper;
+    public static final String METRICS_NAME = "login";
+    public static final String BAD_CREDENTIALS = CredentialsMessages.BAD_CREDENTIALS;
+    public static final String INVALID_BODY = CredentialsMessages.INVALID_BODY;
+    private static final String PHASE_AUTHENTICATE = "authenticate";
+    private static final String UNKNOWN_USER_PASSWORD = "unknownUserPassword";
+
+    private UsernameIndex usernameIndex;
+    private PasswordEncoder unknownUserPasswordEncoder;
+    private String unknownUserEncodedPassword;
+    private PasswordUpgrader passwordUpgrader;
+    private FailedLoginTracker failedLoginTracker;
 
     public RequestBodyLoginFilter(String defaultFilterProcessesUrl) {
         super(defaultFilterProcessesUrl);
@@ -67,21 +79,70 @@ public class RequestBodyLoginFilter extends AbstractAuthenticationProcessingFilt
     public RequestBodyLoginFilter(String filterProcessesUrl, AuthenticationManager authenticationManager, HttpMessageConverters httpMessageConverters) {
         super(new AntPathRequestMatcher(filterProcessesUrl, "POST"));
         setAuthenticationManager(authenticationManager);
-        converterHelper = new ConverterHelper(httpMessageConverters);
+        setHttpMessageConverters(httpMessageConverters);
 
         setAuthenticationSuccessHandler(new SimpleAuthenticationSuccessHandler(HttpServletResponse.SC_OK));
         setAuthenticationFailureHandler(new SimpleAuthenticationFailureHandler());
     }
 
-    @Override
-    public void afterPropertiesSet() {
-        super.afterPropertiesSet();
+    /**
+     * Enables fast rejection of logins for usernames that are definitely absent from the given index, which
+     * avoids the user store query. So that response times don't reveal which usernames exist, the given
+     * password encoder is used to match the password against a dummy encoded password, which takes the same time
+     * as a real password check.
+     * <p>
+     * The index must contain every user that can log in, so only use this when this application is the single
+     * writer of the user store.
+     * </p>
+     *
+     * @param usernameIndex   the index of existing usernames or null to disable fast rejection
+     * @param passwordEncoder the same encoder that the authentication manager uses for stored passwords
+     */
+    public void setUsernameIndex(UsernameIndex usernameIndex, PasswordEncoder passwordEncoder) {
+        Assert.isTrue(usernameIndex == null || passwordEncoder != null,
+                "passwordEncoder is required when using a usernameIndex");
+        this.usernameIndex = usernameIndex;
+        this.unknownUserPasswordEncoder = passwordEncoder;
+        this.unknownUserEncodedPassword = usernameIndex != null ? passwordEncoder.encode(UNKNOWN_USER_PASSWORD) : null;
+    }
+
+    public UsernameIndex getUsernameIndex() {
+        return usernameIndex;
+    }
 
-        Assert.notNull(converterHelper, "HttpMessageConverters bean needs to be defined");
+    /**
+     * Enables re-encoding of outdated stored passwords after successful logins, which is performed in the
+     * background by the given upgrader. The credentials of each successful authentication are erased after it is
+     * submitted, so the authentication manager can leave them in place for the upgrader to check the stored hash
+     * without loading the user again.
+     *
+     * @param passwordUpgrader the upgrader to submit successful logins to or null to disable upgrades
+     */
+    public void setPasswordUpgrader(PasswordUpgrader passwordUpgrader) {
+        this.passwordUpgrader = passwordUpgrader;
     }
 
-    public void setHttpMessageConverters(HttpMessageConverters httpMessageConverters) {
-        this.converterHelper = new ConverterHelper(httpMessageConverters);
+    public PasswordUpgrader getPasswordUpgrader() {
+        return passwordUpgrader;
+    }
+
+    /**
+     * Enables lockout of usernames with too many recent failed logins, which are rejected before the
+     * authentication manager is called.
+     *
+     * @param failedLoginTracker the tracker to record failures in or null to disable lockout
+     */
+    public void setFailedLoginTracker(FailedLoginTracker failedLoginTracker) {
+        this.failedLoginTracker = failedLoginTracker;
+    }
+
+    public FailedLoginTracker getFailedLoginTracker() {
+        return failedLoginTracker;
+    }
+
+    @Override
+    protected String getMetricsName() {
+        return METRICS_NAME;
     }
 
     @SuppressWarnings("RedundantThrows")
@@ -89,21 +150,61 @@ public class RequestBodyLoginFilter extends AbstractAuthenticationProcessingFilt
     public Authentication attemptAuthentication(
             HttpServletRequest httpServletRequest,
             HttpServletResponse httpServletResponse) throws AuthenticationException, IOException, ServletException {
-        final Credentials credentials = converterHelper.parseBody(httpServletRequest, Credentials.class);
+        long mark = System.nanoTime();
+        final Credentials credentials = parseCredentials(httpServletRequest);
+        mark = recordPhase(PHASE_PARSE, mark);
 
         if (credentials != null) {
             if (!StringUtils.hasLength(credentials.getUsername())) {
-                throw new BadCredentialsException("Missing username");
+                throw new BadCredentialsException(MISSING_USERNAME);
             }
             if (!StringUtils.hasLength(credentials.getPassword())) {
-                throw new BadCredentialsException("Missing password");
+                throw new BadCredentialsException(MISSING_PASSWORD);
+            }
+
+            if (failedLoginTracker != null) {
+                failedLoginTracker.checkAttempt(credentials.getUsername());
             }
 
             final UsernamePasswordAuthenticationToken token = new UsernamePasswordAuthenticationToken(credentials.getUsername(), credentials.getPassword());
 
-            return getAuthenticationManager().authenticate(token);
+            try {
+                if (usernameIndex != null && !usernameIndex.mightContain(credentials.getUsername())) {
+                    unknownUserPasswordEncoder.matches(credentials.getPassword(), unknownUserEncodedPassword);
+                    throw new BadCredentialsException(BAD_CREDENTIALS);
+                }
+
+                final Authentication result = getAuthenticationManager().authenticate(token);
+                if (passwordUpgrader != null) {
+                    passwordUpgrader.submit(result, credentials.getPassword());
+                    if (result instanceof CredentialsContainer) {
+                        // since the authentication manager may have left them for the upgrade check
+                        ((CredentialsContainer) result).eraseCredentials();
+                    }
+                }
+                if (failedLoginTracker != null) {
+                    failedLoginTracker.recordSuccess(credentials.getUsername());
+                }
+                return result;
+            } catch (BadCredentialsException e) {
+                if (failedLoginTracker != null) {
+                    failedLoginTracker.recordFailure(credentials.getUsername());
+                }
+                throw e;
+            } finally {
+                // includes password hashing and user store access, regardless of the outcome
+                recordPhase(PHASE_AUTHENTICATE, mark);
+            }
         } else {
-            throw new BadCredentialsException("Request body was invalid");
+            throw new BadCredentialsException(INVALID_BODY);
+        }
+    }
+
+    @Override
+    protected AuthenticationFailureHandler getSpecificFailureHandler(AuthenticationException failed) {
+        if (failed instanceof TooManyFailedLoginsException && failedLoginTracker != null) {
+            return failedLoginTracker.getFailureHandler();
         }
+        return super.getSpecificFailureHandler(failed);
     }
 }
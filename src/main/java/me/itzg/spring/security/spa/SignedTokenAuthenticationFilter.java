@@ -0,0 +1,81 @@
+/*
+ * Copyright 2018 Geoff Bourne
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package me.itzg.spring.security.spa;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.util.Assert;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Authenticates each request that carries a valid token, as issued by {@link SignedTokenSuccessHandler}, in the
+ * {@link #setHeaderName(String) header}. The authentication is only placed in the {@link SecurityContextHolder}
+ * for the duration of the request, so no session is involved. Requests without a valid token proceed
+ * unauthenticated and are subject to the usual authorization rules.
+ *
+ * @author Geoff Bourne
+ * @since Oct 2026
+ */
+@SuppressWarnings("WeakerAccess")
+public class SignedTokenAuthenticationFilter extends OncePerRequestFilter {
+
+    private final SignedTokenCodec tokenCodec;
+    private String headerName = SignedTokenSuccessHandler.DEFAULT_HEADER_NAME;
+
+    public SignedTokenAuthenticationFilter(SignedTokenCodec tokenCodec) {
+        Assert.notNull(tokenCodec, "tokenCodec is required");
+        this.tokenCodec = tokenCodec;
+    }
+
+    /**
+     * Sets the request header that conveys the token.
+     * The default is {@value SignedTokenSuccessHandler#DEFAULT_HEADER_NAME}.
+     *
+     * @param headerName the header name
+     * @return this object for call chaining
+     */
+    public SignedTokenAuthenticationFilter setHeaderName(String headerName) {
+        Assert.hasText(headerName, "headerName is required");
+        this.headerName = headerName;
+        return this;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        final String token = request.getHeader(headerName);
+        if (token != null) {
+            final Authentication authentication = tokenCodec.decode(token);
+            if (authentication != null) {
+                // a new context, rather than mutating the current one, since that may be shared
+                final SecurityContext securityContext = SecurityContextHolder.createEmptyContext();
+                securityContext.setAuthentication(authentication);
+                SecurityContextHolder.setContext(securityContext);
+            } else if (logger.isDebugEnabled()) {
+                logger.debug("Ignoring invalid or expired token");
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+}
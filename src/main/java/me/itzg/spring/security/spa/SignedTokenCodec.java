@@ -0,0 +1,254 @@
+/*
+ * Copyright 2018 Geoff Bourne
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package me.itzg.spring.security.spa;
+
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.util.Assert;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Issues and verifies compact, HMAC-SHA256 signed tokens that carry the principal name, authorities, and expiry
+ * of an authentication, so that requests can be authenticated without server-side session state.
+ * A token is the URL-safe Base64 encoding of a small binary payload followed by a <code>.</code> and the
+ * encoding of the payload's signature.
+ * <p>
+ * Each thread reuses an initialized {@link Mac} and successfully verified tokens are cached, up to a limit,
+ * so that repeated requests with the same token only pay for a map lookup and expiry check. Each call to
+ * {@link #decode(String)} returns a new authentication, so changes made to it by one request don't affect others.
+ * Since verification is done by the secret alone, tokens can't be revoked before they expire.
+ * </p>
+ *
+ * @author Geoff Bourne
+ * @since Oct 2026
+ */
+@SuppressWarnings("WeakerAccess")
+public class SignedTokenCodec {
+    public static final String ALGORITHM = "HmacSHA256";
+    public static final int MIN_SECRET_LENGTH = 32;
+    public static final Duration DEFAULT_VALIDITY = Duration.ofHours(1);
+    public static final int DEFAULT_MAX_CACHE_ENTRIES = 10000;
+    private static final byte VERSION = 1;
+
+    private final SecretKeySpec key;
+    private final ThreadLocal<Mac> macs;
+    private final ConcurrentMap<String, Verified> cache = new ConcurrentHashMap<>();
+    private Duration validity = DEFAULT_VALIDITY;
+    private int maxCacheEntries = DEFAULT_MAX_CACHE_ENTRIES;
+    private Clock clock = Clock.systemUTC();
+
+    /**
+     * @param secret the secret key shared by all nodes that issue or verify tokens, which must be at least
+     *               {@value #MIN_SECRET_LENGTH} bytes
+     */
+    public SignedTokenCodec(byte[] secret) {
+        Assert.isTrue(secret != null && secret.length >= MIN_SECRET_LENGTH,
+                "secret must be at least " + MIN_SECRET_LENGTH + " bytes");
+        this.key = new SecretKeySpec(secret.clone(), ALGORITHM);
+        this.macs = ThreadLocal.withInitial(() -> {
+            try {
+                final Mac mac = Mac.getInstance(ALGORITHM);
+                mac.init(key);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("Unable to initialize " + ALGORITHM, e);
+            }
+        });
+        // fail fast if the algorithm is unavailable
+        macs.get();
+    }
+
+    /**
+     * Sets how long issued tokens are valid. The default is one hour.
+     *
+     * @param validity the validity duration of issued tokens
+     * @return this object for call chaining
+     */
+    public SignedTokenCodec setValidity(Duration validity) {
+        Assert.isTrue(validity != null && !validity.isNegative() && !validity.isZero(), "validity must be positive");
+        this.validity = validity;
+        return this;
+    }
+
+    public Duration getValidity() {
+        return validity;
+    }
+
+    /**
+     * Sets the maximum number of verified tokens that are cached, beyond which the cache is cleared.
+     * The default is {@value #DEFAULT_MAX_CACHE_ENTRIES}.
+     *
+     * @param maxCacheEntries the maximum number of cached tokens
+     * @return this object for call chaining
+     */
+    public SignedTokenCodec setMaxCacheEntries(int maxCacheEntries) {
+        Assert.isTrue(maxCacheEntries > 0, "maxCacheEntries must be positive");
+        this.maxCacheEntries = maxCacheEntries;
+        return this;
+    }
+
+    /**
+     * Sets the clock used for expiry, which is mainly useful for testing.
+     *
+     * @param clock the clock to use
+     * @return this object for call chaining
+     */
+    public SignedTokenCodec setClock(Clock clock) {
+        Assert.notNull(clock, "clock is required");
+        this.clock = clock;
+        return this;
+    }
+
+    /**
+     * Issues a token for the given authentication that expires after the {@link #setValidity(Duration) validity}.
+     *
+     * @param authentication the successful authentication
+     * @return the signed token
+     */
+    public String issue(Authentication authentication) {
+        return encode(authentication, clock.instant().plus(validity));
+    }
+
+    /**
+     * @param authentication the successful authentication
+     * @param expiresAt      when the token expires, which is retained with a precision of seconds
+     * @return the signed token
+     */
+    public String encode(Authentication authentication, Instant expiresAt) {
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(buffer)) {
+            out.writeByte(VERSION);
+            out.writeLong(expiresAt.getEpochSecond());
+            out.writeUTF(authentication.getName());
+            final Collection<? extends GrantedAuthority> authorities = authentication.getAuthorities();
+            out.writeShort(authorities.size());
+            for (GrantedAuthority authority : authorities) {
+                out.writeUTF(authority.getAuthority());
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to encode token", e);
+        }
+
+        final byte[] payload = buffer.toByteArray();
+        final Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return encoder.encodeToString(payload) + '.' + encoder.encodeToString(sign(payload));
+    }
+
+    /**
+     * Verifies the given token and rebuilds its authentication.
+     *
+     * @param token the token given by the client
+     * @return the authentication or null if the token is malformed, has an invalid signature, or has expired
+     */
+    public Authentication decode(String token) {
+        final long now = clock.millis();
+        final Verified cached = cache.get(token);
+        if (cached != null) {
+            if (now < cached.expiresAtMillis) {
+                return cached.toAuthentication();
+            }
+            cache.remove(token);
+            return null;
+        }
+
+        final Verified verified = verify(token);
+        if (verified == null || now >= verified.expiresAtMillis) {
+            return null;
+        }
+        if (cache.size() >= maxCacheEntries) {
+            cache.clear();
+        }
+        cache.put(token, verified);
+        return verified.toAuthentication();
+    }
+
+    private Verified verify(String token) {
+        final int separator = token.indexOf('.');
+        if (separator <= 0) {
+            return null;
+        }
+        final byte[] payload;
+        final byte[] signature;
+        try {
+            final Base64.Decoder decoder = Base64.getUrlDecoder();
+            payload = decoder.decode(token.substring(0, separator));
+            signature = decoder.decode(token.substring(separator + 1));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (!MessageDigest.isEqual(signature, sign(payload))) {
+            return null;
+        }
+
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            if (in.readByte() != VERSION) {
+                return null;
+            }
+            final long expiresAt = in.readLong();
+            final String name = in.readUTF();
+            final int count = in.readUnsignedShort();
+            final List<GrantedAuthority> authorities = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                authorities.add(new SimpleGrantedAuthority(in.readUTF()));
+            }
+            return new Verified(name, Collections.unmodifiableList(authorities), expiresAt * 1000);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private byte[] sign(byte[] payload) {
+        return macs.get().doFinal(payload);
+    }
+
+    private static class Verified {
+        final String name;
+        final List<GrantedAuthority> authorities;
+        final long expiresAtMillis;
+
+        Verified(String name, List<GrantedAuthority> authorities, long expiresAtMillis) {
+            this.name = name;
+            this.authorities = authorities;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+
+        Authentication toAuthentication() {
+            return new UsernamePasswordAuthenticationToken(name, null, authorities);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2018 Geoff Bourne
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package me.itzg.spring.security.spa;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.util.Assert;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Handles a successful authentication by setting the response status code to the given value and conveying a
+ * token issued by the given {@link SignedTokenCodec} in the {@link #setHeaderName(String) header}, which the client
+ * should then send with each request for verification by {@link SignedTokenAuthenticationFilter}.
+ * If the request is being processed by an {@link AsyncAuthenticationProcessor}, its async context is completed.
+ *
+ * @author Geoff Bourne
+ * @since Oct 2026
+ */
+@SuppressWarnings("WeakerAccess")
+public class SignedTokenSuccessHandler extends SimpleAuthenticationSuccessHandler {
+    public static final String DEFAULT_HEADER_NAME = "X-Auth-Token";
+
+    private final SignedTokenCodec tokenCodec;
+    private String headerName = DEFAULT_HEADER_NAME;
+
+    public SignedTokenSuccessHandler(int statusCode, SignedTokenCodec tokenCodec) {
+        super(statusCode);
+        Assert.notNull(tokenCodec, "tokenCodec is required");
+        this.tokenCodec = tokenCodec;
+    }
+
+    /**
+     * Sets the response header that conveys the token.
+     * The default is {@value #DEFAULT_HEADER_NAME}.
+     *
+     * @param headerName the header name
+     * @return this object for call chaining
+     */
+    public SignedTokenSuccessHandler setHeaderName(String headerName) {
+        Assert.hasText(headerName, "headerName is required");
+        this.headerName = headerName;
+        return this;
+    }
+
+    @Override
+    public void onAuthenticationSuccess(HttpServletRequest httpServletRequest, HttpServletResponse httpServletResponse,
+                                        Authentication authentication) throws IOException, ServletException {
+        httpServletResponse.setHeader(headerName, tokenCodec.issue(authentication));
+        super.onAuthenticationSuccess(httpServletRequest, httpServletResponse, authentication);
+    }
+}
@@ -16,18 +16,35 @@
 
 package me.itzg.spring.security.spa;
 
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
 import org.springframework.http.MediaType;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.web.authentication.AuthenticationFailureHandler;
+import org.springframework.util.Assert;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Handles authentication failures by simply setting the response status code to the given value or
- * {@value #DEFAULT_STATUS_CODE} by default.
+ * {@value #DEFAULT_STATUS_CODE} by default. The exception's message is written as the body, either as plain
+ * text or, when {@link #setJsonBody(boolean) enabled}, as a JSON object with <code>status</code> and
+ * <code>message</code> fields.
+ * <p>
+ * Since failures are the highest volume path during credential stuffing, the encoded bodies of the
+ * {@link #KNOWN_MESSAGES known messages}, and up to {@link #setMaxCachedMessages(int) a limited number} of others,
+ * are cached and written directly to the output stream with an explicit content length.
+ * </p>
+ * If the request is being processed by an {@link AsyncAuthenticationProcessor}, its async context is completed.
  *
  * @author Geoff Bourne
  * @since Mar 2018
@@ -36,7 +53,28 @@ public class SimpleAuthenticationFailureHandler implements AuthenticationFailure
 
     @SuppressWarnings("WeakerAccess")
     public static final int DEFAULT_STATUS_CODE = HttpServletResponse.SC_UNAUTHORIZED;
+    @SuppressWarnings("WeakerAccess")
+    public static final int DEFAULT_MAX_CACHED_MESSAGES = 256;
+    /**
+     * The failure messages produced by this library and Spring Security's DAO authentication, which are
+     * encoded up front.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public static final List<String> KNOWN_MESSAGES = knownMessages();
+
+    private static final String TEXT_CONTENT_TYPE = MediaType.TEXT_PLAIN_VALUE + ";charset=UTF-8";
+    private static final String JSON_CONTENT_TYPE = MediaType.APPLICATION_JSON_UTF8_VALUE;
+
+    private final ConcurrentMap<String, byte[]> encodedBodies = new ConcurrentHashMap<>();
     private int status = DEFAULT_STATUS_CODE;
+    private boolean jsonBody;
+    private int maxCachedMessages = DEFAULT_MAX_CACHED_MESSAGES;
+    private byte[] jsonPrefix;
+    private byte[] jsonSuffix;
+
+    public SimpleAuthenticationFailureHandler() {
+        rebuild();
+    }
 
     /**
      * Sets the status code that this handler will use for the servlet response.
@@ -48,6 +86,36 @@ public class SimpleAuthenticationFailureHandler implements AuthenticationFailure
     @SuppressWarnings("unused")
     public SimpleAuthenticationFailureHandler setStatus(int status) {
         this.status = status;
+        rebuild();
+        return this;
+    }
+
+    /**
+     * Selects a JSON object body, such as <code>{"status":401,"message":"Bad credentials"}</code>, rather than
+     * the plain text message. Default is false.
+     *
+     * @param jsonBody true to respond with a JSON object
+     * @return this object for call chaining
+     */
+    @SuppressWarnings("WeakerAccess")
+    public SimpleAuthenticationFailureHandler setJsonBody(boolean jsonBody) {
+        this.jsonBody = jsonBody;
+        rebuild();
+        return this;
+    }
+
+    /**
+     * Limits the number of messages, beyond the {@link #KNOWN_MESSAGES known messages}, whose encoded bodies are
+     * cached. This bounds the memory used when messages include request specific details.
+     * Default is {@value #DEFAULT_MAX_CACHED_MESSAGES}.
+     *
+     * @param maxCachedMessages the maximum number of additional messages to cache, where zero disables caching
+     * @return this object for call chaining
+     */
+    @SuppressWarnings("unused")
+    public SimpleAuthenticationFailureHandler setMaxCachedMessages(int maxCachedMessages) {
+        Assert.isTrue(maxCachedMessages >= 0, "maxCachedMessages must not be negative");
+        this.maxCachedMessages = maxCachedMessages;
         return this;
     }
 
@@ -55,8 +123,79 @@ public class SimpleAuthenticationFailureHandler implements AuthenticationFailure
     @Override
     public void onAuthenticationFailure(HttpServletRequest httpServletRequest, HttpServletResponse resp,
                                         AuthenticationException e) throws IOException, ServletException {
+        final byte[] body = encodedBody(e.getMessage() != null ? e.getMessage() : "");
+
         resp.setStatus(status);
-        resp.setContentType(MediaType.TEXT_PLAIN_VALUE);
-        resp.getWriter().print(e.getMessage());
+        resp.setContentType(jsonBody ? JSON_CONTENT_TYPE : TEXT_CONTENT_TYPE);
+        resp.setContentLength(body.length);
+        resp.getOutputStream().write(body);
+        AsyncAuthenticationProcessor.complete(httpServletRequest);
+    }
+
+    private byte[] encodedBody(String message) {
+        final byte[] cached = encodedBodies.get(message);
+        if (cached != null) {
+            return cached;
+        }
+
+        final byte[] encoded = encode(message);
+        if (encodedBodies.size() < KNOWN_MESSAGES.size() + maxCachedMessages) {
+            encodedBodies.putIfAbsent(message, encoded);
+        }
+        return encoded;
+    }
+
+    private byte[] encode(String message) {
+        if (!jsonBody) {
+            return message.getBytes(StandardCharsets.UTF_8);
+        }
+
+        final byte[] quoted = JsonStringEncoder.getInstance().quoteAsUTF8(message);
+        final byte[] body = new byte[jsonPrefix.length + quoted.length + jsonSuffix.length];
+        System.arraycopy(jsonPrefix, 0, body, 0, jsonPrefix.length);
+        System.arraycopy(quoted, 0, body, jsonPrefix.length, quoted.length);
+        System.arraycopy(jsonSuffix, 0, body, jsonPrefix.length + quoted.length, jsonSuffix.length);
+        return body;
+    }
+
+    private static List<String> knownMessages() {
+        final List<String> messages = new ArrayList<>(Arrays.asList(
+                RequestBodyLoginFilter.BAD_CREDENTIALS,
+                RequestBodyLoginFilter.INVALID_BODY,
+                AbstractCredentialsFilter.MISSING_USERNAME,
+                AbstractCredentialsFilter.MISSING_PASSWORD,
+                AbstractCredentialsFilter.TOO_MANY_ATTEMPTS,
+                TooManyFailedLoginsException.MESSAGE,
+                RegistrationFilter.INVALID_CONTENT,
+                RegistrationFilter.UNEXPECTED_FAILURE,
+                RegistrationFilter.USERNAME_IN_USE,
+                RegistrationValidators.USERNAME_TOO_LONG,
+                RegistrationValidators.USERNAME_INVALID_FORMAT,
+                RegistrationValidators.PASSWORD_TOO_SHORT,
+                RegistrationValidators.PASSWORD_TOO_LONG,
+                // from Spring Security's messages for the account status checks
+                "User is disabled",
+                "User account has expired",
+                "User account is locked",
+                "User credentials have expired"
+        ));
+        for (RequestBodyLimits.Reason reason : RequestBodyLimits.Reason.values()) {
+            messages.add(reason.getMessage());
+        }
+        messages.addAll(StreamingCredentialsParser.MESSAGES);
+        return Collections.unmodifiableList(messages);
+    }
+
+    /**
+     * Re-encodes the body template and known messages after a change in status code or format.
+     */
+    private void rebuild() {
+        jsonPrefix = ("{\"status\":" + status + ",\"message\":\"").getBytes(StandardCharsets.UTF_8);
+        jsonSuffix = "\"}".getBytes(StandardCharsets.UTF_8);
+
+        encodedBodies.clear();
+        for (String message : KNOWN_MESSAGES) {
+            encodedBodies.put(message, encode(message));
+        }
     }
 }
@@ -16,6 +16,7 @@
 
 package me.itzg.spring.security.spa;
 
+import org.springframework.http.MediaType;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.web.authentication.AuthenticationSuccessHandler;
 
@@ -25,23 +26,46 @@ import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 
 /**
- * Handles a successful authentication by simply setting the response status code to the given value.
+ * Handles a successful authentication by simply setting the response status code to the given value and, when
+ * {@link #setJsonBody(AuthenticationJsonWriter) enabled}, writing a JSON view of the authentication as the body.
+ * If the request is being processed by an {@link AsyncAuthenticationProcessor}, its async context is completed.
  *
  * @author Geoff Bourne
  * @since Mar 2018
  */
 public class SimpleAuthenticationSuccessHandler implements AuthenticationSuccessHandler {
     private int statusCode;
+    private AuthenticationJsonWriter jsonWriter;
 
     @SuppressWarnings("WeakerAccess")
     public SimpleAuthenticationSuccessHandler(int statusCode) {
         this.statusCode = statusCode;
     }
 
+    /**
+     * Responds with the authentication's name and authorities, as written by the given writer, so that the client
+     * doesn't need another request to learn them. Default is no body.
+     *
+     * @param jsonWriter the writer, or null for no body
+     * @return this object for call chaining
+     */
+    @SuppressWarnings("WeakerAccess")
+    public SimpleAuthenticationSuccessHandler setJsonBody(AuthenticationJsonWriter jsonWriter) {
+        this.jsonWriter = jsonWriter;
+        return this;
+    }
+
     @SuppressWarnings("RedundantThrows")
     @Override
     public void onAuthenticationSuccess(HttpServletRequest httpServletRequest, HttpServletResponse httpServletResponse,
                                         Authentication authentication) throws IOException, ServletException {
         httpServletResponse.setStatus(statusCode);
+        if (jsonWriter != null) {
+            final byte[] body = jsonWriter.write(authentication);
+            httpServletResponse.setContentType(MediaType.APPLICATION_JSON_UTF8_VALUE);
+            httpServletResponse.setContentLength(body.length);
+            httpServletResponse.getOutputStream().write(body);
+        }
+        AsyncAuthenticationProcessor.complete(httpServletRequest);
     }
 }
@@ -3,11 +3,21 @@ package me.itzg.spring.security.spa;
 import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
 import org.springframework.context.ApplicationContext;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.DefaultAuthenticationEventPublisher;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.web.HttpSecurityBuilder;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.provisioning.UserDetailsManager;
+import org.springframework.security.web.access.intercept.FilterSecurityInterceptor;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.context.NullSecurityContextRepository;
+import org.springframework.security.web.context.SecurityContextRepository;
+import org.springframework.util.ClassUtils;
+
+import javax.servlet.http.HttpServletResponse;
+import java.util.Collections;
 
 /**
  * This configurer will install the registration filter and request-body login filter provided by this library.
@@ -43,34 +53,179 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
    return new InMemoryUserDetailsManager();
  }
  * </pre>
+ * For large numbers of users, or to keep them across restarts without an external store, consider
+ * {@link CompactUserDetailsManager} instead of <code>InMemoryUserDetailsManager</code>.
+ *
  * @author Geoff Bourne
  * @since Jun 2018
  */
 public class SinglePageAppConfigurer<B extends HttpSecurityBuilder<B>>
         extends AbstractHttpConfigurer<SinglePageAppConfigurer<B>, B> {
 
+    private static final String MICROMETER_REGISTRY_CLASS = "io.micrometer.core.instrument.MeterRegistry";
+
     private String registerUrl = RegistrationFilter.DEFAULT_PROCESSES_URL;
     private String loginUrl = RequestBodyLoginFilter.DEFAULT_PROCESSES_URL;
+    private String bulkRegisterUrl;
+    private StreamingCredentialsParser credentialsParser;
+    private AsyncAuthenticationProcessor asyncProcessor;
+    private LoginRateLimiter rateLimiter;
+    private RegistrationValidator[] registrationValidators = new RegistrationValidator[0];
+    private UsernameIndex usernameIndex;
+    private boolean rejectUnknownLogins;
+    private AuthenticationMetrics metrics;
+    private SignedTokenCodec tokenCodec;
+    private AuthenticationCodec sessionCodec;
+    private AuthenticationJsonWriter successJsonWriter;
+    private boolean dispatchFilter;
+    private PasswordUpgrader passwordUpgrader;
+    private RequestBodyLimits requestBodyLimits;
+    private FailedLoginTracker failedLoginTracker;
+    private CachingUserDetailsManager userDetailsCache;
+    private String[] initialRoles;
+    private int loginStatus = HttpServletResponse.SC_OK;
+    private int registrationStatus = RegistrationFilter.STATUS_CODE;
+    private int failureStatus = SimpleAuthenticationFailureHandler.DEFAULT_STATUS_CODE;
+    private PasswordEncoder passwordEncoder;
+    private UserDetailsManager userDetailsManager;
+    private HttpMessageConverters httpMessageConverters;
+
+    @Override
+    public void init(B builder) throws Exception {
+        if (tokenCodec != null) {
+            // replaces the session-based repository that session management registers during its own init
+            builder.setSharedObject(SecurityContextRepository.class, new NullSecurityContextRepository());
+        } else if (sessionCodec != null) {
+            builder.setSharedObject(SecurityContextRepository.class,
+                    new CompactSessionSecurityContextRepository(sessionCodec));
+        }
+    }
 
     @Override
     public void configure(B builder) throws Exception {
 
         final AuthenticationManager authenticationManager = builder.getSharedObject(AuthenticationManager.class);
         final ApplicationContext applicationContext = builder.getSharedObject(ApplicationContext.class);
+        final PasswordEncoder passwordEncoder = this.passwordEncoder != null ?
+                this.passwordEncoder : applicationContext.getBean(PasswordEncoder.class);
+        final UserDetailsManager userDetailsManager = userDetailsCache != null ? userDetailsCache :
+                this.userDetailsManager != null ? this.userDetailsManager :
+                        applicationContext.getBean(UserDetailsManager.class);
+        final HttpMessageConverters httpMessageConverters = this.httpMessageConverters != null ?
+                this.httpMessageConverters : applicationContext.getBean(HttpMessageConverters.class);
+        final MicrometerAuthenticationMetrics micrometerMetrics = metrics == null &&
+                ClassUtils.isPresent(MICROMETER_REGISTRY_CLASS, getClass().getClassLoader()) ?
+                MicrometerAuthenticationMetrics.fromApplicationContext(applicationContext) : null;
+        final AuthenticationMetrics filterMetrics = metrics != null ? metrics : micrometerMetrics;
 
         final RegistrationFilter registrationFilter = new RegistrationFilter(registerUrl);
         registrationFilter.setAuthenticationManager(authenticationManager);
-        registrationFilter.setPasswordEncoder(applicationContext.getBean(PasswordEncoder.class));
-        registrationFilter.setHttpMessageConverters(applicationContext.getBean(HttpMessageConverters.class));
-        registrationFilter.setUserDetailsManager(applicationContext.getBean(UserDetailsManager.class));
-        builder.addFilterBefore(postProcess(registrationFilter),
-                UsernamePasswordAuthenticationFilter.class);
+        registrationFilter.setPasswordEncoder(passwordEncoder);
+        registrationFilter.setHttpMessageConverters(httpMessageConverters);
+        registrationFilter.setUserDetailsManager(usernameIndex != null ?
+                new IndexedUserDetailsManager(userDetailsManager, usernameIndex) : userDetailsManager);
+        registrationFilter.setCredentialsParser(credentialsParser);
+        registrationFilter.setAsyncProcessor(asyncProcessor);
+        registrationFilter.setRateLimiter(rateLimiter);
+        registrationFilter.setRequestBodyLimits(requestBodyLimits);
+        registrationFilter.setValidators(registrationValidators);
+        registrationFilter.setMetrics(filterMetrics);
+        if (initialRoles != null) {
+            registrationFilter.setInitialRoles(initialRoles);
+        }
+        registrationFilter.setAuthenticationSuccessHandler(tokenCodec != null ?
+                new SignedTokenSuccessHandler(registrationStatus, tokenCodec).setJsonBody(successJsonWriter) :
+                new SimpleAuthenticationSuccessHandler(registrationStatus).setJsonBody(successJsonWriter));
+        registrationFilter.setAuthenticationFailureHandler(
+                new SimpleAuthenticationFailureHandler().setStatus(failureStatus));
+
+        if (bulkRegisterUrl != null) {
+            // after authorization, since this filter doesn't authenticate the request itself
+            builder.addFilterAfter(postProcess(new BulkRegistrationFilter(bulkRegisterUrl, registrationFilter,
+                            Runtime.getRuntime().availableProcessors())),
+                    FilterSecurityInterceptor.class);
+        }
 
         final RequestBodyLoginFilter loginFilter = new RequestBodyLoginFilter(loginUrl);
-        loginFilter.setAuthenticationManager(authenticationManager);
-        loginFilter.setHttpMessageConverters(applicationContext.getBean(HttpMessageConverters.class));
-        builder.addFilterBefore(postProcess(loginFilter),
-                UsernamePasswordAuthenticationFilter.class);
+        loginFilter.setAuthenticationManager(userDetailsCache != null ?
+                cachedAuthenticationManager(passwordEncoder, applicationContext) : authenticationManager);
+        loginFilter.setHttpMessageConverters(httpMessageConverters);
+        loginFilter.setCredentialsParser(credentialsParser);
+        loginFilter.setAsyncProcessor(asyncProcessor);
+        loginFilter.setRateLimiter(rateLimiter);
+        loginFilter.setRequestBodyLimits(requestBodyLimits);
+        if (rejectUnknownLogins) {
+            loginFilter.setUsernameIndex(usernameIndex, passwordEncoder);
+        }
+        loginFilter.setMetrics(filterMetrics);
+        loginFilter.setPasswordUpgrader(passwordUpgrader);
+        loginFilter.setFailedLoginTracker(failedLoginTracker);
+        loginFilter.setAuthenticationSuccessHandler(tokenCodec != null ?
+                new SignedTokenSuccessHandler(loginStatus, tokenCodec).setJsonBody(successJsonWriter) :
+                new SimpleAuthenticationSuccessHandler(loginStatus).setJsonBody(successJsonWriter));
+        loginFilter.setAuthenticationFailureHandler(
+                new SimpleAuthenticationFailureHandler().setStatus(failureStatus));
+        if (dispatchFilter) {
+            final ExactPathRequestMatcher registerMatcher = new ExactPathRequestMatcher(registerUrl, "POST");
+            final ExactPathRequestMatcher loginMatcher = new ExactPathRequestMatcher(loginUrl, "POST");
+            registrationFilter.setRequiresAuthenticationRequestMatcher(registerMatcher);
+            loginFilter.setRequiresAuthenticationRequestMatcher(loginMatcher);
+            builder.addFilterBefore(postProcess(new SinglePageAppDispatchFilter()
+                            .addEndpoint(registerMatcher, postProcess(registrationFilter))
+                            .addEndpoint(loginMatcher, postProcess(loginFilter))),
+                    UsernamePasswordAuthenticationFilter.class);
+        } else {
+            builder.addFilterBefore(postProcess(registrationFilter),
+                    UsernamePasswordAuthenticationFilter.class);
+            builder.addFilterBefore(postProcess(loginFilter),
+                    UsernamePasswordAuthenticationFilter.class);
+        }
+
+        if (tokenCodec != null) {
+            builder.addFilterBefore(postProcess(new SignedTokenAuthenticationFilter(tokenCodec)),
+                    UsernamePasswordAuthenticationFilter.class);
+            if (asyncProcessor != null) {
+                asyncProcessor.setSecurityContextRepository(new NullSecurityContextRepository());
+            }
+        } else if (sessionCodec != null && asyncProcessor != null) {
+            asyncProcessor.setSecurityContextRepository(builder.getSharedObject(SecurityContextRepository.class));
+        }
+
+        if (micrometerMetrics != null) {
+            micrometerMetrics.bindConverterHelper(RegistrationFilter.METRICS_NAME,
+                    registrationFilter.getConverterHelper());
+            micrometerMetrics.bindConverterHelper(RequestBodyLoginFilter.METRICS_NAME,
+                    loginFilter.getConverterHelper());
+            if (passwordUpgrader != null) {
+                micrometerMetrics.bindPasswordUpgrader(passwordUpgrader);
+            }
+            if (requestBodyLimits != null) {
+                micrometerMetrics.bindRequestBodyLimits(requestBodyLimits);
+            }
+            if (failedLoginTracker != null) {
+                micrometerMetrics.bindFailedLoginTracker(failedLoginTracker);
+            }
+            if (userDetailsCache != null) {
+                micrometerMetrics.bindUserDetailsCache(userDetailsCache);
+            }
+        }
+    }
+
+    /**
+     * Authenticates logins against the {@link #userDetailsCache(CachingUserDetailsManager) cache}, since the
+     * shared authentication manager queries the user store that the application configured it with.
+     */
+    private AuthenticationManager cachedAuthenticationManager(PasswordEncoder passwordEncoder,
+                                                              ApplicationContext applicationContext) {
+        final DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+        provider.setUserDetailsService(userDetailsCache);
+        provider.setPasswordEncoder(passwordEncoder);
+        final ProviderManager providerManager = new ProviderManager(
+                Collections.singletonList(postProcess(provider)));
+        // the login filter erases them after checking whether the stored password needs an upgrade
+        providerManager.setEraseCredentialsAfterAuthentication(passwordUpgrader == null);
+        providerManager.setAuthenticationEventPublisher(new DefaultAuthenticationEventPublisher(applicationContext));
+        return providerManager;
     }
 
     public SinglePageAppConfigurer<B> registerUrl(String url) {
@@ -82,4 +237,292 @@ public class SinglePageAppConfigurer<B extends HttpSecurityBuilder<B>>
         this.loginUrl = url;
         return this;
     }
+
+    /**
+     * Enables a {@link BulkRegistrationFilter} at the given URL, which uses the same configuration as the
+     * registration filter. The URL should be restricted to administrators, such as
+     * <code>authorizeRequests().antMatchers("/register/bulk").hasRole("ADMIN")</code>.
+     *
+     * @param url the path where bulk registrations are processed
+     * @return this object for call chaining
+     */
+    public SinglePageAppConfigurer<B> bulkRegisterUrl(String url) {
+        this.bulkRegisterUrl = url;
+        return this;
+    }
+
+    /**
+     * Enables parsing of JSON credentials with the given dedicated parser rather than the message converters,
+     * which remain in use for other content types.
+     *
+     * @param credentialsParser the parser to use, such as <code>new StreamingCredentialsParser()</code>
+     * @return this object for call chaining
+     */
+    public SinglePageAppConfigurer<B> credentialsParser(StreamingCredentialsParser credentialsParser) {
+        this.credentialsParser = credentialsParser;
+        return this;
+    }
+
+    /**
+     * Enables processing of login and registration credentials on a dedicated executor via Servlet async
+     * processing, which keeps password hashing from occupying the servlet container's threads.
+     *
+     * @param asyncProcessor the processor to use, such as <code>new AsyncAuthenticationProcessor(4, 100)</code>
+     * @return this object for call chaining
+     */
+    public SinglePageAppConfigurer<B> asyncProcessing(AsyncAuthenticationProcessor asyncProcessor) {
+        this.asyncProcessor = asyncProcessor;
+        return this;
+    }
+
+    /**
+     * Enables per-client rate limiting of login and registration attempts. The same limiter, and so the same
+     * client budget, is shared by both filters.
+     * Clients are keyed by remote address by default, so behind a reverse proxy set a
+     * {@link LoginRateLimiter#setKeyExtractor(java.util.function.Function) key extractor} that reads the client
+     * address forwarded by the proxy; otherwise all clients share the proxy's budget.
+     *
+     * @param rateLimiter the rate limiter to use, such as <code>new LoginRateLimiter(10, 1)</code>
+     * @return this object for call chaining
+     */
+    public SinglePageAppConfigurer<B> rateLimiter(LoginRateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+        return this;
+    }
+
+    /**
+     * Enables limits on the length and content type of login and registration request bodies, which are
+     * checked before the body is read. The same limits are shared by both filters.
+     *
+     * @param requestBodyLimits the limits to apply, such as <code>new RequestBodyLimits()</code>
+     * @return this object for call chaining
+     */
+    public SinglePageAppConfigurer<B> requestBodyLimits(RequestBodyLimits requestBodyLimits) {
+        this.requestBodyLimits = requestBodyLimits;
+        return this;
+    }
+
+    /**
+     * Enables lockout of usernames with too many recent failed logins. Unlike {@link #rateLimiter(LoginRateLimiter)},
+     * which limits each client, this protects each username from guessing spread across many clients.
+     *
+     * @param failedLoginTracker the tracker to use, such as <code>new FailedLoginTracker(10)</code>
+     * @return this object for call chaining
+     */
+    public SinglePageAppConfigurer<B> failedLoginTracker(FailedLoginTracker failedLoginTracker) {
+        this.failedLoginTracker = failedLoginTracker;
+        return this;
+    }
+
+    /**
+     * Caches the users that logins load from the user store. Logins are then authenticated by a
+     * <code>DaoAuthenticationProvider</code> with the cache and the password encoder, rather than the shared
+     * authentication manager, and registrations are created through the cache so that they invalidate it.
+     * Other changes to users, such as by a {@link PasswordUpgrader}, should also go through the cache.
+     *
+     * @param userDetailsCache the cache, such as
+     *                         <code>new CachingUserDetailsManager(userDetailsManager, 10_000, 60_000)</code>
+     * @return this object for call chaining
+     */
+    public SinglePageAppConfigurer<B> userDetailsCache(CachingUserDetailsManager userDetailsCache) {
+        this.userDetailsCache = userDetailsCache;
+        return this;
+    }
+
+    /**
+     * Sets validators that registrations must pass before the password is encoded and the user is created.
+     *
+     * @param validators the validators, such as those provided by {@link RegistrationValidators}
+     * @return this object for call chaining
+     */
+    public SinglePageAppConfigurer<B> registrationValidators(RegistrationValidator... validators) {
+        this.registrationValidators = validators;
+        return this;
+    }
+
+    /**
+     * Enables an index of existing usernames that lets registration skip the user store's existence check. The
+     * index should already be {@link UsernameIndex#addAll(Iterable) loaded} with the existing usernames.
+     *
+     * @param usernameIndex the index to use
+     * @return this object for call chaining
+     */
+    public SinglePageAppConfigurer<B> usernameIndex(UsernameIndex usernameIndex) {
+        return usernameIndex(usernameIndex, false);
+    }
+
+    /**
+     * Enables an index of existing usernames that lets registration skip the user store's existence check and,
+     * optionally, login reject unknown usernames without querying the user store. The index should already be
+     * {@link UsernameIndex#addAll(Iterable) loaded} with the existing usernames.
+     * <p>
+     * Only reject unknown logins when this application is the single writer of the user store. The index only
+     * learns of users registered through this configurer on this node, so users created on other nodes or
+     * directly in the store would be answered "Bad credentials" until the index is reloaded.
+     * </p>
+     *
+     * @param usernameIndex       the index to use
+     * @param rejectUnknownLogins true to reject logins for usernames absent from the index
+     * @return this object for call chaining
+     */
+    public SinglePageAppConfigurer<B> usernameIndex(UsernameIndex usernameIndex, boolean rejectUnknownLogins) {
+        this.usernameIndex = usernameIndex;
+        this.rejectUnknownLogins = rejectUnknownLogins;
+        return this;
+    }
+
+    /**
+     * Sets where the filters report their outcomes and the time spent in each phase of processing. When not set,
+     * {@link MicrometerAuthenticationMetrics} are used if Micrometer is on the classpath and the application
+     * context contains a <code>MeterRegistry</code> bean; otherwise, no metrics are reported.
+     *
+     * @param metrics the metrics to report to
+     * @return this object for call chaining
+     */
+    public SinglePageAppConfigurer<B> metrics(AuthenticationMetrics metrics) {
+        this.metrics = metrics;
+        return this;
+    }
+
+    /**
+     * Switches from session-based authentication to stateless, signed tokens. Successful logins and
+     * registrations respond with a token in the {@value SignedTokenSuccessHandler#DEFAULT_HEADER_NAME} header,
+     * which authenticates subsequent requests that carry the same header. The security context is then no
+     * longer stored in the HTTP session.
+     *
+     * @param tokenCodec the codec, which must be configured with the same secret on all nodes
+     * @return this object for call chaining
+     */
+    public SinglePageAppConfigurer<B> signedTokens(SignedTokenCodec tokenCodec) {
+        this.tokenCodec = tokenCodec;
+        return this;
+    }
+
+    /**
+     * Stores the authentication in the HTTP session in the compact encoding of the given codec, rather than as a
+     * Java serialized security context, which shrinks sessions that are replicated or kept in a shared store.
+     * This has no effect when {@link #signedTokens(SignedTokenCodec) signed tokens} are used.
+     *
+     * @param sessionCodec the codec, such as <code>new AuthenticationCodec("ROLE_USER")</code>, which must be
+     *                     configured with the same known authorities on all nodes
+     * @return this object for call chaining
+     */
+    public SinglePageAppConfigurer<B> compactSessions(AuthenticationCodec sessionCodec) {
+        this.sessionCodec = sessionCodec;
+        return this;
+    }
+
+    /**
+     * Responds to successful logins and registrations with a JSON view of the authentication, such as
+     * <code>{"name":"user","authorities":["ROLE_USER"]}</code>, so the client learns who it is without another
+     * request.
+     *
+     * @param jsonWriter the writer, such as <code>new AuthenticationJsonWriter()</code>
+     * @return this object for call chaining
+     */
+    public SinglePageAppConfigurer<B> jsonSuccessBody(AuthenticationJsonWriter jsonWriter) {
+        this.successJsonWriter = jsonWriter;
+        return this;
+    }
+
+    /**
+     * Installs a single {@link SinglePageAppDispatchFilter} that owns the login and registration endpoints, rather
+     * than a filter for each that pattern matches every request. Endpoints at plain paths are then found with an
+     * exact lookup of the request's method and path, and only accept POST requests.
+     *
+     * @return this object for call chaining
+     */
+    public SinglePageAppConfigurer<B> dispatchFilter() {
+        this.dispatchFilter = true;
+        return this;
+    }
+
+    /**
+     * Enables re-encoding of outdated stored passwords, such as after raising the BCrypt strength, when users
+     * successfully log in. The upgrader should be a bean, so that its threads are shut down with the application.
+     * To avoid loading each user again to check their stored password, configure the authentication manager with
+     * <code>eraseCredentials(false)</code>; the login filter erases the credentials after the check instead.
+     *
+     * @param passwordUpgrader the upgrader to use, such as
+     *                         <code>new PasswordUpgrader(userDetailsManager, passwordEncoder, 1, 100)</code>
+     * @return this object for call chaining
+     */
+    public SinglePageAppConfigurer<B> passwordUpgrader(PasswordUpgrader passwordUpgrader) {
+        this.passwordUpgrader = passwordUpgrader;
+        return this;
+    }
+
+    /**
+     * Sets the roles, without the <code>ROLE_</code> prefix, granted to newly registered users.
+     * The default is <code>USER</code>.
+     *
+     * @param initialRoles the roles
+     * @return this object for call chaining
+     */
+    public SinglePageAppConfigurer<B> initialRoles(String... initialRoles) {
+        this.initialRoles = initialRoles;
+        return this;
+    }
+
+    /**
+     * @param loginStatus the status code of successful logins, which is 200 by default
+     * @return this object for call chaining
+     */
+    public SinglePageAppConfigurer<B> loginStatus(int loginStatus) {
+        this.loginStatus = loginStatus;
+        return this;
+    }
+
+    /**
+     * @param registrationStatus the status code of successful registrations, which is
+     *                           {@value RegistrationFilter#STATUS_CODE} by default
+     * @return this object for call chaining
+     */
+    public SinglePageAppConfigurer<B> registrationStatus(int registrationStatus) {
+        this.registrationStatus = registrationStatus;
+        return this;
+    }
+
+    /**
+     * @param failureStatus the status code of failed logins and registrations, which is
+     *                      {@value SimpleAuthenticationFailureHandler#DEFAULT_STATUS_CODE} by default
+     * @return this object for call chaining
+     */
+    public SinglePageAppConfigurer<B> failureStatus(int failureStatus) {
+        this.failureStatus = failureStatus;
+        return this;
+    }
+
+    /**
+     * Sets the encoder of registered passwords rather than looking up the <code>PasswordEncoder</code> bean.
+     *
+     * @param passwordEncoder the encoder, which should be the same one used by the authentication manager
+     * @return this object for call chaining
+     */
+    public SinglePageAppConfigurer<B> passwordEncoder(PasswordEncoder passwordEncoder) {
+        this.passwordEncoder = passwordEncoder;
+        return this;
+    }
+
+    /**
+     * Sets the store of registered users rather than looking up the <code>UserDetailsManager</code> bean.
+     *
+     * @param userDetailsManager the user store, which should be the one used by the authentication manager
+     * @return this object for call chaining
+     */
+    public SinglePageAppConfigurer<B> userDetailsManager(UserDetailsManager userDetailsManager) {
+        this.userDetailsManager = userDetailsManager;
+        return this;
+    }
+
+    /**
+     * Sets the converters of request bodies rather than looking up the <code>HttpMessageConverters</code> bean.
+     *
+     * @param httpMessageConverters the converters
+     * @return this object for call chaining
+     */
+    public SinglePageAppConfigurer<B> httpMessageConverters(HttpMessageConverters httpMessageConverters) {
+        this.httpMessageConverters = httpMessageConverters;
+        return this;
+    }
 }
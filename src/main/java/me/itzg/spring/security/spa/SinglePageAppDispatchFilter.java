@@ -0,0 +1,112 @@
+/*
+ * Copyright 2018 Geoff Bourne
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package me.itzg.spring.security.spa;
+
+import org.springframework.util.Assert;
+import org.springframework.web.filter.GenericFilterBean;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A single filter that owns several single page app endpoints, such as login and registration, and dispatches
+ * each matching request to the filter of that endpoint. Endpoints at plain paths are found with one hash lookup
+ * of the method and path, so that unrelated requests, such as for static assets, pass through this filter
+ * without any pattern matching. Only endpoints whose paths contain wildcards are matched as Ant patterns.
+ * <p>
+ * The endpoint filters are not otherwise part of the filter chain and should only process requests that
+ * match their endpoint, such as by using the same {@link ExactPathRequestMatcher}.
+ * </p>
+ *
+ * @author Geoff Bourne
+ * @since Oct 2026
+ */
+@SuppressWarnings("WeakerAccess")
+public class SinglePageAppDispatchFilter extends GenericFilterBean {
+
+    /**
+     * Keyed by method and then path, so that the common case of a method without endpoints ends at the first lookup
+     */
+    private final Map<String, Map<String, Filter>> exactEndpoints = new HashMap<>();
+    private final List<Endpoint> patternEndpoints = new ArrayList<>();
+
+    /**
+     * Adds an endpoint. Endpoints at plain paths take precedence, followed by pattern endpoints in the order added.
+     *
+     * @param matcher the method and path of the endpoint
+     * @param filter  the filter that processes the endpoint's requests
+     * @return this object for call chaining
+     */
+    public SinglePageAppDispatchFilter addEndpoint(ExactPathRequestMatcher matcher, Filter filter) {
+        Assert.notNull(matcher, "matcher is required");
+        Assert.notNull(filter, "filter is required");
+        if (matcher.isPatternMatching() || matcher.getMethod() == null) {
+            patternEndpoints.add(new Endpoint(matcher, filter));
+        } else {
+            final Filter previous = exactEndpoints.computeIfAbsent(matcher.getMethod(), method -> new HashMap<>())
+                    .putIfAbsent(matcher.getPath(), filter);
+            Assert.isNull(previous, () -> "An endpoint is already registered for " + matcher);
+        }
+        return this;
+    }
+
+    @Override
+    public void doFilter(ServletRequest req, ServletResponse res, FilterChain chain)
+            throws IOException, ServletException {
+        final Filter endpoint = lookup((HttpServletRequest) req);
+        if (endpoint != null) {
+            endpoint.doFilter(req, res, chain);
+        } else {
+            chain.doFilter(req, res);
+        }
+    }
+
+    private Filter lookup(HttpServletRequest request) {
+        final Map<String, Filter> byPath = exactEndpoints.get(request.getMethod());
+        if (byPath != null) {
+            final Filter filter = byPath.get(ExactPathRequestMatcher.getRequestPath(request));
+            if (filter != null) {
+                return filter;
+            }
+        }
+        for (Endpoint endpoint : patternEndpoints) {
+            if (endpoint.matcher.matches(request)) {
+                return endpoint.filter;
+            }
+        }
+        return null;
+    }
+
+    private static class Endpoint {
+        final ExactPathRequestMatcher matcher;
+        final Filter filter;
+
+        Endpoint(ExactPathRequestMatcher matcher, Filter filter) {
+            this.matcher = matcher;
+            this.filter = filter;
+        }
+    }
+}
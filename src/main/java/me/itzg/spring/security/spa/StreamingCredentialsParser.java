@@ -0,0 +1,426 @@
+/*
+ * Copyright 2018 Geoff Bourne
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package me.itzg.spring.security.spa;
+
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.util.Assert;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A dedicated parser of the <code>{"username": ..., "password": ...}</code> JSON payload that tokenizes the request
+ * body directly into reusable, per-thread buffers rather than going through a general purpose
+ * {@link org.springframework.http.converter.HttpMessageConverter}.
+ * <p>
+ * Only UTF-8 JSON requests are {@link #supports(HttpServletRequest) supported}, so the filters keep using
+ * {@link ConverterHelper#parseBody(HttpServletRequest, Class)} for any other content type. Unknown, duplicate,
+ * non-string or oversized fields are rejected with a {@link BadCredentialsException} as soon as they are
+ * encountered. The buffers that held the password are zeroed before {@link #parse(InputStream)} returns;
+ * however, the password is still handed out as a {@link String} since that is what Spring Security's
+ * authentication token and password encoders consume.
+ * </p>
+ *
+ * @author Geoff Bourne
+ * @since Oct 2026
+ */
+@SuppressWarnings("WeakerAccess")
+public class StreamingCredentialsParser {
+    public static final int DEFAULT_MAX_FIELD_LENGTH = 256;
+    public static final int DEFAULT_MAX_BODY_LENGTH = 4096;
+
+    static final String NOT_AN_OBJECT = "Request body must be a JSON object";
+    static final String EXPECTED_FIELD_NAME = "Expected a field name";
+    static final String UNKNOWN_FIELD = "Unknown field";
+    static final String DUPLICATE_FIELD = "Duplicate field";
+    static final String EXPECTED_COLON = "Expected ':' after field name";
+    static final String EXPECTED_COMMA_OR_END = "Expected ',' or '}'";
+    static final String TRAILING_CONTENT = "Unexpected content after JSON object";
+    static final String NON_STRING_VALUE = "Field values must be strings";
+    static final String FIELD_TOO_LONG = "Field value is too long";
+    static final String UNTERMINATED_STRING = "Unterminated string";
+    static final String CONTROL_CHARACTER = "Control character in string";
+    static final String MALFORMED_UTF8 = "Malformed UTF-8";
+    static final String MALFORMED_UNICODE_ESCAPE = "Malformed unicode escape";
+    static final String MALFORMED_ESCAPE = "Malformed escape";
+    /**
+     * The messages of the exceptions thrown when a body is rejected, which are all fixed.
+     */
+    static final List<String> MESSAGES = Collections.unmodifiableList(Arrays.asList(
+            NOT_AN_OBJECT,
+            EXPECTED_FIELD_NAME,
+            UNKNOWN_FIELD,
+            DUPLICATE_FIELD,
+            EXPECTED_COLON,
+            EXPECTED_COMMA_OR_END,
+            TRAILING_CONTENT,
+            NON_STRING_VALUE,
+            FIELD_TOO_LONG,
+            UNTERMINATED_STRING,
+            CONTROL_CHARACTER,
+            MALFORMED_UTF8,
+            MALFORMED_UNICODE_ESCAPE,
+            MALFORMED_ESCAPE
+    ));
+
+    private static final int READ_BUFFER_SIZE = 512;
+    private static final String JSON_TYPE = "application/json";
+    private static final char[] USERNAME = "username".toCharArray();
+    private static final char[] PASSWORD = "password".toCharArray();
+
+    private final int maxFieldLength;
+    private final int maxBodyLength;
+    private final ThreadLocal<Tokenizer> tokenizers;
+
+    public StreamingCredentialsParser() {
+        this(DEFAULT_MAX_FIELD_LENGTH, DEFAULT_MAX_BODY_LENGTH);
+    }
+
+    /**
+     * @param maxFieldLength the maximum number of characters accepted in the username or password
+     * @param maxBodyLength  the maximum number of bytes read from the request body
+     */
+    public StreamingCredentialsParser(int maxFieldLength, int maxBodyLength) {
+        Assert.isTrue(maxFieldLength > 0, "maxFieldLength must be positive");
+        Assert.isTrue(maxBodyLength > 0, "maxBodyLength must be positive");
+        this.maxFieldLength = maxFieldLength;
+        this.maxBodyLength = maxBodyLength;
+        this.tokenizers = ThreadLocal.withInitial(Tokenizer::new);
+    }
+
+    public int getMaxFieldLength() {
+        return maxFieldLength;
+    }
+
+    public int getMaxBodyLength() {
+        return maxBodyLength;
+    }
+
+    /**
+     * @param req the request to check
+     * @return true if the request's content type is JSON with either no charset or UTF-8
+     */
+    public boolean supports(HttpServletRequest req) {
+        return supportsContentType(req.getContentType());
+    }
+
+    static boolean supportsContentType(String contentType) {
+        if (contentType == null || !contentType.regionMatches(true, 0, JSON_TYPE, 0, JSON_TYPE.length())) {
+            return false;
+        }
+        if (contentType.length() == JSON_TYPE.length()) {
+            return true;
+        }
+        if (contentType.charAt(JSON_TYPE.length()) != ';') {
+            // such as application/jsonx
+            return false;
+        }
+
+        final String lower = contentType.toLowerCase(Locale.ROOT);
+        final int charsetPos = lower.indexOf("charset=");
+        return charsetPos < 0 || lower.startsWith("utf-8", charsetPos + 8)
+                || lower.startsWith("\"utf-8\"", charsetPos + 8);
+    }
+
+    /**
+     * @param req the request with a body to parse
+     * @return the parsed credentials or null if the body was empty
+     * @throws IOException             in case of I/O errors while reading the request body
+     * @throws BadCredentialsException if the body is not a well-formed credentials object
+     */
+    public Credentials parse(HttpServletRequest req) throws IOException {
+        return parse(req.getInputStream());
+    }
+
+    /**
+     * @param in the stream to parse, which is read to its end
+     * @return the parsed credentials or null if the stream was empty
+     * @throws IOException             in case of I/O errors while reading the stream
+     * @throws BadCredentialsException if the stream does not contain a well-formed credentials object
+     */
+    public Credentials parse(InputStream in) throws IOException {
+        final Tokenizer tokenizer = tokenizers.get();
+        tokenizer.reset(in);
+        try {
+            return tokenizer.parseObject();
+        } finally {
+            tokenizer.clear();
+        }
+    }
+
+    private static BadCredentialsException reject(String msg) {
+        return new BadCredentialsException(msg);
+    }
+
+    /**
+     * Holds the reusable buffers of one thread along with the parsing position within them.
+     */
+    private class Tokenizer {
+        private final byte[] bytes = new byte[READ_BUFFER_SIZE];
+        private final char[] key = new char[USERNAME.length];
+        private final char[] username = new char[maxFieldLength];
+        private final char[] password = new char[maxFieldLength];
+        private InputStream in;
+        private int pos;
+        private int limit;
+        private int total;
+
+        void reset(InputStream in) {
+            this.in = in;
+            pos = 0;
+            limit = 0;
+            total = 0;
+        }
+
+        void clear() {
+            in = null;
+            Arrays.fill(bytes, (byte) 0);
+            Arrays.fill(password, '\0');
+            Arrays.fill(username, '\0');
+        }
+
+        Credentials parseObject() throws IOException {
+            int c = nextNonWhitespace();
+            if (c < 0) {
+                return null;
+            }
+            if (c != '{') {
+                throw reject(NOT_AN_OBJECT);
+            }
+
+            int usernameLength = -1;
+            int passwordLength = -1;
+
+            c = nextNonWhitespace();
+            if (c != '}') {
+                while (true) {
+                    if (c != '"') {
+                        throw reject(EXPECTED_FIELD_NAME);
+                    }
+                    final int keyLength = readString(key, UNKNOWN_FIELD);
+                    final boolean isUsername = matches(USERNAME, keyLength);
+                    if (!isUsername && !matches(PASSWORD, keyLength)) {
+                        throw reject(UNKNOWN_FIELD);
+                    }
+                    if ((isUsername ? usernameLength : passwordLength) >= 0) {
+                        throw reject(DUPLICATE_FIELD);
+                    }
+                    if (nextNonWhitespace() != ':') {
+                        throw reject(EXPECTED_COLON);
+                    }
+
+                    final int valueLength = readValue(isUsername ? username : password);
+                    if (isUsername) {
+                        usernameLength = valueLength;
+                    } else {
+                        passwordLength = valueLength;
+                    }
+
+                    c = nextNonWhitespace();
+                    if (c == '}') {
+                        break;
+                    } else if (c != ',') {
+                        throw reject(EXPECTED_COMMA_OR_END);
+                    }
+                    c = nextNonWhitespace();
+                }
+            }
+
+            if (nextNonWhitespace() >= 0) {
+                throw reject(TRAILING_CONTENT);
+            }
+
+            final Credentials credentials = new Credentials();
+            // a null value parses the same as an absent field
+            if (usernameLength >= 0) {
+                credentials.setUsername(new String(username, 0, usernameLength));
+            }
+            if (passwordLength >= 0) {
+                credentials.setPassword(new String(password, 0, passwordLength));
+            }
+            return credentials;
+        }
+
+        private boolean matches(char[] expected, int length) {
+            if (length != expected.length) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (key[i] != expected[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * @return the length of the string value read into dest or -1 for a JSON null
+         */
+        private int readValue(char[] dest) throws IOException {
+            final int c = nextNonWhitespace();
+            if (c == '"') {
+                return readString(dest, FIELD_TOO_LONG);
+            } else if (c == 'n' && next() == 'u' && next() == 'l' && next() == 'l') {
+                return -1;
+            } else {
+                throw reject(NON_STRING_VALUE);
+            }
+        }
+
+        /**
+         * Reads the remainder of a string whose opening quote was already consumed.
+         *
+         * @return the number of chars placed in dest
+         */
+        private int readString(char[] dest, String tooLongMessage) throws IOException {
+            int length = 0;
+            while (true) {
+                int c = next();
+                if (c < 0) {
+                    throw reject(UNTERMINATED_STRING);
+                }
+                if (c == '"') {
+                    return length;
+                }
+
+                final int codePoint;
+                if (c == '\\') {
+                    codePoint = readEscape();
+                } else if (c < 0x20) {
+                    throw reject(CONTROL_CHARACTER);
+                } else if (c < 0x80) {
+                    codePoint = c;
+                } else {
+                    codePoint = readMultiByte(c);
+                }
+
+                if (codePoint >= Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+                    if (length + 2 > dest.length) {
+                        throw reject(tooLongMessage);
+                    }
+                    dest[length++] = Character.highSurrogate(codePoint);
+                    dest[length++] = Character.lowSurrogate(codePoint);
+                } else {
+                    if (length >= dest.length) {
+                        throw reject(tooLongMessage);
+                    }
+                    dest[length++] = (char) codePoint;
+                }
+            }
+        }
+
+        /**
+         * Decodes the rest of a multi-byte UTF-8 sequence, rejecting overlong encodings, surrogates and code points
+         * beyond U+10FFFF.
+         */
+        private int readMultiByte(int c) throws IOException {
+            final int codePoint;
+            final int minimum;
+            if ((c & 0xE0) == 0xC0) {
+                codePoint = ((c & 0x1F) << 6) | continuation();
+                minimum = 0x80;
+            } else if ((c & 0xF0) == 0xE0) {
+                codePoint = ((c & 0x0F) << 12) | (continuation() << 6) | continuation();
+                minimum = 0x800;
+            } else if ((c & 0xF8) == 0xF0) {
+                codePoint = ((c & 0x07) << 18) | (continuation() << 12) | (continuation() << 6) | continuation();
+                minimum = Character.MIN_SUPPLEMENTARY_CODE_POINT;
+            } else {
+                throw reject(MALFORMED_UTF8);
+            }
+            if (codePoint < minimum || !Character.isValidCodePoint(codePoint)
+                    || (codePoint >= Character.MIN_SURROGATE && codePoint <= Character.MAX_SURROGATE)) {
+                throw reject(MALFORMED_UTF8);
+            }
+            return codePoint;
+        }
+
+        private int readEscape() throws IOException {
+            final int c = next();
+            switch (c) {
+                case '"':
+                case '\\':
+                case '/':
+                    return c;
+                case 'b':
+                    return '\b';
+                case 'f':
+                    return '\f';
+                case 'n':
+                    return '\n';
+                case 'r':
+                    return '\r';
+                case 't':
+                    return '\t';
+                case 'u':
+                    int value = 0;
+                    for (int i = 0; i < 4; i++) {
+                        final int digit = Character.digit(next(), 16);
+                        if (digit < 0) {
+                            throw reject(MALFORMED_UNICODE_ESCAPE);
+                        }
+                        value = (value << 4) | digit;
+                    }
+                    // surrogate pairs are passed through as their individual chars
+                    return value;
+                default:
+                    throw reject(MALFORMED_ESCAPE);
+            }
+        }
+
+        private int continuation() throws IOException {
+            final int c = next();
+            if ((c & 0xC0) != 0x80) {
+                throw reject(MALFORMED_UTF8);
+            }
+            return c & 0x3F;
+        }
+
+        private int nextNonWhitespace() throws IOException {
+            while (true) {
+                final int c = next();
+                if (c != ' ' && c != '\t' && c != '\n' && c != '\r') {
+                    return c;
+                }
+            }
+        }
+
+        /**
+         * @return the next byte as an unsigned value or -1 at the end of the stream
+         */
+        private int next() throws IOException {
+            if (pos >= limit) {
+                final int read = in.read(bytes, 0, bytes.length);
+                if (read <= 0) {
+                    return -1;
+                }
+                total += read;
+                if (total > maxBodyLength) {
+                    throw reject(RequestBodyLimits.Reason.TOO_LARGE.getMessage());
+                }
+                pos = 0;
+                limit = read;
+            }
+            return bytes[pos++] & 0xFF;
+        }
+    }
+}
@@ -0,0 +1,235 @@
+/*
+ * Copyright 2018 Geoff Bourne
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package me.itzg.spring.security.spa;
+
+import org.springframework.util.Assert;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * An in-memory, probabilistic index of existing usernames implemented as a scalable Bloom filter. A negative
+ * answer from {@link #mightContain(String)} is definite, so the user store doesn't need to be queried; a
+ * positive answer needs to be confirmed by the user store.
+ * <p>
+ * The filter starts with one slice sized for the initial capacity. When a slice reaches its capacity a new
+ * slice is added with {@value #GROWTH_FACTOR} times the capacity and a tighter false positive rate, which
+ * keeps the compounded false positive rate near the requested one no matter how many usernames are added.
+ * Usernames are indexed case-insensitively, which can only add positives for stores that are case-sensitive.
+ * </p>
+ * <p>
+ * The index must see every username that is created, so it should be {@link #addAll(Iterable) loaded} with
+ * the existing users at startup and user creation should go through an {@link IndexedUserDetailsManager}.
+ * Users created on other nodes, or directly in the store, are missing from this node's index, so logins must only
+ * be rejected by it when this node is the single writer of the user store.
+ * </p>
+ *
+ * @author Geoff Bourne
+ * @since Oct 2026
+ */
+@SuppressWarnings("WeakerAccess")
+public class UsernameIndex {
+    public static final int DEFAULT_INITIAL_CAPACITY = 10_000;
+    public static final double DEFAULT_FALSE_POSITIVE_RATE = 0.01;
+
+    static final int GROWTH_FACTOR = 2;
+    private static final double TIGHTENING_RATIO = 0.5;
+
+    private final double falsePositiveRate;
+    private final List<Slice> slices = new CopyOnWriteArrayList<>();
+    private volatile Slice current;
+
+    public UsernameIndex() {
+        this(DEFAULT_INITIAL_CAPACITY, DEFAULT_FALSE_POSITIVE_RATE);
+    }
+
+    /**
+     * @param initialCapacity   the number of usernames the first slice is sized for
+     * @param falsePositiveRate the desired probability that an absent username is reported as possibly present
+     */
+    public UsernameIndex(int initialCapacity, double falsePositiveRate) {
+        Assert.isTrue(initialCapacity > 0, "initialCapacity must be positive");
+        Assert.isTrue(falsePositiveRate > 0 && falsePositiveRate < 1, "falsePositiveRate must be between 0 and 1");
+        this.falsePositiveRate = falsePositiveRate;
+        // the first slice gets a share of the overall rate since the series of tightened slices converges to it
+        current = new Slice(initialCapacity, falsePositiveRate * (1 - TIGHTENING_RATIO));
+        slices.add(current);
+    }
+
+    /**
+     * @param username the username to add
+     */
+    public void add(String username) {
+        final long h1 = hash(username);
+        final long h2 = mix(h1);
+        if (contains(h1, h2)) {
+            return;
+        }
+
+        Slice slice = current;
+        if (slice.count.get() >= slice.capacity) {
+            slice = grow(slice);
+        }
+        slice.add(h1, h2);
+    }
+
+    /**
+     * @param usernames the usernames to add, such as all of the existing users in the store
+     * @return this object for call chaining
+     */
+    public UsernameIndex addAll(Iterable<String> usernames) {
+        for (String username : usernames) {
+            add(username);
+        }
+        return this;
+    }
+
+    /**
+     * @param username the username to check
+     * @return false if the username definitely has not been added, true if it might have been added
+     */
+    public boolean mightContain(String username) {
+        final long h1 = hash(username);
+        return contains(h1, mix(h1));
+    }
+
+    /**
+     * @return the approximate number of usernames added
+     */
+    public long getApproximateCount() {
+        long total = 0;
+        for (Slice slice : slices) {
+            total += slice.count.get();
+        }
+        return total;
+    }
+
+    /**
+     * @return the number of slices, which grows as usernames are added
+     */
+    public int getSliceCount() {
+        return slices.size();
+    }
+
+    /**
+     * @return the total size of the bit sets in bytes
+     */
+    public long getSizeInBytes() {
+        long total = 0;
+        for (Slice slice : slices) {
+            total += slice.bits.length() * (long) Long.BYTES;
+        }
+        return total;
+    }
+
+    public double getFalsePositiveRate() {
+        return falsePositiveRate;
+    }
+
+    private boolean contains(long h1, long h2) {
+        for (Slice slice : slices) {
+            if (slice.contains(h1, h2)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private synchronized Slice grow(Slice full) {
+        if (current != full) {
+            // another thread already grew it
+            return current;
+        }
+        final Slice next = new Slice(full.capacity * GROWTH_FACTOR, full.falsePositiveRate * TIGHTENING_RATIO);
+        slices.add(next);
+        current = next;
+        return next;
+    }
+
+    /**
+     * 64-bit FNV-1a over the lower-cased chars of the username.
+     */
+    static long hash(String username) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < username.length(); i++) {
+            final char c = Character.toLowerCase(username.charAt(i));
+            h ^= c & 0xFF;
+            h *= 0x100000001b3L;
+            h ^= c >>> 8;
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    /**
+     * The finalization mix of MurmurHash3, used to derive the second hash for double hashing.
+     */
+    static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h | 1;
+    }
+
+    private static class Slice {
+        final int capacity;
+        final double falsePositiveRate;
+        final long bitCount;
+        final int hashCount;
+        final AtomicLongArray bits;
+        final AtomicInteger count = new AtomicInteger();
+
+        Slice(int capacity, double falsePositiveRate) {
+            this.capacity = capacity;
+            this.falsePositiveRate = falsePositiveRate;
+            final double ln2 = Math.log(2);
+            final long words = Math.max(1,
+                    (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (ln2 * ln2) / Long.SIZE));
+            Assert.isTrue(words <= Integer.MAX_VALUE, "UsernameIndex slice is too large");
+            this.bitCount = words * Long.SIZE;
+            this.hashCount = Math.max(1, (int) Math.round((double) bitCount / capacity * ln2));
+            this.bits = new AtomicLongArray((int) words);
+        }
+
+        void add(long h1, long h2) {
+            for (int i = 0; i < hashCount; i++) {
+                final long bit = Long.remainderUnsigned(h1 + i * h2, bitCount);
+                final int word = (int) (bit >>> 6);
+                final long mask = 1L << bit;
+                long prev;
+                do {
+                    prev = bits.get(word);
+                } while ((prev & mask) == 0 && !bits.compareAndSet(word, prev, prev | mask));
+            }
+            count.incrementAndGet();
+        }
+
+        boolean contains(long h1, long h2) {
+            for (int i = 0; i < hashCount; i++) {
+                final long bit = Long.remainderUnsigned(h1 + i * h2, bitCount);
+                if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,483 @@
+/*
+ * Copyright 2018 Geoff Bourne
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package me.itzg.spring.security.spa;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.CredentialsContainer;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.provisioning.UserDetailsManager;
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Decorates a {@link UserDetailsManager}, such as a JDBC one, so that {@link #createUser(UserDetails)} queues the
+ * user and a background thread creates queued users in batches. A batch is flushed when it reaches the
+ * {@link #setMaxBatchSize(int) maximum size} or the {@link #setMaxDelay(long) maximum delay} after its first user,
+ * whichever comes first. When the delegate is a {@link BatchUserDetailsManager}, each batch is one call, such as one
+ * batched insert and commit, rather than one per registration.
+ * <p>
+ * Queued users are visible to {@link #userExists(String)} and {@link #loadUserByUsername(String)}, so a registration
+ * can't be repeated and the new user can log in before the batch is flushed. Changes to a queued user wait for it to
+ * be created first. As with {@link CachingUserDetailsManager}, queued {@link User}s are copied when loaded, since
+ * authentication erases their credentials, and principals that can't be erased are returned as given. Erasable
+ * principals of other classes can't be copied without losing their own fields, so loading one waits for it to be
+ * created and loads it from the delegate.
+ * </p>
+ * <p>
+ * {@link #createUsers(List)} queues all of the given users at once, such as a batch from
+ * {@link BulkRegistrationFilter}, rather than each waiting out its own batch. With {@link Durability#COMMITTED}, if
+ * any of them fails, those that were created are deleted again.
+ * </p>
+ * When the queue is full, users are created directly on the calling thread, so a burst slows down rather than fails.
+ *
+ * @author Geoff Bourne
+ * @since Oct 2026
+ */
+@SuppressWarnings("WeakerAccess")
+public class WriteBehindUserDetailsManager implements BatchUserDetailsManager, DisposableBean {
+    public static final int DEFAULT_MAX_BATCH_SIZE = 100;
+    public static final long DEFAULT_MAX_DELAY = 10;
+
+    private static final Log log = LogFactory.getLog(WriteBehindUserDetailsManager.class);
+
+    /**
+     * When {@link #createUser(UserDetails)} returns.
+     */
+    public enum Durability {
+        /**
+         * After the user is queued, so a registration isn't delayed by the batch, but a failure to create the user
+         * is only logged and a shutdown without {@link #destroy()} loses the queued users.
+         */
+        ENQUEUED,
+        /**
+         * After the user's batch is created by the delegate, so failures are thrown to the caller as before.
+         */
+        COMMITTED
+    }
+
+    private final UserDetailsManager delegate;
+    private final BlockingQueue<PendingUser> queue;
+    private final ConcurrentMap<String, PendingUser> pending = new ConcurrentHashMap<>();
+    private final ExecutorService flusher;
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder created = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder overflowed = new LongAdder();
+    private volatile int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+    private volatile long maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_MAX_DELAY);
+    private volatile Durability durability = Durability.COMMITTED;
+    /**
+     * Shared by creators while they check {@link #closed} and enqueue, and taken exclusively to close, so that
+     * nothing is enqueued after the flusher may have seen the queue closed and empty.
+     */
+    private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
+    private volatile boolean closed;
+
+    /**
+     * @param delegate      the user store to create users in, ideally a {@link BatchUserDetailsManager}
+     * @param queueCapacity the number of users that may be queued
+     */
+    public WriteBehindUserDetailsManager(UserDetailsManager delegate, int queueCapacity) {
+        Assert.notNull(delegate, "delegate is required");
+        Assert.isTrue(queueCapacity > 0, "queueCapacity must be positive");
+        this.delegate = delegate;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        final CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("spa-write-behind-");
+        threadFactory.setDaemon(true);
+        this.flusher = Executors.newSingleThreadExecutor(threadFactory);
+        flusher.execute(this::flushLoop);
+    }
+
+    /**
+     * Sets the most users created in one batch. Default is {@value #DEFAULT_MAX_BATCH_SIZE}.
+     *
+     * @param maxBatchSize the maximum batch size
+     * @return this object for call chaining
+     */
+    public WriteBehindUserDetailsManager setMaxBatchSize(int maxBatchSize) {
+        Assert.isTrue(maxBatchSize > 0, "maxBatchSize must be positive");
+        this.maxBatchSize = maxBatchSize;
+        return this;
+    }
+
+    /**
+     * Sets how long, in milliseconds, a batch waits for more users after its first one.
+     * Default is {@value #DEFAULT_MAX_DELAY}.
+     *
+     * @param maxDelay the delay in milliseconds, where zero flushes whatever is queued immediately
+     * @return this object for call chaining
+     */
+    public WriteBehindUserDetailsManager setMaxDelay(long maxDelay) {
+        Assert.isTrue(maxDelay >= 0, "maxDelay must not be negative");
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelay);
+        return this;
+    }
+
+    /**
+     * Sets when {@link #createUser(UserDetails)} returns. Default is {@link Durability#COMMITTED}.
+     *
+     * @param durability the durability
+     * @return this object for call chaining
+     */
+    public WriteBehindUserDetailsManager setDurability(Durability durability) {
+        Assert.notNull(durability, "durability is required");
+        this.durability = durability;
+        return this;
+    }
+
+    public UserDetailsManager getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * @return the number of batches flushed to the delegate
+     */
+    public long getBatches() {
+        return batches.sum();
+    }
+
+    /**
+     * @return the number of users created by the delegate
+     */
+    public long getCreated() {
+        return created.sum();
+    }
+
+    /**
+     * @return the number of users that the delegate failed to create
+     */
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    /**
+     * @return the number of users created on the calling thread since the queue was full
+     */
+    public long getOverflowed() {
+        return overflowed.sum();
+    }
+
+    /**
+     * @return the number of users waiting to be created
+     */
+    public int getQueued() {
+        return pending.size();
+    }
+
+    @Override
+    public void createUser(UserDetails user) {
+        Assert.notNull(user, "user is required");
+        final PendingUser pendingUser = new PendingUser(user);
+        final boolean queued;
+        closeLock.readLock().lock();
+        try {
+            Assert.state(!closed, "This manager has been destroyed");
+            Assert.isTrue(pending.putIfAbsent(user.getUsername(), pendingUser) == null, "user should not exist");
+            queued = queue.offer(pendingUser);
+        } finally {
+            closeLock.readLock().unlock();
+        }
+
+        if (!queued) {
+            createDirectly(pendingUser);
+            return;
+        }
+
+        if (durability == Durability.COMMITTED) {
+            await(pendingUser);
+        }
+    }
+
+    @Override
+    public void createUsers(List<UserDetails> users) {
+        Assert.notNull(users, "users is required");
+        final List<PendingUser> batch = new ArrayList<>(users.size());
+        final List<PendingUser> overflow = new ArrayList<>();
+        closeLock.readLock().lock();
+        try {
+            Assert.state(!closed, "This manager has been destroyed");
+            for (UserDetails user : users) {
+                Assert.notNull(user, "user is required");
+                final PendingUser pendingUser = new PendingUser(user);
+                if (pending.putIfAbsent(user.getUsername(), pendingUser) != null) {
+                    batch.forEach(added -> pending.remove(added.user.getUsername(), added));
+                    throw new IllegalArgumentException("user should not exist");
+                }
+                batch.add(pendingUser);
+            }
+            for (PendingUser pendingUser : batch) {
+                if (!queue.offer(pendingUser)) {
+                    overflow.add(pendingUser);
+                }
+            }
+        } finally {
+            closeLock.readLock().unlock();
+        }
+
+        RuntimeException failure = null;
+        for (PendingUser pendingUser : overflow) {
+            try {
+                createDirectly(pendingUser);
+            } catch (RuntimeException e) {
+                failure = failure != null ? failure : e;
+            }
+        }
+        if (durability == Durability.ENQUEUED) {
+            if (failure != null) {
+                throw failure;
+            }
+            return;
+        }
+
+        for (PendingUser pendingUser : batch) {
+            try {
+                await(pendingUser);
+            } catch (RuntimeException e) {
+                failure = failure != null ? failure : e;
+            }
+        }
+        if (failure != null) {
+            for (PendingUser pendingUser : batch) {
+                if (!pendingUser.committed.isCompletedExceptionally()) {
+                    delegate.deleteUser(pendingUser.user.getUsername());
+                }
+            }
+            throw failure;
+        }
+    }
+
+    @Override
+    public boolean userExists(String username) {
+        return pending.containsKey(username) || delegate.userExists(username);
+    }
+
+    @Override
+    public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        final PendingUser pendingUser = pending.get(username);
+        if (pendingUser != null) {
+            final UserDetails user = pendingUser.user;
+            if (!(user instanceof CredentialsContainer)) {
+                return user;
+            } else if (user.getClass() == User.class) {
+                // a copy, since authentication erases the credentials of the returned user
+                return User.withUserDetails(user).build();
+            }
+            try {
+                await(pendingUser);
+            } catch (RuntimeException e) {
+                // wasn't created, so the delegate reports it missing
+            }
+        }
+        return delegate.loadUserByUsername(username);
+    }
+
+    @Override
+    public void updateUser(UserDetails user) {
+        awaitPending(user.getUsername());
+        delegate.updateUser(user);
+    }
+
+    @Override
+    public void deleteUser(String username) {
+        awaitPending(username);
+        delegate.deleteUser(username);
+    }
+
+    @Override
+    public void changePassword(String oldPassword, String newPassword) {
+        final Authentication currentUser = SecurityContextHolder.getContext().getAuthentication();
+        if (currentUser != null) {
+            awaitPending(currentUser.getName());
+        }
+        delegate.changePassword(oldPassword, newPassword);
+    }
+
+    /**
+     * Waits for all users queued so far to be created.
+     */
+    public void flush() {
+        for (PendingUser pendingUser : new ArrayList<>(pending.values())) {
+            try {
+                await(pendingUser);
+            } catch (RuntimeException e) {
+                // already reported to the creator or logged
+            }
+        }
+    }
+
+    /**
+     * Stops accepting users and waits for those already queued to be created.
+     */
+    @Override
+    public void destroy() throws InterruptedException {
+        closeLock.writeLock().lock();
+        try {
+            closed = true;
+        } finally {
+            closeLock.writeLock().unlock();
+        }
+        flusher.shutdown();
+        if (!flusher.awaitTermination(1, TimeUnit.MINUTES)) {
+            log.warn("Gave up waiting for " + pending.size() + " queued users to be created");
+        }
+    }
+
+    /**
+     * Creates a user that didn't fit in the queue on the calling thread, so a burst slows down rather than fails.
+     */
+    private void createDirectly(PendingUser pendingUser) {
+        overflowed.increment();
+        try {
+            delegate.createUser(pendingUser.user);
+        } catch (RuntimeException e) {
+            failed(pendingUser, e);
+            throw e;
+        }
+        succeeded(pendingUser);
+    }
+
+    private void awaitPending(String username) {
+        final PendingUser pendingUser = pending.get(username);
+        if (pendingUser != null) {
+            await(pendingUser);
+        }
+    }
+
+    private static void await(PendingUser pendingUser) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    pendingUser.committed.get();
+                    return;
+                } catch (InterruptedException e) {
+                    // the user is already queued, so the outcome is still needed
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof RuntimeException) {
+                        throw (RuntimeException) e.getCause();
+                    }
+                    throw new IllegalStateException("Failed to create user", e.getCause());
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void flushLoop() {
+        final List<PendingUser> batch = new ArrayList<>();
+        while (!closed || !queue.isEmpty()) {
+            try {
+                final PendingUser first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                final long deadline = System.nanoTime() + maxDelayNanos;
+                while (batch.size() < maxBatchSize) {
+                    final long remaining = deadline - System.nanoTime();
+                    final PendingUser next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // destroy waits for the queue to drain, so keep going
+            }
+
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<PendingUser> batch) {
+        batches.increment();
+        if (delegate instanceof BatchUserDetailsManager && batch.size() > 1) {
+            final List<UserDetails> users = new ArrayList<>(batch.size());
+            batch.forEach(pendingUser -> users.add(pendingUser.user));
+            try {
+                ((BatchUserDetailsManager) delegate).createUsers(users);
+                batch.forEach(this::succeeded);
+                return;
+            } catch (RuntimeException e) {
+                // none were created, so isolate the failure by creating them one at a time
+                log.debug("Falling back to individual creates after batch failed", e);
+            }
+        }
+
+        for (PendingUser pendingUser : batch) {
+            try {
+                delegate.createUser(pendingUser.user);
+                succeeded(pendingUser);
+            } catch (RuntimeException e) {
+                if (durability == Durability.ENQUEUED) {
+                    log.warn("Failed to create queued user " + pendingUser.user.getUsername(), e);
+                }
+                failed(pendingUser, e);
+            }
+        }
+    }
+
+    private void succeeded(PendingUser pendingUser) {
+        created.increment();
+        pending.remove(pendingUser.user.getUsername(), pendingUser);
+        pendingUser.committed.complete(null);
+    }
+
+    private void failed(PendingUser pendingUser, RuntimeException e) {
+        failed.increment();
+        pending.remove(pendingUser.user.getUsername(), pendingUser);
+        pendingUser.committed.completeExceptionally(e);
+    }
+
+    private static final class PendingUser {
+        final UserDetails user;
+        final CompletableFuture<Void> committed = new CompletableFuture<>();
+
+        PendingUser(UserDetails user) {
+            this.user = user;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2018 Geoff Bourne
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package me.itzg.spring.security.spa.autoconfigure;
+
+import me.itzg.spring.security.spa.AuthenticationJsonWriter;
+import me.itzg.spring.security.spa.RequestBodyLimits;
+import me.itzg.spring.security.spa.SimpleLogoutSuccessHandler;
+import me.itzg.spring.security.spa.SinglePageAppConfigurer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.AutoConfigureBefore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.autoconfigure.security.servlet.SecurityAutoConfiguration;
+import org.springframework.boot.autoconfigure.security.servlet.UserDetailsServiceAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Scope;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.factory.PasswordEncoderFactories;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+import org.springframework.security.provisioning.UserDetailsManager;
+
+/**
+ * Auto-configures the login and registration endpoints of this library for servlet based Spring Boot applications.
+ * <ul>
+ *     <li>A {@link SinglePageAppConfigurer}, prepared from the {@link SinglePageAppProperties}, is declared for
+ *     applications with their own security configuration to apply, when they declare a
+ *     <code>UserDetailsManager</code> and <code>PasswordEncoder</code>.</li>
+ *     <li>Only with <code>spa.security.enabled=true</code>, a <code>PasswordEncoder</code> and an in-memory
+ *     <code>UserDetailsManager</code> are declared when the application doesn't declare its own and, when the
+ *     application has no <code>WebSecurityConfigurerAdapter</code>, a default one applies the configurer, requires
+ *     authentication of all other requests, and disables CSRF protection.</li>
+ * </ul>
+ * Since that replaces Spring Boot's default security, it is never applied just because this library is on the
+ * classpath.
+ *
+ * @author Geoff Bourne
+ * @since Oct 2026
+ */
+@Configuration
+@ConditionalOnClass({WebSecurityConfigurerAdapter.class, HttpMessageConverters.class})
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@AutoConfigureBefore({SecurityAutoConfiguration.class, UserDetailsServiceAutoConfiguration.class})
+@EnableConfigurationProperties(SinglePageAppProperties.class)
+public class SinglePageAppAutoConfiguration {
+
+    @Configuration
+    @ConditionalOnProperty(prefix = "spa.security", name = "enabled")
+    public static class UserStoreConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        public PasswordEncoder passwordEncoder() {
+            return PasswordEncoderFactories.createDelegatingPasswordEncoder();
+        }
+
+        @Bean
+        @ConditionalOnMissingBean(UserDetailsService.class)
+        public InMemoryUserDetailsManager userDetailsManager() {
+            return new InMemoryUserDetailsManager();
+        }
+    }
+
+    /**
+     * Each {@link HttpSecurity} needs its own configurer instance, so this bean is a prototype.
+     */
+    @Bean
+    @Scope("prototype")
+    @ConditionalOnMissingBean
+    @ConditionalOnBean({UserDetailsManager.class, PasswordEncoder.class})
+    public SinglePageAppConfigurer<HttpSecurity> singlePageAppConfigurer(SinglePageAppProperties properties,
+                                                                         PasswordEncoder passwordEncoder,
+                                                                         UserDetailsManager userDetailsManager,
+                                                                         ObjectProvider<HttpMessageConverters> httpMessageConverters) {
+        final SinglePageAppConfigurer<HttpSecurity> configurer = new SinglePageAppConfigurer<HttpSecurity>()
+                .registerUrl(properties.getRegisterUrl())
+                .loginUrl(properties.getLoginUrl())
+                .initialRoles(properties.getInitialRoles().toArray(new String[0]))
+                .loginStatus(properties.getStatus().getLogin())
+                .registrationStatus(properties.getStatus().getRegistration())
+                .failureStatus(properties.getStatus().getFailure())
+                .passwordEncoder(passwordEncoder)
+                .userDetailsManager(userDetailsManager)
+                .httpMessageConverters(httpMessageConverters.getIfAvailable());
+        if (properties.getBulkRegisterUrl() != null) {
+            configurer.bulkRegisterUrl(properties.getBulkRegisterUrl());
+        }
+        if (properties.getMaxBodyLength() != null) {
+            configurer.requestBodyLimits(new RequestBodyLimits().setMaxBodyLength(properties.getMaxBodyLength()));
+        }
+        if (properties.isDispatchFilter()) {
+            configurer.dispatchFilter();
+        }
+        if (properties.isJsonSuccessBody()) {
+            configurer.jsonSuccessBody(new AuthenticationJsonWriter());
+        }
+        return configurer;
+    }
+
+    @Configuration
+    @ConditionalOnMissingBean(WebSecurityConfigurerAdapter.class)
+    @ConditionalOnProperty(prefix = "spa.security", name = "enabled")
+    @Order(SecurityProperties.BASIC_AUTH_ORDER)
+    public static class DefaultSinglePageAppSecurityConfiguration extends WebSecurityConfigurerAdapter {
+
+        private final ObjectProvider<SinglePageAppConfigurer<HttpSecurity>> configurer;
+        private final UserDetailsService userDetailsService;
+        private final PasswordEncoder passwordEncoder;
+
+        public DefaultSinglePageAppSecurityConfiguration(
+                ObjectProvider<SinglePageAppConfigurer<HttpSecurity>> configurer,
+                UserDetailsService userDetailsService, PasswordEncoder passwordEncoder) {
+            this.configurer = configurer;
+            this.userDetailsService = userDetailsService;
+            this.passwordEncoder = passwordEncoder;
+        }
+
+        @Override
+        protected void configure(HttpSecurity http) throws Exception {
+            http
+                    .authorizeRequests().anyRequest().authenticated()
+                    .and().logout().logoutSuccessHandler(new SimpleLogoutSuccessHandler())
+                    // CSRF is less helpful (and a little annoying) with single page apps
+                    .and().csrf().disable();
+
+            // absent when the user store can't create users, in which case there is nothing to register with
+            final SinglePageAppConfigurer<HttpSecurity> singlePageAppConfigurer = configurer.getIfAvailable();
+            if (singlePageAppConfigurer != null) {
+                http.apply(singlePageAppConfigurer);
+            }
+        }
+
+        @Override
+        protected void configure(AuthenticationManagerBuilder auth) throws Exception {
+            auth.userDetailsService(userDetailsService).passwordEncoder(passwordEncoder);
+        }
+    }
+}
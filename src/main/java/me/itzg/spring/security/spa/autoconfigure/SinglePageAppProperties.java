@@ -0,0 +1,191 @@
+/*
+ * Copyright 2018 Geoff Bourne
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package me.itzg.spring.security.spa.autoconfigure;
+
+import me.itzg.spring.security.spa.RegistrationFilter;
+import me.itzg.spring.security.spa.RequestBodyLoginFilter;
+import me.itzg.spring.security.spa.SimpleAuthenticationFailureHandler;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import javax.servlet.http.HttpServletResponse;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Properties of the {@link SinglePageAppAutoConfiguration}, which are bound from <code>spa.security.*</code>.
+ *
+ * @author Geoff Bourne
+ * @since Oct 2026
+ */
+@SuppressWarnings("WeakerAccess")
+@ConfigurationProperties(prefix = "spa.security")
+public class SinglePageAppProperties {
+
+    /**
+     * Whether to install the default security configuration, which authenticates all other requests and disables
+     * CSRF protection, along with an in-memory user store
+     */
+    private boolean enabled;
+
+    /**
+     * The path where registrations are processed
+     */
+    private String registerUrl = RegistrationFilter.DEFAULT_PROCESSES_URL;
+
+    /**
+     * The path where logins are processed
+     */
+    private String loginUrl = RequestBodyLoginFilter.DEFAULT_PROCESSES_URL;
+
+    /**
+     * The path where bulk registrations are processed, which is disabled when not set
+     */
+    private String bulkRegisterUrl;
+
+    /**
+     * The roles, without the ROLE_ prefix, granted to newly registered users
+     */
+    private List<String> initialRoles = new ArrayList<>(Collections.singletonList("USER"));
+
+    /**
+     * Whether a single filter should own the login and registration endpoints
+     */
+    private boolean dispatchFilter;
+
+    /**
+     * Whether successful logins and registrations respond with the user's name and authorities as JSON
+     */
+    private boolean jsonSuccessBody;
+
+    /**
+     * The maximum length, in bytes, of login and registration request bodies, which also requires a JSON content
+     * type. Bodies aren't limited when not set.
+     */
+    private Integer maxBodyLength;
+
+    private final Status status = new Status();
+
+    public static class Status {
+        /**
+         * The status code of successful logins
+         */
+        private int login = HttpServletResponse.SC_OK;
+
+        /**
+         * The status code of successful registrations
+         */
+        private int registration = RegistrationFilter.STATUS_CODE;
+
+        /**
+         * The status code of failed logins and registrations
+         */
+        private int failure = SimpleAuthenticationFailureHandler.DEFAULT_STATUS_CODE;
+
+        public int getLogin() {
+            return login;
+        }
+
+        public void setLogin(int login) {
+            this.login = login;
+        }
+
+        public int getRegistration() {
+            return registration;
+        }
+
+        public void setRegistration(int registration) {
+            this.registration = registration;
+        }
+
+        public int getFailure() {
+            return failure;
+        }
+
+        public void setFailure(int failure) {
+            this.failure = failure;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getRegisterUrl() {
+        return registerUrl;
+    }
+
+    public void setRegisterUrl(String registerUrl) {
+        this.registerUrl = registerUrl;
+    }
+
+    public String getLoginUrl() {
+        return loginUrl;
+    }
+
+    public void setLoginUrl(String loginUrl) {
+        this.loginUrl = loginUrl;
+    }
+
+    public String getBulkRegisterUrl() {
+        return bulkRegisterUrl;
+    }
+
+    public void setBulkRegisterUrl(String bulkRegisterUrl) {
+        this.bulkRegisterUrl = bulkRegisterUrl;
+    }
+
+    public List<String> getInitialRoles() {
+        return initialRoles;
+    }
+
+    public void setInitialRoles(List<String> initialRoles) {
+        this.initialRoles = initialRoles;
+    }
+
+    public boolean isDispatchFilter() {
+        return dispatchFilter;
+    }
+
+    public void setDispatchFilter(boolean dispatchFilter) {
+        this.dispatchFilter = dispatchFilter;
+    }
+
+    public boolean isJsonSuccessBody() {
+        return jsonSuccessBody;
+    }
+
+    public void setJsonSuccessBody(boolean jsonSuccessBody) {
+        this.jsonSuccessBody = jsonSuccessBody;
+    }
+
+    public Integer getMaxBodyLength() {
+        return maxBodyLength;
+    }
+
+    public void setMaxBodyLength(Integer maxBodyLength) {
+        this.maxBodyLength = maxBodyLength;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright 2018 Geoff Bourne
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package me.itzg.spring.security.spa.reactive;
+
+import me.itzg.spring.security.spa.Credentials;
+import me.itzg.spring.security.spa.CredentialsMessages;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.codec.HttpMessageReader;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.web.server.WebFilterExchange;
+import org.springframework.security.web.server.authentication.ServerAuthenticationFailureHandler;
+import org.springframework.security.web.server.authentication.ServerAuthenticationSuccessHandler;
+import org.springframework.security.web.server.context.ServerSecurityContextRepository;
+import org.springframework.security.web.server.context.WebSessionServerSecurityContextRepository;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatcher;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatchers;
+import org.springframework.util.Assert;
+import org.springframework.web.reactive.function.BodyExtractor;
+import org.springframework.web.reactive.function.BodyExtractors;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Common support for the web filters of this package that process {@link Credentials} conveyed in the request
+ * body. The body is decoded without blocking by the configured message readers and the actual processing,
+ * such as password hashing, is performed on a bounded {@link Scheduler} to keep it off of the event loop.
+ *
+ * @author Geoff Bourne
+ * @since Oct 2026
+ * @see me.itzg.spring.security.spa.AbstractCredentialsFilter
+ */
+@SuppressWarnings("WeakerAccess")
+public abstract class AbstractCredentialsWebFilter implements WebFilter {
+    public static final int DEFAULT_MAX_BODY_LENGTH = 4096;
+
+    private final ServerWebExchangeMatcher requiresAuthenticationMatcher;
+    private List<HttpMessageReader<?>> messageReaders = ServerCodecConfigurer.create().getReaders();
+    private int maxBodyLength = DEFAULT_MAX_BODY_LENGTH;
+    private Scheduler scheduler;
+    private ServerSecurityContextRepository securityContextRepository = new WebSessionServerSecurityContextRepository();
+    private ServerAuthenticationSuccessHandler authenticationSuccessHandler;
+    private ServerAuthenticationFailureHandler authenticationFailureHandler =
+            new SimpleServerAuthenticationFailureHandler();
+
+    /**
+     * @param filterProcessesUrl the path pattern where this filter processes POSTed credentials
+     * @param successHandler     the initial success handler
+     */
+    protected AbstractCredentialsWebFilter(String filterProcessesUrl, ServerAuthenticationSuccessHandler successHandler) {
+        this.requiresAuthenticationMatcher = ServerWebExchangeMatchers.pathMatchers(HttpMethod.POST, filterProcessesUrl);
+        this.authenticationSuccessHandler = successHandler;
+    }
+
+    /**
+     * Sets the readers used to decode the credentials from the request body.
+     * The default is the readers of <code>ServerCodecConfigurer.create()</code>.
+     *
+     * @param messageReaders the readers to use
+     */
+    public void setMessageReaders(List<HttpMessageReader<?>> messageReaders) {
+        Assert.notEmpty(messageReaders, "messageReaders is required");
+        this.messageReaders = messageReaders;
+    }
+
+    /**
+     * Sets the maximum number of bytes read from the request body, beyond which the request is rejected before
+     * decoding is finished. The default is {@value #DEFAULT_MAX_BODY_LENGTH}.
+     *
+     * @param maxBodyLength the maximum body length in bytes
+     */
+    public void setMaxBodyLength(int maxBodyLength) {
+        Assert.isTrue(maxBodyLength > 0, "maxBodyLength must be positive");
+        this.maxBodyLength = maxBodyLength;
+    }
+
+    /**
+     * Sets the scheduler where credentials are processed, which must tolerate blocking on password hashing and the
+     * user store. This is required and is normally the bounded scheduler owned by
+     * {@link ReactiveSinglePageAppConfigurer}.
+     *
+     * @param scheduler the scheduler to use
+     */
+    public void setScheduler(Scheduler scheduler) {
+        Assert.notNull(scheduler, "scheduler is required");
+        this.scheduler = scheduler;
+    }
+
+    public Scheduler getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * Sets where the security context of a successful authentication is saved, which should be the same as the
+     * one configured with <code>ServerHttpSecurity</code>. The default uses the web session.
+     *
+     * @param securityContextRepository the repository to use
+     */
+    public void setSecurityContextRepository(ServerSecurityContextRepository securityContextRepository) {
+        Assert.notNull(securityContextRepository, "securityContextRepository is required");
+        this.securityContextRepository = securityContextRepository;
+    }
+
+    public void setAuthenticationSuccessHandler(ServerAuthenticationSuccessHandler authenticationSuccessHandler) {
+        Assert.notNull(authenticationSuccessHandler, "authenticationSuccessHandler is required");
+        this.authenticationSuccessHandler = authenticationSuccessHandler;
+    }
+
+    public void setAuthenticationFailureHandler(ServerAuthenticationFailureHandler authenticationFailureHandler) {
+        Assert.notNull(authenticationFailureHandler, "authenticationFailureHandler is required");
+        this.authenticationFailureHandler = authenticationFailureHandler;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        Assert.state(scheduler != null, "scheduler is required");
+        return requiresAuthenticationMatcher.matches(exchange)
+                .flatMap(matchResult -> matchResult.isMatch() ?
+                        process(new WebFilterExchange(exchange, chain)) : chain.filter(exchange));
+    }
+
+    private Mono<Void> process(WebFilterExchange webFilterExchange) {
+        return readCredentials(webFilterExchange.getExchange())
+                .switchIfEmpty(Mono.defer(() -> Mono.error(invalidContentException())))
+                .flatMap(credentials -> attemptAuthentication(credentials).subscribeOn(scheduler))
+                .flatMap(authentication -> onAuthenticationSuccess(webFilterExchange, authentication))
+                .onErrorResume(AuthenticationException.class,
+                        e -> authenticationFailureHandler.onAuthenticationFailure(webFilterExchange, e));
+    }
+
+    /**
+     * Attempts authentication of the given credentials, which is subscribed on the configured scheduler.
+     *
+     * @param credentials the decoded credentials
+     * @return the successful authentication or an error containing an {@link AuthenticationException}
+     */
+    protected abstract Mono<Authentication> attemptAuthentication(Credentials credentials);
+
+    /**
+     * @return the exception reported when the request body can't be decoded into credentials
+     */
+    protected abstract AuthenticationException invalidContentException();
+
+    private Mono<Void> onAuthenticationSuccess(WebFilterExchange webFilterExchange, Authentication authentication) {
+        final SecurityContextImpl securityContext = new SecurityContextImpl();
+        securityContext.setAuthentication(authentication);
+        return securityContextRepository.save(webFilterExchange.getExchange(), securityContext)
+                .then(authenticationSuccessHandler.onAuthenticationSuccess(webFilterExchange, authentication))
+                .subscriberContext(ReactiveSecurityContextHolder.withSecurityContext(Mono.just(securityContext)));
+    }
+
+    private Mono<Credentials> readCredentials(ServerWebExchange exchange) {
+        final BodyExtractor<Mono<Credentials>, ? super ServerHttpRequest> extractor =
+                BodyExtractors.toMono(Credentials.class);
+        return extractor.extract(new LimitedRequest(exchange.getRequest(), maxBodyLength),
+                new BodyExtractor.Context() {
+                    @Override
+                    public List<HttpMessageReader<?>> messageReaders() {
+                        return messageReaders;
+                    }
+
+                    @Override
+                    public Optional<ServerHttpResponse> serverResponse() {
+                        return Optional.of(exchange.getResponse());
+                    }
+
+                    @Override
+                    public Map<String, Object> hints() {
+                        return Collections.emptyMap();
+                    }
+                })
+                // decoders don't consistently wrap parsing failures in DecodingException, so treat any failure
+                // other than the body length limit as invalid content
+                .onErrorResume(e -> !(e instanceof AuthenticationException), e -> Mono.empty());
+    }
+
+    /**
+     * Rejects a request body once it exceeds the maximum length, since the decoders would otherwise
+     * accumulate all of it.
+     */
+    private static class LimitedRequest extends ServerHttpRequestDecorator {
+        private final int maxBodyLength;
+
+        LimitedRequest(ServerHttpRequest delegate, int maxBodyLength) {
+            super(delegate);
+            this.maxBodyLength = maxBodyLength;
+        }
+
+        @Override
+        public Flux<DataBuffer> getBody() {
+            final AtomicLong total = new AtomicLong();
+            return super.getBody()
+                    .handle((dataBuffer, sink) -> {
+                        if (total.addAndGet(dataBuffer.readableByteCount()) > maxBodyLength) {
+                            DataBufferUtils.release(dataBuffer);
+                            sink.error(new BadCredentialsException(CredentialsMessages.BODY_TOO_LARGE));
+                        } else {
+                            sink.next(dataBuffer);
+                        }
+                    });
+        }
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2018 Geoff Bourne
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package me.itzg.spring.security.spa.reactive;
+
+import me.itzg.spring.security.spa.RegistrationValidator;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.http.codec.HttpMessageReader;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.provisioning.UserDetailsManager;
+import org.springframework.security.web.server.context.ServerSecurityContextRepository;
+import org.springframework.security.web.server.context.WebSessionServerSecurityContextRepository;
+import org.springframework.util.Assert;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+
+/**
+ * Installs the registration and request-body login web filters of this package into a
+ * {@link ServerHttpSecurity}, which is the WebFlux counterpart of
+ * {@link me.itzg.spring.security.spa.SinglePageAppConfigurer}.
+ *
+ * <h3>Example</h3>
+ *
+ * <pre>
+ &#64;Bean
+ public ReactiveSinglePageAppConfigurer singlePageAppConfigurer() {
+   return new ReactiveSinglePageAppConfigurer(userDetailsManager(), passwordEncoder())
+       .registerUrl("/register/local").loginUrl("/login/local");
+ }
+
+ &#64;Bean
+ public SecurityWebFilterChain springSecurityFilterChain(ServerHttpSecurity http) {
+   return singlePageAppConfigurer().configure(http)
+       .authorizeExchange().anyExchange().authenticated()
+       .and().csrf().disable()
+       .build();
+ }
+ * </pre>
+ *
+ * Unless {@link #authenticationManager(ReactiveAuthenticationManager) given} an authentication manager, logins
+ * are authenticated against the same {@link UserDetailsManager} and {@link PasswordEncoder} used for registration.
+ * Unless {@link #scheduler(Scheduler) given} a scheduler, credentials are processed on a dedicated scheduler
+ * with a thread per available processor, which is created once by this configurer and disposed by
+ * {@link #destroy()}. Declaring the configurer as a bean lets the application context take care of that.
+ *
+ * @author Geoff Bourne
+ * @since Oct 2026
+ */
+public class ReactiveSinglePageAppConfigurer implements DisposableBean {
+
+    private final UserDetailsManager userDetailsManager;
+    private final PasswordEncoder passwordEncoder;
+    private String registerUrl = RegistrationWebFilter.DEFAULT_PROCESSES_URL;
+    private String loginUrl = RequestBodyLoginWebFilter.DEFAULT_PROCESSES_URL;
+    private ReactiveAuthenticationManager authenticationManager;
+    private Scheduler scheduler;
+    private Scheduler ownedScheduler;
+    private ServerSecurityContextRepository securityContextRepository = new WebSessionServerSecurityContextRepository();
+    private List<HttpMessageReader<?>> messageReaders;
+    private RegistrationValidator[] registrationValidators = new RegistrationValidator[0];
+
+    /**
+     * @param userDetailsManager the store of registered users
+     * @param passwordEncoder    encodes the passwords of registered users
+     */
+    public ReactiveSinglePageAppConfigurer(UserDetailsManager userDetailsManager, PasswordEncoder passwordEncoder) {
+        Assert.notNull(userDetailsManager, "userDetailsManager is required");
+        Assert.notNull(passwordEncoder, "passwordEncoder is required");
+        this.userDetailsManager = userDetailsManager;
+        this.passwordEncoder = passwordEncoder;
+    }
+
+    /**
+     * Adds the web filters to the given security configuration and sets its security context repository to
+     * the one where the filters save successful authentications.
+     *
+     * @param http the security configuration
+     * @return the given security configuration for call chaining
+     */
+    public ServerHttpSecurity configure(ServerHttpSecurity http) {
+        if (scheduler == null && ownedScheduler == null) {
+            ownedScheduler = Schedulers.newParallel("spa-credentials", Runtime.getRuntime().availableProcessors(), true);
+        }
+        final Scheduler filterScheduler = scheduler != null ? scheduler : ownedScheduler;
+
+        final RegistrationWebFilter registrationFilter =
+                new RegistrationWebFilter(registerUrl, userDetailsManager, passwordEncoder);
+        registrationFilter.setValidators(registrationValidators);
+        configureFilter(registrationFilter, filterScheduler);
+
+        final RequestBodyLoginWebFilter loginFilter = new RequestBodyLoginWebFilter(loginUrl,
+                authenticationManager != null ? authenticationManager : createAuthenticationManager());
+        configureFilter(loginFilter, filterScheduler);
+
+        return http
+                .securityContextRepository(securityContextRepository)
+                .addFilterAt(registrationFilter, SecurityWebFiltersOrder.AUTHENTICATION)
+                .addFilterAt(loginFilter, SecurityWebFiltersOrder.AUTHENTICATION);
+    }
+
+    /**
+     * Disposes the scheduler created by this configurer, if any. A {@link #scheduler(Scheduler) given} scheduler
+     * is left to its owner.
+     */
+    @Override
+    public void destroy() {
+        if (ownedScheduler != null) {
+            ownedScheduler.dispose();
+            ownedScheduler = null;
+        }
+    }
+
+    private void configureFilter(AbstractCredentialsWebFilter filter, Scheduler filterScheduler) {
+        filter.setScheduler(filterScheduler);
+        filter.setSecurityContextRepository(securityContextRepository);
+        if (messageReaders != null) {
+            filter.setMessageReaders(messageReaders);
+        }
+    }
+
+    /**
+     * @return a manager that performs the blocking user lookup and password check where subscribed, which is
+     * the filter's scheduler
+     */
+    private ReactiveAuthenticationManager createAuthenticationManager() {
+        final DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+        provider.setUserDetailsService(userDetailsManager);
+        provider.setPasswordEncoder(passwordEncoder);
+        return authentication -> Mono.fromCallable(() -> provider.authenticate(authentication));
+    }
+
+    public ReactiveSinglePageAppConfigurer registerUrl(String url) {
+        this.registerUrl = url;
+        return this;
+    }
+
+    public ReactiveSinglePageAppConfigurer loginUrl(String url) {
+        this.loginUrl = url;
+        return this;
+    }
+
+    /**
+     * @param authenticationManager the manager that authenticates login credentials
+     * @return this object for call chaining
+     */
+    public ReactiveSinglePageAppConfigurer authenticationManager(ReactiveAuthenticationManager authenticationManager) {
+        this.authenticationManager = authenticationManager;
+        return this;
+    }
+
+    /**
+     * @param scheduler the bounded scheduler where credentials are processed
+     * @return this object for call chaining
+     */
+    public ReactiveSinglePageAppConfigurer scheduler(Scheduler scheduler) {
+        this.scheduler = scheduler;
+        return this;
+    }
+
+    /**
+     * @param securityContextRepository where successful authentications are saved, which is also applied to
+     *                                  the {@link ServerHttpSecurity}
+     * @return this object for call chaining
+     */
+    public ReactiveSinglePageAppConfigurer securityContextRepository(
+            ServerSecurityContextRepository securityContextRepository) {
+        this.securityContextRepository = securityContextRepository;
+        return this;
+    }
+
+    /**
+     * @param messageReaders the readers used to decode credentials, such as those of the application's
+     *                       <code>ServerCodecConfigurer</code>
+     * @return this object for call chaining
+     */
+    public ReactiveSinglePageAppConfigurer messageReaders(List<HttpMessageReader<?>> messageReaders) {
+        this.messageReaders = messageReaders;
+        return this;
+    }
+
+    /**
+     * @param validators validators that registrations must pass before the password is encoded
+     * @return this object for call chaining
+     */
+    public ReactiveSinglePageAppConfigurer registrationValidators(RegistrationValidator... validators) {
+        this.registrationValidators = validators;
+        return this;
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2018 Geoff Bourne
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package me.itzg.spring.security.spa.reactive;
+
+import me.itzg.spring.security.spa.Credentials;
+import me.itzg.spring.security.spa.CredentialsMessages;
+import me.itzg.spring.security.spa.RegistrationFailedException;
+import me.itzg.spring.security.spa.RegistrationSupport;
+import me.itzg.spring.security.spa.RegistrationValidator;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.provisioning.UserDetailsManager;
+import org.springframework.util.Assert;
+import reactor.core.publisher.Mono;
+
+/**
+ * Handles registration of new users given by a request payload containing a <code>username</code> and
+ * <code>password</code>. Upon success, the response contains a {@link #STATUS} and the user will be authenticated
+ * into the current session.
+ * <p>
+ * Since {@link UserDetailsManager} is a blocking API, the existence check, password encoding, and user creation
+ * are performed on the {@link #setScheduler(reactor.core.scheduler.Scheduler) scheduler}. As with the servlet
+ * filter, concurrent registrations of the same username fail immediately rather than racing.
+ * </p>
+ *
+ * @author Geoff Bourne
+ * @since Oct 2026
+ * @see me.itzg.spring.security.spa.RegistrationFilter
+ */
+public class RegistrationWebFilter extends AbstractCredentialsWebFilter {
+
+    @SuppressWarnings("WeakerAccess")
+    public static final HttpStatus STATUS = HttpStatus.CREATED;
+    public static final String DEFAULT_PROCESSES_URL = "/register";
+
+    private final UserDetailsManager userDetailsManager;
+    private final PasswordEncoder passwordEncoder;
+    private final RegistrationSupport registrationSupport = new RegistrationSupport();
+
+    /**
+     * Creates a filter instance that processes registrations at the path /register.
+     *
+     * @param userDetailsManager the new user will be added via this details manager
+     * @param passwordEncoder    used for encoding the new user's password
+     */
+    public RegistrationWebFilter(UserDetailsManager userDetailsManager, PasswordEncoder passwordEncoder) {
+        this(DEFAULT_PROCESSES_URL, userDetailsManager, passwordEncoder);
+    }
+
+    /**
+     * @param filterProcessesUrl the path pattern where this filter will process registrations
+     * @param userDetailsManager the new user will be added via this details manager
+     * @param passwordEncoder    used for encoding the new user's password
+     */
+    @SuppressWarnings("WeakerAccess")
+    public RegistrationWebFilter(String filterProcessesUrl, UserDetailsManager userDetailsManager,
+                                 PasswordEncoder passwordEncoder) {
+        super(filterProcessesUrl, new SimpleServerAuthenticationSuccessHandler(STATUS));
+        Assert.notNull(userDetailsManager, "UserDetailsManager bean needs to be defined");
+        Assert.notNull(passwordEncoder, "PasswordEncoder bean needs to be defined");
+        this.userDetailsManager = userDetailsManager;
+        this.passwordEncoder = passwordEncoder;
+    }
+
+    /**
+     * Sets the initial role(s) of registered users.
+     * The default is <code>USER</code>
+     *
+     * @param initialRoles the roles (without authority prefix)
+     * @return this object for call chaining
+     */
+    @SuppressWarnings("unused")
+    public RegistrationWebFilter setInitialRoles(String... initialRoles) {
+        registrationSupport.setInitialRoles(initialRoles);
+        return this;
+    }
+
+    /**
+     * Sets validators that are applied, in order, after the presence of the username and password is confirmed
+     * and before the existence of the username is checked.
+     *
+     * @param validators the validators to apply
+     * @return this object for call chaining
+     */
+    public RegistrationWebFilter setValidators(RegistrationValidator... validators) {
+        registrationSupport.setValidators(validators);
+        return this;
+    }
+
+    @Override
+    protected Mono<Authentication> attemptAuthentication(Credentials registration) {
+        return Mono.defer(() -> {
+            registrationSupport.validate(registration);
+            final String claim = registrationSupport.claimUsername(registration.getUsername());
+            return Mono.fromCallable(() -> register(registration))
+                    .doFinally(signalType -> registrationSupport.releaseUsername(claim));
+        });
+    }
+
+    private Authentication register(Credentials registration) {
+        final boolean exists;
+        try {
+            exists = userDetailsManager.userExists(registration.getUsername());
+        } catch (Exception e) {
+            throw new RegistrationFailedException(CredentialsMessages.UNEXPECTED_FAILURE, e);
+        }
+        if (exists) {
+            throw new RegistrationFailedException(CredentialsMessages.USERNAME_IN_USE);
+        }
+
+        final UserDetails user = registrationSupport.buildUser(registration.getUsername(),
+                passwordEncoder.encode(registration.getPassword()));
+
+        try {
+            userDetailsManager.createUser(user);
+        } catch (Exception e) {
+            throw new RegistrationFailedException(CredentialsMessages.UNEXPECTED_FAILURE, e);
+        }
+
+        return new UsernamePasswordAuthenticationToken(user.getUsername(), null, user.getAuthorities());
+    }
+
+    @Override
+    protected AuthenticationException invalidContentException() {
+        return new RegistrationFailedException(CredentialsMessages.INVALID_CONTENT);
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2018 Geoff Bourne
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package me.itzg.spring.security.spa.reactive;
+
+import me.itzg.spring.security.spa.Credentials;
+import me.itzg.spring.security.spa.CredentialsMessages;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Mono;
+
+/**
+ * Intercepts login attempts conveyed by a <code>username</code> and <code>password</code> in the request body.
+ *
+ * @author Geoff Bourne
+ * @since Oct 2026
+ * @see me.itzg.spring.security.spa.RequestBodyLoginFilter
+ */
+public class RequestBodyLoginWebFilter extends AbstractCredentialsWebFilter {
+
+    public static final String DEFAULT_PROCESSES_URL = "/login";
+
+    private final ReactiveAuthenticationManager authenticationManager;
+
+    /**
+     * Creates a login filter that processes the URI <code>/login</code>
+     *
+     * @param authenticationManager authenticates the credentials, which is subscribed on the
+     *                              {@link #setScheduler(reactor.core.scheduler.Scheduler) scheduler}
+     */
+    public RequestBodyLoginWebFilter(ReactiveAuthenticationManager authenticationManager) {
+        this(DEFAULT_PROCESSES_URL, authenticationManager);
+    }
+
+    /**
+     * @param filterProcessesUrl    the path pattern where this filter processes login requests
+     * @param authenticationManager authenticates the credentials, which is subscribed on the
+     *                              {@link #setScheduler(reactor.core.scheduler.Scheduler) scheduler}
+     */
+    public RequestBodyLoginWebFilter(String filterProcessesUrl, ReactiveAuthenticationManager authenticationManager) {
+        super(filterProcessesUrl, new SimpleServerAuthenticationSuccessHandler(HttpStatus.OK));
+        Assert.notNull(authenticationManager, "authenticationManager is required");
+        this.authenticationManager = authenticationManager;
+    }
+
+    @Override
+    protected Mono<Authentication> attemptAuthentication(Credentials credentials) {
+        if (!StringUtils.hasLength(credentials.getUsername())) {
+            return Mono.error(new BadCredentialsException(CredentialsMessages.MISSING_USERNAME));
+        }
+        if (!StringUtils.hasLength(credentials.getPassword())) {
+            return Mono.error(new BadCredentialsException(CredentialsMessages.MISSING_PASSWORD));
+        }
+
+        return Mono.defer(() -> authenticationManager.authenticate(
+                new UsernamePasswordAuthenticationToken(credentials.getUsername(), credentials.getPassword())))
+                .switchIfEmpty(Mono.defer(() -> Mono.error(new BadCredentialsException(CredentialsMessages.BAD_CREDENTIALS))));
+    }
+
+    @Override
+    protected AuthenticationException invalidContentException() {
+        return new BadCredentialsException(CredentialsMessages.INVALID_BODY);
+    }
+}
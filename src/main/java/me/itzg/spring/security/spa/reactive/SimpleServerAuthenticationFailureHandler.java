@@ -0,0 +1,65 @@
+/*
+ * Copyright 2018 Geoff Bourne
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package me.itzg.spring.security.spa.reactive;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.web.server.WebFilterExchange;
+import org.springframework.security.web.server.authentication.ServerAuthenticationFailureHandler;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Handles authentication failures by setting the response status code to the given value, or
+ * {@link #DEFAULT_STATUS} by default, and writing the exception's message as plain text.
+ *
+ * @author Geoff Bourne
+ * @since Oct 2026
+ * @see me.itzg.spring.security.spa.SimpleAuthenticationFailureHandler
+ */
+public class SimpleServerAuthenticationFailureHandler implements ServerAuthenticationFailureHandler {
+
+    @SuppressWarnings("WeakerAccess")
+    public static final HttpStatus DEFAULT_STATUS = HttpStatus.UNAUTHORIZED;
+    private HttpStatus status = DEFAULT_STATUS;
+
+    /**
+     * Sets the status code that this handler will use for the response.
+     *
+     * @param status the status code this handler should set in the response
+     * @return this object for call chaining
+     */
+    @SuppressWarnings("unused")
+    public SimpleServerAuthenticationFailureHandler setStatus(HttpStatus status) {
+        this.status = status;
+        return this;
+    }
+
+    @Override
+    public Mono<Void> onAuthenticationFailure(WebFilterExchange webFilterExchange, AuthenticationException e) {
+        final ServerHttpResponse response = webFilterExchange.getExchange().getResponse();
+        response.setStatusCode(status);
+        response.getHeaders().setContentType(MediaType.TEXT_PLAIN);
+        final String message = e.getMessage() != null ? e.getMessage() : "";
+        final DataBuffer body = response.bufferFactory().wrap(message.getBytes(StandardCharsets.UTF_8));
+        return response.writeWith(Mono.just(body));
+    }
+}
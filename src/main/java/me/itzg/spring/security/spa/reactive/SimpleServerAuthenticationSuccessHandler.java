@@ -0,0 +1,45 @@
+/*
+ * Copyright 2018 Geoff Bourne
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package me.itzg.spring.security.spa.reactive;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.server.WebFilterExchange;
+import org.springframework.security.web.server.authentication.ServerAuthenticationSuccessHandler;
+import reactor.core.publisher.Mono;
+
+/**
+ * Handles a successful authentication by simply setting the response status code to the given value.
+ *
+ * @author Geoff Bourne
+ * @since Oct 2026
+ * @see me.itzg.spring.security.spa.SimpleAuthenticationSuccessHandler
+ */
+public class SimpleServerAuthenticationSuccessHandler implements ServerAuthenticationSuccessHandler {
+    private final HttpStatus status;
+
+    @SuppressWarnings("WeakerAccess")
+    public SimpleServerAuthenticationSuccessHandler(HttpStatus status) {
+        this.status = status;
+    }
+
+    @Override
+    public Mono<Void> onAuthenticationSuccess(WebFilterExchange webFilterExchange, Authentication authentication) {
+        webFilterExchange.getExchange().getResponse().setStatusCode(status);
+        return webFilterExchange.getExchange().getResponse().setComplete();
+    }
+}
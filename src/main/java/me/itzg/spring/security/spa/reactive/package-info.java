@@ -0,0 +1,24 @@
+/*
+ * Copyright 2018 Geoff Bourne
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+/**
+ * Provides the WebFlux counterparts of the filters and handlers in the parent package, with the same request
+ * payloads and response status codes. These classes don't depend on the Servlet API.
+ *
+ * @author Geoff Bourne
+ * @since Oct 2026
+ */
+package me.itzg.spring.security.spa.reactive;
@@ -0,0 +1,190 @@
+/*
+ * Copyright 2018 Geoff Bourne
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package me.itzg.spring.security.spa;
+
+import org.junit.Test;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Geoff Bourne
+ * @since Oct 2026
+ */
+public class AsyncAuthenticationProcessorTest {
+
+    private static final AuthenticationManager authenticationManager = authentication -> {
+        if (!"password".equals(authentication.getCredentials())) {
+            throw new BadCredentialsException("Bad credentials");
+        }
+        return new UsernamePasswordAuthenticationToken(authentication.getPrincipal(), null,
+                AuthorityUtils.createAuthorityList("ROLE_USER"));
+    };
+
+    @Test
+    public void successfulLoginCompletesAndSavesContext() throws Exception {
+        final RequestBodyLoginFilter filter = loginFilter(new AsyncAuthenticationProcessor(Runnable::run));
+        final MockHttpServletRequest req = loginRequest("password");
+        final MockHttpServletResponse resp = new MockHttpServletResponse();
+
+        filter.doFilter(req, resp, new MockFilterChain());
+
+        assertThat(resp.getStatus()).isEqualTo(200);
+        assertThat(req.isAsyncStarted()).isFalse();
+        assertThat(req.getSession().getAttribute(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY))
+                .isNotNull();
+    }
+
+    @Test
+    public void failedLoginCompletes() throws Exception {
+        final RequestBodyLoginFilter filter = loginFilter(new AsyncAuthenticationProcessor(Runnable::run));
+        final MockHttpServletRequest req = loginRequest("wrong");
+        final MockHttpServletResponse resp = new MockHttpServletResponse();
+
+        filter.doFilter(req, resp, new MockFilterChain());
+
+        assertThat(resp.getStatus()).isEqualTo(401);
+        assertThat(req.isAsyncStarted()).isFalse();
+    }
+
+    @Test
+    public void rejectedWhenSaturated() throws Exception {
+        final RequestBodyLoginFilter filter = loginFilter(new AsyncAuthenticationProcessor(command -> {
+            throw new RejectedExecutionException();
+        }));
+        final MockHttpServletRequest req = loginRequest("password");
+        final MockHttpServletResponse resp = new MockHttpServletResponse();
+
+        filter.doFilter(req, resp, new MockFilterChain());
+
+        assertThat(resp.getStatus()).isEqualTo(AsyncAuthenticationProcessor.DEFAULT_REJECTED_STATUS);
+        assertThat(req.isAsyncStarted()).isFalse();
+    }
+
+    @Test
+    public void queueTimeout() throws Exception {
+        final RequestBodyLoginFilter filter = loginFilter(new AsyncAuthenticationProcessor(Runnable::run)
+                .setQueueTimeout(-1)
+                .setTimeoutStatus(504));
+        final MockHttpServletRequest req = loginRequest("password");
+        final MockHttpServletResponse resp = new MockHttpServletResponse();
+
+        filter.doFilter(req, resp, new MockFilterChain());
+
+        assertThat(resp.getStatus()).isEqualTo(504);
+        assertThat(req.getSession(false)).isNull();
+    }
+
+    @Test
+    public void processingTimeout() throws Exception {
+        final CountDownLatch authenticating = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        final AsyncAuthenticationProcessor asyncProcessor = new AsyncAuthenticationProcessor(executor)
+                .setQueueTimeout(1_000)
+                .setProcessingTimeout(2_000)
+                .setTimeoutStatus(504);
+        final RequestBodyLoginFilter filter = new RequestBodyLoginFilter(authentication -> {
+            // a user store that hangs
+            authenticating.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return authenticationManager.authenticate(authentication);
+        }, new HttpMessageConverters(false, Collections.singletonList(new MappingJackson2HttpMessageConverter())));
+        filter.setAsyncProcessor(asyncProcessor);
+        filter.afterPropertiesSet();
+        final MockHttpServletRequest req = loginRequest("password");
+        final MockHttpServletResponse resp = new MockHttpServletResponse();
+
+        try {
+            filter.doFilter(req, resp, new MockFilterChain());
+            assertThat(authenticating.await(5, TimeUnit.SECONDS)).isTrue();
+
+            // as the container would once the async timeout elapsed
+            final MockAsyncContext asyncContext = (MockAsyncContext) req.getAsyncContext();
+            assertThat(asyncContext.getTimeout()).isEqualTo(3_000);
+            for (AsyncListener listener : asyncContext.getListeners()) {
+                listener.onTimeout(new AsyncEvent(asyncContext, req, resp));
+            }
+            assertThat(resp.getStatus()).isEqualTo(504);
+            assertThat(req.isAsyncStarted()).isFalse();
+
+            release.countDown();
+        } finally {
+            executor.shutdown();
+            assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+        }
+        assertThat(resp.getStatus()).isEqualTo(504);
+    }
+
+    @Test
+    public void synchronousWhenAsyncNotSupported() throws Exception {
+        final RequestBodyLoginFilter filter = loginFilter(new AsyncAuthenticationProcessor(command -> {
+            throw new IllegalStateException("should not be used");
+        }));
+        final MockHttpServletRequest req = loginRequest("password");
+        req.setAsyncSupported(false);
+        final MockHttpServletResponse resp = new MockHttpServletResponse();
+
+        filter.doFilter(req, resp, new MockFilterChain());
+
+        assertThat(resp.getStatus()).isEqualTo(200);
+    }
+
+    private static RequestBodyLoginFilter loginFilter(AsyncAuthenticationProcessor asyncProcessor) {
+        final RequestBodyLoginFilter filter = new RequestBodyLoginFilter(authenticationManager,
+                new HttpMessageConverters(false,
+                        Collections.singletonList(new MappingJackson2HttpMessageConverter())));
+        filter.setAsyncProcessor(asyncProcessor);
+        filter.afterPropertiesSet();
+        return filter;
+    }
+
+    private static MockHttpServletRequest loginRequest(String password) {
+        final MockHttpServletRequest req = new MockHttpServletRequest("POST", "/login");
+        req.setServletPath("/login");
+        req.setAsyncSupported(true);
+        req.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        req.setContent(("{\"username\":\"user\",\"password\":\"" + password + "\"}")
+                .getBytes(StandardCharsets.UTF_8));
+        return req;
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2018 Geoff Bourne
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package me.itzg.spring.security.spa;
+
+import org.junit.Test;
+import org.springframework.security.authentication.RememberMeAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.core.userdetails.User;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * @author Geoff Bourne
+ * @since Oct 2026
+ */
+public class AuthenticationCodecTest {
+
+    private final AuthenticationCodec codec = new AuthenticationCodec("ROLE_USER", "ROLE_ADMIN");
+
+    @Test
+    public void roundTripsLoginAuthentication() throws IOException {
+        final User user = new User("alice", "password", true, true, false, true,
+                AuthorityUtils.createAuthorityList("ROLE_USER", "ROLE_AUDITOR"));
+        user.eraseCredentials();
+        final UsernamePasswordAuthenticationToken login =
+                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
+
+        final byte[] encoded = codec.encode(login);
+        final Authentication decoded = codec.decode(encoded);
+
+        assertThat(decoded).isEqualTo(login);
+        assertThat(decoded.isAuthenticated()).isTrue();
+        final User decodedUser = (User) decoded.getPrincipal();
+        assertThat(decodedUser.getPassword()).isNull();
+        assertThat(decodedUser.isCredentialsNonExpired()).isFalse();
+        assertThat(decodedUser.isAccountNonLocked()).isTrue();
+        assertThat(decoded.getAuthorities()).extracting("authority").containsExactly("ROLE_AUDITOR", "ROLE_USER");
+
+        assertThat(encoded.length).isLessThan(javaSerialized(login).length / 10);
+    }
+
+    @Test
+    public void roundTripsRegistrationAuthentication() {
+        final UsernamePasswordAuthenticationToken registration = new UsernamePasswordAuthenticationToken(
+                "bob", null, AuthorityUtils.createAuthorityList("ROLE_USER", "ROLE_ADMIN"));
+
+        final Authentication decoded = codec.decode(codec.encode(registration));
+
+        assertThat(decoded).isEqualTo(registration);
+        assertThat(decoded.getPrincipal()).isEqualTo("bob");
+    }
+
+    @Test
+    public void declinesWhatItCannotRepresent() {
+        assertThat(codec.encode(new RememberMeAuthenticationToken("key", "alice",
+                AuthorityUtils.createAuthorityList("ROLE_USER")))).isNull();
+        final UsernamePasswordAuthenticationToken withDetails = new UsernamePasswordAuthenticationToken(
+                "alice", null, AuthorityUtils.createAuthorityList("ROLE_USER"));
+        withDetails.setDetails("details");
+        assertThat(codec.encode(withDetails)).isNull();
+        assertThat(codec.encode(new UsernamePasswordAuthenticationToken("alice", "password"))).isNull();
+
+        final byte[] encoded = codec.encode(new UsernamePasswordAuthenticationToken(
+                "alice", null, AuthorityUtils.createAuthorityList("ROLE_USER")));
+        assertThat(new AuthenticationCodec("ROLE_ADMIN", "ROLE_USER").decode(encoded)).isNull();
+        assertThatThrownBy(() -> codec.decode(new byte[]{encoded[0], encoded[1], encoded[2], encoded[3], encoded[4]}))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static byte[] javaSerialized(Authentication authentication) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(new SecurityContextImpl(authentication));
+        }
+        return bytes.toByteArray();
+    }
+}
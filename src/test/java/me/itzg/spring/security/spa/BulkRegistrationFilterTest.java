@@ -0,0 +1,184 @@
+/*
+ * Copyright 2018 Geoff Bourne
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package me.itzg.spring.security.spa;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.crypto.password.NoOpPasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+import org.springframework.security.provisioning.UserDetailsManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Geoff Bourne
+ * @since Oct 2026
+ */
+public class BulkRegistrationFilterTest {
+
+    private BulkRegistrationFilter filter;
+
+    @After
+    public void tearDown() {
+        if (filter != null) {
+            filter.destroy();
+        }
+    }
+
+    @Test
+    public void streamsResultPerLine() throws Exception {
+        final InMemoryUserDetailsManager userDetailsManager = new InMemoryUserDetailsManager(
+                User.withUsername("existing").password("password").roles("USER").build());
+        filter = bulkFilter(userDetailsManager).setBatchSize(2);
+
+        final MockHttpServletResponse resp = new MockHttpServletResponse();
+        final MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request(
+                "{\"username\":\"alice\",\"password\":\"pw1\"}\n" +
+                        "{\"username\":\"alice\",\"password\":\"pw2\"}\r\n" +
+                        "\n" +
+                        "{\"username\":\"existing\",\"password\":\"pw3\"}\n" +
+                        "{\"username\":\"carol\"}\n" +
+                        "not json\n" +
+                        "{\"username\":\"dave\",\"password\":\"pw4\"}"
+        ), resp, chain);
+
+        assertThat(chain.getRequest()).isNull();
+        assertThat(resp.getStatus()).isEqualTo(200);
+        assertThat(resp.getContentType()).isEqualTo("application/x-ndjson");
+        assertThat(resp.getContentAsString().split("\n")).containsExactly(
+                "{\"line\":1,\"username\":\"alice\",\"status\":\"created\"}",
+                "{\"line\":2,\"username\":\"alice\",\"status\":\"failed\",\"message\":\"Username is already in use\"}",
+                "{\"line\":4,\"username\":\"existing\",\"status\":\"failed\",\"message\":\"Username is already in use\"}",
+                "{\"line\":5,\"username\":\"carol\",\"status\":\"failed\",\"message\":\"Missing password\"}",
+                "{\"line\":6,\"status\":\"failed\",\"message\":\"Request body must be a JSON object\"}",
+                "{\"line\":7,\"username\":\"dave\",\"status\":\"created\"}"
+        );
+
+        assertThat(userDetailsManager.loadUserByUsername("alice").getPassword()).isEqualTo("pw1");
+        assertThat(userDetailsManager.loadUserByUsername("alice").getAuthorities()).extracting("authority")
+                .containsExactly("ROLE_USER");
+        assertThat(userDetailsManager.userExists("dave")).isTrue();
+        assertThat(userDetailsManager.userExists("carol")).isFalse();
+    }
+
+    @Test
+    public void usesBatchCreationWhenSupported() throws Exception {
+        final BatchingUserDetailsManager userDetailsManager = new BatchingUserDetailsManager();
+        filter = bulkFilter(userDetailsManager).setBatchSize(2);
+
+        final MockHttpServletResponse resp = new MockHttpServletResponse();
+        filter.doFilter(request(
+                "{\"username\":\"u1\",\"password\":\"pw\"}\n" +
+                        "{\"username\":\"u2\",\"password\":\"pw\"}\n" +
+                        "{\"username\":\"u3\",\"password\":\"pw\"}\n"
+        ), resp, new MockFilterChain());
+
+        assertThat(userDetailsManager.batchSizes).containsExactly(2, 1);
+        assertThat(resp.getContentAsString().split("\n")).hasSize(3)
+                .allMatch(line -> line.endsWith("\"status\":\"created\"}"));
+    }
+
+    @Test
+    public void isolatesFailureOfBatch() throws Exception {
+        final BatchingUserDetailsManager userDetailsManager = new BatchingUserDetailsManager() {
+            @Override
+            public void createUser(UserDetails user) {
+                if (user.getUsername().equals("bad")) {
+                    throw new IllegalStateException("rejected by store");
+                }
+                super.createUser(user);
+            }
+
+            @Override
+            public void createUsers(List<UserDetails> users) {
+                batchSizes.add(users.size());
+                if (users.stream().anyMatch(user -> user.getUsername().equals("bad"))) {
+                    throw new IllegalStateException("rejected by store");
+                }
+                users.forEach(this::createUser);
+            }
+        };
+        filter = bulkFilter(userDetailsManager).setBatchSize(3);
+
+        final MockHttpServletResponse resp = new MockHttpServletResponse();
+        filter.doFilter(request(
+                "{\"username\":\"u1\",\"password\":\"pw\"}\n" +
+                        "{\"username\":\"bad\",\"password\":\"pw\"}\n" +
+                        "{\"username\":\"u3\",\"password\":\"pw\"}\n"
+        ), resp, new MockFilterChain());
+
+        assertThat(resp.getContentAsString().split("\n")).containsExactly(
+                "{\"line\":1,\"username\":\"u1\",\"status\":\"created\"}",
+                "{\"line\":2,\"username\":\"bad\",\"status\":\"failed\",\"message\":\"Unexpected failure\"}",
+                "{\"line\":3,\"username\":\"u3\",\"status\":\"created\"}"
+        );
+        assertThat(userDetailsManager.userExists("u3")).isTrue();
+    }
+
+    @Test
+    public void rejectsOtherContentTypes() throws Exception {
+        filter = bulkFilter(new InMemoryUserDetailsManager());
+
+        final MockHttpServletRequest req = request("{\"username\":\"u1\",\"password\":\"pw\"}");
+        req.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        final MockHttpServletResponse resp = new MockHttpServletResponse();
+        filter.doFilter(req, resp, new MockFilterChain());
+
+        assertThat(resp.getStatus()).isEqualTo(415);
+    }
+
+    @SuppressWarnings("deprecation")
+    private static BulkRegistrationFilter bulkFilter(UserDetailsManager userDetailsManager) {
+        final RegistrationFilter registrationFilter = new RegistrationFilter(userDetailsManager,
+                new HttpMessageConverters(false, Collections.singletonList(new MappingJackson2HttpMessageConverter())),
+                NoOpPasswordEncoder.getInstance());
+        return new BulkRegistrationFilter(BulkRegistrationFilter.DEFAULT_PROCESSES_URL, registrationFilter, 2);
+    }
+
+    private static MockHttpServletRequest request(String body) {
+        final MockHttpServletRequest req = new MockHttpServletRequest("POST", BulkRegistrationFilter.DEFAULT_PROCESSES_URL);
+        req.setServletPath(BulkRegistrationFilter.DEFAULT_PROCESSES_URL);
+        req.setContentType("application/x-ndjson");
+        req.setContent(body.getBytes(StandardCharsets.UTF_8));
+        return req;
+    }
+
+    private static class BatchingUserDetailsManager extends InMemoryUserDetailsManager
+            implements BatchUserDetailsManager {
+        final List<Integer> batchSizes = new ArrayList<>();
+
+        @Override
+        public void createUsers(List<UserDetails> users) {
+            batchSizes.add(users.size());
+            users.forEach(this::createUser);
+        }
+    }
+}
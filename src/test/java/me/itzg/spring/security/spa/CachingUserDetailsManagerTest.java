@@ -0,0 +1,219 @@
+/*
+ * Copyright 2018 Geoff Bourne
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package me.itzg.spring.security.spa;
+
+import org.junit.Test;
+import org.springframework.security.core.CredentialsContainer;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+import org.springframework.security.provisioning.UserDetailsManager;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * @author Geoff Bourne
+ * @since Oct 2026
+ */
+public class CachingUserDetailsManagerTest {
+
+    private final AtomicInteger loads = new AtomicInteger();
+    private final InMemoryUserDetailsManager delegate = new InMemoryUserDetailsManager() {
+        @Override
+        public UserDetails loadUserByUsername(String username) {
+            loads.incrementAndGet();
+            return super.loadUserByUsername(username);
+        }
+    };
+
+    @Test
+    public void cachesUsersAndMissingUsernames() {
+        delegate.createUser(user("user", "password"));
+        final CachingUserDetailsManager cache = new CachingUserDetailsManager(delegate, 100, 60_000);
+
+        final UserDetails first = cache.loadUserByUsername("user");
+        ((CredentialsContainer) first).eraseCredentials();
+        assertThat(cache.loadUserByUsername("user").getPassword()).isEqualTo("password");
+        assertThatThrownBy(() -> cache.loadUserByUsername("missing")).isInstanceOf(UsernameNotFoundException.class);
+        assertThatThrownBy(() -> cache.loadUserByUsername("missing")).isInstanceOf(UsernameNotFoundException.class);
+        assertThat(cache.userExists("missing")).isFalse();
+
+        assertThat(loads).hasValue(2);
+        assertThat(cache.getHits()).isEqualTo(3);
+        assertThat(cache.getMisses()).isEqualTo(2);
+        assertThat(cache.getHitRate()).isEqualTo(0.6);
+    }
+
+    @Test
+    public void changesInvalidate() {
+        delegate.createUser(user("user", "password"));
+        final CachingUserDetailsManager cache = new CachingUserDetailsManager(delegate, 100, 60_000);
+
+        assertThatThrownBy(() -> cache.loadUserByUsername("new")).isInstanceOf(UsernameNotFoundException.class);
+        cache.createUser(user("new", "password"));
+        assertThat(cache.userExists("new")).isTrue();
+        assertThat(cache.loadUserByUsername("new").getUsername()).isEqualTo("new");
+
+        cache.loadUserByUsername("user");
+        cache.updateUser(user("user", "changed"));
+        assertThat(cache.loadUserByUsername("user").getPassword()).isEqualTo("changed");
+
+        cache.deleteUser("user");
+        assertThatThrownBy(() -> cache.loadUserByUsername("user")).isInstanceOf(UsernameNotFoundException.class);
+    }
+
+    @Test
+    public void expiresAndEvicts() throws InterruptedException {
+        delegate.createUser(user("user", "password"));
+        final CachingUserDetailsManager cache = new CachingUserDetailsManager(delegate, 16, 50);
+
+        cache.loadUserByUsername("user");
+        cache.loadUserByUsername("user");
+        assertThat(loads).hasValue(1);
+        Thread.sleep(60);
+        cache.loadUserByUsername("user");
+        assertThat(loads).hasValue(2);
+
+        for (int i = 0; i < 1000; i++) {
+            try {
+                cache.loadUserByUsername("missing" + i);
+            } catch (UsernameNotFoundException e) {
+                // expected
+            }
+        }
+        assertThat(cache.size()).isLessThanOrEqualTo(16);
+    }
+
+    @Test
+    public void keepsCustomPrincipalTypes() {
+        final CachingUserDetailsManager cache = new CachingUserDetailsManager(delegate, 100, 60_000);
+        final UserDetailsManager custom = new CachingUserDetailsManager(new InMemoryUserDetailsManager() {
+            @Override
+            public UserDetails loadUserByUsername(String username) {
+                loads.incrementAndGet();
+                final UserDetails user = super.loadUserByUsername(username);
+                return username.startsWith("erasable")
+                        ? new ErasablePrincipal(user, "Erasable")
+                        : new Principal(user, "Display");
+            }
+        }, 100, 60_000);
+        custom.createUser(user("plain", "password"));
+        custom.createUser(user("erasable", "password"));
+
+        final UserDetails plain = custom.loadUserByUsername("plain");
+        assertThat(plain).isInstanceOf(Principal.class);
+        assertThat(custom.loadUserByUsername("plain")).isSameAs(plain);
+        assertThat(loads).hasValue(1);
+
+        // can't be copied as its own class, so isn't cached
+        final UserDetails erasable = custom.loadUserByUsername("erasable");
+        ((CredentialsContainer) erasable).eraseCredentials();
+        final UserDetails reloaded = custom.loadUserByUsername("erasable");
+        assertThat(reloaded).isInstanceOf(ErasablePrincipal.class);
+        assertThat(((ErasablePrincipal) reloaded).displayName).isEqualTo("Erasable");
+        assertThat(reloaded.getPassword()).isEqualTo("password");
+        assertThat(loads).hasValue(3);
+
+        delegate.createUser(user("user", "password"));
+        assertThat(cache.loadUserByUsername("user").getClass()).isEqualTo(User.class);
+        assertThat(cache.loadUserByUsername("user").getClass()).isEqualTo(User.class);
+    }
+
+    @Test
+    public void createsBatchesAllOrNone() {
+        delegate.createUser(user("taken", "password"));
+        final CachingUserDetailsManager cache = new CachingUserDetailsManager(delegate, 100, 60_000);
+        assertThatThrownBy(() -> cache.loadUserByUsername("first")).isInstanceOf(UsernameNotFoundException.class);
+
+        assertThatThrownBy(() -> cache.createUsers(Arrays.asList(user("first", "password"), user("taken", "password"))))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(cache.userExists("first")).isFalse();
+
+        cache.createUsers(Arrays.asList(user("first", "password"), user("second", "password")));
+        assertThat(cache.loadUserByUsername("first").getUsername()).isEqualTo("first");
+        assertThat(cache.userExists("second")).isTrue();
+    }
+
+    private static class Principal implements UserDetails {
+        final UserDetails user;
+        final String displayName;
+        String password;
+
+        Principal(UserDetails user, String displayName) {
+            this.user = user;
+            this.displayName = displayName;
+            this.password = user.getPassword();
+        }
+
+        @Override
+        public Collection<? extends GrantedAuthority> getAuthorities() {
+            return user.getAuthorities();
+        }
+
+        @Override
+        public String getPassword() {
+            return password;
+        }
+
+        @Override
+        public String getUsername() {
+            return user.getUsername();
+        }
+
+        @Override
+        public boolean isAccountNonExpired() {
+            return true;
+        }
+
+        @Override
+        public boolean isAccountNonLocked() {
+            return true;
+        }
+
+        @Override
+        public boolean isCredentialsNonExpired() {
+            return true;
+        }
+
+        @Override
+        public boolean isEnabled() {
+            return true;
+        }
+    }
+
+    private static class ErasablePrincipal extends Principal implements CredentialsContainer {
+        ErasablePrincipal(UserDetails user, String displayName) {
+            super(user, displayName);
+        }
+
+        @Override
+        public void eraseCredentials() {
+            password = null;
+        }
+    }
+
+    private static UserDetails user(String username, String password) {
+        return User.withUsername(username).password(password).roles("USER").build();
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2018 Geoff Bourne
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package me.itzg.spring.security.spa;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * @author Geoff Bourne
+ * @since Oct 2026
+ */
+public class CompactUserDetailsManagerTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void managesUsers() {
+        final CompactUserDetailsManager manager = new CompactUserDetailsManager();
+
+        manager.createUser(user("alice", "{noop}pässword", "USER", "ADMIN"));
+        manager.createUser(User.withUsername("bob").password("{noop}secret").roles("USER")
+                .accountLocked(true).build());
+
+        final UserDetails alice = manager.loadUserByUsername("alice");
+        assertThat(alice.getPassword()).isEqualTo("{noop}pässword");
+        assertThat(alice.getAuthorities()).extracting("authority").containsExactly("ROLE_ADMIN", "ROLE_USER");
+        assertThat(alice.isEnabled()).isTrue();
+        assertThat(alice.isAccountNonLocked()).isTrue();
+        assertThat(manager.loadUserByUsername("bob").isAccountNonLocked()).isFalse();
+        assertThat(manager.loadUserByUsername("bob").isCredentialsNonExpired()).isTrue();
+        assertThatThrownBy(() -> manager.createUser(user("alice", "other", "USER")))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        manager.updateUser(user("alice", "{noop}changed", "USER"));
+        assertThat(manager.loadUserByUsername("alice").getPassword()).isEqualTo("{noop}changed");
+        manager.deleteUser("bob");
+        assertThat(manager.userExists("bob")).isFalse();
+        assertThatThrownBy(() -> manager.loadUserByUsername("bob")).isInstanceOf(UsernameNotFoundException.class);
+        assertThat(manager.getUsernames()).containsExactly("alice");
+    }
+
+    @Test
+    public void createsAllUsersOrNone() {
+        final CompactUserDetailsManager manager = new CompactUserDetailsManager();
+        manager.createUser(user("existing", "password", "USER"));
+
+        assertThatThrownBy(() -> manager.createUsers(Arrays.asList(
+                user("new", "password", "USER"), user("existing", "password", "USER"))))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(manager.userExists("new")).isFalse();
+
+        manager.createUsers(Arrays.asList(user("one", "password", "USER"), user("two", "password", "USER")));
+        assertThat(manager.size()).isEqualTo(3);
+    }
+
+    @Test
+    public void restoresFromSnapshotAndJournal() throws IOException {
+        final Path directory = temporaryFolder.getRoot().toPath();
+        final CompactUserDetailsManager manager = new CompactUserDetailsManager(directory);
+        for (int i = 0; i < 100; i++) {
+            manager.createUser(user("user" + i, "password" + i, "USER"));
+        }
+        manager.snapshot();
+        manager.createUser(user("late", "password", "USER", "ADMIN"));
+        manager.deleteUser("user0");
+        manager.updateUser(user("user1", "changed", "USER"));
+        manager.destroy();
+
+        // a record cut short by a crash
+        Files.write(directory.resolve(CompactUserDetailsManager.JOURNAL_FILE), new byte[]{1, 0, 10, 'p'},
+                StandardOpenOption.APPEND);
+        final long journalLength = Files.size(directory.resolve(CompactUserDetailsManager.JOURNAL_FILE));
+
+        final CompactUserDetailsManager restored = new CompactUserDetailsManager(directory);
+        try {
+            assertThat(restored.size()).isEqualTo(100);
+            assertThat(restored.userExists("user0")).isFalse();
+            assertThat(restored.loadUserByUsername("user1").getPassword()).isEqualTo("changed");
+            assertThat(restored.loadUserByUsername("user99").getPassword()).isEqualTo("password99");
+            assertThat(restored.loadUserByUsername("late").getAuthorities())
+                    .extracting("authority").containsExactly("ROLE_ADMIN", "ROLE_USER");
+            assertThat(Files.size(directory.resolve(CompactUserDetailsManager.JOURNAL_FILE)))
+                    .isEqualTo(journalLength - 4);
+
+            restored.snapshot();
+            assertThat(Files.size(directory.resolve(CompactUserDetailsManager.JOURNAL_FILE))).isZero();
+        } finally {
+            restored.destroy();
+        }
+        assertThat(new CompactUserDetailsManager().size()).isZero();
+        final CompactUserDetailsManager fromSnapshot = new CompactUserDetailsManager(directory);
+        try {
+            assertThat(fromSnapshot.size()).isEqualTo(100);
+        } finally {
+            fromSnapshot.destroy();
+        }
+    }
+
+    private static UserDetails user(String username, String password, String... roles) {
+        return User.withUsername(username).password(password).roles(roles).build();
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2018 Geoff Bourne
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package me.itzg.spring.security.spa;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Geoff Bourne
+ * @since Oct 2026
+ */
+public class ConverterHelperTest {
+
+    private ConverterHelper converterHelper;
+
+    @Before
+    public void setUp() {
+        converterHelper = new ConverterHelper(jsonOnly());
+    }
+
+    @Test
+    public void cachesSuccessfulResolution() throws IOException {
+        assertThat(converterHelper.parseBody(jsonRequest(), Credentials.class)).isNotNull();
+        final Credentials credentials = converterHelper.parseBody(jsonRequest(), Credentials.class);
+
+        assertThat(credentials.getUsername()).isEqualTo("user");
+        assertThat(converterHelper.getCacheMisses()).isEqualTo(1);
+        assertThat(converterHelper.getCacheHits()).isEqualTo(1);
+    }
+
+    @Test
+    public void cachesUnsupportedContentType() throws IOException {
+        final MockHttpServletRequest req = new MockHttpServletRequest("POST", "/login");
+        req.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        req.setContent("user=user".getBytes(StandardCharsets.UTF_8));
+
+        assertThat(converterHelper.parseBody(req, Credentials.class)).isNull();
+        assertThat(converterHelper.parseBody(req, Credentials.class)).isNull();
+
+        assertThat(converterHelper.getCacheMisses()).isEqualTo(1);
+        assertThat(converterHelper.getCacheHits()).isEqualTo(1);
+    }
+
+    @Test
+    public void missingOrMalformedContentType() throws IOException {
+        final MockHttpServletRequest missing = new MockHttpServletRequest("POST", "/login");
+        assertThat(converterHelper.parseBody(missing, Credentials.class)).isNull();
+
+        final MockHttpServletRequest malformed = new MockHttpServletRequest("POST", "/login");
+        malformed.setContentType("not a media type");
+        assertThat(converterHelper.parseBody(malformed, Credentials.class)).isNull();
+    }
+
+    @Test
+    public void invalidatedWhenConvertersReplaced() throws IOException {
+        converterHelper.parseBody(jsonRequest(), Credentials.class);
+
+        converterHelper.setHttpMessageConverters(new HttpMessageConverters(false, Collections.emptyList()));
+
+        assertThat(converterHelper.parseBody(jsonRequest(), Credentials.class)).isNull();
+        assertThat(converterHelper.getCacheMisses()).isEqualTo(2);
+    }
+
+    @Test
+    public void boundedEntries() throws IOException {
+        converterHelper.setMaxCacheEntries(1);
+
+        converterHelper.parseBody(jsonRequest(), Credentials.class);
+        final MockHttpServletRequest other = jsonRequest();
+        other.setContentType(MediaType.APPLICATION_JSON_UTF8_VALUE);
+        converterHelper.parseBody(other, Credentials.class);
+        converterHelper.parseBody(jsonRequest(), Credentials.class);
+
+        assertThat(converterHelper.getCacheMisses()).isEqualTo(3);
+        assertThat(converterHelper.getCacheHits()).isEqualTo(0);
+    }
+
+    private static HttpMessageConverters jsonOnly() {
+        return new HttpMessageConverters(false,
+                Collections.singletonList(new MappingJackson2HttpMessageConverter()));
+    }
+
+    private static MockHttpServletRequest jsonRequest() {
+        final MockHttpServletRequest req = new MockHttpServletRequest("POST", "/login");
+        req.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        req.setContent("{\"username\":\"user\",\"password\":\"password\"}".getBytes(StandardCharsets.UTF_8));
+        return req;
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2018 Geoff Bourne
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package me.itzg.spring.security.spa;
+
+import org.junit.Test;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.BadCredentialsException;
+
+import javax.servlet.ServletException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * @author Geoff Bourne
+ * @since Oct 2026
+ */
+public class FailedLoginTrackerTest {
+
+    @Test
+    public void locksOutBeforeAuthenticating() throws IOException, ServletException {
+        final AtomicInteger authentications = new AtomicInteger();
+        final FailedLoginTracker tracker = new FailedLoginTracker(3);
+        final RequestBodyLoginFilter filter = new RequestBodyLoginFilter(authentication -> {
+            authentications.incrementAndGet();
+            if (!authentication.getCredentials().equals("password")) {
+                throw new BadCredentialsException("Bad credentials");
+            }
+            return authentication;
+        }, new HttpMessageConverters(false, Collections.singletonList(new MappingJackson2HttpMessageConverter())));
+        filter.setFailedLoginTracker(tracker);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(login(filter, "victim", "guess" + i).getStatus()).isEqualTo(401);
+        }
+        final MockHttpServletResponse lockedOut = login(filter, "victim", "password");
+
+        assertThat(lockedOut.getStatus()).isEqualTo(429);
+        assertThat(lockedOut.getContentAsString()).isEqualTo(TooManyFailedLoginsException.MESSAGE);
+        assertThat(authentications).hasValue(3);
+        assertThat(tracker.getRejections()).isEqualTo(1);
+        assertThat(login(filter, "bystander", "password").getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    public void countsCaseVariantsTogether() {
+        final FailedLoginTracker tracker = new FailedLoginTracker(4);
+        for (String variant : Arrays.asList("alice", "Alice", "aLICE", "ALICE")) {
+            tracker.checkAttempt(variant);
+            tracker.recordFailure(variant);
+        }
+
+        assertThat(tracker.getFailures("alice")).isEqualTo(4);
+        assertThatThrownBy(() -> tracker.checkAttempt("AlIcE")).isInstanceOf(TooManyFailedLoginsException.class);
+        assertThat(tracker.getHeavyHitters()).containsOnlyKeys("alice");
+
+        tracker.recordSuccess("Alice");
+        tracker.checkAttempt("alice");
+    }
+
+    @Test
+    public void memoryStaysFixedWhileSprayed() {
+        final FailedLoginTracker tracker = new FailedLoginTracker(10, 4096, 4, 8);
+        final long sketchBytes = tracker.getSketchBytes();
+
+        for (int i = 0; i < 50_000; i++) {
+            tracker.recordFailure("sprayed" + i);
+            if (i % 250 == 0) {
+                tracker.recordFailure("victim");
+            }
+        }
+
+        assertThat(tracker.getSketchBytes()).isEqualTo(sketchBytes).isEqualTo(4 * 4096 * Integer.BYTES);
+        assertThat(tracker.getHeavyHitterCount()).isLessThanOrEqualTo(8);
+        assertThat(tracker.getHeavyHitters().keySet().iterator().next()).isEqualTo("victim");
+        assertThatThrownBy(() -> tracker.checkAttempt("victim")).isInstanceOf(TooManyFailedLoginsException.class);
+        // collisions inflate the sketch's estimates, but only the username that is being guessed is locked out
+        for (int i = 0; i < 50_000; i++) {
+            tracker.checkAttempt("sprayed" + i);
+        }
+        tracker.checkAttempt("unseen");
+    }
+
+    @Test
+    public void decaysAndClearsOnSuccess() throws InterruptedException {
+        final FailedLoginTracker tracker = new FailedLoginTracker(4).setDecayInterval(50);
+
+        for (int i = 0; i < 4; i++) {
+            tracker.recordFailure("user");
+        }
+        assertThat(tracker.getFailures("user")).isEqualTo(4);
+        Thread.sleep(60);
+        assertThat(tracker.getFailures("user")).isEqualTo(2);
+        tracker.checkAttempt("user");
+
+        tracker.recordFailure("user");
+        tracker.recordSuccess("user");
+        assertThat(tracker.getFailures("user")).isEqualTo(0);
+    }
+
+    private static MockHttpServletResponse login(RequestBodyLoginFilter filter, String username, String password)
+            throws IOException, ServletException {
+        final MockHttpServletRequest req = new MockHttpServletRequest("POST", "/login");
+        req.setServletPath("/login");
+        req.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        req.setContent(("{\"username\":\"" + username + "\",\"password\":\"" + password + "\"}")
+                .getBytes(StandardCharsets.UTF_8));
+        final MockHttpServletResponse resp = new MockHttpServletResponse();
+        filter.doFilter(req, resp, new MockFilterChain());
+        return resp;
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2018 Geoff Bourne
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package me.itzg.spring.security.spa;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Geoff Bourne
+ * @since Oct 2026
+ */
+public class LoginRateLimiterTest {
+
+    private final LoginRateLimiter rateLimiter = new LoginRateLimiter(3, 0.5);
+
+    @After
+    public void tearDown() {
+        rateLimiter.destroy();
+    }
+
+    @Test
+    public void burstThenLimited() {
+        assertThat(rateLimiter.tryAcquire("a")).isZero();
+        assertThat(rateLimiter.tryAcquire("a")).isZero();
+        assertThat(rateLimiter.tryAcquire("a")).isZero();
+
+        assertThat(rateLimiter.tryAcquire("a")).isPositive();
+        // other clients are unaffected
+        assertThat(rateLimiter.tryAcquire("b")).isZero();
+        assertThat(rateLimiter.getTrackedClients()).isEqualTo(2);
+    }
+
+    @Test
+    public void evictsOnlyIdleBuckets() {
+        rateLimiter.tryAcquire("a");
+
+        rateLimiter.evictIdle();
+
+        assertThat(rateLimiter.getTrackedClients()).isEqualTo(1);
+    }
+
+    @Test
+    public void capsTrackedClients() {
+        rateLimiter.setMaxTrackedClients(2);
+        assertThat(rateLimiter.tryAcquire("a")).isZero();
+        assertThat(rateLimiter.tryAcquire("b")).isZero();
+
+        // neither bucket is idle yet, so a new client is limited rather than tracked
+        assertThat(rateLimiter.tryAcquire("c")).isPositive();
+        assertThat(rateLimiter.getTrackedClients()).isEqualTo(2);
+        assertThat(rateLimiter.tryAcquire("a")).isZero();
+    }
+
+    @Test
+    public void filterRespondsTooManyRequests() throws Exception {
+        final AtomicInteger authentications = new AtomicInteger();
+        final RequestBodyLoginFilter filter = new RequestBodyLoginFilter(authentication -> {
+            authentications.incrementAndGet();
+            return new TestingAuthenticationToken(authentication.getPrincipal(), null, "ROLE_USER");
+        }, new HttpMessageConverters(false,
+                Collections.singletonList(new MappingJackson2HttpMessageConverter())));
+        filter.setRateLimiter(new LoginRateLimiter(1, 0.001));
+        filter.afterPropertiesSet();
+
+        final MockHttpServletResponse first = new MockHttpServletResponse();
+        filter.doFilter(loginRequest(), first, new MockFilterChain());
+        assertThat(first.getStatus()).isEqualTo(200);
+
+        final MockHttpServletResponse second = new MockHttpServletResponse();
+        filter.doFilter(loginRequest(), second, new MockFilterChain());
+        assertThat(second.getStatus()).isEqualTo(RateLimitExceededFailureHandler.STATUS_CODE);
+        assertThat(Long.parseLong(second.getHeader("Retry-After"))).isBetween(999L, 1000L);
+
+        assertThat(authentications.get()).isEqualTo(1);
+    }
+
+    private static MockHttpServletRequest loginRequest() {
+        final MockHttpServletRequest req = new MockHttpServletRequest("POST", "/login");
+        req.setServletPath("/login");
+        req.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        req.setContent("{\"username\":\"user\",\"password\":\"password\"}".getBytes(StandardCharsets.UTF_8));
+        return req;
+    }
+}
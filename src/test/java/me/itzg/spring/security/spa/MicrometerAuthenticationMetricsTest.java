@@ -0,0 +1,139 @@
+/*
+ * Copyright 2018 Geoff Bourne
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package me.itzg.spring.security.spa;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.crypto.password.NoOpPasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+import static me.itzg.spring.security.spa.MicrometerAuthenticationMetrics.IN_FLIGHT_METER;
+import static me.itzg.spring.security.spa.MicrometerAuthenticationMetrics.OUTCOMES_METER;
+import static me.itzg.spring.security.spa.MicrometerAuthenticationMetrics.PHASES_METER;
+import static me.itzg.spring.security.spa.MicrometerAuthenticationMetrics.REQUESTS_METER;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Geoff Bourne
+ * @since Oct 2026
+ */
+public class MicrometerAuthenticationMetricsTest {
+
+    private static final AuthenticationManager authenticationManager = authentication -> {
+        if (!"password".equals(authentication.getCredentials())) {
+            throw new BadCredentialsException("Bad credentials");
+        }
+        return new UsernamePasswordAuthenticationToken(authentication.getPrincipal(), null,
+                AuthorityUtils.createAuthorityList("ROLE_USER"));
+    };
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    public void loginOutcomesAndPhases() throws Exception {
+        final RequestBodyLoginFilter filter = new RequestBodyLoginFilter(authenticationManager, converters());
+        filter.setMetrics(new MicrometerAuthenticationMetrics(registry));
+
+        filter.doFilter(request("/login", "password"), new MockHttpServletResponse(), new MockFilterChain());
+        filter.doFilter(request("/login", "wrong"), new MockHttpServletResponse(), new MockFilterChain());
+        filter.doFilter(request("/login", "wrong"), new MockHttpServletResponse(), new MockFilterChain());
+
+        assertThat(registry.get(REQUESTS_METER).tag("filter", "login").timer().count()).isEqualTo(3);
+        assertThat(registry.get(OUTCOMES_METER).tags("filter", "login", "outcome", "success")
+                .counter().count()).isEqualTo(1);
+        assertThat(registry.get(OUTCOMES_METER).tags("filter", "login", "outcome", "BadCredentialsException")
+                .counter().count()).isEqualTo(2);
+        assertThat(registry.get(PHASES_METER).tags("filter", "login", "phase", "parse").timer().count())
+                .isEqualTo(3);
+        assertThat(registry.get(PHASES_METER).tags("filter", "login", "phase", "authenticate").timer().count())
+                .isEqualTo(3);
+        assertThat(registry.get(PHASES_METER).tags("filter", "login", "phase", "success-handler").timer().count())
+                .isEqualTo(1);
+        assertThat(registry.get(PHASES_METER).tags("filter", "login", "phase", "failure-handler").timer().count())
+                .isEqualTo(2);
+        assertThat(registry.get(IN_FLIGHT_METER).tag("filter", "login").gauge().value()).isEqualTo(0);
+    }
+
+    @SuppressWarnings("deprecation")
+    @Test
+    public void registrationStagesAndFailureType() throws Exception {
+        final InMemoryUserDetailsManager userDetailsManager = new InMemoryUserDetailsManager(
+                User.withUsername("existing").password("password").roles("USER").build());
+        final RegistrationFilter filter = new RegistrationFilter(userDetailsManager, converters(),
+                NoOpPasswordEncoder.getInstance());
+        filter.setMetrics(new MicrometerAuthenticationMetrics(registry));
+
+        filter.doFilter(request("/register", "password"), new MockHttpServletResponse(), new MockFilterChain());
+
+        final MockHttpServletRequest existing = request("/register", "password");
+        existing.setContent("{\"username\":\"existing\",\"password\":\"password\"}".getBytes(StandardCharsets.UTF_8));
+        filter.doFilter(existing, new MockHttpServletResponse(), new MockFilterChain());
+
+        assertThat(registry.get(OUTCOMES_METER).tags("filter", "registration", "outcome", "success")
+                .counter().count()).isEqualTo(1);
+        assertThat(registry.get(OUTCOMES_METER).tags("filter", "registration", "outcome", "RegistrationFailedException")
+                .counter().count()).isEqualTo(1);
+        assertThat(registry.get(PHASES_METER).tags("filter", "registration", "phase", "exists-check")
+                .timer().count()).isEqualTo(2);
+        assertThat(registry.get(PHASES_METER).tags("filter", "registration", "phase", "encode")
+                .timer().count()).isEqualTo(1);
+        assertThat(registry.get(PHASES_METER).tags("filter", "registration", "phase", "create")
+                .timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void converterHelperCacheCounters() throws Exception {
+        final RequestBodyLoginFilter filter = new RequestBodyLoginFilter(authenticationManager, converters());
+        new MicrometerAuthenticationMetrics(registry).bindConverterHelper("login", filter.getConverterHelper());
+
+        filter.doFilter(request("/login", "password"), new MockHttpServletResponse(), new MockFilterChain());
+        filter.doFilter(request("/login", "password"), new MockHttpServletResponse(), new MockFilterChain());
+
+        assertThat(registry.get("spa.converter.cache.misses").tag("filter", "login").functionCounter().count())
+                .isEqualTo(1);
+        assertThat(registry.get("spa.converter.cache.hits").tag("filter", "login").functionCounter().count())
+                .isEqualTo(1);
+    }
+
+    private static HttpMessageConverters converters() {
+        return new HttpMessageConverters(false,
+                Collections.singletonList(new MappingJackson2HttpMessageConverter()));
+    }
+
+    private static MockHttpServletRequest request(String path, String password) {
+        final MockHttpServletRequest req = new MockHttpServletRequest("POST", path);
+        req.setServletPath(path);
+        req.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        req.setContent(("{\"username\":\"user\",\"password\":\"" + password + "\"}").getBytes(StandardCharsets.UTF_8));
+        return req;
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2018 Geoff Bourne
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package me.itzg.spring.security.spa;
+
+import org.junit.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * @author Geoff Bourne
+ * @since Oct 2026
+ */
+public class PasswordEncoderCalibratorTest {
+
+    @Test
+    public void choosesStrongestWithinBudget() {
+        final PasswordEncoderCalibration calibration = new PasswordEncoderCalibrator()
+                .setCandidates(4, 5, 6)
+                .setMaxLatency(60_000)
+                .setThreads(2)
+                .setSamples(2)
+                .calibrate();
+
+        assertThat(calibration.isBudgetMet()).isTrue();
+        assertThat(calibration.getParameter()).isEqualTo(6);
+        assertThat(calibration.getMeasurements()).extracting("parameter").containsExactly(4, 5, 6);
+        assertThat(calibration.getChosen().getP99Nanos())
+                .isGreaterThanOrEqualTo(calibration.getChosen().getMedianNanos());
+        assertThat(calibration.getChosen().getThroughput()).isPositive();
+
+        final PasswordEncoder encoder = calibration.createDelegatingPasswordEncoder();
+        assertThat(encoder.encode("password")).startsWith("{bcrypt}$2a$06$");
+        assertThat(encoder.matches("password", "{noop}password")).isTrue();
+    }
+
+    @Test
+    public void fallsBackToWeakestWhenOverBudget() {
+        final PasswordEncoderCalibration calibration = new PasswordEncoderCalibrator()
+                .setCandidates(4, 5, 6)
+                .setMinThroughput(Double.MAX_VALUE)
+                .setThreads(1)
+                .setSamples(1)
+                .calibrate();
+
+        assertThat(calibration.isBudgetMet()).isFalse();
+        assertThat(calibration.getParameter()).isEqualTo(4);
+        assertThat(calibration.getMeasurements()).hasSize(1);
+    }
+
+    @Test
+    public void measuresPinnedPbkdf2() {
+        final PasswordEncoderCalibration calibration = new PasswordEncoderCalibrator()
+                .setAlgorithm(PasswordEncoderCalibrator.Algorithm.PBKDF2)
+                .setCandidates(1_000)
+                .setMaxLatency(60_000)
+                .setThreads(1)
+                .setSamples(2)
+                .calibrate();
+
+        assertThat(calibration.getParameter()).isEqualTo(1_000);
+        final PasswordEncoder encoder = calibration.createPasswordEncoder();
+        assertThat(encoder.matches("password", encoder.encode("password"))).isTrue();
+    }
+
+    @Test
+    public void rejectsChoosingPbkdf2Iterations() {
+        final PasswordEncoderCalibrator calibrator = new PasswordEncoderCalibrator()
+                .setAlgorithm(PasswordEncoderCalibrator.Algorithm.PBKDF2);
+
+        assertThatThrownBy(calibrator::calibrate).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> calibrator.setCandidates(1_000, 2_000).calibrate())
+                .isInstanceOf(IllegalStateException.class);
+    }
+}
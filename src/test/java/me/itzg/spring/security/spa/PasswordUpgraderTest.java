@@ -0,0 +1,209 @@
+/*
+ * Copyright 2018 Geoff Bourne
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package me.itzg.spring.security.spa;
+
+import org.junit.Test;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.NoOpPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Geoff Bourne
+ * @since Oct 2026
+ */
+public class PasswordUpgraderTest {
+
+    @Test
+    public void testFormatPrefix() {
+        assertThat(PasswordUpgrader.formatPrefix("{bcrypt}$2a$10$abcdefghijklmnopqrstuv"))
+                .isEqualTo("{bcrypt}$2a$10$");
+        assertThat(PasswordUpgrader.formatPrefix("$2a$04$abcdefghijklmnopqrstuv")).isEqualTo("$2a$04$");
+        assertThat(PasswordUpgrader.formatPrefix("{noop}password")).isEqualTo("{noop}");
+        assertThat(PasswordUpgrader.formatPrefix("password")).isEqualTo("");
+    }
+
+    @Test
+    public void upgradesOutdatedStrength() throws InterruptedException {
+        final BCryptPasswordEncoder oldEncoder = new BCryptPasswordEncoder(4);
+        final BCryptPasswordEncoder newEncoder = new BCryptPasswordEncoder(5);
+        final InMemoryUserDetailsManager userDetailsManager = new InMemoryUserDetailsManager(
+                User.withUsername("user").password(oldEncoder.encode("password")).roles("USER").build());
+
+        final PasswordUpgrader upgrader = new PasswordUpgrader(userDetailsManager, newEncoder, 1, 10);
+        try {
+            assertThat(upgrader.submit(authenticated("user", null), "password")).isTrue();
+            waitForCompletion(upgrader, 1);
+
+            final UserDetails upgraded = userDetailsManager.loadUserByUsername("user");
+            assertThat(upgraded.getPassword()).startsWith("$2a$05$");
+            assertThat(newEncoder.matches("password", upgraded.getPassword())).isTrue();
+            assertThat(upgraded.getAuthorities()).extracting("authority").containsExactly("ROLE_USER");
+
+            // the principal's password shows it's current, so no further work is queued
+            assertThat(upgrader.submit(authenticated("user", upgraded.getPassword()), "password")).isTrue();
+            assertThat(upgrader.getSubmitted()).isEqualTo(1);
+        } finally {
+            upgrader.destroy();
+        }
+    }
+
+    @Test
+    public void loginFilterChecksCurrentHashWithoutReloading() throws Exception {
+        final BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(4);
+        final AtomicInteger loads = new AtomicInteger();
+        final InMemoryUserDetailsManager userDetailsManager = new InMemoryUserDetailsManager(
+                User.withUsername("user").password(encoder.encode("password")).roles("USER").build()) {
+            @Override
+            public UserDetails loadUserByUsername(String username) {
+                loads.incrementAndGet();
+                return super.loadUserByUsername(username);
+            }
+        };
+        final DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+        provider.setUserDetailsService(userDetailsManager);
+        provider.setPasswordEncoder(encoder);
+        final ProviderManager providerManager = new ProviderManager(Collections.singletonList(provider));
+
+        final PasswordUpgrader upgrader = new PasswordUpgrader(userDetailsManager, encoder, 1, 10);
+        try {
+            final RequestBodyLoginFilter filter = new RequestBodyLoginFilter(providerManager,
+                    new HttpMessageConverters(false,
+                            Collections.singletonList(new MappingJackson2HttpMessageConverter())));
+            filter.setPasswordUpgrader(upgrader);
+
+            providerManager.setEraseCredentialsAfterAuthentication(false);
+            final Authentication result = filter.attemptAuthentication(loginRequest(), new MockHttpServletResponse());
+            assertThat(upgrader.getSubmitted()).isEqualTo(0);
+            assertThat(loads.get()).isEqualTo(1);
+            assertThat(((UserDetails) result.getPrincipal()).getPassword()).isNull();
+
+            // with the default erasure, the stored password has to be loaded again
+            providerManager.setEraseCredentialsAfterAuthentication(true);
+            filter.attemptAuthentication(loginRequest(), new MockHttpServletResponse());
+            waitForCompletion(upgrader, 1);
+            assertThat(loads.get()).isEqualTo(3);
+        } finally {
+            upgrader.destroy();
+        }
+    }
+
+    @Test
+    public void keepsPasswordChangedSinceLogin() throws InterruptedException {
+        final BCryptPasswordEncoder oldEncoder = new BCryptPasswordEncoder(4);
+        final InMemoryUserDetailsManager userDetailsManager = new InMemoryUserDetailsManager(
+                User.withUsername("user").password(oldEncoder.encode("password")).roles("USER").build());
+
+        final PasswordUpgrader upgrader = new PasswordUpgrader(userDetailsManager, new BCryptPasswordEncoder(5), 1, 10);
+        try {
+            // reset by an administrator, also in the outdated format, after the login but before the upgrade
+            final String reset = oldEncoder.encode("reset");
+            userDetailsManager.updateUser(User.withUsername("user").password(reset).roles("USER").build());
+
+            assertThat(upgrader.submit(authenticated("user", null), "password")).isTrue();
+            waitForCompletion(upgrader, 1);
+
+            assertThat(userDetailsManager.loadUserByUsername("user").getPassword()).isEqualTo(reset);
+        } finally {
+            upgrader.destroy();
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    @Test
+    public void skipsWhenQueueIsFull() throws InterruptedException {
+        final CountDownLatch release = new CountDownLatch(1);
+        final InMemoryUserDetailsManager userDetailsManager = new InMemoryUserDetailsManager() {
+            @Override
+            public UserDetails loadUserByUsername(String username) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.loadUserByUsername(username);
+            }
+        };
+        userDetailsManager.createUser(User.withUsername("user").password("{noop}password").roles("USER").build());
+
+        final Map<String, PasswordEncoder> encoders = new HashMap<>();
+        encoders.put("bcrypt", new BCryptPasswordEncoder(4));
+        encoders.put("noop", NoOpPasswordEncoder.getInstance());
+        final PasswordUpgrader upgrader = new PasswordUpgrader(userDetailsManager,
+                new DelegatingPasswordEncoder("bcrypt", encoders), 1, 1);
+        try {
+            // one running, one queued, and then the rest are skipped
+            assertThat(upgrader.submit(authenticated("user", null), "password")).isTrue();
+            assertThat(upgrader.submit(authenticated("user", null), "password")).isTrue();
+            assertThat(upgrader.submit(authenticated("user", null), "password")).isFalse();
+            assertThat(upgrader.getRejected()).isEqualTo(1);
+
+            release.countDown();
+            waitForCompletion(upgrader, 2);
+            assertThat(upgrader.getFailed()).isEqualTo(0);
+            assertThat(userDetailsManager.loadUserByUsername("user").getPassword()).startsWith("{bcrypt}$2a$04$");
+        } finally {
+            upgrader.destroy();
+        }
+    }
+
+    private static MockHttpServletRequest loginRequest() {
+        final MockHttpServletRequest req = new MockHttpServletRequest("POST", "/login");
+        req.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        req.setContent("{\"username\":\"user\",\"password\":\"password\"}".getBytes(StandardCharsets.UTF_8));
+        return req;
+    }
+
+    private static UsernamePasswordAuthenticationToken authenticated(String username, String encodedPassword) {
+        final User principal = new User(username, encodedPassword != null ? encodedPassword : "",
+                Collections.emptyList());
+        if (encodedPassword == null) {
+            principal.eraseCredentials();
+        }
+        return new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+    }
+
+    private static void waitForCompletion(PasswordUpgrader upgrader, long expected) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (upgrader.getCompleted() + upgrader.getFailed() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(upgrader.getCompleted()).isEqualTo(expected);
+    }
+}
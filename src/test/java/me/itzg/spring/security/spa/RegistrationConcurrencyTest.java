@@ -0,0 +1,139 @@
+/*
+ * Copyright 2018 Geoff Bourne
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package me.itzg.spring.security.spa;
+
+import org.junit.Test;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Geoff Bourne
+ * @since Oct 2026
+ */
+public class RegistrationConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int ROUNDS = 20;
+
+    @Test
+    public void onlyOneConcurrentRegistrationOfUsernameSucceeds() throws Exception {
+        final AtomicInteger encodes = new AtomicInteger();
+        final AtomicInteger creates = new AtomicInteger();
+        final InMemoryUserDetailsManager userDetailsManager = new InMemoryUserDetailsManager() {
+            @Override
+            public void createUser(UserDetails user) {
+                creates.incrementAndGet();
+                super.createUser(user);
+            }
+        };
+        final RegistrationFilter filter = new RegistrationFilter(userDetailsManager,
+                new HttpMessageConverters(false,
+                        Collections.singletonList(new MappingJackson2HttpMessageConverter())),
+                new SlowPasswordEncoder(encodes));
+
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            for (int round = 0; round < ROUNDS; round++) {
+                final String username = "user-" + round;
+                final CountDownLatch start = new CountDownLatch(1);
+                final List<Future<Integer>> results = new ArrayList<>();
+                for (int i = 0; i < THREADS; i++) {
+                    results.add(executor.submit(() -> {
+                        final MockHttpServletResponse resp = new MockHttpServletResponse();
+                        start.await();
+                        filter.doFilter(request(username), resp, new MockFilterChain());
+                        return resp.getStatus();
+                    }));
+                }
+                start.countDown();
+
+                int created = 0;
+                for (Future<Integer> result : results) {
+                    final int status = result.get(10, TimeUnit.SECONDS);
+                    if (status == RegistrationFilter.STATUS_CODE) {
+                        created++;
+                    } else {
+                        assertThat(status).isEqualTo(SimpleAuthenticationFailureHandler.DEFAULT_STATUS_CODE);
+                    }
+                }
+                assertThat(created).as("registrations of %s", username).isEqualTo(1);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // losers of each race are rejected before paying for password encoding
+        assertThat(encodes.get()).isEqualTo(ROUNDS);
+        assertThat(creates.get()).isEqualTo(ROUNDS);
+    }
+
+    private static MockHttpServletRequest request(String username) {
+        final MockHttpServletRequest req = new MockHttpServletRequest("POST", "/register");
+        req.setServletPath("/register");
+        req.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        req.setContent(("{\"username\":\"" + username + "\",\"password\":\"password\"}")
+                .getBytes(StandardCharsets.UTF_8));
+        return req;
+    }
+
+    /**
+     * Widens the window between the existence check and user creation, like a real password hash would.
+     */
+    private static class SlowPasswordEncoder implements PasswordEncoder {
+        private final AtomicInteger encodes;
+
+        SlowPasswordEncoder(AtomicInteger encodes) {
+            this.encodes = encodes;
+        }
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            encodes.incrementAndGet();
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "{noop}" + rawPassword;
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return encodedPassword.equals("{noop}" + rawPassword);
+        }
+    }
+}
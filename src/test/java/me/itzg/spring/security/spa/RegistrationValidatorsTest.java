@@ -0,0 +1,109 @@
+/*
+ * Copyright 2018 Geoff Bourne
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package me.itzg.spring.security.spa;
+
+import me.itzg.spring.security.spa.RegistrationTimings.Stage;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Geoff Bourne
+ * @since Oct 2026
+ */
+public class RegistrationValidatorsTest {
+
+    private PasswordEncoder passwordEncoder;
+    private RegistrationFilter filter;
+
+    @Before
+    public void setUp() {
+        passwordEncoder = mock(PasswordEncoder.class);
+        when(passwordEncoder.encode(any())).thenReturn("encoded");
+
+        final InMemoryUserDetailsManager userDetailsManager = new InMemoryUserDetailsManager(
+                User.withUsername("user").password("password").roles("USER").build());
+        filter = new RegistrationFilter(userDetailsManager,
+                new HttpMessageConverters(false,
+                        Collections.singletonList(new MappingJackson2HttpMessageConverter())),
+                passwordEncoder);
+        filter.setValidators(
+                RegistrationValidators.lengthLimits(10, 4, 20),
+                RegistrationValidators.usernamePattern("[a-z-]+"));
+    }
+
+    @Test
+    public void existingUserIsNotEncoded() {
+        assertThatThrownBy(() -> register("user", "new-password"))
+                .isInstanceOf(RegistrationFailedException.class)
+                .hasMessage("Username is already in use");
+
+        verify(passwordEncoder, never()).encode(any());
+        assertThat(filter.getTimings().getCount(Stage.EXISTS_CHECK)).isEqualTo(1);
+        assertThat(filter.getTimings().getCount(Stage.ENCODE)).isZero();
+    }
+
+    @Test
+    public void invalidIsNotEncoded() {
+        assertThatThrownBy(() -> register("new-user-too-long", "password"))
+                .hasMessage("Username is too long");
+        assertThatThrownBy(() -> register("new-user", "pwd"))
+                .hasMessage("Password is too short");
+        assertThatThrownBy(() -> register("new_user", "password"))
+                .hasMessage("Username has an invalid format");
+
+        verify(passwordEncoder, never()).encode(any());
+        assertThat(filter.getTimings().getCount(Stage.VALIDATE)).isZero();
+    }
+
+    @Test
+    public void recordsAllStages() throws Exception {
+        register("new-user", "password");
+
+        verify(passwordEncoder).encode("password");
+        for (Stage stage : Stage.values()) {
+            assertThat(filter.getTimings().getCount(stage)).isEqualTo(1);
+        }
+        assertThat(filter.getUserDetailsManager().userExists("new-user")).isTrue();
+    }
+
+    private void register(String username, String password) throws Exception {
+        final MockHttpServletRequest req = new MockHttpServletRequest("POST", "/register");
+        req.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        req.setContent(("{\"username\":\"" + username + "\",\"password\":\"" + password + "\"}")
+                .getBytes(StandardCharsets.UTF_8));
+        filter.attemptAuthentication(req, new MockHttpServletResponse());
+    }
+}
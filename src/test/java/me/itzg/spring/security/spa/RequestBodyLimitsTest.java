@@ -0,0 +1,134 @@
+/*
+ * Copyright 2018 Geoff Bourne
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package me.itzg.spring.security.spa;
+
+import org.junit.Test;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.ServletException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Geoff Bourne
+ * @since Oct 2026
+ */
+public class RequestBodyLimitsTest {
+
+    private final AtomicInteger authentications = new AtomicInteger();
+    private final RequestBodyLimits limits = new RequestBodyLimits().setMaxBodyLength(64);
+    private final RequestBodyLoginFilter filter = createFilter();
+
+    private RequestBodyLoginFilter createFilter() {
+        final RequestBodyLoginFilter filter = new RequestBodyLoginFilter(authentication -> {
+            authentications.incrementAndGet();
+            return authentication;
+        }, new HttpMessageConverters(false, Collections.singletonList(new MappingJackson2HttpMessageConverter())));
+        filter.setRequestBodyLimits(limits);
+        return filter;
+    }
+
+    @Test
+    public void acceptsWithinLimits() throws IOException, ServletException {
+        final MockHttpServletResponse resp = login(request(MediaType.APPLICATION_JSON_VALUE, credentials()));
+
+        assertThat(resp.getStatus()).isEqualTo(200);
+        assertThat(authentications).hasValue(1);
+    }
+
+    @Test
+    public void rejectsBeforeReading() throws IOException, ServletException {
+        final MockHttpServletRequest tooLarge = request(MediaType.APPLICATION_JSON_VALUE, padded(100));
+        assertThat(login(tooLarge).getStatus()).isEqualTo(413);
+
+        assertThat(login(request(MediaType.TEXT_PLAIN_VALUE, credentials())).getStatus()).isEqualTo(415);
+        assertThat(login(request(null, credentials())).getStatus()).isEqualTo(415);
+        assertThat(login(request(MediaType.APPLICATION_JSON_VALUE, "")).getStatus()).isEqualTo(400);
+        final MockHttpServletRequest noBody = new MockHttpServletRequest("POST", "/login");
+        noBody.setServletPath("/login");
+        noBody.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        assertThat(login(noBody).getStatus()).isEqualTo(400);
+
+        assertThat(authentications).hasValue(0);
+        assertThat(limits.getRejections(RequestBodyLimits.Reason.TOO_LARGE)).isEqualTo(1);
+        assertThat(limits.getRejections(RequestBodyLimits.Reason.UNSUPPORTED_MEDIA_TYPE)).isEqualTo(2);
+        assertThat(limits.getRejections(RequestBodyLimits.Reason.MISSING_BODY)).isEqualTo(2);
+    }
+
+    @Test
+    public void stopsReadingChunkedBodyAtLimit() throws IOException, ServletException {
+        final MockHttpServletRequest chunked = new MockHttpServletRequest("POST", "/login") {
+            @Override
+            public long getContentLengthLong() {
+                return -1;
+            }
+        };
+        chunked.setServletPath("/login");
+        chunked.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        chunked.addHeader("Transfer-Encoding", "chunked");
+        chunked.setContent(padded(10_000).getBytes(StandardCharsets.UTF_8));
+
+        final MockHttpServletResponse resp = login(chunked);
+
+        assertThat(resp.getStatus()).isEqualTo(413);
+        assertThat(resp.getContentAsString()).isEqualTo(RequestBodyLimits.Reason.TOO_LARGE.getMessage());
+        assertThat(authentications).hasValue(0);
+        assertThat(limits.getRejections(RequestBodyLimits.Reason.TOO_LARGE)).isEqualTo(1);
+    }
+
+    @Test
+    public void testSetStatus() throws IOException, ServletException {
+        limits.setStatus(RequestBodyLimits.Reason.UNSUPPORTED_MEDIA_TYPE, 400);
+
+        assertThat(login(request(MediaType.TEXT_PLAIN_VALUE, credentials())).getStatus()).isEqualTo(400);
+    }
+
+    private MockHttpServletResponse login(MockHttpServletRequest req) throws IOException, ServletException {
+        final MockHttpServletResponse resp = new MockHttpServletResponse();
+        filter.doFilter(req, resp, new MockFilterChain());
+        return resp;
+    }
+
+    private static MockHttpServletRequest request(String contentType, String content) {
+        final MockHttpServletRequest req = new MockHttpServletRequest("POST", "/login");
+        req.setServletPath("/login");
+        req.setContentType(contentType);
+        req.setContent(content.getBytes(StandardCharsets.UTF_8));
+        return req;
+    }
+
+    private static String credentials() {
+        return "{\"username\":\"user\",\"password\":\"password\"}";
+    }
+
+    private static String padded(int passwordLength) {
+        final StringBuilder password = new StringBuilder();
+        for (int i = 0; i < passwordLength; i++) {
+            password.append('x');
+        }
+        return "{\"username\":\"user\",\"password\":\"" + password + "\"}";
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2018 Geoff Bourne
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package me.itzg.spring.security.spa;
+
+import org.junit.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Geoff Bourne
+ * @since Oct 2026
+ */
+public class SignedTokenCodecTest {
+
+    private static final byte[] SECRET = "0123456789abcdef0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    private static final Instant NOW = Instant.parse("2026-10-18T12:00:00Z");
+
+    private final Authentication authentication = new UsernamePasswordAuthenticationToken("user", null,
+            AuthorityUtils.createAuthorityList("ROLE_USER", "ROLE_ADMIN"));
+
+    @Test
+    public void roundTrip() {
+        final SignedTokenCodec codec = codecAt(NOW);
+
+        final Authentication decoded = codec.decode(codec.issue(authentication));
+
+        assertThat(decoded).isNotNull();
+        assertThat(decoded.isAuthenticated()).isTrue();
+        assertThat(decoded.getName()).isEqualTo("user");
+        assertThat(decoded.getAuthorities()).extracting("authority").containsExactly("ROLE_USER", "ROLE_ADMIN");
+
+        // cached verification returns a new instance, so changes made by one request don't leak into another
+        decoded.setAuthenticated(false);
+        final Authentication cached = codec.decode(
+                codec.encode(authentication, NOW.plus(SignedTokenCodec.DEFAULT_VALIDITY)));
+        assertThat(cached).isNotSameAs(decoded);
+        assertThat(cached.isAuthenticated()).isTrue();
+        assertThat(cached.getName()).isEqualTo("user");
+    }
+
+    @Test
+    public void rejectsTamperedAndForeignTokens() {
+        final SignedTokenCodec codec = codecAt(NOW);
+        final String token = codec.issue(authentication);
+
+        final char[] tampered = token.toCharArray();
+        tampered[3] = tampered[3] == 'A' ? 'B' : 'A';
+        assertThat(codec.decode(new String(tampered))).isNull();
+
+        final SignedTokenCodec other = new SignedTokenCodec(
+                "fedcba9876543210fedcba9876543210".getBytes(StandardCharsets.US_ASCII));
+        assertThat(other.decode(token)).isNull();
+
+        assertThat(codec.decode("garbage")).isNull();
+        assertThat(codec.decode("a.b")).isNull();
+    }
+
+    @Test
+    public void expires() {
+        final String token = codecAt(NOW).setValidity(Duration.ofMinutes(5)).issue(authentication);
+
+        assertThat(codecAt(NOW.plus(Duration.ofMinutes(4))).decode(token)).isNotNull();
+        assertThat(codecAt(NOW.plus(Duration.ofMinutes(5))).decode(token)).isNull();
+    }
+
+    @Test
+    public void filterAuthenticatesWithoutSession() throws Exception {
+        final SignedTokenCodec codec = codecAt(NOW);
+        final MockHttpServletResponse loginResp = new MockHttpServletResponse();
+        new SignedTokenSuccessHandler(200, codec).onAuthenticationSuccess(new MockHttpServletRequest(), loginResp,
+                authentication);
+        final String token = loginResp.getHeader(SignedTokenSuccessHandler.DEFAULT_HEADER_NAME);
+        assertThat(token).isNotNull();
+        assertThat(loginResp.getStatus()).isEqualTo(200);
+
+        final MockHttpServletRequest req = new MockHttpServletRequest("GET", "/resource");
+        req.addHeader(SignedTokenSuccessHandler.DEFAULT_HEADER_NAME, token);
+        final AtomicReference<Authentication> seen = new AtomicReference<>();
+        try {
+            new SignedTokenAuthenticationFilter(codec).doFilter(req, new MockHttpServletResponse(),
+                    new MockFilterChain() {
+                        @Override
+                        public void doFilter(javax.servlet.ServletRequest request,
+                                             javax.servlet.ServletResponse response) {
+                            seen.set(SecurityContextHolder.getContext().getAuthentication());
+                        }
+                    });
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+
+        assertThat(seen.get()).isNotNull();
+        assertThat(seen.get().getName()).isEqualTo("user");
+        assertThat(req.getSession(false)).isNull();
+    }
+
+    private static SignedTokenCodec codecAt(Instant now) {
+        return new SignedTokenCodec(SECRET).setClock(Clock.fixed(now, ZoneOffset.UTC));
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2018 Geoff Bourne
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package me.itzg.spring.security.spa;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.crypto.password.NoOpPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+import org.springframework.security.provisioning.UserDetailsManager;
+import org.springframework.security.test.context.TestSecurityContextHolder;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * @author Geoff Bourne
+ * @since Oct 2026
+ */
+@RunWith(SpringRunner.class)
+@TestPropertySource(properties = "logging.level.org.springframework.security=info")
+@WebMvcTest
+public class SignedTokenConfigurerTest {
+
+    @Autowired
+    MockMvc mvc;
+
+    @Configuration
+    public static class Config extends WebSecurityConfigurerAdapter {
+
+        @Override
+        protected void configure(HttpSecurity http) throws Exception {
+            http
+                    .authorizeRequests().anyRequest().fullyAuthenticated()
+                    .and().csrf().disable()
+                    .apply(new SinglePageAppConfigurer<>()).signedTokens(new SignedTokenCodec(
+                    "0123456789abcdef0123456789abcdef".getBytes(StandardCharsets.US_ASCII)));
+        }
+
+        @Override
+        protected void configure(AuthenticationManagerBuilder auth) throws Exception {
+            auth.userDetailsService(userDetailsManager()).passwordEncoder(passwordEncoder());
+        }
+
+        @Bean
+        public UserDetailsManager userDetailsManager() {
+            return new InMemoryUserDetailsManager(
+                    User.withUsername("user").password("password").roles("USER").build());
+        }
+
+        @SuppressWarnings("deprecation")
+        @Bean
+        public PasswordEncoder passwordEncoder() {
+            return NoOpPasswordEncoder.getInstance();
+        }
+    }
+
+    @Before
+    public void setUp() {
+        // the MockMvc security integration seeds each request from this holder, which other tests may have left populated
+        TestSecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void loginIssuesTokenThatAuthenticatesWithoutSession() throws Exception {
+        mvc.perform(get("/resource"))
+                .andExpect(status().isForbidden());
+
+        final MvcResult login = mvc.perform(post("/login").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"username\":\"user\",\"password\":\"password\"}"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(SignedTokenSuccessHandler.DEFAULT_HEADER_NAME))
+                .andReturn();
+        assertThat(login.getRequest().getSession(false)).isNull();
+
+        final String token = login.getResponse().getHeader(SignedTokenSuccessHandler.DEFAULT_HEADER_NAME);
+
+        // no controllers are present, so an authenticated request gets as far as not found
+        final MvcResult resource = mvc.perform(get("/resource")
+                .header(SignedTokenSuccessHandler.DEFAULT_HEADER_NAME, token))
+                .andExpect(status().isNotFound())
+                .andReturn();
+        assertThat(resource.getRequest().getSession(false)).isNull();
+    }
+}
@@ -17,8 +17,10 @@
 package me.itzg.spring.security.spa;
 
 import org.junit.Test;
+import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.InsufficientAuthenticationException;
 
 import javax.servlet.ServletException;
@@ -58,4 +60,60 @@ public class SimpleAuthenticationFailureHandlerTest {
 
         assertThat(resp.getStatus()).isEqualTo(400);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void writesBodyWithContentLength() throws IOException, ServletException {
+        final SimpleAuthenticationFailureHandler handler = new SimpleAuthenticationFailureHandler();
+
+        final MockHttpServletResponse resp = new MockHttpServletResponse();
+
+        handler.onAuthenticationFailure(new MockHttpServletRequest("POST", "/login"),
+                resp,
+                new BadCredentialsException("Bad credentials"));
+
+        assertThat(resp.getContentAsString()).isEqualTo("Bad credentials");
+        assertThat(resp.getContentLength()).isEqualTo("Bad credentials".length());
+        assertThat(resp.getContentType()).startsWith(MediaType.TEXT_PLAIN_VALUE);
+    }
+
+    @Test
+    public void testJsonBody() throws IOException, ServletException {
+        final SimpleAuthenticationFailureHandler handler = new SimpleAuthenticationFailureHandler()
+                .setJsonBody(true)
+                .setStatus(400);
+
+        final MockHttpServletResponse resp = new MockHttpServletResponse();
+
+        handler.onAuthenticationFailure(new MockHttpServletRequest("POST", "/login"),
+                resp,
+                new BadCredentialsException("Unknown \"user\" \u00e9"));
+
+        assertThat(resp.getStatus()).isEqualTo(400);
+        assertThat(resp.getContentType()).isEqualTo(MediaType.APPLICATION_JSON_UTF8_VALUE);
+        assertThat(resp.getContentAsString())
+                .isEqualTo("{\"status\":400,\"message\":\"Unknown \\\"user\\\" \u00e9\"}");
+        assertThat(resp.getContentLength()).isEqualTo(resp.getContentAsByteArray().length);
+    }
+
+    @Test
+    public void knownMessagesIncludeLibraryMessages() {
+        assertThat(SimpleAuthenticationFailureHandler.KNOWN_MESSAGES)
+                .contains(RequestBodyLoginFilter.BAD_CREDENTIALS,
+                        RequestBodyLoginFilter.INVALID_BODY,
+                        AbstractCredentialsFilter.MISSING_USERNAME,
+                        AbstractCredentialsFilter.MISSING_PASSWORD,
+                        AbstractCredentialsFilter.TOO_MANY_ATTEMPTS,
+                        TooManyFailedLoginsException.MESSAGE,
+                        RegistrationFilter.INVALID_CONTENT,
+                        RegistrationFilter.UNEXPECTED_FAILURE,
+                        RegistrationFilter.USERNAME_IN_USE,
+                        RegistrationValidators.USERNAME_TOO_LONG,
+                        RegistrationValidators.USERNAME_INVALID_FORMAT,
+                        RegistrationValidators.PASSWORD_TOO_SHORT,
+                        RegistrationValidators.PASSWORD_TOO_LONG)
+                .containsAll(StreamingCredentialsParser.MESSAGES);
+        for (RequestBodyLimits.Reason reason : RequestBodyLimits.Reason.values()) {
+            assertThat(SimpleAuthenticationFailureHandler.KNOWN_MESSAGES).contains(reason.getMessage());
+        }
+    }
+}
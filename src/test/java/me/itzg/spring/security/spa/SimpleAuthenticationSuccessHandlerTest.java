@@ -17,12 +17,16 @@
 package me.itzg.spring.security.spa;
 
 import org.junit.Test;
+import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
 
 import javax.servlet.ServletException;
 import java.io.IOException;
+import java.util.Collections;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -43,4 +47,29 @@ public class SimpleAuthenticationSuccessHandlerTest {
 
         assertThat(resp.getStatus()).isEqualTo(200);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testJsonBody() throws IOException, ServletException {
+        final UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                "user \"one\"", null, AuthorityUtils.createAuthorityList("ROLE_USER", "ROLE_ADMIN"));
+        authentication.setDetails(Collections.singletonMap("tenant", "acme"));
+
+        MockHttpServletResponse resp = new MockHttpServletResponse();
+        new SimpleAuthenticationSuccessHandler(201).setJsonBody(new AuthenticationJsonWriter())
+                .onAuthenticationSuccess(new MockHttpServletRequest("POST", "/login"), resp, authentication);
+
+        assertThat(resp.getStatus()).isEqualTo(201);
+        assertThat(resp.getContentType()).isEqualTo(MediaType.APPLICATION_JSON_UTF8_VALUE);
+        assertThat(resp.getContentAsString())
+                .isEqualTo("{\"name\":\"user \\\"one\\\"\",\"authorities\":[\"ROLE_USER\",\"ROLE_ADMIN\"]}");
+        assertThat(resp.getContentLength()).isEqualTo(resp.getContentAsByteArray().length);
+
+        resp = new MockHttpServletResponse();
+        new SimpleAuthenticationSuccessHandler(200).setJsonBody(new AuthenticationJsonWriter()
+                .setIncludeAuthorities(false).setIncludeDetails(true))
+                .onAuthenticationSuccess(new MockHttpServletRequest("POST", "/login"), resp, authentication);
+
+        assertThat(resp.getContentAsString())
+                .isEqualTo("{\"name\":\"user \\\"one\\\"\",\"details\":{\"tenant\":\"acme\"}}");
+    }
+}
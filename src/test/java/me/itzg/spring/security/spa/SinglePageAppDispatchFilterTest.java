@@ -0,0 +1,102 @@
+/*
+ * Copyright 2018 Geoff Bourne
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package me.itzg.spring.security.spa;
+
+import org.junit.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.filter.GenericFilterBean;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Geoff Bourne
+ * @since Oct 2026
+ */
+public class SinglePageAppDispatchFilterTest {
+
+    private static final int PASSED_THROUGH = -1;
+
+    private final SinglePageAppDispatchFilter dispatchFilter = new SinglePageAppDispatchFilter()
+            .addEndpoint(new ExactPathRequestMatcher("/login", "POST"), respondWith(200))
+            .addEndpoint(new ExactPathRequestMatcher("/register", "POST"), respondWith(201))
+            .addEndpoint(new ExactPathRequestMatcher("/tenants/*/register", "POST"), respondWith(202));
+
+    @Test
+    public void dispatchesExactPaths() throws IOException, ServletException {
+        assertThat(dispatch("POST", "/login")).isEqualTo(200);
+        assertThat(dispatch("POST", "/register")).isEqualTo(201);
+    }
+
+    @Test
+    public void fallsBackToPatterns() throws IOException, ServletException {
+        assertThat(dispatch("POST", "/tenants/acme/register")).isEqualTo(202);
+    }
+
+    @Test
+    public void passesThroughOtherRequests() throws IOException, ServletException {
+        assertThat(dispatch("GET", "/login")).isEqualTo(PASSED_THROUGH);
+        assertThat(dispatch("POST", "/login/other")).isEqualTo(PASSED_THROUGH);
+        assertThat(dispatch("POST", "/Login")).isEqualTo(PASSED_THROUGH);
+        assertThat(dispatch("GET", "/static/app.js")).isEqualTo(PASSED_THROUGH);
+    }
+
+    @Test
+    public void matchesServletPathAndPathInfo() {
+        final ExactPathRequestMatcher matcher = new ExactPathRequestMatcher("/api/login", "POST");
+        assertThat(matcher.isPatternMatching()).isFalse();
+
+        final MockHttpServletRequest req = new MockHttpServletRequest("POST", "/api/login");
+        req.setServletPath("/api");
+        req.setPathInfo("/login");
+        assertThat(matcher.matches(req)).isTrue();
+
+        assertThat(new ExactPathRequestMatcher("/api/**", "POST").isPatternMatching()).isTrue();
+    }
+
+    /**
+     * @return the status set by the endpoint filter or {@link #PASSED_THROUGH} if the request continued down the chain
+     */
+    private int dispatch(String method, String path) throws IOException, ServletException {
+        final MockHttpServletRequest req = new MockHttpServletRequest(method, path);
+        req.setServletPath(path);
+        final MockHttpServletResponse resp = new MockHttpServletResponse();
+        final MockFilterChain chain = new MockFilterChain();
+
+        dispatchFilter.doFilter(req, resp, chain);
+
+        return chain.getRequest() != null ? PASSED_THROUGH : resp.getStatus();
+    }
+
+    private static Filter respondWith(int status) {
+        return new GenericFilterBean() {
+            @Override
+            public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) {
+                ((HttpServletResponse) response).setStatus(status);
+            }
+        };
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2018 Geoff Bourne
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package me.itzg.spring.security.spa;
+
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.BadCredentialsException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * @author Geoff Bourne
+ * @since Oct 2026
+ */
+public class StreamingCredentialsParserTest {
+
+    private static final byte[] USERNAME_FIELD = "username\":\"".getBytes(StandardCharsets.UTF_8);
+
+    private final StreamingCredentialsParser parser = new StreamingCredentialsParser(16, 256);
+
+    @Test
+    public void parsesCredentials() throws IOException {
+        final Credentials credentials = parse("{\n  \"username\": \"user\",\n  \"password\": \"p\\u00e4ss\\\"w\\\\rd\"\n}");
+
+        assertThat(credentials.getUsername()).isEqualTo("user");
+        assertThat(credentials.getPassword()).isEqualTo("päss\"w\\rd");
+    }
+
+    @Test
+    public void decodesMultiByteUtf8() throws IOException {
+        final Credentials credentials = parse("{\"password\":\"ü€😀\",\"username\":\"u\"}");
+
+        assertThat(credentials.getUsername()).isEqualTo("u");
+        assertThat(credentials.getPassword()).isEqualTo("ü€😀");
+    }
+
+    @Test
+    public void emptyAndNullFields() throws IOException {
+        assertThat(parse("")).isNull();
+
+        final Credentials empty = parse("{}");
+        assertThat(empty.getUsername()).isNull();
+        assertThat(empty.getPassword()).isNull();
+
+        final Credentials nulls = parse("{\"username\":null,\"password\":\"\"}");
+        assertThat(nulls.getUsername()).isNull();
+        assertThat(nulls.getPassword()).isEmpty();
+    }
+
+    @Test
+    public void rejectsMalformed() {
+        assertRejected("{\"username\":\"user\",\"role\":\"ADMIN\"}", "Unknown field");
+        assertRejected("{\"usernames\":\"user\"}", "Unknown field");
+        assertRejected("{\"username\":\"a\",\"username\":\"b\"}", "Duplicate field");
+        assertRejected("{\"username\":\"01234567890123456\"}", "Field value is too long");
+        assertRejected("{\"username\":1}", "Field values must be strings");
+        assertRejected("{\"username\":\"user\"", "Expected ',' or '}'");
+        assertRejected("{\"username\":\"user} ", "Unterminated string");
+        assertRejected("{} {}", "Unexpected content after JSON object");
+        assertRejected("[]", "Request body must be a JSON object");
+    }
+
+    @Test
+    public void rejectsInvalidUtf8() {
+        // overlong NUL, overlong '/', encoded surrogate, beyond U+10FFFF and a stray continuation byte
+        assertRejected(new byte[]{(byte) 0xC0, (byte) 0x80}, "Malformed UTF-8");
+        assertRejected(new byte[]{(byte) 0xE0, (byte) 0x80, (byte) 0xAF}, "Malformed UTF-8");
+        assertRejected(new byte[]{(byte) 0xED, (byte) 0xA0, (byte) 0x80}, "Malformed UTF-8");
+        assertRejected(new byte[]{(byte) 0xF4, (byte) 0x90, (byte) 0x80, (byte) 0x80}, "Malformed UTF-8");
+        assertRejected(new byte[]{(byte) 0x80}, "Malformed UTF-8");
+    }
+
+    @Test
+    public void rejectsOversizedBody() {
+        final StringBuilder body = new StringBuilder("{");
+        for (int i = 0; i < 300; i++) {
+            body.append(' ');
+        }
+        body.append('}');
+
+        assertRejected(body.toString(), "Request body is too large");
+    }
+
+    @Test
+    public void supportedContentTypes() {
+        assertThat(StreamingCredentialsParser.supportsContentType("application/json")).isTrue();
+        assertThat(StreamingCredentialsParser.supportsContentType("application/json;charset=UTF-8")).isTrue();
+        assertThat(StreamingCredentialsParser.supportsContentType("Application/JSON; charset=\"utf-8\"")).isTrue();
+        assertThat(StreamingCredentialsParser.supportsContentType("application/json;charset=ISO-8859-1")).isFalse();
+        assertThat(StreamingCredentialsParser.supportsContentType("application/jsonx")).isFalse();
+        assertThat(StreamingCredentialsParser.supportsContentType("text/plain")).isFalse();
+        assertThat(StreamingCredentialsParser.supportsContentType(null)).isFalse();
+    }
+
+    @Test
+    public void parsesRequest() throws IOException {
+        final MockHttpServletRequest req = new MockHttpServletRequest("POST", "/login");
+        req.setContentType("application/json");
+        req.setContent("{\"username\":\"user\",\"password\":\"password\"}".getBytes(StandardCharsets.UTF_8));
+
+        assertThat(parser.supports(req)).isTrue();
+        assertThat(parser.parse(req).getPassword()).isEqualTo("password");
+    }
+
+    private Credentials parse(String body) throws IOException {
+        return parser.parse(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private void assertRejected(byte[] value, String message) {
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.write('{');
+        body.write('"');
+        body.write(USERNAME_FIELD, 0, USERNAME_FIELD.length);
+        body.write(value, 0, value.length);
+        body.write('"');
+        body.write('}');
+        assertThatThrownBy(() -> parser.parse(new ByteArrayInputStream(body.toByteArray())))
+                .isInstanceOf(BadCredentialsException.class)
+                .hasMessage(message);
+    }
+
+    private void assertRejected(String body, String message) {
+        assertThatThrownBy(() -> parse(body))
+                .isInstanceOf(BadCredentialsException.class)
+                .hasMessage(message);
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2018 Geoff Bourne
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package me.itzg.spring.security.spa;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
+import org.springframework.security.crypto.password.NoOpPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+import org.springframework.security.provisioning.UserDetailsManager;
+import org.springframework.security.test.context.TestSecurityContextHolder;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * @author Geoff Bourne
+ * @since Oct 2026
+ */
+@RunWith(SpringRunner.class)
+@TestPropertySource(properties = "logging.level.org.springframework.security=info")
+@WebMvcTest
+public class UserDetailsCacheConfigurerTest {
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    CachingUserDetailsManager userDetailsCache;
+
+    @Configuration
+    public static class Config extends WebSecurityConfigurerAdapter {
+
+        @Override
+        protected void configure(HttpSecurity http) throws Exception {
+            http
+                    .authorizeRequests().anyRequest().fullyAuthenticated()
+                    .and().csrf().disable()
+                    .apply(new SinglePageAppConfigurer<>()).userDetailsCache(userDetailsCache());
+        }
+
+        @Override
+        protected void configure(AuthenticationManagerBuilder auth) throws Exception {
+            auth.userDetailsService(userDetailsManager()).passwordEncoder(passwordEncoder());
+        }
+
+        @Bean
+        public UserDetailsManager userDetailsManager() {
+            return new InMemoryUserDetailsManager();
+        }
+
+        @Bean
+        public CachingUserDetailsManager userDetailsCache() {
+            return new CachingUserDetailsManager(userDetailsManager(), 100, 60_000);
+        }
+
+        @SuppressWarnings("deprecation")
+        @Bean
+        public PasswordEncoder passwordEncoder() {
+            return NoOpPasswordEncoder.getInstance();
+        }
+    }
+
+    @Before
+    public void setUp() {
+        TestSecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void loginsAreServedFromCacheAfterRegistration() throws Exception {
+        final String credentials = "{\"username\":\"user\",\"password\":\"password\"}";
+
+        mvc.perform(post("/login").contentType(MediaType.APPLICATION_JSON).content(credentials))
+                .andExpect(status().isUnauthorized());
+        mvc.perform(post("/register").contentType(MediaType.APPLICATION_JSON).content(credentials))
+                .andExpect(status().isCreated());
+        for (int i = 0; i < 3; i++) {
+            mvc.perform(post("/login").contentType(MediaType.APPLICATION_JSON).content(credentials))
+                    .andExpect(status().isOk());
+        }
+        mvc.perform(post("/login").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"username\":\"user\",\"password\":\"wrong\"}"))
+                .andExpect(status().isUnauthorized());
+
+        // the registration's existence check hits the negative entry, and the registration invalidates it,
+        // so only the first login of each state reaches the user store
+        assertThat(userDetailsCache.getMisses()).isEqualTo(2);
+        assertThat(userDetailsCache.getHits()).isEqualTo(4);
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2018 Geoff Bourne
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package me.itzg.spring.security.spa;
+
+import org.junit.Test;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+import org.springframework.security.provisioning.UserDetailsManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Geoff Bourne
+ * @since Oct 2026
+ */
+public class UsernameIndexTest {
+
+    @Test
+    public void noFalseNegativesAcrossGrowth() {
+        final UsernameIndex index = new UsernameIndex(100, 0.01);
+        for (int i = 0; i < 5_000; i++) {
+            index.add("user-" + i);
+        }
+
+        assertThat(index.getSliceCount()).isGreaterThan(1);
+        for (int i = 0; i < 5_000; i++) {
+            assertThat(index.mightContain("user-" + i)).isTrue();
+        }
+        assertThat(index.mightContain("USER-42")).isTrue();
+    }
+
+    @Test
+    public void falsePositiveRateStaysBounded() {
+        final UsernameIndex index = new UsernameIndex(100, 0.01);
+        for (int i = 0; i < 5_000; i++) {
+            index.add("user-" + i);
+        }
+
+        int falsePositives = 0;
+        final int probes = 20_000;
+        for (int i = 0; i < probes; i++) {
+            if (index.mightContain("absent-" + i)) {
+                falsePositives++;
+            }
+        }
+        assertThat((double) falsePositives / probes).isLessThan(0.03);
+    }
+
+    @Test
+    public void managerSkipsDelegateForUnknownUsers() {
+        final UserDetailsManager delegate = spy(new InMemoryUserDetailsManager(
+                User.withUsername("user").password("{noop}password").roles("USER").build()));
+        final IndexedUserDetailsManager manager = new IndexedUserDetailsManager(delegate,
+                new UsernameIndex().addAll(Collections.singletonList("user")));
+
+        assertThat(manager.userExists("new-user")).isFalse();
+        verify(delegate, never()).userExists("new-user");
+        assertThat(manager.userExists("user")).isTrue();
+
+        manager.createUser(User.withUsername("new-user").password("{noop}password").roles("USER").build());
+        assertThat(manager.userExists("new-user")).isTrue();
+        assertThat(manager.getSkippedQueries()).isEqualTo(1);
+        assertThat(manager.getDelegatedQueries()).isEqualTo(2);
+    }
+
+    @Test
+    public void managerCreatesBatchesAllOrNone() {
+        final BatchUserDetailsManager batchDelegate = mock(BatchUserDetailsManager.class);
+        final IndexedUserDetailsManager batchManager = new IndexedUserDetailsManager(batchDelegate, new UsernameIndex());
+        final List<UserDetails> users = Arrays.asList(
+                User.withUsername("u1").password("{noop}password").roles("USER").build(),
+                User.withUsername("u2").password("{noop}password").roles("USER").build());
+
+        batchManager.createUsers(users);
+        verify(batchDelegate).createUsers(users);
+        assertThat(batchManager.getUsernameIndex().mightContain("u2")).isTrue();
+
+        final InMemoryUserDetailsManager delegate = new InMemoryUserDetailsManager(
+                User.withUsername("u2").password("{noop}password").roles("USER").build());
+        final IndexedUserDetailsManager manager = new IndexedUserDetailsManager(delegate, new UsernameIndex());
+
+        assertThatThrownBy(() -> manager.createUsers(users)).isInstanceOf(IllegalArgumentException.class);
+        assertThat(delegate.userExists("u1")).isFalse();
+    }
+
+    @Test
+    public void loginRejectsUnknownUserWithDummyMatch() {
+        final AuthenticationManager authenticationManager = mock(AuthenticationManager.class);
+        final PasswordEncoder passwordEncoder = mock(PasswordEncoder.class);
+        when(passwordEncoder.encode(anyString())).thenReturn("dummy");
+
+        final RequestBodyLoginFilter filter = new RequestBodyLoginFilter(authenticationManager,
+                new HttpMessageConverters(false,
+                        Collections.singletonList(new MappingJackson2HttpMessageConverter())));
+        filter.setUsernameIndex(new UsernameIndex().addAll(Arrays.asList("user", "other")), passwordEncoder);
+
+        final MockHttpServletRequest req = new MockHttpServletRequest("POST", "/login");
+        req.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        req.setContent("{\"username\":\"nobody\",\"password\":\"password\"}".getBytes(StandardCharsets.UTF_8));
+
+        assertThatThrownBy(() -> filter.attemptAuthentication(req, new MockHttpServletResponse()))
+                .isInstanceOf(BadCredentialsException.class);
+        verify(passwordEncoder).matches("password", "dummy");
+        verify(authenticationManager, never()).authenticate(any());
+    }
+}
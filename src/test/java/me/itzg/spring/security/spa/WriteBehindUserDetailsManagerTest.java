@@ -0,0 +1,292 @@
+/*
+ * Copyright 2018 Geoff Bourne
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package me.itzg.spring.security.spa;
+
+import me.itzg.spring.security.spa.WriteBehindUserDetailsManager.Durability;
+import org.junit.Test;
+import org.springframework.security.core.CredentialsContainer;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * @author Geoff Bourne
+ * @since Oct 2026
+ */
+public class WriteBehindUserDetailsManagerTest {
+
+    @Test
+    public void groupsConcurrentCreatesIntoBatches() throws Exception {
+        final AtomicInteger delegateCalls = new AtomicInteger();
+        final CompactUserDetailsManager delegate = new CompactUserDetailsManager() {
+            @Override
+            public void createUsers(List<UserDetails> newUsers) {
+                delegateCalls.incrementAndGet();
+                super.createUsers(newUsers);
+            }
+
+            @Override
+            public void createUser(UserDetails user) {
+                delegateCalls.incrementAndGet();
+                super.createUser(user);
+            }
+        };
+        final WriteBehindUserDetailsManager manager = new WriteBehindUserDetailsManager(delegate, 100)
+                .setMaxDelay(50);
+        final ExecutorService executor = Executors.newFixedThreadPool(20);
+        try {
+            final List<Future<?>> registrations = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                final UserDetails user = user("user" + i);
+                registrations.add(executor.submit(() -> manager.createUser(user)));
+            }
+            for (Future<?> registration : registrations) {
+                registration.get(5, TimeUnit.SECONDS);
+            }
+
+            // committed durability, so all are in the delegate once the calls return
+            assertThat(delegate.size()).isEqualTo(20);
+            assertThat(manager.getCreated()).isEqualTo(20);
+            assertThat(manager.getBatches()).isLessThan(20).isEqualTo(delegateCalls.get());
+        } finally {
+            executor.shutdownNow();
+            manager.destroy();
+        }
+    }
+
+    @Test
+    public void answersFromQueueUntilFlushed() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final CompactUserDetailsManager delegate = new CompactUserDetailsManager() {
+            @Override
+            public void createUser(UserDetails user) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                super.createUser(user);
+            }
+        };
+        final WriteBehindUserDetailsManager manager = new WriteBehindUserDetailsManager(delegate, 10)
+                .setDurability(Durability.ENQUEUED);
+        try {
+            manager.createUser(user("queued"));
+
+            assertThat(delegate.userExists("queued")).isFalse();
+            assertThat(manager.userExists("queued")).isTrue();
+            final UserDetails loaded = manager.loadUserByUsername("queued");
+            ((CredentialsContainer) loaded).eraseCredentials();
+            assertThat(manager.loadUserByUsername("queued").getPassword()).isEqualTo("{noop}password");
+            assertThatThrownBy(() -> manager.createUser(user("queued")))
+                    .isInstanceOf(IllegalArgumentException.class);
+
+            release.countDown();
+            manager.flush();
+            assertThat(delegate.userExists("queued")).isTrue();
+            assertThat(manager.getQueued()).isZero();
+        } finally {
+            release.countDown();
+            manager.destroy();
+        }
+    }
+
+    @Test
+    public void queuesBatchesTogetherAllOrNone() throws Exception {
+        final AtomicInteger delegateBatches = new AtomicInteger();
+        final CompactUserDetailsManager delegate = new CompactUserDetailsManager() {
+            @Override
+            public void createUsers(List<UserDetails> newUsers) {
+                delegateBatches.incrementAndGet();
+                super.createUsers(newUsers);
+            }
+        };
+        delegate.createUser(user("taken"));
+        final WriteBehindUserDetailsManager manager = new WriteBehindUserDetailsManager(delegate, 10)
+                .setMaxBatchSize(3)
+                .setMaxDelay(60_000);
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            // a full batch is flushed without waiting out the delay
+            executor.submit(() -> manager.createUsers(Arrays.asList(user("a"), user("b"), user("c"))))
+                    .get(5, TimeUnit.SECONDS);
+            assertThat(delegateBatches).hasValue(1);
+            assertThat(delegate.userExists("c")).isTrue();
+
+            manager.setMaxBatchSize(2);
+            final Future<?> failing = executor.submit(
+                    () -> manager.createUsers(Arrays.asList(user("d"), user("taken"))));
+            assertThatThrownBy(() -> failing.get(5, TimeUnit.SECONDS))
+                    .hasCauseInstanceOf(IllegalArgumentException.class);
+            assertThat(delegate.userExists("d")).isFalse();
+            assertThat(manager.getQueued()).isZero();
+        } finally {
+            executor.shutdownNow();
+            manager.destroy();
+        }
+    }
+
+    @Test
+    public void keepsQueuedPrincipalTypes() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final CompactUserDetailsManager delegate = new CompactUserDetailsManager() {
+            @Override
+            public void createUser(UserDetails user) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                super.createUser(user);
+            }
+        };
+        final WriteBehindUserDetailsManager manager = new WriteBehindUserDetailsManager(delegate, 10)
+                .setDurability(Durability.ENQUEUED);
+        try {
+            final UserDetails principal = new Principal(user("custom"));
+            manager.createUser(principal);
+            assertThat(manager.loadUserByUsername("custom")).isSameAs(principal);
+
+            // can't be copied as its own class, so waits to be loaded from the delegate
+            manager.createUser(new ErasablePrincipal(user("erasable")));
+            new Thread(release::countDown).start();
+            assertThat(manager.loadUserByUsername("erasable").getUsername()).isEqualTo("erasable");
+            assertThat(delegate.userExists("erasable")).isTrue();
+        } finally {
+            release.countDown();
+            manager.destroy();
+        }
+    }
+
+    @Test
+    public void reportsFailureWhenCommitted() throws InterruptedException {
+        final CompactUserDetailsManager delegate = new CompactUserDetailsManager();
+        delegate.createUser(user("taken"));
+        final WriteBehindUserDetailsManager manager = new WriteBehindUserDetailsManager(delegate, 10);
+        try {
+            assertThatThrownBy(() -> manager.createUser(user("taken")))
+                    .isInstanceOf(IllegalArgumentException.class);
+            assertThat(manager.getFailed()).isEqualTo(1);
+            assertThat(manager.getQueued()).isZero();
+        } finally {
+            manager.destroy();
+        }
+    }
+
+    @Test
+    public void createsRacingWithDestroyStillFinish() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            for (int round = 0; round < 20; round++) {
+                final CompactUserDetailsManager delegate = new CompactUserDetailsManager();
+                final WriteBehindUserDetailsManager manager = new WriteBehindUserDetailsManager(delegate, 1000);
+                final List<Future<?>> registrations = new ArrayList<>();
+                for (int i = 0; i < 200; i++) {
+                    final UserDetails user = user("user" + i);
+                    registrations.add(executor.submit(() -> {
+                        try {
+                            manager.createUser(user);
+                        } catch (IllegalStateException e) {
+                            // destroyed first
+                        }
+                    }));
+                }
+                manager.destroy();
+
+                // each create is either rejected or committed, rather than waiting on a flusher that has exited
+                for (Future<?> registration : registrations) {
+                    registration.get(5, TimeUnit.SECONDS);
+                }
+                assertThat(manager.getQueued()).isZero();
+                assertThat((long) delegate.size()).isEqualTo(manager.getCreated());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static class Principal implements UserDetails {
+        final UserDetails user;
+
+        Principal(UserDetails user) {
+            this.user = user;
+        }
+
+        @Override
+        public Collection<? extends GrantedAuthority> getAuthorities() {
+            return user.getAuthorities();
+        }
+
+        @Override
+        public String getPassword() {
+            return user.getPassword();
+        }
+
+        @Override
+        public String getUsername() {
+            return user.getUsername();
+        }
+
+        @Override
+        public boolean isAccountNonExpired() {
+            return true;
+        }
+
+        @Override
+        public boolean isAccountNonLocked() {
+            return true;
+        }
+
+        @Override
+        public boolean isCredentialsNonExpired() {
+            return true;
+        }
+
+        @Override
+        public boolean isEnabled() {
+            return true;
+        }
+    }
+
+    private static class ErasablePrincipal extends Principal implements CredentialsContainer {
+        ErasablePrincipal(UserDetails user) {
+            super(user);
+        }
+
+        @Override
+        public void eraseCredentials() {
+        }
+    }
+
+    private static UserDetails user(String username) {
+        return User.withUsername(username).password("{noop}password").roles("USER").build();
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2018 Geoff Bourne
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package me.itzg.spring.security.spa.autoconfigure;
+
+import me.itzg.spring.security.spa.RegistrationFilter;
+import me.itzg.spring.security.spa.RequestBodyLoginFilter;
+import me.itzg.spring.security.spa.SinglePageAppConfigurer;
+import org.junit.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.http.HttpMessageConvertersAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.security.servlet.SecurityAutoConfiguration;
+import org.springframework.boot.autoconfigure.security.servlet.UserDetailsServiceAutoConfiguration;
+import org.springframework.boot.test.context.runner.WebApplicationContextRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.password.NoOpPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+import org.springframework.security.provisioning.UserDetailsManager;
+import org.springframework.security.web.FilterChainProxy;
+import org.springframework.security.web.csrf.CsrfFilter;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import javax.servlet.Filter;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * @author Geoff Bourne
+ * @since Oct 2026
+ */
+public class SinglePageAppAutoConfigurationTest {
+
+    private final WebApplicationContextRunner contextRunner = new WebApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(
+                    SinglePageAppAutoConfiguration.class,
+                    SecurityAutoConfiguration.class,
+                    UserDetailsServiceAutoConfiguration.class,
+                    HttpMessageConvertersAutoConfiguration.class,
+                    JacksonAutoConfiguration.class));
+
+    @Test
+    public void registersAndLogsInWithProperties() {
+        contextRunner
+                .withPropertyValues("spa.security.enabled=true", "spa.security.register-url=/api/register", "spa.security.login-url=/api/login",
+                        "spa.security.status.registration=200", "spa.security.initial-roles=MEMBER",
+                        "spa.security.json-success-body=true")
+                .run(context -> {
+                    assertThat(context).hasSingleBean(PasswordEncoder.class);
+                    assertThat(context).hasSingleBean(UserDetailsManager.class);
+                    assertThat(filters(context)).hasAtLeastOneElementOfType(RegistrationFilter.class)
+                            .hasAtLeastOneElementOfType(RequestBodyLoginFilter.class);
+
+                    final MockMvc mvc = MockMvcBuilders.webAppContextSetup(context)
+                            .addFilters(context.getBean(FilterChainProxy.class))
+                            .build();
+                    mvc.perform(post("/api/register").contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"username\":\"user\",\"password\":\"password\"}"))
+                            .andExpect(status().isOk())
+                            .andExpect(content().json("{\"name\":\"user\",\"authorities\":[\"ROLE_MEMBER\"]}"));
+                    mvc.perform(post("/api/login").contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"username\":\"user\",\"password\":\"wrong\"}"))
+                            .andExpect(status().isUnauthorized());
+                    mvc.perform(get("/anything"))
+                            .andExpect(status().isForbidden());
+
+                    assertThat(context.getBean(UserDetailsManager.class).loadUserByUsername("user").getAuthorities())
+                            .extracting("authority").containsExactly("ROLE_MEMBER");
+                });
+    }
+
+    @Test
+    public void backsOffFromApplicationBeans() {
+        contextRunner
+                .withPropertyValues("spa.security.enabled=true")
+                .withUserConfiguration(CustomPasswordEncoderConfig.class)
+                .run(context -> {
+                    assertThat(context).getBean(PasswordEncoder.class).isSameAs(NoOpPasswordEncoder.getInstance());
+                    assertThat(context).hasSingleBean(SinglePageAppConfigurer.class);
+                });
+    }
+
+    @Test
+    public void leavesBootSecurityAloneUnlessEnabled() {
+        contextRunner
+                .run(context -> {
+                    assertThat(filters(context))
+                            .doesNotHaveAnyElementsOfTypes(RegistrationFilter.class)
+                            .hasAtLeastOneElementOfType(CsrfFilter.class);
+                    assertThat(context).doesNotHaveBean(SinglePageAppConfigurer.class);
+                    // Spring Boot's generated user
+                    assertThat(context.getBean(UserDetailsService.class).loadUserByUsername("user")).isNotNull();
+                });
+    }
+
+    @Test
+    public void offersConfigurerForApplicationUserStore() {
+        contextRunner
+                .withUserConfiguration(CustomPasswordEncoderConfig.class, CustomUserStoreConfig.class)
+                .run(context -> {
+                    assertThat(context).hasSingleBean(SinglePageAppConfigurer.class);
+                    assertThat(filters(context)).hasAtLeastOneElementOfType(CsrfFilter.class);
+                });
+    }
+
+    private static List<Filter> filters(WebApplicationContext context) {
+        return context.getBean(FilterChainProxy.class).getFilterChains().get(0).getFilters();
+    }
+
+    @Configuration
+    static class CustomUserStoreConfig {
+        @Bean
+        public UserDetailsManager userDetailsManager() {
+            return new InMemoryUserDetailsManager();
+        }
+    }
+
+    @Configuration
+    static class CustomPasswordEncoderConfig {
+        @SuppressWarnings("deprecation")
+        @Bean
+        public PasswordEncoder passwordEncoder() {
+            return NoOpPasswordEncoder.getInstance();
+        }
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2018 Geoff Bourne
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package me.itzg.spring.security.spa.reactive;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.crypto.password.NoOpPasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.context.WebSessionServerSecurityContextRepository;
+import org.springframework.web.server.WebFilter;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Geoff Bourne
+ * @since Oct 2026
+ */
+public class CredentialsWebFilterTest {
+
+    private final Scheduler scheduler = Schedulers.newParallel("spa-test", 2, true);
+    private final AtomicReference<String> authenticatingThread = new AtomicReference<>();
+
+    private final ReactiveAuthenticationManager authenticationManager = authentication -> Mono.fromCallable(() -> {
+        authenticatingThread.set(Thread.currentThread().getName());
+        if (!"password".equals(authentication.getCredentials())) {
+            throw new BadCredentialsException("Bad credentials");
+        }
+        return new UsernamePasswordAuthenticationToken(authentication.getPrincipal(), null,
+                AuthorityUtils.createAuthorityList("ROLE_USER"));
+    });
+
+    @After
+    public void tearDown() {
+        scheduler.dispose();
+    }
+
+    @Test
+    public void successfulLoginSavesContext() {
+        final MockServerWebExchange exchange = exchange("/login", "{\"username\":\"user\",\"password\":\"password\"}");
+
+        run(loginFilter(), exchange);
+
+        assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(authenticatingThread.get()).startsWith("spa-test");
+        final SecurityContext securityContext = exchange.getSession().block()
+                .getAttribute(WebSessionServerSecurityContextRepository.DEFAULT_SPRING_SECURITY_CONTEXT_ATTR_NAME);
+        assertThat(securityContext).isNotNull();
+        assertThat(securityContext.getAuthentication().getName()).isEqualTo("user");
+    }
+
+    @Test
+    public void failedLogin() {
+        assertFailure(loginFilter(), exchange("/login", "{\"username\":\"user\",\"password\":\"wrong\"}"),
+                "Bad credentials");
+        assertFailure(loginFilter(), exchange("/login", "{\"username\":\"user\"}"),
+                "Missing password");
+        assertFailure(loginFilter(), exchange("/login", "{\"username\":"),
+                "Request body was invalid");
+    }
+
+    @Test
+    public void rejectsLargeBody() {
+        final RequestBodyLoginWebFilter filter = loginFilter();
+        filter.setMaxBodyLength(32);
+
+        assertFailure(filter, exchange("/login",
+                "{\"username\":\"user\",\"password\":\"password\",\"padding\":\"................\"}"),
+                "Request body is too large");
+    }
+
+    @Test
+    public void otherPathsContinueChain() {
+        final MockServerWebExchange exchange = exchange("/other", "{}");
+        final AtomicReference<Boolean> chained = new AtomicReference<>(false);
+
+        loginFilter().filter(exchange, e -> Mono.fromRunnable(() -> chained.set(true))).block();
+
+        assertThat(chained.get()).isTrue();
+        assertThat(exchange.getResponse().getStatusCode()).isNull();
+    }
+
+    @SuppressWarnings("deprecation")
+    @Test
+    public void registration() {
+        final InMemoryUserDetailsManager userDetailsManager = new InMemoryUserDetailsManager(
+                User.withUsername("existing").password("password").roles("USER").build());
+        final RegistrationWebFilter filter = new RegistrationWebFilter(userDetailsManager,
+                NoOpPasswordEncoder.getInstance());
+        filter.setScheduler(scheduler);
+
+        final MockServerWebExchange exchange = exchange("/register",
+                "{\"username\":\"new-user\",\"password\":\"new-password\"}");
+        run(filter, exchange);
+
+        assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(userDetailsManager.loadUserByUsername("new-user").getPassword()).isEqualTo("new-password");
+
+        assertFailure(filter, exchange("/register", "{\"username\":\"existing\",\"password\":\"password\"}"),
+                "Username is already in use");
+        final MockServerWebExchange wrongContent = MockServerWebExchange.from(MockServerHttpRequest.post("/register")
+                .contentType(MediaType.TEXT_PLAIN).body("user=user2"));
+        assertFailure(filter, wrongContent, "Invalid request content");
+    }
+
+    @SuppressWarnings("deprecation")
+    @Test
+    public void configurerInstallsFilters() {
+        final SecurityWebFilterChain chain = new ReactiveSinglePageAppConfigurer(new InMemoryUserDetailsManager(),
+                NoOpPasswordEncoder.getInstance())
+                .scheduler(scheduler)
+                .configure(ServerHttpSecurity.http())
+                .authorizeExchange().anyExchange().permitAll()
+                .and().build();
+
+        final List<WebFilter> filters = chain.getWebFilters().collectList().block();
+        assertThat(filters)
+                .hasAtLeastOneElementOfType(RegistrationWebFilter.class)
+                .hasAtLeastOneElementOfType(RequestBodyLoginWebFilter.class);
+    }
+
+    @SuppressWarnings("deprecation")
+    @Test
+    public void configurerCreatesAndDisposesOneScheduler() {
+        final ReactiveSinglePageAppConfigurer configurer = new ReactiveSinglePageAppConfigurer(
+                new InMemoryUserDetailsManager(), NoOpPasswordEncoder.getInstance());
+        final List<WebFilter> first = configurer.configure(ServerHttpSecurity.http())
+                .authorizeExchange().anyExchange().permitAll()
+                .and().build().getWebFilters().collectList().block();
+        final List<WebFilter> second = configurer.configure(ServerHttpSecurity.http())
+                .authorizeExchange().anyExchange().permitAll()
+                .and().build().getWebFilters().collectList().block();
+
+        final Scheduler owned = scheduler(first);
+        assertThat(owned).isSameAs(scheduler(second)).isNotSameAs(Schedulers.parallel());
+        configurer.destroy();
+        assertThat(owned.isDisposed()).isTrue();
+    }
+
+    private static Scheduler scheduler(List<WebFilter> filters) {
+        final RegistrationWebFilter filter = filters.stream()
+                .filter(RegistrationWebFilter.class::isInstance)
+                .map(RegistrationWebFilter.class::cast)
+                .findFirst().orElseThrow(IllegalStateException::new);
+        return filter.getScheduler();
+    }
+
+    private RequestBodyLoginWebFilter loginFilter() {
+        final RequestBodyLoginWebFilter filter = new RequestBodyLoginWebFilter(authenticationManager);
+        filter.setScheduler(scheduler);
+        return filter;
+    }
+
+    private static MockServerWebExchange exchange(String path, String body) {
+        return MockServerWebExchange.from(MockServerHttpRequest.post(path)
+                .contentType(MediaType.APPLICATION_JSON).body(body));
+    }
+
+    private static void run(WebFilter filter, MockServerWebExchange exchange) {
+        filter.filter(exchange, e -> Mono.error(new IllegalStateException("chain should not be invoked")))
+                .block();
+    }
+
+    private static void assertFailure(WebFilter filter, MockServerWebExchange exchange, String message) {
+        run(filter, exchange);
+        assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+        assertThat(exchange.getResponse().getBodyAsString().block()).isEqualTo(message);
+    }
+}